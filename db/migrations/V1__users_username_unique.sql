@@ -0,0 +1,5 @@
+-- Índice único sobre users.username
+-- El login busca la contraseña por nombre de usuario en cada intento; sin índice cada
+-- búsqueda recorre la tabla completa. El índice también impide nombres duplicados.
+-- Si ya existen duplicados, la migración falla: hay que resolverlos antes de aplicarla.
+ALTER TABLE users ADD CONSTRAINT uq_users_username UNIQUE (username);
@@ -0,0 +1,7 @@
+-- Columna updated_at en products
+-- La vista del catálogo en memoria arranca desde una instantánea en disco y después sólo
+-- vuelve a leer las filas con updated_at posterior a la instantánea. MySQL la mantiene
+-- en cada INSERT y UPDATE que cambia algún valor, sin tocar las consultas de la aplicación.
+ALTER TABLE products
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+CREATE INDEX idx_products_updated_at ON products (updated_at);
@@ -0,0 +1,15 @@
+-- Registro de bajas de products
+-- La vista del catálogo en memoria lee sólo las filas con updated_at reciente, pero una
+-- fila borrada ya no está para leerla: sin este registro cada conciliación recorre todos
+-- los IDs de la tabla. El disparador lo mantiene en cada DELETE, venga del nodo que venga,
+-- sin tocar las consultas de la aplicación. Las conciliaciones completas podan las bajas
+-- de más de un día.
+-- Crear el disparador requiere el privilegio TRIGGER (y, con el binlog activo,
+-- log_bin_trust_function_creators); sin él la vista recorre los IDs en cada conciliación.
+CREATE TABLE product_deletions (
+    id VARCHAR(255) PRIMARY KEY,
+    deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_product_deletions_deleted_at (deleted_at)
+);
+CREATE TRIGGER trg_products_deleted AFTER DELETE ON products FOR EACH ROW
+    INSERT INTO product_deletions (id) VALUES (OLD.id) ON DUPLICATE KEY UPDATE deleted_at = CURRENT_TIMESTAMP(3);
@@ -0,0 +1,56 @@
+package app.apiRESTful.bench;
+
+import app.apiRESTful.auth.AuthManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de emitir y validar tokens JWT con {@link AuthManager}.
+ *
+ * {@code validateToken} valida siempre el mismo token, así que mide el camino habitual
+ * de un cliente que repite su token (servido desde la caché de tokens verificados).
+ * {@code validateNewToken} emite y valida un token nuevo en cada operación, que es el
+ * coste de la primera solicitud tras el login (firma + verificación HMAC completa).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthManagerBenchmark {
+
+    private AuthManager authManager;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        authManager = new AuthManager();
+        token = authManager.generateToken("bench-user", 60);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return authManager.generateToken("bench-user", 15);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return authManager.validateToken(token);
+    }
+
+    @Benchmark
+    public boolean validateNewToken() {
+        return authManager.validateToken(authManager.generateToken("bench-user", 15));
+    }
+}
@@ -0,0 +1,218 @@
+package app.apiRESTful.bench;
+
+import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.dao.ProductRepository;
+import app.apiRESTful.dao.RowHandler;
+import app.apiRESTful.dao.SnapshotProductDAO;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.search.ProductRangeIndex;
+import app.apiRESTful.search.ProductSearchIndex;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tiempo hasta la primera solicitud servida tras un arranque, con y sin instantánea del
+ * catálogo ({@link SnapshotProductDAO}).
+ *
+ * Cada medición reproduce el arranque de {@code App}: construir los DAO, leer el catálogo para
+ * los índices de búsqueda y de rangos, levantar un {@code HttpServer} y atender
+ * {@code GET /products}. Sin instantánea, el catálogo y la página salen de la base de datos;
+ * con instantánea, de la vista en memoria, y la conciliación corre en segundo plano. La base
+ * de datos se simula con una latencia por consulta y una velocidad de lectura de filas.
+ * Con {@code -Dbench.indexes=false} no se construyen los índices, cuyo coste es el mismo en
+ * ambos casos, y se mide sólo la lectura del catálogo.
+ *
+ * Ejecución:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=app.apiRESTful.bench.CatalogWarmStartBenchmark
+ *
+ * Propiedades opcionales: -Dbench.products=100000 -Dbench.dbLatencyMs=5
+ * -Dbench.dbRowsPerSecond=200000 -Dbench.runs=5 -Dbench.indexes=true
+ */
+public class CatalogWarmStartBenchmark {
+
+    private static final boolean INDEXES = Boolean.parseBoolean(System.getProperty("bench.indexes", "true"));
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        int size = Integer.getInteger("bench.products", 100_000);
+        long latencyMs = Long.getLong("bench.dbLatencyMs", 5);
+        long rowsPerSecond = Long.getLong("bench.dbRowsPerSecond", 200_000);
+        int runs = Integer.getInteger("bench.runs", 5);
+
+        SimulatedDatabase db = new SimulatedDatabase(catalog(size), latencyMs, rowsPerSecond);
+        Path dir = Files.createTempDirectory("catalog-bench");
+        Path file = dir.resolve("catalog.snap");
+        try {
+            // Instantánea de partida, como la que deja el nodo anterior al apagarse
+            SnapshotProductDAO previous = new SnapshotProductDAO(db, db, file);
+            previous.reconcile();
+            previous.save();
+
+            System.out.printf("Productos: %d, latencia simulada: %d ms, lectura: %d filas/s, instantánea: %.1f MB, índices: %s%n",
+                    size, latencyMs, rowsPerSecond, Files.size(file) / 1e6, INDEXES ? "sí" : "no");
+            System.out.printf("%-16s %14s %14s%n", "arranque", "mediana (ms)", "mínimo (ms)");
+            report("sin instantánea", measure(runs, () -> startCold(db)));
+            report("con instantánea", measure(runs, () -> startWarm(db, file)));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static ProductRepository startCold(ProductDAOSQL db) throws SQLException {
+        buildIndexes(db);
+        return db;
+    }
+
+    private static ProductRepository startWarm(ProductDAOSQL db, Path file) throws IOException, SQLException {
+        SnapshotProductDAO view = new SnapshotProductDAO(db, db, file);
+        view.load();
+        buildIndexes(view);
+        Thread.startVirtualThread(() -> {
+            try {
+                view.reconcile();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        return view;
+    }
+
+    // Igual que App: los índices en memoria se construyen antes de aceptar solicitudes
+    private static void buildIndexes(ProductRepository dao) throws SQLException {
+        List<Product> catalog = dao.getAllProducts();
+        if (!INDEXES) {
+            return;
+        }
+        new ProductSearchIndex().rebuild(catalog);
+        new ProductRangeIndex().rebuild(catalog);
+    }
+
+    private static double[] measure(int runs, Startup startup) throws Exception {
+        double[] millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            ProductRepository dao = startup.start();
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/products", exchange -> {
+                ProductPage page;
+                try {
+                    page = dao.getProductsPage(new ProductQuery());
+                } catch (SQLException e) {
+                    throw new IOException(e);
+                }
+                byte[] body = ("{\"items\":" + page.getItems().size() + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            server.start();
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/products")).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            server.stop(0);
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Unexpected status " + response.statusCode());
+            }
+        }
+        return millis;
+    }
+
+    private static void report(String name, double[] millis) {
+        Arrays.sort(millis);
+        System.out.printf("%-16s %14.1f %14.1f%n", name, millis[millis.length / 2], millis[0]);
+    }
+
+    private static List<Product> catalog(int size) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product(String.format("%08d", i), "Producto " + i,
+                    "Descripción del producto " + i + " con algo de texto para la búsqueda",
+                    1 + random.nextInt(100_000) / 100.0, random.nextInt(500)));
+        }
+        return products;
+    }
+
+    @FunctionalInterface
+    private interface Startup {
+        ProductRepository start() throws Exception;
+    }
+
+    /**
+     * Base de datos simulada: cada consulta espera la latencia más el tiempo de leer sus filas.
+     */
+    private static final class SimulatedDatabase extends ProductDAOSQL {
+        private final List<Product> rows;
+        private final long latencyMs;
+        private final long rowsPerSecond;
+
+        SimulatedDatabase(List<Product> rows, long latencyMs, long rowsPerSecond) {
+            this.rows = rows;
+            this.latencyMs = latencyMs;
+            this.rowsPerSecond = rowsPerSecond;
+        }
+
+        @Override
+        public List<Product> getAllProducts() {
+            query(rows.size());
+            return new ArrayList<>(rows);
+        }
+
+        @Override
+        public ProductPage getProductsPage(ProductQuery query) {
+            query(query.getLimit());
+            return new ProductPage(new ArrayList<>(rows.subList(0, Math.min(query.getLimit(), rows.size()))), null);
+        }
+
+        @Override
+        public long streamProductsChangedSince(long sinceMillis, RowHandler<Product> handler) throws IOException {
+            // Tras la instantánea no ha cambiado nada: sólo se paga la consulta
+            if (sinceMillis > 0) {
+                query(0);
+                return sinceMillis;
+            }
+            query(rows.size());
+            for (Product product : rows) {
+                handler.handle(product);
+            }
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void streamProductIds(RowHandler<String> handler) throws IOException {
+            query(rows.size() / 10);
+            for (Product product : rows) {
+                handler.handle(product.getId());
+            }
+        }
+
+        private void query(long rowCount) {
+            try {
+                Thread.sleep(latencyMs + rowCount * 1000 / rowsPerSecond);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package app.apiRESTful.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lanzador de los benchmarks JMH de las rutas calientes de cada solicitud.
+ *
+ * Ejecuta todos los {@code @Benchmark} del proyecto (o los indicados en la línea de
+ * comandos) con el perfilador de GC activado, de modo que además del rendimiento
+ * (operaciones por segundo) se informa de la tasa de asignación ({@code gc.alloc.rate.norm},
+ * bytes por operación).
+ *
+ * Ejecución:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=app.apiRESTful.bench.HotPathBenchmarks
+ *
+ * Los argumentos son los de JMH; por ejemplo, para un único benchmark y una ejecución corta:
+ * -Dbenchmark.args="ProductSerializationBenchmark -f 1 -wi 2 -i 3"
+ */
+public class HotPathBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("app\\.apiRESTful\\..*Benchmark\\..*");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package app.apiRESTful.bench;
+
+import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.auth.CredentialStore;
+import app.apiRESTful.json.RequestBodies;
+import app.apiRESTful.model.User;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logins por segundo del camino de /login sin HTTP: lectura del cuerpo, análisis JSON,
+ * verificación de credenciales y, si son válidas, emisión del token.
+ *
+ * La base de datos se simula con un mapa y una espera de {@code dbMicros} por consulta
+ * (la ida y vuelta a MySQL con índice). Los benchmarks "legacy" reproducen el camino
+ * anterior: un Gson nuevo por solicitud, lectura línea a línea y consulta siempre a la base
+ * de datos; {@code unknownUser} usa un nombre distinto en cada operación (sin caché) y
+ * {@code credentialStuffing} repite un conjunto pequeño de nombres inexistentes, como una
+ * ráfaga de intentos, que se sirve desde la caché negativa.
+ *
+ * Ejecución:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=app.apiRESTful.bench.HotPathBenchmarks -Dbenchmark.args=LoginBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LoginBenchmark {
+
+    @Param({"0", "200"})
+    public long dbMicros;
+
+    private final Map<String, String> users = Map.of("sergio", "123", "daniel", "111", "admin", "321");
+    private final byte[] validBody = "{\"username\":\"sergio\",\"password\":\"123\"}".getBytes(StandardCharsets.UTF_8);
+    private final String[] stuffingBodies = new String[64];
+    private AuthManager authManager;
+    private CredentialStore store;
+
+    @Setup
+    public void setUp() {
+        authManager = new AuthManager();
+        store = new CredentialStore(this::findPassword, 10_000, 30, TimeUnit.SECONDS);
+        for (int i = 0; i < stuffingBodies.length; i++) {
+            stuffingBodies[i] = "{\"username\":\"intruder" + i + "\",\"password\":\"hunter2\"}";
+        }
+    }
+
+    private String findPassword(String username) {
+        if (dbMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbMicros));
+        }
+        return users.get(username);
+    }
+
+    @Benchmark
+    public String validLogin() throws Exception {
+        User credentials = RequestBodies.readUser(read(validBody));
+        return store.verify(credentials.getUsername(), credentials.getPassword())
+                ? authManager.generateToken(credentials.getUsername(), 15) : null;
+    }
+
+    @Benchmark
+    public String validLoginLegacy() throws Exception {
+        User credentials = new Gson().fromJson(readLines(validBody), User.class);
+        return findPassword(credentials.getUsername()) != null
+                ? authManager.generateToken(credentials.getUsername(), 15) : null;
+    }
+
+    @Benchmark
+    public boolean unknownUser() throws Exception {
+        String body = "{\"username\":\"u" + ThreadLocalRandom.current().nextLong() + "\",\"password\":\"x\"}";
+        User credentials = RequestBodies.readUser(body.getBytes(StandardCharsets.UTF_8));
+        return store.verify(credentials.getUsername(), credentials.getPassword());
+    }
+
+    @Benchmark
+    public boolean credentialStuffing() throws Exception {
+        String body = stuffingBodies[ThreadLocalRandom.current().nextInt(stuffingBodies.length)];
+        User credentials = RequestBodies.readUser(read(body.getBytes(StandardCharsets.UTF_8)));
+        return store.verify(credentials.getUsername(), credentials.getPassword());
+    }
+
+    @Benchmark
+    public boolean credentialStuffingLegacy() throws Exception {
+        String body = stuffingBodies[ThreadLocalRandom.current().nextInt(stuffingBodies.length)];
+        User credentials = new Gson().fromJson(readLines(body.getBytes(StandardCharsets.UTF_8)), User.class);
+        return credentials.getPassword().equals(findPassword(credentials.getUsername()));
+    }
+
+    private static byte[] read(byte[] body) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(body)) {
+            return in.readNBytes(4097);
+        }
+    }
+
+    private static String readLines(byte[] body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        StringBuilder builder = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            builder.append(line);
+        }
+        return builder.toString();
+    }
+}
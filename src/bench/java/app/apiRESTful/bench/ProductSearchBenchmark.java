@@ -0,0 +1,70 @@
+package app.apiRESTful.bench;
+
+import app.apiRESTful.model.Product;
+import app.apiRESTful.search.ProductSearchIndex;
+import app.apiRESTful.search.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de {@link ProductSearchIndex#search} sobre un catálogo sintético de
+ * {@code size} productos, para una consulta de un término y otra de dos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "monitor", "teclado", "ratón", "pantalla", "portátil", "cable", "cargador", "auriculares",
+            "inalámbrico", "mecánico", "pulgadas", "negro", "blanco", "gaming", "oficina", "usb"
+    };
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 12; w++) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            products.add(new Product(String.valueOf(i), name, description.toString(), 10.0 + i, i % 100));
+        }
+        index = new ProductSearchIndex();
+        index.rebuild(products);
+    }
+
+    @Benchmark
+    public SearchResult singleTerm() {
+        return index.search("monitor", 0, 20);
+    }
+
+    @Benchmark
+    public SearchResult twoTerms() {
+        return index.search("teclado mecanico", 0, 20);
+    }
+}
@@ -0,0 +1,74 @@
+package app.apiRESTful.bench;
+
+import app.apiRESTful.json.JsonWriter;
+import app.apiRESTful.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de listas de productos a JSON.
+ *
+ * {@code listToString} es el camino basado en {@link Product#toString()}: se construye
+ * el texto completo y luego se codifica a UTF-8, así que la memoria asignada crece con el
+ * tamaño de la lista. {@code jsonWriter} escribe la misma salida en flujo con
+ * {@link JsonWriter}, como hace {@code GET /products}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product("product-" + i, "Producto " + i, "Descripción del producto " + i,
+                    10.0 + i, i % 100));
+        }
+    }
+
+    @Benchmark
+    public byte[] listToString() {
+        return products.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void jsonWriter() throws IOException {
+        JsonWriter json = new JsonWriter(OutputStream.nullOutputStream());
+        json.beginArray();
+        for (Product product : products) {
+            json.beginObject()
+                    .name("id").value(product.getId())
+                    .name("name").value(product.getName())
+                    .name("description").value(product.getDescription())
+                    .name("price").value(product.getPrice())
+                    .name("quantity").value(product.getQuantity())
+                    .endObject();
+        }
+        json.endArray().close();
+    }
+}
@@ -0,0 +1,119 @@
+package app.apiRESTful.bench;
+
+import app.apiRESTful.server.RequestExecutors;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark de rendimiento del servidor HTTP según el modo de ejecución.
+ *
+ * Levanta un {@code HttpServer} local cuyo handler simula una llamada JDBC bloqueante
+ * (por defecto 5 ms) y mide las solicitudes por segundo con 1, 16 y 256 clientes
+ * concurrentes para cada modo de {@link RequestExecutors.Mode}.
+ *
+ * Ejecución:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=app.apiRESTful.bench.ServerThroughputBenchmark
+ *
+ * Propiedades opcionales: -Dbench.latencyMs=5 -Dbench.seconds=5 -Dbench.concurrency=64 -Dbench.queue=1000
+ */
+public class ServerThroughputBenchmark {
+
+    private static final int[] CLIENTS = {1, 16, 256};
+
+    public static void main(String[] args) throws Exception {
+        // Igual que App: sin Nagle, para que cabeceras y cuerpo no esperen al ACK retardado
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        long latencyMs = Long.getLong("bench.latencyMs", 5);
+        int seconds = Integer.getInteger("bench.seconds", 5);
+        int concurrency = Integer.getInteger("bench.concurrency", 64);
+        int queue = Integer.getInteger("bench.queue", 1000);
+
+        System.out.printf("Latencia simulada del handler: %d ms, duración por medición: %d s%n", latencyMs, seconds);
+        System.out.printf("%-12s %8s %14s%n", "modo", "clientes", "req/s");
+
+        for (RequestExecutors.Mode mode : RequestExecutors.Mode.values()) {
+            for (int clients : CLIENTS) {
+                double throughput = run(mode, clients, latencyMs, seconds, concurrency, queue);
+                System.out.printf("%-12s %8d %14.1f%n", mode.name().toLowerCase(), clients, throughput);
+            }
+        }
+    }
+
+    private static double run(RequestExecutors.Mode mode, int clients, long latencyMs, int seconds,
+                              int concurrency, int queue) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        byte[] body = "[]".getBytes();
+        server.createContext("/products", exchange -> {
+            try {
+                Thread.sleep(latencyMs); // Simula la espera de MySQL
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        ExecutorService executor = RequestExecutors.create(mode, concurrency, queue);
+        server.setExecutor(executor);
+        server.start();
+
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/products");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        LongAdder completed = new LongAdder();
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < clients; i++) {
+            clientThreads.submit(() -> {
+                while (running.get()) {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200 && measuring.get()) {
+                            completed.increment();
+                        }
+                    } catch (Exception e) {
+                        if (running.get()) {
+                            System.err.println("Error del cliente: " + e.getMessage());
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        // Calentamiento de un segundo antes de medir
+        Thread.sleep(1000);
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        measuring.set(false);
+        long elapsed = System.nanoTime() - start;
+        running.set(false);
+
+        server.stop(0);
+        clientThreads.shutdownNow();
+        clientThreads.awaitTermination(5, TimeUnit.SECONDS);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        return completed.sum() / (elapsed / 1_000_000_000.0);
+    }
+}
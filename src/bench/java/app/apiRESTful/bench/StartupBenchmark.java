@@ -0,0 +1,183 @@
+package app.apiRESTful.bench;
+
+import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.dao.InMemoryProductRepository;
+import app.apiRESTful.dao.InMemoryStore;
+import app.apiRESTful.model.Product;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo desde que se lanza la JVM de {@code App} hasta la primera respuesta 200 de
+ * {@code GET /products}.
+ *
+ * Cada medición lanza un proceso nuevo con el almacén en memoria, cargado desde una
+ * instantánea con el catálogo de prueba, y consulta /products cada pocos milisegundos hasta
+ * obtener un 200. Se comparan los modos de INDEX_BUILD (eager construye los índices antes de
+ * abrir el puerto; background, justo después; lazy, con la primera solicitud que los usa)
+ * sin CDS, con el archivo de clases del JDK y con el de la aplicación (perfil cds del pom).
+ * El archivo de la aplicación sólo se usa si se lanza desde el jar con el que se generó.
+ *
+ * Ejecución:
+ * mvn -Pcds package
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=app.apiRESTful.bench.StartupBenchmark
+ *
+ * Propiedades opcionales: -Dbench.products=100000 -Dbench.runs=5 -Dbench.jar=target/&lt;jar&gt;
+ * -Dbench.archive=target/app.jsa
+ */
+public class StartupBenchmark {
+
+    private static final String[] INDEX_BUILDS = {"eager", "background", "lazy"};
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    public static void main(String[] args) throws Exception {
+        int size = Integer.getInteger("bench.products", 100_000);
+        int runs = Integer.getInteger("bench.runs", 5);
+        String jarProperty = System.getProperty("bench.jar");
+        Path jar = jarProperty != null ? Paths.get(jarProperty) : findJar(Paths.get("target"));
+        Path archive = Paths.get(System.getProperty("bench.archive", "target/app.jsa"));
+
+        Path dir = Files.createTempDirectory("startup-bench");
+        Path snapshot = dir.resolve("store.snap");
+        Path log = dir.resolve("app.log");
+        try {
+            writeCatalog(snapshot, size);
+            String token = new AuthManager().generateToken("bench", 60);
+            HttpClient client = HttpClient.newHttpClient();
+
+            List<String> launch = new ArrayList<>();
+            launch.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            if (jar != null) {
+                launch.addAll(Arrays.asList("-jar", jar.toString()));
+            } else {
+                launch.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), "app.apiRESTful.App"));
+            }
+            boolean appCds = jar != null && Files.exists(archive);
+
+            System.out.printf("Productos: %d, lanzamiento: %s, archivo AppCDS: %s%n", size,
+                    jar != null ? jar : "classpath", appCds ? archive : "no (ejecuta mvn -Pcds package)");
+            System.out.printf("%-12s %-16s %14s %14s%n", "INDEX_BUILD", "clases", "mediana (ms)", "mínimo (ms)");
+            for (String indexBuild : INDEX_BUILDS) {
+                report(indexBuild, "sin CDS", measure(runs, with(launch, "-Xshare:off"), indexBuild, snapshot, log, client, token));
+                report(indexBuild, "CDS del JDK", measure(runs, launch, indexBuild, snapshot, log, client, token));
+                if (appCds) {
+                    report(indexBuild, "AppCDS", measure(runs, with(launch, "-XX:SharedArchiveFile=" + archive),
+                            indexBuild, snapshot, log, client, token));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(log);
+            Files.delete(dir);
+        }
+    }
+
+    private static double[] measure(int runs, List<String> command, String indexBuild, Path snapshot, Path log,
+                                    HttpClient client, String token) throws Exception {
+        double[] millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            int port = freePort();
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile());
+            builder.environment().put("STORAGE_BACKEND", "memory");
+            builder.environment().put("MEMORY_SNAPSHOT_FILE", snapshot.toString());
+            builder.environment().put("MEMORY_SNAPSHOT_INTERVAL_SECONDS", "0");
+            builder.environment().put("SERVER_PORT", String.valueOf(port));
+            builder.environment().put("RATE_LIMIT_ENABLED", "false");
+            builder.environment().put("INDEX_BUILD", indexBuild);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/products"))
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+
+            long start = System.nanoTime();
+            Process process = builder.start();
+            try {
+                millis[i] = firstOk(client, request, process, start, log);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+        return millis;
+    }
+
+    // Consulta hasta el primer 200 y devuelve los milisegundos desde el lanzamiento
+    private static double firstOk(HttpClient client, HttpRequest request, Process process, long start, Path log)
+            throws Exception {
+        while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS)) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("App exited with " + process.exitValue() + ":\n" + Files.readString(log));
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return (System.nanoTime() - start) / 1e6;
+                }
+            } catch (ConnectException e) {
+                // El puerto aún no está abierto
+            }
+            Thread.sleep(2);
+        }
+        throw new IllegalStateException("No 200 from /products after " + TIMEOUT_MILLIS + " ms:\n" + Files.readString(log));
+    }
+
+    private static void report(String indexBuild, String classes, double[] millis) {
+        Arrays.sort(millis);
+        System.out.printf("%-12s %-16s %14.1f %14.1f%n", indexBuild, classes, millis[millis.length / 2], millis[0]);
+    }
+
+    private static List<String> with(List<String> launch, String option) {
+        List<String> command = new ArrayList<>(launch);
+        command.add(1, option);
+        return command;
+    }
+
+    private static void writeCatalog(Path snapshot, int size) throws IOException {
+        InMemoryStore store = new InMemoryStore(snapshot);
+        InMemoryProductRepository products = store.getProducts();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            products.addProduct(new Product(String.format("%08d", i), "Producto " + i,
+                    "Descripción del producto " + i + " con algo de texto para la búsqueda",
+                    1 + random.nextInt(100_000) / 100.0, random.nextInt(500)));
+        }
+        store.save();
+    }
+
+    // El jar de la aplicación en target/, si ya se empaquetó
+    private static Path findJar(Path target) throws IOException {
+        if (!Files.isDirectory(target)) {
+            return null;
+        }
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(target, "*.jar")) {
+            for (Path jar : jars) {
+                return jar;
+            }
+        }
+        return null;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package app.apiRESTful.controller;
+
+import app.apiRESTful.json.RequestBodies;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.User;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de interpretar los cuerpos de las solicitudes en los controladores.
+ *
+ * Compara, partiendo de los bytes del cuerpo como los entrega el servidor:
+ * - legacy: el análisis anterior con indexOf por campo sobre un String del cuerpo.
+ * - gson: Gson sobre un String del cuerpo.
+ * - bytes: {@link RequestBodies} con el lector de un solo paso sobre los bytes.
+ * Los cuerpos son compactos porque el análisis anterior no admite espacios tras ":".
+ *
+ * Está en el paquete de los controladores para acceder a sus métodos de análisis, que
+ * son de paquete. Cada benchmark extrae todos los campos que usa el handler real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestParsingBenchmark {
+
+    private static final Gson GSON = new Gson();
+
+    private final byte[] productBody =
+            "{\"name\":\"Monitor\",\"description\":\"Monitor Samsung 24 pulgadas\",\"price\":700.0,\"quantity\":20}"
+                    .getBytes(StandardCharsets.UTF_8);
+    private final byte[] userBody = "{\"username\":\"usuario1\",\"password\":\"contraseña1\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public void productLegacy(Blackhole blackhole) {
+        String body = new String(productBody, StandardCharsets.UTF_8);
+        blackhole.consume(extractJsonValue(body, "name"));
+        blackhole.consume(extractJsonValue(body, "description"));
+        blackhole.consume(Double.parseDouble(extractJsonValue(body, "price")));
+        blackhole.consume(Integer.parseInt(extractJsonValue(body, "quantity")));
+    }
+
+    @Benchmark
+    public Product productGson() {
+        return GSON.fromJson(new String(productBody, StandardCharsets.UTF_8), Product.class);
+    }
+
+    @Benchmark
+    public Product productBytes() {
+        return RequestBodies.readProduct(productBody);
+    }
+
+    @Benchmark
+    public void userLegacy(Blackhole blackhole) {
+        String body = new String(userBody, StandardCharsets.UTF_8);
+        blackhole.consume(extractJsonValue(body, "username"));
+        blackhole.consume(extractJsonValue(body, "password"));
+    }
+
+    @Benchmark
+    public User userGson() {
+        return GSON.fromJson(new String(userBody, StandardCharsets.UTF_8), User.class);
+    }
+
+    @Benchmark
+    public User userBytes() {
+        return AuthController.parseCredentials(userBody);
+    }
+
+    // Análisis anterior de ProductController/UserController, conservado como referencia
+    private static String extractJsonValue(String json, String key) {
+        String searchKey = "\"" + key + "\":";
+        int startIndex = json.indexOf(searchKey);
+        if (startIndex == -1) return null;
+
+        startIndex += searchKey.length();
+        char firstChar = json.charAt(startIndex);
+        if (firstChar == '"') {
+            int endIndex = json.indexOf('"', startIndex + 1);
+            return json.substring(startIndex + 1, endIndex);
+        } else {
+            int endIndex = json.indexOf(',', startIndex);
+            if (endIndex == -1) endIndex = json.indexOf('}', startIndex);
+            return json.substring(startIndex, endIndex).trim();
+        }
+    }
+}
@@ -1,73 +1,226 @@
 package app.apiRESTful;
 
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpExchange;
 
+import app.apiRESTful.cache.CacheStats;
 import app.apiRESTful.controller.AuthController;
+import app.apiRESTful.controller.MetricsController;
 import app.apiRESTful.controller.ProductController;
+import app.apiRESTful.controller.ProductSearchController;
+import app.apiRESTful.controller.ProductStreamController;
 import app.apiRESTful.controller.ProtectedController;
 import app.apiRESTful.controller.UserController;
+import app.apiRESTful.concurrent.Bulkhead;
+import app.apiRESTful.dao.AsyncProductDAO;
+import app.apiRESTful.dao.AsyncUserDAO;
+import app.apiRESTful.dao.CachedProductDAO;
+import app.apiRESTful.dao.InMemoryStore;
 import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.IndexedProductDAO;
+import app.apiRESTful.dao.ProductRepository;
+import app.apiRESTful.dao.SnapshotProductDAO;
 import app.apiRESTful.dao.UserDAOSQL;
+import app.apiRESTful.dao.UserRepository;
+import app.apiRESTful.dao.WriteBehindProductDAO;
+import app.apiRESTful.events.ProductEvents;
 import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.auth.CredentialStore;
+import app.apiRESTful.metrics.MetricsRegistry;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.ratelimit.RateLimitFilter;
+import app.apiRESTful.ratelimit.RateLimiter;
+import app.apiRESTful.search.LazyProductIndex;
+import app.apiRESTful.search.ProductRangeIndex;
+import app.apiRESTful.search.ProductSearchIndex;
+import app.apiRESTful.server.CompressionFilter;
+import app.apiRESTful.server.LazyHandler;
+import app.apiRESTful.server.RequestExecutors;
+import app.apiRESTful.server.StaticAssetHandler;
+import app.config.AppConfig;
+import app.database.ConnectionPool;
+import app.database.SchemaMigrator;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
-import java.nio.file.Files;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 
 public class App {
 
+    private static final String SWAGGER_UI_HTML = """
+            <html>
+            <head>
+                <link rel="stylesheet" href="https://cdn.jsdelivr.net/npm/swagger-ui-dist/swagger-ui.css">
+            </head>
+            <body>
+                <div id="swagger-ui"></div>
+                <script src="https://cdn.jsdelivr.net/npm/swagger-ui-dist/swagger-ui-bundle.js"></script>
+                <script>
+                    const ui = SwaggerUIBundle({
+                        url: '/swagger.json',
+                        dom_id: '#swagger-ui'
+                    });
+                </script>
+            </body>
+            </html>
+            """;
+
+    // Solicitudes de la ejecución de entrenamiento del archivo CDS (perfil cds del pom)
+    private static final String[] TRAINING_REQUESTS = {
+            "/products", "/products?sort=price", "/products/search?q=producto", "/products/top",
+            "/users", "/metrics", "/swagger.json", "/index.html"
+    };
+
+    /**
+     * Arranca la API. Con el argumento {@code --training} escucha en un puerto libre, recorre
+     * las rutas principales y termina: sirve para generar el archivo de clases compartidas
+     * (AppCDS) con las clases que se cargan al arrancar y atender las primeras solicitudes.
+     */
     public static void main(String[] args) throws IOException {
-        ProductDAOSQL productDAOSQL = new ProductDAOSQL();
-        UserDAOSQL userDAOSQL = new UserDAOSQL();
-        ProductController productController = new ProductController(productDAOSQL);
-        UserController userController = new UserController(userDAOSQL);
+        long startNanos = System.nanoTime();
+        boolean training = Arrays.asList(args).contains("--training");
+        // JJWT tarda en inicializarse y no depende de nada más: se adelanta en otro hilo
+        // mientras se montan los DAO (la primera solicitud a /products ya lo necesita)
+        Thread.ofVirtual().name("auth-init").start(AuthManager::new);
+        // Configuración leída una sola vez (.env y variables de entorno)
+        AppConfig config = AppConfig.getInstance();
+        MetricsRegistry metrics = new MetricsRegistry();
+        ProductRepository productDAOSQL;
+        UserRepository userDAOSQL;
+        SnapshotProductDAO catalogView = null;
+        // STORAGE_BACKEND: mysql (por defecto) o memory, sin base de datos
+        String backend = config.get("STORAGE_BACKEND", "mysql").trim().toLowerCase();
+        if ("memory".equals(backend)) {
+            InMemoryStore store = InMemoryStore.fromEnv(config);
+            productDAOSQL = store.getProducts();
+            userDAOSQL = store.getUsers();
+            CredentialStore.setInstance(CredentialStore.fromEnv(config, userDAOSQL::findPassword));
+            registerMemoryMetrics(metrics, store);
+        } else if ("mysql".equals(backend)) {
+            migrateSchema(config);
+            // Las escrituras asíncronas no expiran en el bulkhead: su límite es el de la sentencia
+            ProductDAOSQL jdbcDAO = new ProductDAOSQL(config.getInt("DAO_WRITE_TIMEOUT_SECONDS", 5));
+            // Escritura diferida opcional de PUT /products/{id} (WRITE_BEHIND_*)
+            WriteBehindProductDAO writeBehind = WriteBehindProductDAO.fromEnv(config, jdbcDAO);
+            productDAOSQL = writeBehind != null ? writeBehind : jdbcDAO;
+            // Vista del catálogo en memoria que arranca desde una instantánea (CATALOG_SNAPSHOT_*)
+            catalogView = SnapshotProductDAO.fromEnv(config, jdbcDAO, productDAOSQL);
+            if (catalogView != null) {
+                productDAOSQL = catalogView;
+                registerCatalogViewMetrics(metrics, catalogView);
+            }
+            userDAOSQL = new UserDAOSQL();
+            registerPoolMetrics(metrics);
+            if (writeBehind != null) {
+                registerWriteBehindMetrics(metrics, writeBehind);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown STORAGE_BACKEND: " + backend);
+        }
+        // En memoria la caché de lectura no ahorra nada: las lecturas ya no tocan disco ni red
+        if (!"memory".equals(backend) && catalogView == null
+                && config.getBoolean("PRODUCT_CACHE_ENABLED", true)) {
+            // Caché de lectura: el catálogo se lee muchas más veces de las que se escribe
+            productDAOSQL = new CachedProductDAO(productDAOSQL,
+                    config.getInt("PRODUCT_CACHE_MAX_ENTRIES", 10000),
+                    config.getLong("PRODUCT_CACHE_TTL_SECONDS", 60));
+        }
+        registerProductCacheMetrics(metrics, productDAOSQL);
 
-        HttpServer server = HttpServer.create(new InetSocketAddress(8000), 0);
-        try {
-            // Cargar el driver JDBC
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+        // Índices en memoria (texto, precio y cantidad) que el DAO mantiene al día. Sólo los
+        // usan /products/search y las páginas ordenadas por precio o cantidad, así que por
+        // defecto se construyen después de abrir el puerto (INDEX_BUILD)
+        String indexBuild = config.get("INDEX_BUILD", "background").trim().toLowerCase();
+        ProductRepository catalogSource = productDAOSQL;
+        LazyProductIndex<ProductSearchIndex> searchIndex = new LazyProductIndex<>(new ProductSearchIndex(), catalogSource::getAllProducts);
+        LazyProductIndex<ProductRangeIndex> rangeIndex = new LazyProductIndex<>(new ProductRangeIndex(), catalogSource::getAllProducts);
+        if ("eager".equals(indexBuild)) {
+            try {
+                List<Product> catalog = catalogSource.getAllProducts();
+                searchIndex.rebuild(catalog);
+                rangeIndex.rebuild(catalog);
+            } catch (SQLException e) {
+                // Sin catálogo no se construye nada: la primera solicitud que los use reintenta
+                System.err.println("Product indexes not built at startup: " + e.getMessage());
+            }
+        } else if (!"background".equals(indexBuild) && !"lazy".equals(indexBuild)) {
+            throw new IllegalArgumentException("Unknown INDEX_BUILD: " + indexBuild);
         }
-            server.createContext("/swagger.json", exchange -> {
-                String swaggerJson = new String(Files.readAllBytes(Paths.get("swagger.json"))); // Ruta al archivo swagger.json
-                exchange.getResponseHeaders().add("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, swaggerJson.getBytes().length);
-                OutputStream os = exchange.getResponseBody();
-                os.write(swaggerJson.getBytes());
-                os.close();
-            });
+        productDAOSQL = new IndexedProductDAO(productDAOSQL, searchIndex, rangeIndex);
+        if (catalogView != null) {
+            // Los cambios que trae la conciliación también llegan a los índices
+            catalogView.addIndex(searchIndex);
+            catalogView.addIndex(rangeIndex);
+            catalogView.start();
+        }
+        // Hasta que termina la construcción (INDEX_BUILD=background o lazy) el índice cuenta 0
+        // documentos: product_search_index_built distingue un catálogo vacío de uno sin indexar
+        metrics.gauge("product_search_documents", "Productos en el índice de búsqueda (0 hasta que se construye).", "", searchIndex::size);
+        metrics.gauge("product_search_index_built", "1 si el índice de búsqueda ya se construyó.", "",
+                () -> searchIndex.isBuilt() ? 1 : 0);
+        ProductSearchController searchController = new ProductSearchController(searchIndex::getIndex);
 
-            server.createContext("/swagger-ui", exchange -> {
-                String response = """
-                    <html>
-                    <head>
-                        <link rel="stylesheet" href="https://cdn.jsdelivr.net/npm/swagger-ui-dist/swagger-ui.css">
-                    </head>
-                    <body>
-                        <div id="swagger-ui"></div>
-                        <script src="https://cdn.jsdelivr.net/npm/swagger-ui-dist/swagger-ui-bundle.js"></script>
-                        <script>
-                            const ui = SwaggerUIBundle({
-                                url: '/swagger.json',
-                                dom_id: '#swagger-ui'
-                            });
-                        </script>
-                    </body>
-                    </html>
-                    """;
-                exchange.getResponseHeaders().add("Content-Type", "text/html");
-                exchange.sendResponseHeaders(200, response.getBytes().length);
-                OutputStream os = exchange.getResponseBody();
-                os.write(response.getBytes());
-                os.close();
-            });
+        // Bulkheads: productos y usuarios consultan la base de datos con hilos separados, de
+        // modo que una consulta lenta de un lado no agota los hilos del otro
+        long daoTimeoutMillis = config.getLong("DAO_TIMEOUT_MS", 2000);
+        Bulkhead productBulkhead = new Bulkhead("products",
+                config.getInt("DAO_PRODUCT_THREADS", 6),
+                config.getInt("DAO_PRODUCT_QUEUE", 200));
+        Bulkhead userBulkhead = new Bulkhead("users",
+                config.getInt("DAO_USER_THREADS", 2),
+                config.getInt("DAO_USER_QUEUE", 50));
+        registerBulkheadMetrics(metrics, productBulkhead);
+        registerBulkheadMetrics(metrics, userBulkhead);
+
+        // Flujo SSE de cambios del catálogo (GET /products/stream)
+        ProductEvents productEvents = ProductEvents.fromEnv(config);
+        registerEventMetrics(metrics, productEvents);
+        ProductStreamController streamController = new ProductStreamController(productEvents);
+
+        ProductController productController = new ProductController(productDAOSQL,
+                new AsyncProductDAO(productDAOSQL, productBulkhead, daoTimeoutMillis),
+                config.getInt("PRODUCT_BATCH_CHUNK_SIZE", ProductController.DEFAULT_BATCH_CHUNK_SIZE),
+                config.getInt("PRODUCT_BATCH_MAX_ITEMS", ProductController.DEFAULT_BATCH_MAX_ITEMS),
+                config.getInt("PRODUCT_BATCH_MAX_BYTES", ProductController.DEFAULT_BATCH_MAX_BYTES),
+                productEvents);
+        if (catalogView != null) {
+            // Los cambios de otros nodos que trae la conciliación también invalidan los ETag
+            catalogView.addChangeListener(productController::catalogChanged);
+        }
+        CredentialStore credentialStore = CredentialStore.getInstance();
+        UserController userController = new UserController(userDAOSQL,
+                new AsyncUserDAO(userDAOSQL, userBulkhead, daoTimeoutMillis), credentialStore);
+        AuthManager authManager = new AuthManager();
+        registerCacheMetrics(metrics, "login_unknown_users", credentialStore::getUnknownUserStats);
+        AuthController authController = new AuthController(credentialStore);
+        CompressionFilter compression = CompressionFilter.fromEnv(config);
+
+        // Desactivar Nagle: las cabeceras y el cuerpo se envían por separado y, sin esto,
+        // cada respuesta espera el ACK retardado del cliente (~40 ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        // El driver JDBC se registra solo (ServiceLoader) con la primera conexión del pool
+        HttpServer server = HttpServer.create(new InetSocketAddress(training ? 0 : config.getInt("SERVER_PORT", 8000)), 0);
+            // Recursos estáticos: se leen y se comprimen una sola vez, con la primera solicitud
+            // que los pide; la API no los necesita para arrancar
+            LazyHandler assets = new LazyHandler(() -> createStaticAssets(config));
+            instrument(metrics, compression, server.createContext("/swagger.json", assets));
+            instrument(metrics, compression, server.createContext("/swagger-ui", assets));
+            instrument(metrics, compression, server.createContext("/index.html", assets));
+            instrument(metrics, compression, server.createContext("/images/", assets));
             
             // Registrar el handler para el login
-            server.createContext("/login", exchange -> {
+            instrument(metrics, compression, rateLimit(config, metrics, "/login", authManager),
+                server.createContext("/login", exchange -> {
                 if ("OPTIONS".equals(exchange.getRequestMethod())) {
                     productController.addCorsHeaders(exchange);
                     exchange.sendResponseHeaders(200, -1); // No hay cuerpo de respuesta
@@ -77,11 +230,12 @@ public class App {
                 
                 productController.addCorsHeaders(exchange);
                 
-                new AuthController().handle(exchange);
-            });
+                authController.handle(exchange);
+            }));
 
             // Registrar el handler para el endpoint protegido
-            server.createContext("/protected", exchange -> {
+            instrument(metrics, compression, rateLimit(config, metrics, "/protected", authManager),
+                server.createContext("/protected", exchange -> {
                 if ("OPTIONS".equals(exchange.getRequestMethod())) {
                     productController.addCorsHeaders(exchange);
 
@@ -93,10 +247,11 @@ public class App {
                 productController.addCorsHeaders(exchange);
                 System.out.println("Request receivewewewewed");
                 new ProtectedController().handle(exchange);
-            });
+            }));
 
         // Registrar el handler para productos
-        server.createContext("/products", exchange -> {
+        instrument(metrics, compression, rateLimit(config, metrics, "/products", authManager),
+                server.createContext("/products", exchange -> {
             String method = exchange.getRequestMethod();
         
             // Manejar preflight (OPTIONS)
@@ -115,29 +270,44 @@ public class App {
             }
         
             String token = authHeader.substring(7);
-            if (!new AuthManager().validateToken(token)) {
+            if (!authManager.validateToken(token)) {
                 productController.addCorsHeaders(exchange);
                 sendResponse(exchange, 401, "Unauthorized: Invalid token");
                 return;
             }
         
             // Procesar la solicitud si el token es válido
-            if ("GET".equalsIgnoreCase(method)) {
+            if ("GET".equalsIgnoreCase(method) && "/products/search".equals(exchange.getRequestURI().getPath())) {
+                productController.addCorsHeaders(exchange);
+                searchController.handleSearch(exchange);
+            } else if ("GET".equalsIgnoreCase(method) && "/products/stream".equals(exchange.getRequestURI().getPath())) {
+                streamController.handleStream(exchange);
+            } else if ("GET".equalsIgnoreCase(method) && "/products/top".equals(exchange.getRequestURI().getPath())) {
+                productController.handleTopProducts(exchange);
+            } else if ("GET".equalsIgnoreCase(method)) {
                 productController.handleGetProducts(exchange);
+            } else if ("POST".equalsIgnoreCase(method)
+                    && (exchange.getRequestURI().getPath().endsWith("/reserve") || exchange.getRequestURI().getPath().endsWith("/release"))) {
+                productController.handleStock(exchange);
+            } else if ("POST".equalsIgnoreCase(method) && "/products/batch".equals(exchange.getRequestURI().getPath())) {
+                productController.handleAddProductsBatch(exchange);
             } else if ("POST".equalsIgnoreCase(method)) {
                 productController.handleAddProduct(exchange);
             } else if ("PUT".equalsIgnoreCase(method)) {
                 productController.handleUpdateProduct(exchange);
+            } else if ("PATCH".equalsIgnoreCase(method)) {
+                productController.handlePatchProduct(exchange);
             } else if ("DELETE".equalsIgnoreCase(method)) {
                 productController.handleDeleteProduct(exchange);
             } else {
                 productController.addCorsHeaders(exchange);
                 sendResponse(exchange, 405, "Method Not Allowed");
             }
-        });
+        }));
     
         // Contexto para manejar solicitudes de usuarios
-        server.createContext("/users", exchange -> {
+        instrument(metrics, compression, rateLimit(config, metrics, "/users", authManager),
+                server.createContext("/users", exchange -> {
             String method = exchange.getRequestMethod();
 
             // Manejar preflight (OPTIONS)
@@ -166,18 +336,202 @@ public class App {
                     sendResponse(exchange, 405, "Method Not Allowed");
                     break;
             }
-        });
+        }));
 
 
-        server.setExecutor(null);
+        // Métricas en formato Prometheus, con token y limitadas como el resto de contextos
+        instrument(metrics, compression, rateLimit(config, metrics, "/metrics", authManager),
+                server.createContext("/metrics", new MetricsController(metrics, authManager, config.get("METRICS_TOKEN", ""))));
+
+        // Atender las solicitudes fuera del hilo despachador (hilos virtuales o pool acotado)
+        server.setExecutor(RequestExecutors.fromEnv(config));
         server.start();
-        System.out.println("Server started on port 8000");
+        int port = server.getAddress().getPort();
+        System.out.println("Server started on port " + port + " in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+
+        if ("background".equals(indexBuild)) {
+            Thread.ofVirtual().name("index-build").start(() -> {
+                try {
+                    searchIndex.getIndex();
+                    rangeIndex.getIndex();
+                    System.out.println("Product indexes built " + (System.nanoTime() - startNanos) / 1_000_000 + " ms after start");
+                } catch (SQLException e) {
+                    // Quedan sin construir: la primera solicitud que los use reintenta
+                    System.err.println("Product indexes not built in background: " + e.getMessage());
+                }
+            });
+        }
+        if (training) {
+            runTraining(port, authManager);
+            System.exit(0);
+        }
+    }
+
+    // Recorre las rutas principales para que sus clases queden en el archivo CDS
+    private static void runTraining(int port, AuthManager authManager) throws IOException {
+        String token = authManager.generateToken("cds-training", 5);
+        for (String path : TRAINING_REQUESTS) {
+            HttpURLConnection connection = (HttpURLConnection) URI.create("http://127.0.0.1:" + port + path).toURL().openConnection();
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            int status = connection.getResponseCode();
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (body != null) {
+                    body.readAllBytes();
+                }
+            }
+            System.out.println("Training request " + path + " -> " + status);
+        }
+    }
+
+    // Aplica las migraciones de esquema pendientes (db/migrations). Si una falla, la API
+    // arranca igualmente con el esquema que haya
+    private static void migrateSchema(AppConfig config) {
+        SchemaMigrator migrator = SchemaMigrator.fromEnv(config);
+        if (migrator == null) {
+            return;
+        }
+        try {
+            for (String migration : migrator.migrate()) {
+                System.out.println("Applied schema migration " + migration);
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Schema migration failed: " + e.getMessage());
+        }
+    }
+
+    // swagger.json, swagger-ui, index.html e images/ servidos desde memoria
+    private static StaticAssetHandler createStaticAssets(AppConfig config) throws IOException {
+        StaticAssetHandler assets = new StaticAssetHandler(config.get("STATIC_ASSETS_CACHE_CONTROL", "public, max-age=300"));
+        assets.addFile("/swagger.json", Paths.get("swagger.json"));
+        assets.addContent("/swagger-ui", "text/html; charset=utf-8", SWAGGER_UI_HTML);
+        assets.addContent("/swagger-ui/", "text/html; charset=utf-8", SWAGGER_UI_HTML);
+        assets.addFile("/index.html", Paths.get("index.html"));
+        assets.addDirectory("/images/", Paths.get("images"));
+        if (config.getBoolean("STATIC_ASSETS_WATCH", false)) {
+            // Recargar los archivos cuando cambian en disco (útil en desarrollo)
+            assets.watch();
+        }
+        return assets;
+    }
+
+    // Añade al contexto el filtro que registra sus métricas y, si está activa, la compresión
+    private static void instrument(MetricsRegistry metrics, CompressionFilter compression, HttpContext context) {
+        instrument(metrics, compression, null, context);
+    }
+
+    // Igual, con la limitación de solicitudes entre ambos: las respuestas 429 se cuentan en
+    // las métricas y no pasan por la compresión
+    private static void instrument(MetricsRegistry metrics, CompressionFilter compression,
+                                   RateLimitFilter rateLimit, HttpContext context) {
+        context.getFilters().add(metrics.filter(context.getPath()));
+        if (rateLimit != null) {
+            context.getFilters().add(rateLimit);
+        }
+        if (compression != null) {
+            context.getFilters().add(compression);
+        }
+    }
+
+    // Publica en /metrics el estado del pool de conexiones
+    private static void registerPoolMetrics(MetricsRegistry metrics) {
+        metrics.gauge("db_pool_active_connections", "Conexiones prestadas.", "", () -> ConnectionPool.getInstance().getStats().getActive());
+        metrics.gauge("db_pool_idle_connections", "Conexiones inactivas en el pool.", "", () -> ConnectionPool.getInstance().getStats().getIdle());
+        metrics.gauge("db_pool_waiting_threads", "Hilos esperando una conexión.", "", () -> ConnectionPool.getInstance().getStats().getWaiting());
+        metrics.gauge("db_pool_max_connections", "Tamaño máximo del pool.", "", () -> ConnectionPool.getInstance().getStats().getMaxSize());
+        metrics.counter("db_pool_borrows_total", "Conexiones prestadas desde el arranque.", "", () -> ConnectionPool.getInstance().getStats().getBorrowCount());
+        metrics.counter("db_pool_borrow_wait_seconds_total", "Tiempo total esperando una conexión.", "", () -> ConnectionPool.getInstance().getStats().getBorrowTimeNanos() / 1e9);
+        metrics.counter("db_pool_timeouts_total", "Esperas de conexión que agotaron el tiempo.", "", () -> ConnectionPool.getInstance().getStats().getTimeouts());
+    }
+
+    // Publica en /metrics los suscriptores y eventos de GET /products/stream
+    private static void registerEventMetrics(MetricsRegistry metrics, ProductEvents events) {
+        metrics.gauge("sse_subscribers", "Conexiones abiertas a /products/stream.", "", events::getSubscriberCount);
+        metrics.counter("sse_events_published_total", "Eventos de producto publicados.", "", events::getPublished);
+        metrics.counter("sse_events_dropped_total", "Eventos descartados en colas de suscriptores lentos.", "", events::getDropped);
+        metrics.counter("sse_slow_disconnects_total", "Suscriptores desconectados por no leer a tiempo.", "", events::getSlowDisconnects);
+    }
+
+    // Publica en /metrics el retraso y los volcados de la escritura diferida
+    private static void registerWriteBehindMetrics(MetricsRegistry metrics, WriteBehindProductDAO writeBehind) {
+        metrics.gauge("write_behind_pending_products", "Productos con actualizaciones sin volcar.", "", writeBehind::getPendingCount);
+        metrics.gauge("write_behind_lag_seconds", "Antigüedad de la actualización sin volcar más antigua.", "", writeBehind::getOldestPendingSeconds);
+        metrics.gauge("write_behind_last_flush_seconds", "Duración del último volcado.", "", writeBehind::getLastFlushSeconds);
+        metrics.counter("write_behind_updates_total", "Actualizaciones confirmadas en el diario.", "", writeBehind::getUpdates);
+        metrics.counter("write_behind_coalesced_total", "Actualizaciones fundidas con otra pendiente del mismo producto.", "", writeBehind::getCoalesced);
+        metrics.counter("write_behind_flushes_total", "Volcados confirmados.", "", writeBehind::getFlushes);
+        metrics.counter("write_behind_flushed_rows_total", "Productos escritos por los volcados.", "", writeBehind::getFlushedRows);
+        metrics.counter("write_behind_flush_failures_total", "Volcados fallidos (los errores transitorios se reintentan).", "", writeBehind::getFailures);
+        metrics.counter("write_behind_dead_letters_total", "Actualizaciones rechazadas por la base de datos y descartadas.", "", writeBehind::getDeadLettered);
+    }
+
+    // Publica en /metrics el estado de la vista del catálogo y de su instantánea
+    private static void registerCatalogViewMetrics(MetricsRegistry metrics, SnapshotProductDAO catalogView) {
+        metrics.gauge("catalog_view_ready", "1 si las lecturas se sirven desde la vista en memoria.", "", () -> catalogView.isReady() ? 1 : 0);
+        metrics.gauge("catalog_view_products", "Productos en la vista del catálogo.", "", catalogView::size);
+        metrics.gauge("catalog_snapshot_load_seconds", "Duración de la carga de la instantánea al arrancar.", "", catalogView::getLoadSeconds);
+        metrics.gauge("catalog_reconcile_last_seconds", "Duración de la última conciliación con la base de datos.", "", catalogView::getLastReconcileSeconds);
+        metrics.counter("catalog_reconciles_total", "Conciliaciones completadas.", "", catalogView::getReconciles);
+        metrics.counter("catalog_reconciled_rows_total", "Productos añadidos o modificados por la conciliación.", "", catalogView::getReconciledRows);
+        metrics.counter("catalog_removed_rows_total", "Productos quitados por la conciliación.", "", catalogView::getRemovedRows);
+        metrics.counter("catalog_full_sweeps_total", "Conciliaciones que recorrieron todos los IDs de la tabla.", "", catalogView::getFullSweeps);
+        metrics.counter("catalog_snapshot_saves_total", "Instantáneas del catálogo escritas en disco.", "", catalogView::getSaves);
+        metrics.counter("catalog_snapshot_failures_total", "Cargas, conciliaciones o instantáneas que fallaron.", "", catalogView::getFailures);
+    }
+
+    // Publica en /metrics el tamaño del almacén en memoria y sus instantáneas
+    private static void registerMemoryMetrics(MetricsRegistry metrics, InMemoryStore store) {
+        metrics.gauge("memory_store_products", "Productos en el almacén en memoria.", "", () -> store.getProducts().size());
+        metrics.gauge("memory_store_users", "Usuarios en el almacén en memoria.", "", () -> store.getUsers().size());
+        metrics.counter("memory_snapshot_saves_total", "Instantáneas escritas en disco.", "", store::getSaves);
+        metrics.counter("memory_snapshot_failures_total", "Instantáneas que fallaron.", "", store::getFailures);
+    }
+
+    // Publica en /metrics el estado de las cachés de productos, si están activas
+    private static void registerProductCacheMetrics(MetricsRegistry metrics, ProductRepository productDAOSQL) {
+        if (productDAOSQL instanceof CachedProductDAO cachedDAO) {
+            registerCacheMetrics(metrics, "products", cachedDAO::getProductStats);
+            registerCacheMetrics(metrics, "product_pages", cachedDAO::getPageStats);
+        }
+    }
+
+    // Limitador de solicitudes de un contexto según RATE_LIMIT_*, con sus métricas
+    private static RateLimitFilter rateLimit(AppConfig config, MetricsRegistry metrics, String route, AuthManager authManager) {
+        RateLimitFilter filter = RateLimitFilter.fromEnv(config, route,
+                "/login".equals(route) ? RateLimitFilter.DEFAULT_LOGIN_LIMIT : null, authManager);
+        if (filter != null) {
+            String labels = "route=\"" + route + "\"";
+            RateLimiter limiter = filter.getLimiter();
+            metrics.gauge("rate_limit_buckets", "Clientes con cubeta de tokens activa.", labels, limiter::getBucketCount);
+            metrics.counter("rate_limit_allowed_total", "Solicitudes admitidas por el limitador.", labels, limiter::getAllowed);
+            metrics.counter("rate_limit_rejected_total", "Solicitudes rechazadas con 429.", labels, limiter::getRejected);
+        }
+        return filter;
+    }
+
+    private static void registerBulkheadMetrics(MetricsRegistry metrics, Bulkhead bulkhead) {
+        String labels = "bulkhead=\"" + bulkhead.getName() + "\"";
+        metrics.gauge("bulkhead_active_threads", "Consultas en ejecución en el bulkhead.", labels, bulkhead::getActive);
+        metrics.gauge("bulkhead_queued_tasks", "Consultas esperando en el bulkhead.", labels, bulkhead::getQueued);
+        metrics.gauge("bulkhead_max_threads", "Hilos máximos del bulkhead.", labels, bulkhead::getMaxThreads);
+        metrics.counter("bulkhead_rejected_total", "Consultas rechazadas por bulkhead lleno.", labels, bulkhead::getRejected);
+        metrics.counter("bulkhead_timeouts_total", "Consultas que agotaron su tiempo límite.", labels, bulkhead::getTimeouts);
+    }
+
+    private static void registerCacheMetrics(MetricsRegistry metrics, String cache, Supplier<CacheStats> stats) {
+        String labels = "cache=\"" + cache + "\"";
+        metrics.counter("cache_hits_total", "Aciertos de caché.", labels, () -> stats.get().getHits());
+        metrics.counter("cache_misses_total", "Fallos de caché.", labels, () -> stats.get().getMisses());
+        metrics.counter("cache_evictions_total", "Entradas expulsadas por tamaño.", labels, () -> stats.get().getEvictions());
+        metrics.counter("cache_expirations_total", "Entradas expiradas por TTL.", labels, () -> stats.get().getExpirations());
+        metrics.gauge("cache_size", "Entradas en caché.", labels, () -> stats.get().getSize());
     }
 
     private static void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
         OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
+        os.write(bytes);
         os.close();
     }
 }
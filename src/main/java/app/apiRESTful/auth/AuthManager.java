@@ -15,6 +15,14 @@ public class AuthManager {
     // Esto convierte la cadena SECRET_KEY_STRING en un objeto SecretKey que se usa para firmar el JWT
     private static final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(SECRET_KEY_STRING.getBytes());
 
+    // Parser inmutable y seguro entre hilos: se construye una sola vez en lugar de en cada validación
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SECRET_KEY)
+            .build();
+
+    // Tokens ya verificados; las solicitudes repetidas con el mismo token evitan la verificación HMAC
+    private static final TokenCache TOKEN_CACHE = new TokenCache(10_000);
+
     /**
      * Genera un token JWT para el usuario dado con una expiración determinada.
      * El tiempo se especifica en minutos.
@@ -55,13 +63,19 @@ public class AuthManager {
      * @return Verdadero si el token es válido, falso si es inválido o ha ocurrido un error.
      */
     public boolean validateToken(String token) {
+        return getVerifiedToken(token) != null;
+    }
+
+    /**
+     * Verifica el token y devuelve los datos que usa la aplicación.
+     * Los tokens ya verificados se sirven desde la caché hasta su expiración, de modo que
+     * los claims se extraen una sola vez por token.
+     * @param token El token JWT a verificar.
+     * @return El token verificado (inmutable), o null si el token es inválido o ha expirado.
+     */
+    public VerifiedToken getVerifiedToken(String token) {
         try {
-            // Analiza el token con la clave secreta y valida su firma
-            Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY) // Se asegura de usar la misma clave secreta para verificar la firma
-                .build()
-                .parseClaimsJws(token); // Si el token es válido, se parsea y se verifica su firma
-            return true;
+            return verify(token);
         } catch (ExpiredJwtException e) {
             // Captura excepciones específicas de JWT, y muestra mensajes de error apropiados
             System.err.println("El token ha expirado: " + e.getMessage());
@@ -74,7 +88,7 @@ public class AuthManager {
         } catch (IllegalArgumentException e) {
             System.err.println("El token está vacío o nulo: " + e.getMessage());
         }
-        return false; // Si alguna excepción es lanzada, el token es considerado inválido
+        return null; // Si alguna excepción es lanzada, el token es considerado inválido
     }
 
     /**
@@ -85,17 +99,29 @@ public class AuthManager {
      */
     public String getUsernameFromToken(String token) {
         try {
-            // Parseamos el token para obtener sus reclamos (claims) y extraemos el sujeto (username)
-            return Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY) // Usamos la clave secreta para validar la firma
-                    .build()
-                    .parseClaimsJws(token) // Analiza el JWT y extrae sus claims
-                    .getBody()
-                    .getSubject(); // Extrae el "subject" que contiene el nombre de usuario
+            // Obtenemos los claims (desde la caché si ya fue verificado) y extraemos el sujeto (username)
+            return verify(token).getSubject();
         } catch (Exception e) {
             // Si ocurre algún error al procesar el token, mostramos un mensaje de error
             System.err.println("Error al obtener el usuario del token: " + e.getMessage());
             return null; // Retornamos null en caso de error
         }
     }
+
+    // Devuelve el token desde la caché o verifica la firma y la expiración con el parser compartido
+    private VerifiedToken verify(String token) {
+        VerifiedToken cached = TOKEN_CACHE.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = PARSER.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+        // Los tokens sin expiración no se guardan en la caché
+        if (expiration != null) {
+            TOKEN_CACHE.put(token, verified);
+        }
+        return verified;
+    }
 }
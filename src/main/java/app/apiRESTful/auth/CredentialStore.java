@@ -0,0 +1,153 @@
+package app.apiRESTful.auth;
+
+import app.apiRESTful.cache.CacheStats;
+import app.apiRESTful.cache.LruCache;
+import app.config.AppConfig;
+import app.database.DatabaseHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación de credenciales del login.
+ *
+ * Cada intento lee sólo la contraseña guardada del usuario (una búsqueda por el índice
+ * único de {@code users.username}) y la compara en tiempo constante. Los nombres de
+ * usuario que no existen se recuerdan durante un TTL corto: una ráfaga de intentos con
+ * usuarios inventados se responde desde memoria sin tocar la base de datos. Al crear o
+ * renombrar un usuario hay que llamar a {@link #forgetUnknown(String)}.
+ */
+public class CredentialStore {
+
+    public static final int DEFAULT_UNKNOWN_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_UNKNOWN_TTL_SECONDS = 30;
+
+    private static volatile CredentialStore instance;
+
+    /**
+     * Origen de las contraseñas guardadas.
+     */
+    @FunctionalInterface
+    public interface PasswordLookup {
+        /**
+         * @param username Nombre de usuario.
+         * @return La contraseña guardada, o null si el usuario no existe.
+         * @throws SQLException Si la consulta falla.
+         */
+        String findPassword(String username) throws SQLException;
+    }
+
+    private final PasswordLookup lookup;
+    private final LruCache<String, Boolean> unknownUsers;
+
+    /**
+     * @param lookup            Origen de las contraseñas guardadas.
+     * @param unknownMaxEntries Número máximo de usuarios inexistentes recordados.
+     * @param unknownTtl        Tiempo durante el que se recuerda un usuario inexistente.
+     * @param unit              Unidad de unknownTtl.
+     */
+    public CredentialStore(PasswordLookup lookup, int unknownMaxEntries, long unknownTtl, TimeUnit unit) {
+        this.lookup = lookup;
+        this.unknownUsers = new LruCache<>(unknownMaxEntries, unknownTtl, unit);
+    }
+
+    /**
+     * Devuelve la instancia compartida, configurada con {@link #fromEnv(AppConfig)}.
+     *
+     * @return La instancia compartida.
+     */
+    public static CredentialStore getInstance() {
+        CredentialStore store = instance;
+        if (store == null) {
+            synchronized (CredentialStore.class) {
+                store = instance;
+                if (store == null) {
+                    store = fromEnv(AppConfig.getInstance());
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Reemplaza la instancia compartida; se llama al arrancar cuando las contraseñas no se
+     * leen de la base de datos.
+     *
+     * @param store Nueva instancia compartida.
+     */
+    public static void setInstance(CredentialStore store) {
+        synchronized (CredentialStore.class) {
+            instance = store;
+        }
+    }
+
+    /**
+     * Crea la verificación leyendo las claves LOGIN_UNKNOWN_USER_* del entorno.
+     * - LOGIN_UNKNOWN_USER_TTL_SECONDS: tiempo durante el que se recuerda un usuario inexistente (por defecto 30).
+     * - LOGIN_UNKNOWN_USER_MAX_ENTRIES: número máximo de usuarios inexistentes recordados (por defecto 10000).
+     *
+     * @param config Configuración de la aplicación.
+     * @return La verificación, con las contraseñas leídas de la base de datos.
+     */
+    public static CredentialStore fromEnv(AppConfig config) {
+        return fromEnv(config, DatabaseHelper::findPassword);
+    }
+
+    /**
+     * Igual que {@link #fromEnv(AppConfig)}, con otro origen de contraseñas.
+     *
+     * @param config Configuración de la aplicación.
+     * @param lookup Origen de las contraseñas guardadas.
+     * @return La verificación.
+     */
+    public static CredentialStore fromEnv(AppConfig config, PasswordLookup lookup) {
+        return new CredentialStore(lookup,
+                config.getInt("LOGIN_UNKNOWN_USER_MAX_ENTRIES", DEFAULT_UNKNOWN_MAX_ENTRIES),
+                config.getLong("LOGIN_UNKNOWN_USER_TTL_SECONDS", DEFAULT_UNKNOWN_TTL_SECONDS),
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Comprueba un par usuario/contraseña.
+     *
+     * @param username Nombre de usuario.
+     * @param password Contraseña recibida.
+     * @return true si el usuario existe y la contraseña coincide.
+     * @throws SQLException Si la consulta falla.
+     */
+    public boolean verify(String username, String password) throws SQLException {
+        if (username == null || password == null) {
+            return false;
+        }
+        if (unknownUsers.get(username) != null) {
+            return false;
+        }
+        String stored = lookup.findPassword(username);
+        if (stored == null) {
+            unknownUsers.put(username, Boolean.TRUE);
+            return false;
+        }
+        return MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Olvida que un usuario no existía (tras crearlo o renombrar otro con ese nombre).
+     *
+     * @param username Nombre de usuario.
+     */
+    public void forgetUnknown(String username) {
+        if (username != null) {
+            unknownUsers.invalidate(username);
+        }
+    }
+
+    /**
+     * @return Estadísticas de la caché de usuarios inexistentes.
+     */
+    public CacheStats getUnknownUserStats() {
+        return unknownUsers.getStats();
+    }
+}
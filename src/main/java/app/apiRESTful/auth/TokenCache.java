@@ -0,0 +1,114 @@
+package app.apiRESTful.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché acotada de tokens JWT ya verificados.
+ *
+ * Las entradas se indexan por el resumen SHA-256 del token (el token en claro no se
+ * guarda en memoria) y caducan en el instante {@code exp} del propio token, por lo que
+ * un token nunca se considera válido más allá de su expiración. Al llenarse se expulsa el
+ * token usado hace más tiempo; uno expirado deja de usarse, así que es de los primeros.
+ *
+ * Se guarda un {@link VerifiedToken} inmutable, no los {@code Claims} del parser, que son
+ * mutables: la misma entrada se devuelve a todas las solicitudes con ese token.
+ */
+public class TokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, VerifiedToken> entries;
+
+    /**
+     * @param maxEntries Número máximo de tokens en caché.
+     */
+    public TokenCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        // accessOrder = true: cada lectura mueve la entrada al final (la más reciente)
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > TokenCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Devuelve un token verificado previamente, si sigue vigente.
+     *
+     * @param token Token JWT compactado.
+     * @return El token en caché, o null si no está en caché o ya expiró.
+     */
+    public VerifiedToken get(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            VerifiedToken entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.getExpiresAtMillis() <= now) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Guarda un token cuya firma ya fue verificada. Los ya expirados no se guardan.
+     *
+     * @param token    Token JWT compactado.
+     * @param verified Datos obtenidos al verificar el token.
+     */
+    public void put(String token, VerifiedToken verified) {
+        if (verified.getExpiresAtMillis() <= System.currentTimeMillis()) {
+            return;
+        }
+        String key = digest(token);
+        synchronized (entries) {
+            entries.put(key, verified);
+        }
+    }
+
+    /**
+     * @return Número de tokens actualmente en caché.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
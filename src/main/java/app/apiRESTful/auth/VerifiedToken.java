@@ -0,0 +1,34 @@
+package app.apiRESTful.auth;
+
+/**
+ * Datos de un token JWT ya verificado que usa la aplicación. Es inmutable, así que la
+ * misma instancia puede servirse desde {@link TokenCache} a todas las solicitudes.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+    private final long expiresAtMillis;
+
+    /**
+     * @param subject         Usuario del token (claim {@code sub}), o null si no tiene.
+     * @param expiresAtMillis Instante de expiración (claim {@code exp}) en milisegundos.
+     */
+    public VerifiedToken(String subject, long expiresAtMillis) {
+        this.subject = subject;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * @return El usuario del token, o null si no tiene.
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * @return Instante de expiración en milisegundos desde la época.
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+}
@@ -0,0 +1,47 @@
+package app.apiRESTful.cache;
+
+/**
+ * Contadores de una caché en un instante dado.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final int size;
+    private final int maxSize;
+
+    public CacheStats(long hits, long misses, long evictions, long expirations, int size, int maxSize) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getExpirations() { return expirations; }
+    public int getSize() { return size; }
+    public int getMaxSize() { return maxSize; }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : hits / (double) requests;
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "\"hits\":" + hits + "," +
+                "\"misses\":" + misses + "," +
+                "\"evictions\":" + evictions + "," +
+                "\"expirations\":" + expirations + "," +
+                "\"size\":" + size + "," +
+                "\"maxSize\":" + maxSize + "," +
+                "\"hitRatio\":" + getHitRatio() +
+                "}";
+    }
+}
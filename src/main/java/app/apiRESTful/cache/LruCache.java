@@ -0,0 +1,152 @@
+package app.apiRESTful.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché en memoria acotada por número de entradas, con expulsión LRU y expiración por TTL.
+ *
+ * Las operaciones se sincronizan sobre un único candado: la sección crítica es una
+ * operación de {@link LinkedHashMap}, mucho más barata que la consulta a la base de datos
+ * que evita. Los contadores de aciertos, fallos y expulsiones no toman el candado.
+ *
+ * @param <K> Tipo de la clave.
+ * @param <V> Tipo del valor.
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxEntries Número máximo de entradas.
+     * @param ttl        Tiempo de vida de cada entrada.
+     * @param unit       Unidad del tiempo de vida.
+     */
+    public LruCache(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0 || ttl <= 0) {
+            throw new IllegalArgumentException("maxEntries and ttl must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        // accessOrder = true: cada lectura mueve la entrada al final (la más reciente)
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el valor asociado a la clave si existe y no ha expirado.
+     *
+     * @param key Clave a buscar.
+     * @return El valor, o null si no está en caché.
+     */
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry != null) {
+                if (now - entry.createdAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                map.remove(key);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Guarda un valor, expulsando la entrada menos usada si se supera el límite.
+     *
+     * @param key   Clave.
+     * @param value Valor (no nulo).
+     */
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, System.nanoTime());
+        synchronized (map) {
+            map.put(key, entry);
+        }
+    }
+
+    /**
+     * Elimina la entrada asociada a la clave.
+     *
+     * @param key Clave a invalidar.
+     */
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Elimina todas las entradas.
+     */
+    public void invalidateAll() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    /**
+     * Elimina las entradas expiradas. Las lecturas ya las descartan; este método sólo
+     * libera antes la memoria que ocupan.
+     */
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Iterator<Entry<V>> values = map.values().iterator();
+            while (values.hasNext()) {
+                if (now - values.next().createdAt >= ttlNanos) {
+                    values.remove();
+                    expirations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Número de entradas actualmente en caché.
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * @return Instantánea de los contadores de la caché.
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size(), maxEntries);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long createdAt;
+
+        private Entry(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
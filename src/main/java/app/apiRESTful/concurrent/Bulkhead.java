@@ -0,0 +1,147 @@
+package app.apiRESTful.concurrent;
+
+import app.database.DbTimeTracker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compartimento estanco (bulkhead): un pool de hilos propio y acotado para las llamadas
+ * bloqueantes de un componente, de modo que si ese componente se vuelve lento sólo agota
+ * sus propios hilos y no los del resto de la aplicación.
+ *
+ * Cada tarea devuelve un {@link CompletableFuture}:
+ * - Si el pool y su cola están llenos, el futuro falla de inmediato con
+ *   {@link RejectedExecutionException} (no se bloquea a quien llama).
+ * - Si la tarea no termina en el tiempo indicado, el futuro falla con
+ *   {@link TimeoutException} y se interrumpe el hilo que la ejecuta.
+ * - Cancelar el futuro también interrumpe la tarea, o evita que empiece si aún espera.
+ *
+ * Las escrituras se envían con {@link #submitWrite}: sin tiempo límite y sin interrupción una
+ * vez empezadas, porque interrumpir una llamada JDBC no deshace un commit que ya está en
+ * curso. Su límite lo pone el tiempo de espera de la sentencia JDBC, que sí deja claro si la
+ * escritura se aplicó.
+ *
+ * El tiempo de base de datos de cada tarea se suma a la solicitud que la envió
+ * ({@link DbTimeTracker#propagate}), de modo que {@code http_request_db_seconds} también
+ * cuenta las consultas que se ejecutan aquí.
+ *
+ * Los hilos son de plataforma: los drivers JDBC bloquean dentro de bloques
+ * {@code synchronized}, lo que fijaría un hilo virtual a su portador.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * @param name       Nombre del compartimento (se usa en los nombres de los hilos).
+     * @param threads    Número máximo de tareas en ejecución a la vez.
+     * @param queueLimit Número máximo de tareas en espera (0 para no encolar).
+     */
+    public Bulkhead(String name, int threads, int queueLimit) {
+        if (threads <= 0 || queueLimit < 0) {
+            throw new IllegalArgumentException("Invalid bulkhead limits for " + name + ": threads=" + threads + ", queue=" + queueLimit);
+        }
+        this.name = name;
+        BlockingQueue<Runnable> queue = queueLimit == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueLimit);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "bulkhead-" + name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Ejecuta una tarea en el compartimento.
+     *
+     * @param task    Tarea bloqueante.
+     * @param timeout Tiempo máximo hasta que la tarea termine (incluida la espera en cola); 0 sin límite.
+     * @param unit    Unidad de {@code timeout}.
+     * @param <T>     Tipo del resultado.
+     * @return Un futuro con el resultado de la tarea.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, long timeout, TimeUnit unit) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = execute(task, result);
+        if (running == null) {
+            return result;
+        }
+        if (timeout > 0) {
+            result.orTimeout(timeout, unit);
+        }
+        result.whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                timeouts.increment();
+                running.cancel(true);
+            } else if (result.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Ejecuta una escritura en el compartimento. Cancelar el futuro sólo evita que empiece si
+     * aún espera en la cola; una vez empezada siempre termina.
+     *
+     * @param task Escritura bloqueante.
+     * @param <T>  Tipo del resultado.
+     * @return Un futuro con el resultado de la escritura.
+     */
+    public <T> CompletableFuture<T> submitWrite(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        execute(task, result);
+        return result;
+    }
+
+    // Encola la tarea; null (con el futuro ya fallido) si el compartimento está lleno
+    private <T> Future<?> execute(Callable<T> task, CompletableFuture<T> result) {
+        Callable<T> measured = DbTimeTracker.propagate(task);
+        try {
+            return executor.submit(() -> {
+                // Cancelada o expirada mientras esperaba en la cola
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(measured.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException("Bulkhead " + name + " is full"));
+            return null;
+        }
+    }
+
+    /**
+     * Deja de aceptar tareas e interrumpe las que se están ejecutando.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String getName() { return name; }
+    public int getActive() { return executor.getActiveCount(); }
+    public int getQueued() { return executor.getQueue().size(); }
+    public int getMaxThreads() { return executor.getMaximumPoolSize(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getTimeouts() { return timeouts.sum(); }
+}
@@ -0,0 +1,62 @@
+package app.apiRESTful.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Respuestas a los fallos de las llamadas asíncronas a los DAO, comunes a los controladores.
+ */
+final class AsyncFailures {
+
+    private AsyncFailures() {
+    }
+
+    /**
+     * Responde al fallo de una llamada asíncrona al DAO:
+     * - 504 si se agotó el tiempo límite de una lectura en el bulkhead.
+     * - 504 si se agotó el tiempo de espera de una sentencia de escritura; el driver la
+     *   cancela y la transacción se revierte, así que no se aplicó ningún cambio.
+     * - 503 (con Retry-After) si el bulkhead está lleno, si no hubo una conexión libre en el
+     *   pool a tiempo, si un índice en memoria aún no se pudo construir, o si la espera se
+     *   interrumpió.
+     * - 500 en cualquier otro caso.
+     *
+     * @param exchange Objeto HttpExchange.
+     * @param failure  Excepción obtenida al esperar el resultado.
+     * @throws IOException Si ocurre un error al enviar la respuesta.
+     */
+    static void send(HttpExchange exchange, Exception failure) throws IOException {
+        if (failure instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            sendResponse(exchange, 503, "Request interrupted");
+            return;
+        }
+        Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof TimeoutException) {
+            sendResponse(exchange, 504, "Database timeout");
+        } else if (cause instanceof SQLTimeoutException) {
+            sendResponse(exchange, 504, "Database timeout, no changes were applied");
+        } else if (cause instanceof RejectedExecutionException || cause instanceof SQLTransientException) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendResponse(exchange, 503, "Service busy, retry later");
+        } else {
+            cause.printStackTrace();
+            sendResponse(exchange, 500, "Database error: " + cause.getMessage());
+        }
+    }
+
+    private static void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        OutputStream os = exchange.getResponseBody();
+        os.write(bytes);
+        os.close();
+    }
+}
@@ -1,17 +1,16 @@
 package app.apiRESTful.controller;
 
 import app.apiRESTful.model.User;
-import app.database.DatabaseHelper;
 import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.auth.CredentialStore;
+import app.apiRESTful.json.JsonBodyException;
+import app.apiRESTful.json.PayloadTooLargeException;
+import app.apiRESTful.json.RequestBodies;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
@@ -28,7 +27,22 @@ import java.sql.SQLException;
  */
 public class AuthController implements HttpHandler {
 
+    // Un login legítimo ocupa unas decenas de bytes
+    static final int MAX_BODY_BYTES = 4096;
+
     private final AuthManager authManager = new AuthManager();
+    private final CredentialStore credentials;
+
+    public AuthController() {
+        this(CredentialStore.getInstance());
+    }
+
+    /**
+     * @param credentials Verificación de credenciales (con su caché de usuarios inexistentes).
+     */
+    public AuthController(CredentialStore credentials) {
+        this.credentials = credentials;
+    }
 
     /**
      * Agrega encabezados CORS a la respuesta.
@@ -47,8 +61,8 @@ public class AuthController implements HttpHandler {
      * Maneja las solicitudes HTTP dirigidas a este controlador.
      * 
      * - Si el método es POST:
-     *   1. Lee el cuerpo de la solicitud y lo interpreta como JSON.
-     *   2. Valida las credenciales del usuario contra la base de datos.
+     *   1. Lee el cuerpo de la solicitud (máximo MAX_BODY_BYTES) y lo interpreta como JSON.
+     *   2. Valida las credenciales del usuario con {@link CredentialStore}.
      *   3. Si las credenciales son válidas, genera un token JWT y lo devuelve en la respuesta.
      * 
      * - Si el método no es POST, devuelve un error 405.
@@ -61,36 +75,25 @@ public class AuthController implements HttpHandler {
         addCorsHeaders(exchange);
         if ("POST".equals(exchange.getRequestMethod())) {
             try {
-                // Leer el cuerpo de la solicitud
-                InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
-                BufferedReader bufferedReader = new BufferedReader(reader);
-                StringBuilder bodyBuilder = new StringBuilder();
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    bodyBuilder.append(line);
-                }
-                String requestBody = bodyBuilder.toString();
-
-                // Usar Gson para analizar el JSON
-                Gson gson = new Gson();
-                User credentials = gson.fromJson(requestBody, User.class);
+                // Leer el cuerpo de una vez, con un límite de tamaño, y enlazarlo a las credenciales
+                User credentials = parseCredentials(RequestBodies.read(exchange, MAX_BODY_BYTES));
 
                 String username = credentials.getUsername();
-                String password = credentials.getPassword();
-                
-                // Verificar si el usuario existe en la base de datos
-                if (DatabaseHelper.isValidUser(username, password)) {
+
+                // Verificar las credenciales (los usuarios inexistentes se recuerdan un tiempo corto)
+                if (this.credentials.verify(username, credentials.getPassword())) {
                     
                     // Generar el token si las credenciales son válidas
                     String token = authManager.generateToken(username, 15);
-                    System.out.println(token);
                     // Enviar la respuesta con el token en formato JSON válido
                     sendResponse(exchange, 200, "{\"token\": \"" + token + "\"}");
                 } else {
                     sendResponse(exchange, 401, "Unauthorized");
                 }
-            } catch (JsonSyntaxException e) {
-                sendResponse(exchange, 400, "Bad Request: Invalid JSON format");
+            } catch (PayloadTooLargeException e) {
+                sendResponse(exchange, 413, "Payload Too Large");
+            } catch (JsonBodyException e) {
+                sendResponse(exchange, 400, "Bad Request: " + e.getMessage());
             } catch (SQLException e) {
                 sendResponse(exchange, 500, "Internal Server Error");
             }
@@ -99,6 +102,17 @@ public class AuthController implements HttpHandler {
         }
     }
 
+    /**
+     * Interpreta el cuerpo JSON del login (username y password obligatorios).
+     *
+     * @param requestBody Cuerpo de la solicitud en UTF-8.
+     * @return Las credenciales recibidas.
+     * @throws JsonBodyException Si el cuerpo no es JSON válido o falta algún campo.
+     */
+    static User parseCredentials(byte[] requestBody) {
+        return RequestBodies.readUser(requestBody);
+    }
+
     /**
      * Envía una respuesta HTTP con un código de estado y un cuerpo de texto.
      * 
@@ -108,9 +122,10 @@ public class AuthController implements HttpHandler {
      * @throws IOException Si ocurre un error al enviar la respuesta.
      */
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
         OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
+        os.write(bytes);
         os.close();
     }
 }
@@ -0,0 +1,73 @@
+package app.apiRESTful.controller;
+
+import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Clase MetricsController
+ * Expone las métricas de la aplicación en GET /metrics con el formato de texto de
+ * Prometheus, para que un servidor Prometheus (o cualquier cliente HTTP) las consulte.
+ *
+ * Exige {@code Authorization: Bearer}: un JWT válido o, para el scraper, el token fijo
+ * configurado (Prometheus no puede renovar un JWT que caduca).
+ */
+public class MetricsController implements HttpHandler {
+
+    private final MetricsRegistry metrics;
+    private final AuthManager authManager;
+    private final byte[] scrapeToken;
+
+    /**
+     * @param metrics     Registro de métricas a exponer.
+     * @param authManager Validador de los JWT.
+     * @param scrapeToken Token fijo que también se acepta, o null/vacío para aceptar sólo JWT.
+     */
+    public MetricsController(MetricsRegistry metrics, AuthManager authManager, String scrapeToken) {
+        this.metrics = metrics;
+        this.authManager = authManager;
+        this.scrapeToken = scrapeToken == null || scrapeToken.isEmpty() ? null : scrapeToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maneja GET /metrics. Sin un token válido devuelve 401; cualquier otro método, 405.
+     *
+     * @param exchange El objeto HttpExchange asociado a la solicitud HTTP.
+     * @throws IOException Si ocurre un error al escribir la respuesta.
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "text/plain; charset=utf-8", "Method Not Allowed");
+            return;
+        }
+        String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ") || !isAuthorized(authHeader.substring(7))) {
+            sendResponse(exchange, 401, "text/plain; charset=utf-8", "Unauthorized");
+            return;
+        }
+        sendResponse(exchange, 200, "text/plain; version=0.0.4; charset=utf-8", metrics.scrape());
+    }
+
+    private boolean isAuthorized(String token) {
+        if (scrapeToken != null && MessageDigest.isEqual(scrapeToken, token.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        return authManager.validateToken(token);
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String contentType, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        OutputStream os = exchange.getResponseBody();
+        os.write(bytes);
+        os.close();
+    }
+}
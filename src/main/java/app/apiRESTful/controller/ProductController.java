@@ -1,12 +1,42 @@
 package app.apiRESTful.controller;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.sun.net.httpserver.HttpExchange;
-import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.AsyncProductDAO;
+import app.apiRESTful.dao.ProductRepository;
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.events.ProductEvents;
+import app.apiRESTful.json.JsonWriter;
+import app.apiRESTful.json.PayloadTooLargeException;
+import app.apiRESTful.json.RequestBodies;
 import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.apiRESTful.server.ChunkedResponseBody;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ProductController
@@ -16,15 +46,96 @@ import java.util.List;
  */
 public class ProductController {
 
-    private final ProductDAOSQL ProductDAOSQL;
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = 500;
+    public static final int DEFAULT_BATCH_MAX_ITEMS = 10_000;
+    public static final int DEFAULT_BATCH_MAX_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_TOP_K = 20;
+    public static final int MAX_IDS = 100;
+
+    // Gson es seguro entre hilos; se reutiliza una única instancia, creada con la primera
+    // solicitud que la usa (lotes e inventario) y no al arrancar
+    private static final class GsonHolder {
+        static final Gson GSON = new Gson();
+    }
+
+    private final ProductRepository ProductDAOSQL;
+    private final AsyncProductDAO asyncProductDAO;
+    private final int batchChunkSize;
+    private final int batchMaxItems;
+    private final int batchMaxBytes;
+    private final ProductEvents events;
+
+    // Versión del catálogo: sube con cada escritura confirmada hecha a través de este
+    // controlador y con cada conciliación que trae cambios (catalogChanged), y
+    // forma parte del ETag de las páginas. El prefijo cambia en cada arranque para que un
+    // ETag anterior a un reinicio no vuelva a coincidir.
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final String etagPrefix = Long.toString(System.currentTimeMillis(), 36);
 
     /**
      * Constructor del controlador.
      * 
      * @param ProductDAOSQL Instancia del DAO para interactuar con la base de datos.
      */
-    public ProductController(ProductDAOSQL ProductDAOSQL) {
+    public ProductController(ProductRepository ProductDAOSQL) {
+        this(ProductDAOSQL, DEFAULT_BATCH_CHUNK_SIZE, DEFAULT_BATCH_MAX_ITEMS);
+    }
+
+    /**
+     * Constructor del controlador con la configuración de inserción por lotes.
+     *
+     * @param ProductDAOSQL  Instancia del DAO para interactuar con la base de datos.
+     * @param batchChunkSize Filas por lote JDBC en {@code POST /products/batch}.
+     * @param batchMaxItems  Máximo de productos aceptados por solicitud de lote.
+     */
+    public ProductController(ProductRepository ProductDAOSQL, int batchChunkSize, int batchMaxItems) {
+        this(ProductDAOSQL, AsyncProductDAO.inline(ProductDAOSQL), batchChunkSize, batchMaxItems);
+    }
+
+    /**
+     * Constructor del controlador con acceso asíncrono a los datos.
+     *
+     * @param ProductDAOSQL   Instancia del DAO para interactuar con la base de datos.
+     * @param asyncProductDAO Fachada asíncrona (con su bulkhead) del mismo DAO.
+     * @param batchChunkSize  Filas por lote JDBC en {@code POST /products/batch}.
+     * @param batchMaxItems   Máximo de productos aceptados por solicitud de lote.
+     */
+    public ProductController(ProductRepository ProductDAOSQL, AsyncProductDAO asyncProductDAO, int batchChunkSize, int batchMaxItems) {
+        this(ProductDAOSQL, asyncProductDAO, batchChunkSize, batchMaxItems, null);
+    }
+
+    /**
+     * Constructor del controlador que además publica cada cambio confirmado del catálogo.
+     *
+     * @param ProductDAOSQL   Instancia del DAO para interactuar con la base de datos.
+     * @param asyncProductDAO Fachada asíncrona (con su bulkhead) del mismo DAO.
+     * @param batchChunkSize  Filas por lote JDBC en {@code POST /products/batch}.
+     * @param batchMaxItems   Máximo de productos aceptados por solicitud de lote.
+     * @param events          Flujo de {@code GET /products/stream}, o null para no publicar.
+     */
+    public ProductController(ProductRepository ProductDAOSQL, AsyncProductDAO asyncProductDAO, int batchChunkSize,
+                             int batchMaxItems, ProductEvents events) {
+        this(ProductDAOSQL, asyncProductDAO, batchChunkSize, batchMaxItems, DEFAULT_BATCH_MAX_BYTES, events);
+    }
+
+    /**
+     * Constructor del controlador con todos los límites de la inserción por lotes.
+     *
+     * @param ProductDAOSQL   Instancia del DAO para interactuar con la base de datos.
+     * @param asyncProductDAO Fachada asíncrona (con su bulkhead) del mismo DAO.
+     * @param batchChunkSize  Filas por lote JDBC en {@code POST /products/batch}.
+     * @param batchMaxItems   Máximo de productos aceptados por solicitud de lote.
+     * @param batchMaxBytes   Tamaño máximo en bytes del cuerpo de una solicitud de lote.
+     * @param events          Flujo de {@code GET /products/stream}, o null para no publicar.
+     */
+    public ProductController(ProductRepository ProductDAOSQL, AsyncProductDAO asyncProductDAO, int batchChunkSize,
+                             int batchMaxItems, int batchMaxBytes, ProductEvents events) {
         this.ProductDAOSQL = ProductDAOSQL;
+        this.asyncProductDAO = asyncProductDAO;
+        this.batchChunkSize = batchChunkSize;
+        this.batchMaxItems = batchMaxItems;
+        this.batchMaxBytes = batchMaxBytes;
+        this.events = events;
     }
 
     /**
@@ -34,14 +145,47 @@ public class ProductController {
      */
     public void addCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match");
+        exchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag");
         exchange.getResponseHeaders().set("Access-Control-Allow-Credentials", "true");
     }
 
     /**
-     * Maneja la solicitud GET para obtener todos los productos.
-     * 
+     * @return Versión actual del catálogo; aumenta con cada alta, modificación o baja.
+     */
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * Avisa de que el catálogo cambió sin pasar por este controlador (por ejemplo, la
+     * conciliación trajo cambios de otro nodo): invalida los ETag de las páginas.
+     */
+    public void catalogChanged() {
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Maneja la solicitud GET para obtener los productos, paginados por cursor.
+     *
+     * Parámetros de consulta opcionales:
+     * - limit: tamaño de página (por defecto 50, máximo 500).
+     * - after: cursor opaco devuelto en el campo "next" de la página anterior.
+     * - minPrice / maxPrice: rango de precio.
+     * - minQuantity: cantidad mínima en inventario.
+     *
+     * Responde con {"items":[...],"next":"cursor"} o "next":null en la última página.
+     * La respuesta se escribe en flujo (chunked) a medida que se leen las filas, por lo que
+     * la memoria utilizada no depende del tamaño de la página.
+     *
+     * GET /products/{id} devuelve un único producto (404 si no existe).
+     *
+     * Las páginas llevan un ETag fuerte derivado de la versión del catálogo y de la
+     * consulta. Si el cliente envía If-None-Match con ese ETag se responde 304 sin
+     * consultar la base de datos. El ETag de un producto se calcula de su contenido, así que
+     * ése se lee siempre.
+     *
      * @param exchange Objeto HttpExchange que representa la solicitud y la respuesta.
      * @throws IOException Si ocurre un error al manejar la solicitud.
      */
@@ -50,13 +194,233 @@ public class ProductController {
         String method = exchange.getRequestMethod();
 
         if ("GET".equals(method)) {
-            List<Product> products = ProductDAOSQL.getAllProducts();
-            sendResponse(exchange, 200, products.toString());
+            String productId = extractIdFromUri(exchange.getRequestURI().getPath());
+            if (productId != null) {
+                handleGetProduct(exchange, productId);
+                return;
+            }
+
+            String ids = parseQueryParams(exchange.getRequestURI().getRawQuery()).get("ids");
+            if (ids != null) {
+                handleGetProductsByIds(exchange, ids);
+                return;
+            }
+
+            ProductQuery query;
+            try {
+                query = parseProductQuery(exchange.getRequestURI());
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, "Invalid query parameter: " + e.getMessage());
+                return;
+            }
+
+            if (notModified(exchange, etag("q", query.hashCode()))) {
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            ChunkedResponseBody body = new ChunkedResponseBody(exchange, 200);
+            JsonWriter json = new JsonWriter(body);
+            try {
+                Product[] last = new Product[1];
+                json.beginObject().name("items").beginArray();
+                String nextId = ProductDAOSQL.streamProductsPage(query, product -> {
+                    writeProduct(json, product);
+                    last[0] = product;
+                });
+                json.endArray().name("next").value(nextId == null ? null : encodeCursor(query.getSort(), nextId, last[0])).endObject();
+                json.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                abortStreaming(exchange, body, e);
+            }
         } else {
             sendResponse(exchange, 405, "Method Not Allowed");
         }
     }
 
+    /**
+     * Maneja GET /products?ids=a,b,c: busca los productos indicados en paralelo (una
+     * consulta por ID en el bulkhead de productos) y responde
+     * {"items":[...],"missing":["..."]} con los encontrados en el orden pedido.
+     */
+    private void handleGetProductsByIds(HttpExchange exchange, String ids) throws IOException {
+        List<String> requested = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            String trimmed = id.trim();
+            if (!trimmed.isEmpty() && !requested.contains(trimmed)) {
+                requested.add(trimmed);
+            }
+        }
+        if (requested.isEmpty() || requested.size() > MAX_IDS) {
+            sendResponse(exchange, 400, "Invalid query parameter: ids (expected 1 to " + MAX_IDS + " IDs)");
+            return;
+        }
+
+        Map<String, Product> found;
+        try {
+            found = asyncProductDAO.getProductsByIds(requested).get();
+        } catch (ExecutionException | InterruptedException e) {
+            AsyncFailures.send(exchange, e);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        JsonWriter json = new JsonWriter(new ChunkedResponseBody(exchange, 200));
+        json.beginObject().name("items").beginArray();
+        for (Product product : found.values()) {
+            writeProduct(json, product);
+        }
+        json.endArray().name("missing").beginArray();
+        for (String id : requested) {
+            if (!found.containsKey(id)) {
+                json.value(id);
+            }
+        }
+        json.endArray().endObject().close();
+    }
+
+    /**
+     * Maneja GET /products/top: los {@code limit} productos (20 por defecto) con menor o mayor
+     * precio o cantidad, por ejemplo {@code /products/top?by=quantity&order=asc&limit=20}
+     * para los de menos inventario. Admite los mismos filtros que GET /products y se
+     * resuelve con los índices ordenados en memoria.
+     *
+     * @param exchange Objeto HttpExchange que representa la solicitud y la respuesta.
+     * @throws IOException Si ocurre un error al manejar la solicitud.
+     */
+    public void handleTopProducts(HttpExchange exchange) throws IOException {
+        addCorsHeaders(exchange);
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "Method Not Allowed");
+            return;
+        }
+
+        ProductQuery query;
+        try {
+            Map<String, String> params = parseQueryParams(exchange.getRequestURI().getRawQuery());
+            query = parseProductQuery(exchange.getRequestURI());
+            query.setSort(parseSort(params.getOrDefault("by", "quantity")));
+            if (query.getSort() == ProductQuery.Sort.ID) {
+                throw new IllegalArgumentException("by (expected price or quantity)");
+            }
+            if (!params.containsKey("limit")) {
+                query.setLimit(DEFAULT_TOP_K);
+            }
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, "Invalid query parameter: " + e.getMessage());
+            return;
+        }
+
+        if (notModified(exchange, etag("t", query.hashCode()))) {
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ChunkedResponseBody body = new ChunkedResponseBody(exchange, 200);
+        JsonWriter json = new JsonWriter(body);
+        try {
+            json.beginObject()
+                    .name("by").value(query.getSort().name().toLowerCase(Locale.ROOT))
+                    .name("order").value(query.isDescending() ? "desc" : "asc")
+                    .name("items").beginArray();
+            ProductDAOSQL.streamProductsPage(query, product -> writeProduct(json, product));
+            json.endArray().endObject().close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            abortStreaming(exchange, body, e);
+        }
+    }
+
+    /**
+     * Responde GET /products/{id} con el producto en JSON, o 304 si el ETag coincide. El
+     * ETag es un hash del JSON del producto, de modo que cambia con cualquier escritura,
+     * también las de otros nodos, y "*" sólo coincide si el producto existe.
+     *
+     * @param exchange  Objeto HttpExchange que representa la solicitud y la respuesta.
+     * @param productId ID del producto.
+     * @throws IOException Si ocurre un error al enviar la respuesta.
+     */
+    private void handleGetProduct(HttpExchange exchange, String productId) throws IOException {
+        Product product;
+        try {
+            product = asyncProductDAO.getProductById(productId).get();
+        } catch (ExecutionException | InterruptedException e) {
+            AsyncFailures.send(exchange, e);
+            return;
+        }
+        if (product == null) {
+            sendResponse(exchange, 404, "Product not found");
+            return;
+        }
+        String json = product.toString();
+        if (notModified(exchange, contentEtag(json))) {
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        sendResponse(exchange, 200, json);
+    }
+
+    /**
+     * Calcula el ETag de una lectura. La versión se lee antes de consultar la base de datos:
+     * si una escritura se cuela entre medias, el cliente recibe datos nuevos con el ETag
+     * viejo y en la siguiente consulta, con la versión ya incrementada, los vuelve a pedir.
+     *
+     * @param kind Tipo de recurso ("q" para páginas, "t" para los primeros K).
+     * @param key  Hash de la consulta.
+     * @return ETag fuerte, con comillas.
+     */
+    private String etag(String kind, int key) {
+        return "\"" + etagPrefix + "-" + catalogVersion.get() + "-" + kind + Integer.toHexString(key) + "\"";
+    }
+
+    // ETag de una representación a partir de su contenido (FNV-1a de 64 bits)
+    private static String contentEtag(String body) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < body.length(); i++) {
+            hash ^= body.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return "\"p" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Añade el ETag a la respuesta y, si coincide con If-None-Match, responde 304.
+     *
+     * @param exchange Objeto HttpExchange.
+     * @param etag     ETag de la representación actual.
+     * @return true si ya se respondió 304.
+     * @throws IOException Si ocurre un error al enviar la respuesta.
+     */
+    private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matchesEtag(ifNoneMatch, etag)) {
+            return false;
+        }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    /**
+     * Compara If-None-Match (lista de ETags separados por comas, o "*") con un ETag.
+     * Para If-None-Match se usa la comparación débil: se ignora el prefijo W/.
+     */
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Maneja la solicitud POST para agregar un producto.
      * 
@@ -68,23 +432,24 @@ public class ProductController {
         String method = exchange.getRequestMethod();
 
         if ("POST".equals(method)) {
-            String body = new String(exchange.getRequestBody().readAllBytes());
-
             try {
-                // Parsear y validar los datos del producto
-                String name = extractJsonValue(body, "name");
-                String description = extractJsonValue(body, "description");
-                Double price = Double.parseDouble(extractJsonValue(body, "price"));
-                int quantity = Integer.parseInt(extractJsonValue(body, "quantity"));
+                // Leer el cuerpo y enlazarlo al producto en una sola pasada
+                Product product = RequestBodies.readProduct(RequestBodies.read(exchange, RequestBodies.DEFAULT_MAX_BYTES));
 
-                if (name == null || description == null || price <= 0 || quantity < 0) {
+                if (product.getPrice() <= 0 || product.getQuantity() < 0) {
                     sendResponse(exchange, 400, "Invalid product data");
                     return;
                 }
 
-                Product product = new Product(name, description, price, quantity);
-                ProductDAOSQL.addProduct(product);
+                if (!ProductDAOSQL.addProduct(product)) {
+                    sendResponse(exchange, 500, "Failed to add product");
+                    return;
+                }
+                catalogVersion.incrementAndGet();
+                publish(ProductEvents.ADD, product.toString());
                 sendResponse(exchange, 201, "Product added: " + product.toString());
+            } catch (PayloadTooLargeException e) {
+                sendResponse(exchange, 413, e.getMessage());
             } catch (Exception e) {
                 sendResponse(exchange, 400, "Invalid request body: " + e.getMessage());
             }
@@ -93,6 +458,254 @@ public class ProductController {
         }
     }
 
+    /**
+     * Enlaza el arreglo de productos de un lote elemento a elemento.
+     *
+     * @param body Cuerpo JSON.
+     * @return Los productos (un elemento null se conserva para informarlo), o null si el
+     *         arreglo tiene más de {@code batchMaxItems} elementos; en ese caso no se enlaza
+     *         ninguno más allá del límite.
+     * @throws IOException Si el JSON no es un arreglo bien formado.
+     */
+    private Product[] readBatch(byte[] body) throws IOException {
+        List<Product> products = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (products.size() == batchMaxItems) {
+                    return null;
+                }
+                products.add(GsonHolder.GSON.fromJson(reader, Product.class));
+            }
+            reader.endArray();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonParseException("Unexpected content after the array");
+            }
+        }
+        return products.toArray(new Product[0]);
+    }
+
+    /**
+     * Maneja la solicitud POST /products/batch para agregar varios productos a la vez.
+     *
+     * El cuerpo es un arreglo JSON de productos. Cada uno se valida con
+     * {@link Product#validate()}; los válidos se insertan en una sola transacción con lotes
+     * JDBC. La respuesta informa el resultado de cada elemento por su posición:
+     * {"inserted":n,"failed":m,"results":[{"index":0,"id":"...","status":"created"},
+     * {"index":1,"status":"invalid","error":"..."}]}
+     *
+     * Códigos: 201 si se insertaron todos, 207 si sólo algunos, 400 si ninguno era válido
+     * y 500 si la transacción falló (no se inserta ninguno). Un cuerpo de más de
+     * {@code batchMaxBytes} o con más de {@code batchMaxItems} productos recibe 413: el
+     * cuerpo deja de leerse al pasar el límite de bytes y el arreglo deja de enlazarse al
+     * pasar el de productos.
+     *
+     * @param exchange Objeto HttpExchange que representa la solicitud y la respuesta.
+     * @throws IOException Si ocurre un error al manejar la solicitud.
+     */
+    public void handleAddProductsBatch(HttpExchange exchange) throws IOException {
+        addCorsHeaders(exchange);
+        String method = exchange.getRequestMethod();
+
+        if (!"POST".equals(method)) {
+            sendResponse(exchange, 405, "Method Not Allowed");
+            return;
+        }
+
+        Product[] requested;
+        try {
+            requested = readBatch(RequestBodies.read(exchange, batchMaxBytes));
+        } catch (PayloadTooLargeException e) {
+            sendResponse(exchange, 413, e.getMessage());
+            return;
+        } catch (JsonParseException | IOException | IllegalStateException e) {
+            sendResponse(exchange, 400, "Invalid request body: " + e.getMessage());
+            return;
+        }
+        if (requested == null) {
+            sendResponse(exchange, 413, "Too many products in batch (max " + batchMaxItems + ")");
+            return;
+        }
+        if (requested.length == 0) {
+            sendResponse(exchange, 400, "Invalid request body: expected a non-empty array of products");
+            return;
+        }
+
+        // Validar cada elemento; los inválidos se reportan y no se insertan
+        String[] errors = new String[requested.length];
+        List<Product> valid = new ArrayList<>(requested.length);
+        for (int i = 0; i < requested.length; i++) {
+            Product product = requested[i];
+            try {
+                if (product == null) {
+                    throw new IllegalArgumentException("Product cannot be null.");
+                }
+                if (product.getId() == null || product.getId().isEmpty()) {
+                    product.setId(UUID.randomUUID().toString());
+                }
+                product.validate();
+                valid.add(product);
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        String transactionError = null;
+        if (!valid.isEmpty()) {
+            try {
+                ProductDAOSQL.addProducts(valid, batchChunkSize);
+                catalogVersion.incrementAndGet();
+                if (events != null) {
+                    List<String> added = new ArrayList<>(valid.size());
+                    for (Product product : valid) {
+                        added.add(product.toString());
+                    }
+                    events.publish(ProductEvents.ADD, added);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                transactionError = "Batch insert failed: " + e.getMessage();
+            }
+        }
+
+        int inserted = transactionError == null ? valid.size() : 0;
+        int status;
+        if (transactionError != null) {
+            status = 500;
+        } else if (inserted == requested.length) {
+            status = 201;
+        } else {
+            status = inserted == 0 ? 400 : 207;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        JsonWriter json = new JsonWriter(new ChunkedResponseBody(exchange, status));
+        json.beginObject()
+                .name("inserted").value(inserted)
+                .name("failed").value(requested.length - inserted)
+                .name("results").beginArray();
+        for (int i = 0; i < requested.length; i++) {
+            json.beginObject().name("index").value(i);
+            if (errors[i] != null) {
+                json.name("status").value("invalid").name("error").value(errors[i]);
+            } else if (transactionError != null) {
+                json.name("id").value(requested[i].getId()).name("status").value("failed").name("error").value(transactionError);
+            } else {
+                json.name("id").value(requested[i].getId()).name("status").value("created");
+            }
+            json.endObject();
+        }
+        json.endArray().endObject().close();
+    }
+
+    /**
+     * Maneja las solicitudes POST de reserva y liberación de inventario:
+     * - /products/{id}/reserve y /products/{id}/release con cuerpo {"quantity":n}.
+     * - /products/reserve y /products/release con cuerpo
+     *   {"items":[{"id":"...","quantity":n}, ...]}, aplicados todos o ninguno.
+     *
+     * Cada cambio es un único UPDATE condicional en la base de datos, así que no hay
+     * lectura-modificación-escritura y las reservas concurrentes no venden de más.
+     *
+     * Respuesta: {"results":[{"id":"...","status":"OK","quantity":n}, ...]} donde quantity
+     * es el inventario resultante (o el disponible si no alcanzó). Códigos: 200 si se aplicó,
+     * 404 si algún producto no existe, 409 si no hay inventario suficiente y 400 si la
+     * solicitud no es válida. El cuerpo se lee con el mismo límite que las demás escrituras
+     * ({@code batchMaxBytes} y {@code batchMaxItems} para varios productos); un cuerpo que
+     * lo supere recibe 413.
+     *
+     * @param exchange Objeto HttpExchange que representa la solicitud y la respuesta.
+     * @throws IOException Si ocurre un error al manejar la solicitud.
+     */
+    public void handleStock(HttpExchange exchange) throws IOException {
+        addCorsHeaders(exchange);
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "Method Not Allowed");
+            return;
+        }
+
+        String[] pathParts = exchange.getRequestURI().getPath().split("/");
+        String action = pathParts[pathParts.length - 1];
+        if (pathParts.length < 3 || pathParts.length > 4 || !("reserve".equals(action) || "release".equals(action))) {
+            sendResponse(exchange, 404, "Not Found");
+            return;
+        }
+
+        // Un solo producto lleva un objeto pequeño; varios, hasta batchMaxItems elementos
+        List<StockRequest> items;
+        try {
+            if (pathParts.length == 4) {
+                byte[] body = RequestBodies.read(exchange, RequestBodies.DEFAULT_MAX_BYTES);
+                items = Collections.singletonList(new StockRequest(pathParts[2], RequestBodies.readStockQuantity(body)));
+            } else {
+                items = RequestBodies.readStockItems(RequestBodies.read(exchange, batchMaxBytes), batchMaxItems);
+                if (items == null) {
+                    sendResponse(exchange, 413, "Too many items (max " + batchMaxItems + ")");
+                    return;
+                }
+                if (items.isEmpty()) {
+                    throw new IllegalArgumentException("Expected a non-empty items array.");
+                }
+            }
+            for (StockRequest item : items) {
+                if (item == null) {
+                    throw new IllegalArgumentException("Item cannot be null.");
+                }
+                item.validate();
+            }
+        } catch (PayloadTooLargeException e) {
+            sendResponse(exchange, 413, e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, "Invalid request body: " + e.getMessage());
+            return;
+        }
+
+        List<StockResult> results;
+        try {
+            results = ("reserve".equals(action)
+                    ? asyncProductDAO.reserveStock(items)
+                    : asyncProductDAO.releaseStock(items)).get();
+        } catch (ExecutionException | InterruptedException e) {
+            AsyncFailures.send(exchange, e);
+            return;
+        }
+
+        int status = 200;
+        for (StockResult result : results) {
+            if (result.getStatus() == StockResult.Status.NOT_FOUND) {
+                status = 404;
+            } else if (result.getStatus() == StockResult.Status.INSUFFICIENT_STOCK
+                    || result.getStatus() == StockResult.Status.QUANTITY_OVERFLOW) {
+                status = 409;
+            }
+        }
+        if (status == 200) {
+            catalogVersion.incrementAndGet();
+            if (events != null) {
+                List<String> changed = new ArrayList<>(results.size());
+                for (StockResult result : results) {
+                    changed.add("{\"id\":" + JsonWriter.quote(result.getId()) + ",\"quantity\":" + result.getQuantity() + "}");
+                }
+                events.publish(ProductEvents.UPDATE, changed);
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        JsonWriter json = new JsonWriter(new ChunkedResponseBody(exchange, status));
+        json.beginObject().name("results").beginArray();
+        for (StockResult result : results) {
+            json.beginObject()
+                    .name("id").value(result.getId())
+                    .name("status").value(result.getStatus().name());
+            if (result.getStatus() != StockResult.Status.NOT_FOUND && result.getStatus() != StockResult.Status.NOT_APPLIED) {
+                json.name("quantity").value(result.getQuantity());
+            }
+            json.endObject();
+        }
+        json.endArray().endObject().close();
+    }
+
     /**
      * Maneja la solicitud PUT para actualizar un producto existente.
      * 
@@ -104,8 +717,8 @@ public class ProductController {
         String method = exchange.getRequestMethod();
 
         if ("PUT".equals(method)) {
-            String body = new String(exchange.getRequestBody().readAllBytes());
             try {
+                ProductPatch fields = RequestBodies.readProductPatch(RequestBodies.read(exchange, RequestBodies.DEFAULT_MAX_BYTES));
                 String[] pathParts = exchange.getRequestURI().getPath().split("/");
                 if (pathParts.length < 3) {
                     throw new IllegalArgumentException("Product ID is required");
@@ -119,22 +732,27 @@ public class ProductController {
                 }
 
                 // Actualizar campos presentes en el JSON
-                String name = extractJsonValue(body, "name");
-                String description = extractJsonValue(body, "description");
-                String priceStr = extractJsonValue(body, "price");
-                String quantityStr = extractJsonValue(body, "quantity");
+                String name = fields.getName();
+                String description = fields.getDescription();
 
                 if (name != null && !"".equals(name)) existingProduct.setName(name);
                 if (description != null && !"".equals(description)) existingProduct.setDescription(description);
-                if (priceStr != null && !"null".equals(priceStr)) {
-                    existingProduct.setPrice(Double.parseDouble(priceStr));
+                if (fields.getPrice() != null) {
+                    existingProduct.setPrice(fields.getPrice());
                 }
-                if (quantityStr != null && !"null".equals(quantityStr)) {
-                    existingProduct.setQuantity(Integer.parseInt(quantityStr));
+                if (fields.getQuantity() != null) {
+                    existingProduct.setQuantity(fields.getQuantity());
                 }
 
-                ProductDAOSQL.updateProduct(productId, existingProduct);
+                if (!ProductDAOSQL.updateProduct(productId, existingProduct)) {
+                    sendResponse(exchange, 500, "Failed to update product");
+                    return;
+                }
+                catalogVersion.incrementAndGet();
+                publish(ProductEvents.UPDATE, existingProduct.toString());
                 sendResponse(exchange, 200, "Product updated: " + existingProduct.toString());
+            } catch (PayloadTooLargeException e) {
+                sendResponse(exchange, 413, e.getMessage());
             } catch (Exception e) {
                 sendResponse(exchange, 400, "Invalid request body: " + e.getMessage());
             }
@@ -143,6 +761,56 @@ public class ProductController {
         }
     }
 
+    /**
+     * Maneja la solicitud PATCH para modificar sólo algunos campos de un producto.
+     *
+     * A diferencia de PUT no se lee el producto antes: se ejecuta un único UPDATE con los
+     * campos presentes en el cuerpo y las filas afectadas deciden entre 200 y 404.
+     *
+     * @param exchange Objeto HttpExchange que representa la solicitud y la respuesta.
+     * @throws IOException Si ocurre un error al manejar la solicitud.
+     */
+    public void handlePatchProduct(HttpExchange exchange) throws IOException {
+        addCorsHeaders(exchange);
+        if (!"PATCH".equals(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "Method Not Allowed");
+            return;
+        }
+
+        String productId = extractIdFromUri(exchange.getRequestURI().getPath());
+        if (productId == null) {
+            sendResponse(exchange, 400, "Product ID is required in the URL");
+            return;
+        }
+
+        ProductPatch patch;
+        try {
+            patch = RequestBodies.readProductPatch(RequestBodies.read(exchange, RequestBodies.DEFAULT_MAX_BYTES));
+            patch.validate();
+        } catch (PayloadTooLargeException e) {
+            sendResponse(exchange, 413, e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, "Invalid request body: " + e.getMessage());
+            return;
+        }
+
+        boolean updated;
+        try {
+            updated = asyncProductDAO.patchProduct(productId, patch).get();
+        } catch (ExecutionException | InterruptedException e) {
+            AsyncFailures.send(exchange, e);
+            return;
+        }
+        if (updated) {
+            catalogVersion.incrementAndGet();
+            publish(ProductEvents.UPDATE, patchJson(productId, patch));
+            sendResponse(exchange, 200, "Product updated.");
+        } else {
+            sendResponse(exchange, 404, "Product not found.");
+        }
+    }
+
     /**
      * Maneja la solicitud DELETE para eliminar un producto.
      * 
@@ -162,6 +830,8 @@ public class ProductController {
 
             boolean success = ProductDAOSQL.deleteProduct(productId);
             if (success) {
+                catalogVersion.incrementAndGet();
+                publish(ProductEvents.DELETE, "{\"id\":" + JsonWriter.quote(productId) + "}");
                 sendResponse(exchange, 200, "Product deleted.");
             } else {
                 sendResponse(exchange, 404, "Product not found.");
@@ -171,6 +841,31 @@ public class ProductController {
         }
     }
 
+    // Publica un cambio ya confirmado en GET /products/stream
+    private void publish(String type, String data) {
+        if (events != null) {
+            events.publish(type, data);
+        }
+    }
+
+    // Evento de PATCH: el id y sólo los campos modificados
+    private static String patchJson(String productId, ProductPatch patch) {
+        StringBuilder json = new StringBuilder("{\"id\":").append(JsonWriter.quote(productId));
+        if (patch.getName() != null) {
+            json.append(",\"name\":").append(JsonWriter.quote(patch.getName()));
+        }
+        if (patch.getDescription() != null) {
+            json.append(",\"description\":").append(JsonWriter.quote(patch.getDescription()));
+        }
+        if (patch.getPrice() != null) {
+            json.append(",\"price\":").append(patch.getPrice());
+        }
+        if (patch.getQuantity() != null) {
+            json.append(",\"quantity\":").append(patch.getQuantity());
+        }
+        return json.append('}').toString();
+    }
+
     /**
      * Extrae el ID del producto desde la URI.
      * 
@@ -182,6 +877,169 @@ public class ProductController {
         return parts.length > 2 ? parts[2] : null;
     }
 
+    /**
+     * Escribe un producto como objeto JSON.
+     *
+     * @param json    Escritor de destino.
+     * @param product Producto a escribir.
+     * @throws IOException Si falla la escritura.
+     */
+    private void writeProduct(JsonWriter json, Product product) throws IOException {
+        json.beginObject()
+                .name("id").value(product.getId())
+                .name("name").value(product.getName())
+                .name("description").value(product.getDescription())
+                .name("price").value(product.getPrice())
+                .name("quantity").value(product.getQuantity())
+                .endObject();
+    }
+
+    /**
+     * Termina una respuesta en flujo que falló. Si aún no se enviaron las cabeceras se
+     * responde con 503 (y Retry-After) si el error es transitorio, como agotar la espera de
+     * una conexión del pool, o con 500 en otro caso; si ya se enviaron, se cierra el
+     * intercambio sin terminar el cuerpo chunked para que el cliente detecte la respuesta
+     * incompleta.
+     *
+     * @param exchange Objeto HttpExchange.
+     * @param body     Cuerpo en flujo de la respuesta.
+     * @param failure  Error de la base de datos.
+     * @throws IOException Si ocurre un error al enviar la respuesta.
+     */
+    private void abortStreaming(HttpExchange exchange, ChunkedResponseBody body, SQLException failure) throws IOException {
+        if (body.isCommitted()) {
+            exchange.close();
+        } else {
+            exchange.getResponseHeaders().remove("Content-Type");
+            exchange.getResponseHeaders().remove("ETag");
+            if (failure instanceof SQLTransientException) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendResponse(exchange, 503, "Service busy, retry later");
+            } else {
+                sendResponse(exchange, 500, "Internal Server Error");
+            }
+        }
+    }
+
+    /**
+     * Construye los criterios de consulta a partir de los parámetros de la URI.
+     *
+     * @param uri URI de la solicitud.
+     * @return Criterios de paginación y filtrado.
+     * @throws IllegalArgumentException Si algún parámetro no es válido.
+     */
+    private ProductQuery parseProductQuery(URI uri) {
+        Map<String, String> params = parseQueryParams(uri.getRawQuery());
+        ProductQuery query = new ProductQuery();
+        try {
+            if (params.containsKey("limit")) query.setLimit(Integer.parseInt(params.get("limit")));
+            if (params.containsKey("minPrice")) query.setMinPrice(Double.parseDouble(params.get("minPrice")));
+            if (params.containsKey("maxPrice")) query.setMaxPrice(Double.parseDouble(params.get("maxPrice")));
+            if (params.containsKey("minQuantity")) query.setMinQuantity(Integer.parseInt(params.get("minQuantity")));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected a number (" + e.getMessage() + ")");
+        }
+        if (params.containsKey("sort")) query.setSort(parseSort(params.get("sort")));
+        if (params.containsKey("order")) {
+            String order = params.get("order");
+            if (!"asc".equals(order) && !"desc".equals(order)) {
+                throw new IllegalArgumentException("order (expected asc or desc)");
+            }
+            query.setDescending("desc".equals(order));
+        }
+        try {
+            if (params.containsKey("maxQuantity")) query.setMaxQuantity(Integer.parseInt(params.get("maxQuantity")));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected a number (" + e.getMessage() + ")");
+        }
+        if (params.containsKey("after")) {
+            String cursor = decodeCursor(params.get("after"));
+            if (query.getSort() == ProductQuery.Sort.ID) {
+                query.setAfterId(cursor);
+            } else {
+                // Cursor de un orden por valor: "valor:id"
+                int separator = cursor.indexOf(':');
+                try {
+                    query.setAfterValue(Double.parseDouble(cursor.substring(0, Math.max(separator, 0))));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("after (cursor does not match sort)");
+                }
+                query.setAfterId(cursor.substring(separator + 1));
+            }
+        }
+        return query;
+    }
+
+    private static ProductQuery.Sort parseSort(String sort) {
+        switch (sort) {
+            case "id": return ProductQuery.Sort.ID;
+            case "price": return ProductQuery.Sort.PRICE;
+            case "quantity": return ProductQuery.Sort.QUANTITY;
+            default: throw new IllegalArgumentException("sort (expected id, price or quantity)");
+        }
+    }
+
+    /**
+     * Separa la cadena de consulta en pares clave/valor decodificados.
+     *
+     * @param rawQuery Cadena de consulta sin decodificar (puede ser null).
+     * @return Mapa de parámetros; si un parámetro se repite gana el primero.
+     */
+    static Map<String, String> parseQueryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.putIfAbsent(key, value);
+        }
+        return params;
+    }
+
+    /**
+     * Cursor de la página siguiente: el id, o "valor:id" si la consulta ordena por un valor.
+     *
+     * @param sort   Orden de la consulta.
+     * @param nextId ID a partir del cual continúa la página siguiente.
+     * @param last   Último producto de la página (su valor forma parte del cursor).
+     * @return Cursor codificado.
+     */
+    private String encodeCursor(ProductQuery.Sort sort, String nextId, Product last) {
+        switch (sort) {
+            case PRICE: return encodeCursor(last.getPrice() + ":" + nextId);
+            case QUANTITY: return encodeCursor(last.getQuantity() + ":" + nextId);
+            default: return encodeCursor(nextId);
+        }
+    }
+
+    /**
+     * Codifica un cursor opaco (Base64 URL sin relleno).
+     *
+     * @param id ID del último producto de la página, o "valor:id" si se ordena por un valor.
+     * @return Cursor para el parámetro "after".
+     */
+    private String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor generado por {@link #encodeCursor(String)}.
+     *
+     * @param cursor Cursor recibido en el parámetro "after".
+     * @return ID (o "valor:id") del producto a partir del cual continuar.
+     * @throws IllegalArgumentException Si el cursor no es válido.
+     */
+    private String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("after (malformed cursor)");
+        }
+    }
+
     /**
      * Envía una respuesta HTTP al cliente.
      * 
@@ -191,33 +1049,10 @@ public class ProductController {
      * @throws IOException Si ocurre un error al enviar la respuesta.
      */
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
         OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
+        os.write(bytes);
         os.close();
     }
-
-    /**
-     * Extrae el valor de una clave JSON en formato String.
-     * 
-     * @param json Cuerpo del JSON.
-     * @param key  Clave a buscar.
-     * @return Valor de la clave como String o null si no se encuentra.
-     */
-    private String extractJsonValue(String json, String key) {
-        String searchKey = "\"" + key + "\":";
-        int startIndex = json.indexOf(searchKey);
-        if (startIndex == -1) return null;
-
-        startIndex += searchKey.length();
-        char firstChar = json.charAt(startIndex);
-        if (firstChar == '"') {
-            int endIndex = json.indexOf('"', startIndex + 1);
-            return json.substring(startIndex + 1, endIndex);
-        } else {
-            int endIndex = json.indexOf(',', startIndex);
-            if (endIndex == -1) endIndex = json.indexOf('}', startIndex);
-            return json.substring(startIndex, endIndex).trim();
-        }
-    }
 }
@@ -0,0 +1,124 @@
+package app.apiRESTful.controller;
+
+import app.apiRESTful.json.JsonWriter;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.search.IndexSource;
+import app.apiRESTful.search.ProductSearchIndex;
+import app.apiRESTful.search.SearchResult;
+import app.apiRESTful.server.ChunkedResponseBody;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Map;
+
+/**
+ * Clase ProductSearchController
+ * Atiende GET /products/search?q=texto&offset=0&limit=20 con el índice en memoria
+ * {@link ProductSearchIndex}, sin consultar la base de datos.
+ *
+ * Respuesta:
+ * {"query":"...","total":n,"offset":0,"limit":20,
+ *  "results":[{"id":"...","name":"...","description":"...","price":1.0,"quantity":1,"score":2.3}]}
+ */
+public class ProductSearchController {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final IndexSource<ProductSearchIndex> index;
+
+    /**
+     * @param index Índice de búsqueda de productos.
+     */
+    public ProductSearchController(ProductSearchIndex index) {
+        this(() -> index);
+    }
+
+    /**
+     * @param index Acceso al índice de búsqueda; se llama en cada búsqueda, de modo que un
+     *              índice perezoso se construye con la primera (y se reintenta si falló).
+     */
+    public ProductSearchController(IndexSource<ProductSearchIndex> index) {
+        this.index = index;
+    }
+
+    /**
+     * Maneja GET /products/search. Responde 400 si falta q o la paginación no es válida, y
+     * 503 (con Retry-After) mientras el índice no se pueda construir.
+     *
+     * @param exchange Objeto HttpExchange que representa la solicitud y la respuesta.
+     * @throws IOException Si ocurre un error al escribir la respuesta.
+     */
+    public void handleSearch(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "Method Not Allowed");
+            return;
+        }
+
+        Map<String, String> params = ProductController.parseQueryParams(exchange.getRequestURI().getRawQuery());
+        String query = params.get("q");
+        if (query == null || query.isBlank()) {
+            sendResponse(exchange, 400, "Query parameter q is required");
+            return;
+        }
+        int offset;
+        int limit;
+        try {
+            offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+            limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+        } catch (NumberFormatException e) {
+            sendResponse(exchange, 400, "offset and limit must be integers");
+            return;
+        }
+        if (offset < 0 || limit < 1 || limit > MAX_LIMIT) {
+            sendResponse(exchange, 400, "offset must be >= 0 and limit between 1 and " + MAX_LIMIT);
+            return;
+        }
+
+        SearchResult result;
+        try {
+            result = index.get().search(query, offset, limit);
+        } catch (SQLTransientException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendResponse(exchange, 503, "Search index not available, retry later");
+            return;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            sendResponse(exchange, 500, "Database error: " + e.getMessage());
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        JsonWriter json = new JsonWriter(new ChunkedResponseBody(exchange, 200));
+        json.beginObject()
+                .name("query").value(query)
+                .name("total").value(result.getTotal())
+                .name("offset").value(offset)
+                .name("limit").value(limit)
+                .name("results").beginArray();
+        for (SearchResult.Hit hit : result.getHits()) {
+            Product product = hit.getProduct();
+            json.beginObject()
+                    .name("id").value(product.getId())
+                    .name("name").value(product.getName())
+                    .name("description").value(product.getDescription())
+                    .name("price").value(product.getPrice())
+                    .name("quantity").value(product.getQuantity())
+                    .name("score").value(Math.round(hit.getScore() * 1000) / 1000.0)
+                    .endObject();
+        }
+        json.endArray().endObject().close();
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        OutputStream os = exchange.getResponseBody();
+        os.write(bytes);
+        os.close();
+    }
+}
@@ -0,0 +1,136 @@
+package app.apiRESTful.controller;
+
+import app.apiRESTful.events.EventSink;
+import app.apiRESTful.events.ProductEvents;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Clase ProductStreamController
+ * Atiende GET /products/stream: un flujo Server-Sent Events con las altas ({@code add}),
+ * modificaciones ({@code update}) y bajas ({@code delete}) de productos.
+ *
+ * El manejador registra la conexión en {@link ProductEvents} y termina: la respuesta queda
+ * abierta y los eventos se escriben después desde otros hilos. Las cabeceras 200 se envían
+ * en cuanto la suscripción tiene hueco y antes de que el manejador termine (los filtros leen
+ * el código de respuesta al volver); si no queda hueco todavía se puede responder 503. Para
+ * reanudar se usa la cabecera {@code Last-Event-ID} (la envía el navegador al reconectar) o
+ * el parámetro {@code lastEventId}.
+ *
+ * Ejemplo de evento:
+ * id: lq3k1x-42
+ * event: update
+ * data: {"id":"...","quantity":7}
+ */
+public class ProductStreamController {
+
+    private final ProductEvents events;
+
+    /**
+     * @param events Flujo de cambios del catálogo.
+     */
+    public ProductStreamController(ProductEvents events) {
+        this.events = events;
+    }
+
+    /**
+     * Maneja GET /products/stream. Responde 503 con Retry-After si se alcanzó el máximo de
+     * suscriptores.
+     *
+     * @param exchange Objeto HttpExchange.
+     * @throws IOException Si ocurre un error al enviar la respuesta.
+     */
+    public void handleStream(HttpExchange exchange) throws IOException {
+        addCorsHeaders(exchange);
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "Method Not Allowed");
+            return;
+        }
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (lastEventId == null) {
+            lastEventId = queryParam(exchange.getRequestURI().getRawQuery(), "lastEventId");
+        }
+
+        // subscribe reserva el hueco; las cabeceras aún no se han enviado si no lo hay
+        ExchangeSink sink = new ExchangeSink(exchange);
+        if (!events.subscribe(sink, lastEventId)) {
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            sendResponse(exchange, 503, "Too many event stream subscribers");
+            return;
+        }
+        // Puede que el hilo escritor ya las haya enviado con el primer evento
+        sink.open();
+    }
+
+    /**
+     * Añade encabezados CORS a la respuesta.
+     *
+     * @param exchange Objeto HttpExchange.
+     */
+    public void addCorsHeaders(HttpExchange exchange) {
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, OPTIONS");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Authorization, Last-Event-ID");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Credentials", "true");
+    }
+
+    private static String queryParam(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && name.equals(pair.substring(0, eq))) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Cuerpo de la respuesta abierta de un suscriptor. Las cabeceras se envían una sola vez,
+     * desde el manejador o con la primera escritura, lo que ocurra antes.
+     */
+    private static final class ExchangeSink implements EventSink {
+        private final HttpExchange exchange;
+        private OutputStream body;
+
+        ExchangeSink(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        synchronized void open() throws IOException {
+            if (body == null) {
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+                exchange.sendResponseHeaders(200, 0);
+                body = exchange.getResponseBody();
+            }
+        }
+
+        @Override
+        public synchronized void send(byte[] frames) throws IOException {
+            open();
+            body.write(frames);
+            body.flush();
+        }
+
+        @Override
+        public void close() {
+            exchange.close();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Controller que maneja solicitudes protegidas mediante autenticación basada en tokens.
@@ -76,9 +77,10 @@ public class ProtectedController implements HttpHandler {
      * @throws IOException Si ocurre un error de entrada/salida.
      */
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length); // Envía encabezados con el código de estado y longitud del cuerpo
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8); // Codifica el cuerpo una sola vez
+        exchange.sendResponseHeaders(statusCode, bytes.length); // Envía encabezados con el código de estado y longitud del cuerpo
         OutputStream os = exchange.getResponseBody(); // Obtiene el flujo de salida para enviar el cuerpo
-        os.write(response.getBytes()); // Escribe el cuerpo de la respuesta
+        os.write(bytes); // Escribe el cuerpo de la respuesta
         os.close(); // Cierra el flujo de salida
     }
 }
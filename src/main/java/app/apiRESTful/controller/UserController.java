@@ -1,12 +1,21 @@
 package app.apiRESTful.controller;
 
 import com.sun.net.httpserver.HttpExchange;
-import app.apiRESTful.dao.UserDAOSQL;
+import app.apiRESTful.auth.CredentialStore;
+import app.apiRESTful.dao.AsyncUserDAO;
+import app.apiRESTful.dao.UserRepository;
+import app.apiRESTful.json.JsonBodyException;
+import app.apiRESTful.json.JsonWriter;
+import app.apiRESTful.json.PayloadTooLargeException;
+import app.apiRESTful.json.RequestBodies;
 import app.apiRESTful.model.User;
+import app.apiRESTful.server.ChunkedResponseBody;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Controlador para gestionar operaciones relacionadas con usuarios.
@@ -14,15 +23,39 @@ import java.util.List;
  * y delega operaciones a un DAO (Data Access Object) para interactuar con la base de datos.
  */
 public class UserController {
-    private final UserDAOSQL userDAOSQL;
+    private final UserRepository userDAOSQL;
+    private final AsyncUserDAO asyncUserDAO;
+    private final CredentialStore credentials;
 
     /**
      * Constructor que inicializa el DAO utilizado para acceder a los datos de usuarios.
      *
-     * @param userDAOSQL Instancia de UserDAOSQL que se usará para las operaciones de base de datos.
+     * @param userDAOSQL Almacenamiento de usuarios.
      */
-    public UserController(UserDAOSQL userDAOSQL) {
+    public UserController(UserRepository userDAOSQL) {
+        this(userDAOSQL, AsyncUserDAO.inline(userDAOSQL));
+    }
+
+    /**
+     * Constructor con acceso asíncrono a los datos.
+     *
+     * @param userDAOSQL   Almacenamiento de usuarios.
+     * @param asyncUserDAO Fachada asíncrona (con su bulkhead) del mismo DAO.
+     */
+    public UserController(UserRepository userDAOSQL, AsyncUserDAO asyncUserDAO) {
+        this(userDAOSQL, asyncUserDAO, CredentialStore.getInstance());
+    }
+
+    /**
+     * @param userDAOSQL   Almacenamiento de usuarios.
+     * @param asyncUserDAO Fachada asíncrona (con su bulkhead) del mismo DAO.
+     * @param credentials  Verificación de credenciales; al crear o renombrar un usuario se
+     *                     olvida que ese nombre no existía.
+     */
+    public UserController(UserRepository userDAOSQL, AsyncUserDAO asyncUserDAO, CredentialStore credentials) {
         this.userDAOSQL = userDAOSQL;
+        this.asyncUserDAO = asyncUserDAO;
+        this.credentials = credentials;
     }
 
     /**
@@ -40,6 +73,8 @@ public class UserController {
 
     /**
      * Maneja solicitudes GET para obtener todos los usuarios.
+     * La lista se escribe en flujo (chunked) directamente desde el `ResultSet`, por lo que
+     * la memoria utilizada no depende del número de usuarios. Las contraseñas no se incluyen.
      *
      * @param exchange Objeto HttpExchange que contiene la solicitud y la respuesta.
      * @throws IOException Si ocurre un error de entrada/salida.
@@ -49,14 +84,70 @@ public class UserController {
         String method = exchange.getRequestMethod();
 
         if ("GET".equals(method)) {
-            // Obtiene todos los usuarios de la base de datos.
-            List<User> users = userDAOSQL.getAllUsers();
-            sendResponse(exchange, 200, users.toString()); // Devuelve los usuarios como una lista en texto.
+            String idStr = extractIdFromUri(exchange.getRequestURI().getPath());
+            if (idStr != null) {
+                handleGetUser(exchange, idStr);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            ChunkedResponseBody body = new ChunkedResponseBody(exchange, 200);
+            JsonWriter json = new JsonWriter(body);
+            try {
+                // Escribe cada usuario a medida que se lee de la base de datos.
+                json.beginArray();
+                userDAOSQL.streamAllUsers(user -> json.beginObject()
+                        .name("id").value(user.getId())
+                        .name("username").value(user.getUsername())
+                        .endObject());
+                json.endArray().close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                if (body.isCommitted()) {
+                    exchange.close(); // Cierra sin terminar el cuerpo para que el cliente detecte el error.
+                } else {
+                    exchange.getResponseHeaders().remove("Content-Type");
+                    sendResponse(exchange, 500, "Internal Server Error");
+                }
+            }
         } else {
             sendResponse(exchange, 405, "Method Not Allowed");
         }
     }
 
+    /**
+     * Maneja GET /users/{id}. La consulta se ejecuta en el bulkhead de usuarios con su tiempo
+     * límite: 504 si se agota, 503 si el bulkhead está lleno. La contraseña no se incluye.
+     */
+    private void handleGetUser(HttpExchange exchange, String idStr) throws IOException {
+        int id;
+        try {
+            id = Integer.parseInt(idStr);
+        } catch (NumberFormatException e) {
+            sendResponse(exchange, 400, "Invalid user ID");
+            return;
+        }
+
+        User user;
+        try {
+            user = asyncUserDAO.getUserById(id).get();
+        } catch (InterruptedException | ExecutionException e) {
+            AsyncFailures.send(exchange, e);
+            return;
+        }
+        if (user == null) {
+            sendResponse(exchange, 404, "User not found");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        JsonWriter json = new JsonWriter(new ChunkedResponseBody(exchange, 200));
+        json.beginObject()
+                .name("id").value(user.getId())
+                .name("username").value(user.getUsername())
+                .endObject()
+                .close();
+    }
+
     /**
      * Maneja solicitudes POST para agregar un nuevo usuario.
      *
@@ -68,22 +159,16 @@ public class UserController {
         String method = exchange.getRequestMethod();
 
         if ("POST".equals(method)) {
-            // Lee el cuerpo de la solicitud y extrae los valores necesarios.
-            String body = new String(exchange.getRequestBody().readAllBytes());
-            String username = extractJsonValue(body, "username");
-            String password = extractJsonValue(body, "password");
-
-            if (username == null || password == null) {
-                sendResponse(exchange, 400, "Invalid user data"); // Datos inválidos en la solicitud.
-                return;
+            // Lee el cuerpo de la solicitud y lo enlaza al usuario en una sola pasada.
+            User user = readUser(exchange);
+            if (user == null) {
+                return; // Ya se respondió 400 o 413.
             }
 
-            // Crea un nuevo usuario y lo guarda en la base de datos.
-            User user = new User();
-            user.setUsername(username);
-            user.setPassword(password);
-
+            // Guarda el nuevo usuario en la base de datos.
             if (userDAOSQL.addUser(user)) {
+                // El login pudo haber recordado este nombre como inexistente
+                credentials.forgetUnknown(user.getUsername());
                 sendResponse(exchange, 201, "User added"); // Usuario agregado exitosamente.
             } else {
                 sendResponse(exchange, 500, "Failed to add user"); // Error al agregar usuario.
@@ -112,21 +197,14 @@ public class UserController {
             }
 
             int id = Integer.parseInt(idStr); // Convierte el ID a un entero.
-            String body = new String(exchange.getRequestBody().readAllBytes());
-            String username = extractJsonValue(body, "username");
-            String password = extractJsonValue(body, "password");
-
-            if (username == null || password == null) {
-                sendResponse(exchange, 400, "Invalid user data"); // Datos inválidos en la solicitud.
-                return;
+            User user = readUser(exchange);
+            if (user == null) {
+                return; // Ya se respondió 400 o 413.
             }
 
             // Actualiza los datos del usuario en la base de datos.
-            User user = new User();
-            user.setUsername(username);
-            user.setPassword(password);
-
             if (userDAOSQL.updateUser(id, user)) {
+                credentials.forgetUnknown(user.getUsername());
                 sendResponse(exchange, 200, "User updated"); // Usuario actualizado exitosamente.
             } else {
                 sendResponse(exchange, 404, "User not found"); // Usuario no encontrado.
@@ -185,36 +263,29 @@ public class UserController {
      * @throws IOException Si ocurre un error de entrada/salida.
      */
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
         OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
+        os.write(bytes);
         os.close();
     }
 
     /**
-     * Extrae un valor de una cadena JSON basada en la clave especificada.
+     * Lee el cuerpo de la solicitud como usuario (username y password obligatorios).
+     * Si el cuerpo no es válido responde 400 (o 413 si es demasiado grande) y devuelve null.
      *
-     * @param json JSON como String.
-     * @param key  Clave del valor a extraer.
-     * @return El valor asociado con la clave, o null si no se encuentra.
+     * @param exchange Objeto HttpExchange que contiene la solicitud y la respuesta.
+     * @return El usuario, o null si ya se respondió con un error.
+     * @throws IOException Si ocurre un error de entrada/salida.
      */
-    private String extractJsonValue(String json, String key) {
-        String searchKey = "\"" + key + "\":";
-        int startIndex = json.indexOf(searchKey);
-        if (startIndex == -1) {
-            return null;
-        }
-        startIndex += searchKey.length();
-        char firstChar = json.charAt(startIndex);
-        if (firstChar == '"') {
-            int endIndex = json.indexOf('"', startIndex + 1);
-            return json.substring(startIndex + 1, endIndex);
-        } else {
-            int endIndex = json.indexOf(',', startIndex);
-            if (endIndex == -1) {
-                endIndex = json.indexOf('}', startIndex);
-            }
-            return json.substring(startIndex, endIndex).trim();
+    private User readUser(HttpExchange exchange) throws IOException {
+        try {
+            return RequestBodies.readUser(RequestBodies.read(exchange, RequestBodies.DEFAULT_MAX_BYTES));
+        } catch (PayloadTooLargeException e) {
+            sendResponse(exchange, 413, e.getMessage());
+        } catch (JsonBodyException e) {
+            sendResponse(exchange, 400, "Invalid user data: " + e.getMessage());
         }
+        return null;
     }
 }
@@ -0,0 +1,175 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.concurrent.Bulkhead;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fachada asíncrona de un {@link ProductRepository}.
+ *
+ * Cada método ejecuta la llamada bloqueante en el {@link Bulkhead} de productos y devuelve
+ * un {@link CompletableFuture}, de modo que varias consultas se pueden lanzar en paralelo y
+ * combinar ({@code thenCombine}, {@code allOf}) y una consulta de usuarios lenta no ocupa
+ * los hilos de productos. Cada lectura tiene el tiempo límite de la fachada
+ * ({@link #withTimeout} crea una vista con otro); cancelar el futuro devuelto interrumpe
+ * la consulta. Las escrituras no se interrumpen ni expiran en la fachada: un commit en curso
+ * no se deshace al interrumpir el hilo, y el cliente recibiría un error por una escritura
+ * que sí se aplicó. Su límite es el tiempo de espera de la sentencia en el DAO JDBC.
+ *
+ * Sin bulkhead ({@link #inline}) las llamadas se ejecutan en el hilo que las hace y el
+ * futuro se devuelve ya completado.
+ */
+public class AsyncProductDAO {
+
+    private final ProductRepository dao;
+    private final Bulkhead bulkhead;
+    private final long timeoutMillis;
+
+    /**
+     * @param dao           DAO bloqueante.
+     * @param bulkhead      Compartimento donde se ejecutan las llamadas.
+     * @param timeoutMillis Tiempo límite de cada llamada en milisegundos (0 sin límite).
+     */
+    public AsyncProductDAO(ProductRepository dao, Bulkhead bulkhead, long timeoutMillis) {
+        this.dao = dao;
+        this.bulkhead = bulkhead;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param dao DAO bloqueante.
+     * @return Una fachada que ejecuta cada llamada en el hilo que la hace.
+     */
+    public static AsyncProductDAO inline(ProductRepository dao) {
+        return new AsyncProductDAO(dao, null, 0);
+    }
+
+    /**
+     * @param timeout Tiempo límite de cada llamada.
+     * @param unit    Unidad de {@code timeout}.
+     * @return Una vista de esta fachada con otro tiempo límite.
+     */
+    public AsyncProductDAO withTimeout(long timeout, TimeUnit unit) {
+        return new AsyncProductDAO(dao, bulkhead, unit.toMillis(timeout));
+    }
+
+    public CompletableFuture<List<Product>> getAllProducts() {
+        return call(dao::getAllProducts);
+    }
+
+    public CompletableFuture<ProductPage> getProductsPage(ProductQuery query) {
+        return call(() -> dao.getProductsPage(query));
+    }
+
+    public CompletableFuture<Product> getProductById(String id) {
+        return call(() -> dao.getProductById(id));
+    }
+
+    /**
+     * Busca varios productos en paralelo (una llamada por ID). Si alguna falla, se cancelan
+     * las demás.
+     *
+     * @param ids IDs a buscar.
+     * @return Los productos encontrados por ID, en el orden de {@code ids}; los que no
+     *         existen no aparecen.
+     */
+    public CompletableFuture<Map<String, Product>> getProductsByIds(Collection<String> ids) {
+        List<String> order = new ArrayList<>(ids);
+        List<CompletableFuture<Product>> lookups = new ArrayList<>(order.size());
+        for (String id : order) {
+            lookups.add(getProductById(id));
+        }
+        CompletableFuture<Map<String, Product>> result = CompletableFuture
+                .allOf(lookups.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<String, Product> found = new LinkedHashMap<>();
+                    for (int i = 0; i < order.size(); i++) {
+                        Product product = lookups.get(i).join();
+                        if (product != null) {
+                            found.put(order.get(i), product);
+                        }
+                    }
+                    return found;
+                });
+        // allOf espera a todas: ante el primer fallo (o si se cancela el resultado) se cancela el resto
+        for (CompletableFuture<Product> lookup : lookups) {
+            lookup.whenComplete((product, error) -> {
+                if (error != null) {
+                    lookups.forEach(other -> other.cancel(true));
+                }
+            });
+        }
+        result.whenComplete((found, error) -> {
+            if (result.isCancelled()) {
+                lookups.forEach(lookup -> lookup.cancel(true));
+            }
+        });
+        return result;
+    }
+
+    public CompletableFuture<Boolean> addProduct(Product product) {
+        return write(() -> dao.addProduct(product));
+    }
+
+    public CompletableFuture<Void> addProducts(List<Product> products, int chunkSize) {
+        return write(() -> {
+            dao.addProducts(products, chunkSize);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> updateProduct(String id, Product updatedProduct) {
+        return write(() -> dao.updateProduct(id, updatedProduct));
+    }
+
+    public CompletableFuture<Boolean> patchProduct(String id, ProductPatch patch) {
+        return write(() -> dao.patchProduct(id, patch));
+    }
+
+    public CompletableFuture<Boolean> deleteProduct(String id) {
+        return write(() -> dao.deleteProduct(id));
+    }
+
+    public CompletableFuture<List<StockResult>> reserveStock(List<StockRequest> items) {
+        return write(() -> dao.reserveStock(items));
+    }
+
+    public CompletableFuture<List<StockResult>> releaseStock(List<StockRequest> items) {
+        return write(() -> dao.releaseStock(items));
+    }
+
+    private <T> CompletableFuture<T> call(Callable<T> task) {
+        if (bulkhead != null) {
+            return bulkhead.submit(task, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return runHere(task);
+    }
+
+    // Las escrituras no tienen el tiempo límite de la fachada (ver Bulkhead#submitWrite)
+    private <T> CompletableFuture<T> write(Callable<T> task) {
+        if (bulkhead != null) {
+            return bulkhead.submitWrite(task);
+        }
+        return runHere(task);
+    }
+
+    private static <T> CompletableFuture<T> runHere(Callable<T> task) {
+        try {
+            return CompletableFuture.completedFuture(task.call());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.concurrent.Bulkhead;
+import app.apiRESTful.model.User;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fachada asíncrona de un {@link UserRepository}, con su propio {@link Bulkhead}. Funciona igual
+ * que {@link AsyncProductDAO}.
+ */
+public class AsyncUserDAO {
+
+    private final UserRepository dao;
+    private final Bulkhead bulkhead;
+    private final long timeoutMillis;
+
+    /**
+     * @param dao           DAO bloqueante.
+     * @param bulkhead      Compartimento donde se ejecutan las llamadas.
+     * @param timeoutMillis Tiempo límite de cada llamada en milisegundos (0 sin límite).
+     */
+    public AsyncUserDAO(UserRepository dao, Bulkhead bulkhead, long timeoutMillis) {
+        this.dao = dao;
+        this.bulkhead = bulkhead;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param dao DAO bloqueante.
+     * @return Una fachada que ejecuta cada llamada en el hilo que la hace.
+     */
+    public static AsyncUserDAO inline(UserRepository dao) {
+        return new AsyncUserDAO(dao, null, 0);
+    }
+
+    /**
+     * @param timeout Tiempo límite de cada llamada.
+     * @param unit    Unidad de {@code timeout}.
+     * @return Una vista de esta fachada con otro tiempo límite.
+     */
+    public AsyncUserDAO withTimeout(long timeout, TimeUnit unit) {
+        return new AsyncUserDAO(dao, bulkhead, unit.toMillis(timeout));
+    }
+
+    public CompletableFuture<List<User>> getAllUsers() {
+        return call(dao::getAllUsers);
+    }
+
+    public CompletableFuture<User> getUserById(int id) {
+        return call(() -> dao.getUserById(id));
+    }
+
+    public CompletableFuture<Boolean> addUser(User user) {
+        return write(() -> dao.addUser(user));
+    }
+
+    public CompletableFuture<Boolean> updateUser(int id, User user) {
+        return write(() -> dao.updateUser(id, user));
+    }
+
+    public CompletableFuture<Boolean> deleteUser(int id) {
+        return write(() -> dao.deleteUser(id));
+    }
+
+    private <T> CompletableFuture<T> call(Callable<T> task) {
+        if (bulkhead != null) {
+            return bulkhead.submit(task, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return runHere(task);
+    }
+
+    // Las escrituras no tienen el tiempo límite de la fachada (ver Bulkhead#submitWrite)
+    private <T> CompletableFuture<T> write(Callable<T> task) {
+        if (bulkhead != null) {
+            return bulkhead.submitWrite(task);
+        }
+        return runHere(task);
+    }
+
+    private static <T> CompletableFuture<T> runHere(Callable<T> task) {
+        try {
+            return CompletableFuture.completedFuture(task.call());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.cache.CacheStats;
+import app.apiRESTful.cache.LruCache;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de lectura delante de {@link ProductDAOSQL}.
+ *
+ * Guarda productos por id y páginas de {@code GET /products} por consulta, con límite de
+ * tamaño, expulsión LRU y TTL. Las escrituras ({@code addProduct}, {@code updateProduct},
+ * {@code patchProduct}, {@code deleteProduct}) se delegan a la base de datos y a continuación invalidan las
+ * entradas afectadas.
+ *
+ * Para que una lectura lenta que empezó antes de una escritura no deje en caché datos
+ * obsoletos, cada escritura incrementa una generación; la lectura que detecta que la
+ * generación cambió mientras consultaba la base de datos descarta lo que acaba de guardar.
+ *
+ * Los productos se guardan y se devuelven como copias, porque {@code Product} es mutable.
+ */
+public class CachedProductDAO implements ProductRepository {
+
+    private final ProductRepository delegate;
+    private final LruCache<String, Product> products;
+    private final LruCache<ProductQuery, CachedPage> pages;
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param delegate   DAO que accede a la base de datos.
+     * @param maxEntries Número máximo de entradas de cada caché (productos y páginas).
+     * @param ttlSeconds Tiempo de vida de las entradas en segundos.
+     */
+    public CachedProductDAO(ProductRepository delegate, int maxEntries, long ttlSeconds) {
+        this.delegate = delegate;
+        this.products = new LruCache<>(maxEntries, ttlSeconds, TimeUnit.SECONDS);
+        this.pages = new LruCache<>(maxEntries, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
+        return delegate.getAllProducts();
+    }
+
+    @Override
+    public ProductPage getProductsPage(ProductQuery query) throws SQLException {
+        CachedPage cached = pages.get(query);
+        if (cached != null) {
+            return new ProductPage(copyAll(cached.items), cached.nextId);
+        }
+        long readGeneration = generation.get();
+        ProductPage page = delegate.getProductsPage(query);
+        cachePage(query, new CachedPage(copyAll(page.getItems()), page.getNextId()), readGeneration);
+        return page;
+    }
+
+    @Override
+    public String streamProductsPage(ProductQuery query, RowHandler<Product> handler) throws SQLException, IOException {
+        CachedPage cached = pages.get(query);
+        if (cached != null) {
+            for (Product product : cached.items) {
+                handler.handle(copy(product));
+            }
+            return cached.nextId;
+        }
+        long readGeneration = generation.get();
+        List<Product> items = new ArrayList<>();
+        String nextId = delegate.streamProductsPage(query, product -> {
+            items.add(copy(product));
+            handler.handle(product);
+        });
+        cachePage(query, new CachedPage(items, nextId), readGeneration);
+        return nextId;
+    }
+
+    @Override
+    public Product getProductById(String id) {
+        Product cached = products.get(id);
+        if (cached != null) {
+            return copy(cached);
+        }
+        long readGeneration = generation.get();
+        Product product = delegate.getProductById(id);
+        if (product != null) {
+            products.put(id, copy(product));
+            if (generation.get() != readGeneration) {
+                products.invalidate(id);
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public boolean addProduct(Product product) {
+        boolean added = delegate.addProduct(product);
+        afterWrite(product.getId());
+        return added;
+    }
+
+    @Override
+    public void addProducts(List<Product> newProducts, int chunkSize) throws SQLException {
+        try {
+            delegate.addProducts(newProducts, chunkSize);
+        } finally {
+            generation.incrementAndGet();
+            for (Product product : newProducts) {
+                products.invalidate(product.getId());
+            }
+            pages.invalidateAll();
+        }
+    }
+
+    @Override
+    public List<StockResult> reserveStock(List<StockRequest> items) throws SQLException {
+        try {
+            return delegate.reserveStock(items);
+        } finally {
+            afterStockChange(items);
+        }
+    }
+
+    @Override
+    public List<StockResult> releaseStock(List<StockRequest> items) throws SQLException {
+        try {
+            return delegate.releaseStock(items);
+        } finally {
+            afterStockChange(items);
+        }
+    }
+
+    @Override
+    public boolean updateProduct(String id, Product updatedProduct) {
+        boolean updated = delegate.updateProduct(id, updatedProduct);
+        afterWrite(id);
+        return updated;
+    }
+
+    @Override
+    public boolean patchProduct(String id, ProductPatch patch) throws SQLException {
+        try {
+            return delegate.patchProduct(id, patch);
+        } finally {
+            afterWrite(id);
+        }
+    }
+
+    @Override
+    public boolean deleteProduct(String id) {
+        boolean deleted = delegate.deleteProduct(id);
+        afterWrite(id);
+        return deleted;
+    }
+
+    /**
+     * @return Contadores de la caché de productos por id.
+     */
+    public CacheStats getProductStats() {
+        return products.getStats();
+    }
+
+    /**
+     * @return Contadores de la caché de páginas.
+     */
+    public CacheStats getPageStats() {
+        return pages.getStats();
+    }
+
+    /**
+     * Vacía ambas cachés (por ejemplo, tras modificar la tabla fuera de la aplicación).
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        products.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    // Cualquier escritura puede cambiar el contenido o el orden de todas las páginas
+    private void afterWrite(String id) {
+        generation.incrementAndGet();
+        products.invalidate(id);
+        pages.invalidateAll();
+    }
+
+    private void afterStockChange(List<StockRequest> items) {
+        generation.incrementAndGet();
+        for (StockRequest item : items) {
+            products.invalidate(item.getId());
+        }
+        pages.invalidateAll();
+    }
+
+    private void cachePage(ProductQuery query, CachedPage page, long readGeneration) {
+        pages.put(query, page);
+        if (generation.get() != readGeneration) {
+            pages.invalidate(query);
+        }
+    }
+
+    private static List<Product> copyAll(List<Product> source) {
+        List<Product> copies = new ArrayList<>(source.size());
+        for (Product product : source) {
+            copies.add(copy(product));
+        }
+        return copies;
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getQuantity());
+    }
+
+    /**
+     * Página guardada en caché (inmutable).
+     */
+    private static final class CachedPage {
+        private final List<Product> items;
+        private final String nextId;
+
+        private CachedPage(List<Product> items, String nextId) {
+            this.items = Collections.unmodifiableList(items);
+            this.nextId = nextId;
+        }
+    }
+}
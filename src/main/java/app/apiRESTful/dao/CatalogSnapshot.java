@@ -0,0 +1,162 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato binario de la instantánea del catálogo que usa {@link SnapshotProductDAO}.
+ *
+ * {@code [magic][versión][marca de agua][n][producto]*n[crc32]}, donde cada producto es
+ * {@code [id][nombre][descripción][precio][cantidad]} y cada texto es su longitud en bytes
+ * UTF-8 seguida de los bytes (-1 si es null). La marca de agua es el mayor {@code updated_at}
+ * de la base de datos ya reflejado en la instantánea. El CRC cubre todo lo anterior, así que
+ * un archivo truncado o dañado se rechaza entero.
+ *
+ * La lectura proyecta el archivo en memoria con un {@link MappedByteBuffer}: el CRC se
+ * calcula directamente sobre las páginas del archivo y los productos se decodifican sin
+ * copias intermedias ni flujos. La escritura va a un archivo temporal que después se mueve
+ * encima del anterior de forma atómica.
+ */
+final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x43415453; // "CATS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    private final long watermark;
+    private final List<Product> products;
+
+    private CatalogSnapshot(long watermark, List<Product> products) {
+        this.watermark = watermark;
+        this.products = products;
+    }
+
+    /**
+     * @return Mayor {@code updated_at} (milisegundos) reflejado en la instantánea.
+     */
+    long getWatermark() {
+        return watermark;
+    }
+
+    List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Lee una instantánea.
+     *
+     * @param file Archivo de la instantánea.
+     * @return Su contenido.
+     * @throws IOException Si el archivo no se puede leer o no es una instantánea válida.
+     */
+    static CatalogSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 8 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            // La proyección sigue siendo válida tras cerrar el canal; se libera con el búfer
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int end = (int) size - 8;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, end));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong(end) != crc.getValue()) {
+                throw new IOException("Not a catalog snapshot or corrupt: " + file);
+            }
+            long watermark = buffer.getLong();
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new IOException("Corrupt catalog snapshot: " + file);
+            }
+            List<Product> products = new ArrayList<>(count);
+            try {
+                for (int i = 0; i < count; i++) {
+                    products.add(new Product(readString(buffer), readString(buffer), readString(buffer),
+                            buffer.getDouble(), buffer.getInt()));
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt catalog snapshot: " + file, e);
+            }
+            if (buffer.position() != end) {
+                throw new IOException("Corrupt catalog snapshot: " + file);
+            }
+            return new CatalogSnapshot(watermark, products);
+        }
+    }
+
+    /**
+     * Escribe una instantánea; la anterior queda intacta si la escritura falla.
+     *
+     * @param file      Archivo de la instantánea.
+     * @param watermark Mayor {@code updated_at} reflejado en {@code products}.
+     * @param products  Catálogo completo.
+     * @return Tamaño del archivo en bytes.
+     * @throws IOException Si falla la escritura.
+     */
+    static long write(Path file, long watermark, Collection<Product> products) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                DataOutputStream checked = new DataOutputStream(new CheckedOutputStream(out, crc));
+                checked.writeInt(MAGIC);
+                checked.writeInt(VERSION);
+                checked.writeLong(watermark);
+                checked.writeInt(products.size());
+                for (Product product : products) {
+                    InMemoryProductRepository.writeString(checked, product.getId());
+                    InMemoryProductRepository.writeString(checked, product.getName());
+                    InMemoryProductRepository.writeString(checked, product.getDescription());
+                    checked.writeDouble(product.getPrice());
+                    checked.writeInt(product.getQuantity());
+                }
+                checked.flush();
+                out.writeLong(crc.getValue());
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return Files.size(absolute);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,463 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Motor de productos en memoria, sin base de datos.
+ *
+ * Los productos se guardan en un {@link ConcurrentSkipListMap} ordenado por ID, de modo que la
+ * paginación por cursor sobre `id` recorre sólo la página pedida, igual que el índice de la
+ * tabla. Cada valor guardado es una copia que nunca se modifica: las lecturas no toman ningún
+ * bloqueo y devuelven copias, así que quien las reciba puede modificarlas sin afectar al
+ * almacén. Las escrituras se serializan con un único bloqueo, lo que hace atómicas las
+ * operaciones de varios productos (lotes e inventario) sin transacciones.
+ *
+ * Las órdenes por precio o cantidad filtran y ordenan el catálogo en cada consulta; con el
+ * {@link IndexedProductDAO} delante las resuelven los índices de rango.
+ */
+public class InMemoryProductRepository implements ProductRepository {
+
+    private final ConcurrentSkipListMap<String, Product> products = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Se incrementa en cada escritura; la instantánea periódica lo usa para saber si hay cambios
+    private final AtomicLong modCount = new AtomicLong();
+
+    @Override
+    public List<Product> getAllProducts() {
+        List<Product> result = new ArrayList<>(products.size());
+        for (Product product : products.values()) {
+            result.add(copy(product));
+        }
+        return result;
+    }
+
+    @Override
+    public ProductPage getProductsPage(ProductQuery query) {
+        List<Product> items = new ArrayList<>();
+        try {
+            return new ProductPage(items, streamProductsPage(query, items::add));
+        } catch (IOException e) {
+            // items::add no escribe en ningún flujo
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Recorre una página con la misma semántica que {@link ProductDAOSQL#streamProductsPage}:
+     * cursor (valor, id) u (id), filtros inclusivos y una fila extra para saber si hay más.
+     */
+    @Override
+    public String streamProductsPage(ProductQuery query, RowHandler<Product> handler) throws IOException {
+        Iterable<Product> candidates;
+        if (query.getSort() == ProductQuery.Sort.ID) {
+            NavigableMap<String, Product> view = query.isDescending() ? products.descendingMap() : products;
+            if (query.getAfterId() != null) {
+                view = view.tailMap(query.getAfterId(), false);
+            }
+            candidates = view.values();
+        } else {
+            candidates = sortedByValue(query);
+        }
+
+        int count = 0;
+        String lastId = null;
+        for (Product product : candidates) {
+            if (!query.matchesFilters(product)) {
+                continue;
+            }
+            // La fila extra sólo indica que hay otra página; no se entrega
+            if (++count > query.getLimit()) {
+                return lastId;
+            }
+            handler.handle(copy(product));
+            lastId = product.getId();
+        }
+        return null;
+    }
+
+    @Override
+    public Product getProductById(String id) {
+        Product product = id == null ? null : products.get(id);
+        return product == null ? null : copy(product);
+    }
+
+    @Override
+    public boolean addProduct(Product product) {
+        writeLock.lock();
+        try {
+            if (products.putIfAbsent(product.getId(), copy(product)) != null) {
+                return false;
+            }
+            modCount.incrementAndGet();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Agrega todos los productos o ninguno. {@code chunkSize} no aplica en memoria.
+     *
+     * @throws SQLIntegrityConstraintViolationException Si algún ID ya existe o se repite en el lote,
+     *                                                  igual que la clave primaria de la tabla.
+     */
+    @Override
+    public void addProducts(List<Product> newProducts, int chunkSize) throws SQLIntegrityConstraintViolationException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        writeLock.lock();
+        try {
+            Map<String, Product> batch = new HashMap<>();
+            for (Product product : newProducts) {
+                if (products.containsKey(product.getId()) || batch.putIfAbsent(product.getId(), copy(product)) != null) {
+                    throw new SQLIntegrityConstraintViolationException("Duplicate product id " + product.getId());
+                }
+            }
+            products.putAll(batch);
+            modCount.incrementAndGet();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean updateProduct(String id, Product updatedProduct) {
+        writeLock.lock();
+        try {
+            if (!products.containsKey(id)) {
+                return false;
+            }
+            products.put(id, new Product(id, updatedProduct.getName(), updatedProduct.getDescription(),
+                    updatedProduct.getPrice(), updatedProduct.getQuantity()));
+            modCount.incrementAndGet();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean patchProduct(String id, ProductPatch patch) {
+        if (patch.getName() == null && patch.getDescription() == null
+                && patch.getPrice() == null && patch.getQuantity() == null) {
+            throw new IllegalArgumentException("At least one field is required.");
+        }
+        writeLock.lock();
+        try {
+            Product current = products.get(id);
+            if (current == null) {
+                return false;
+            }
+            Product patched = copy(current);
+            if (patch.getName() != null) {
+                patched.setName(patch.getName());
+            }
+            if (patch.getDescription() != null) {
+                patched.setDescription(patch.getDescription());
+            }
+            if (patch.getPrice() != null) {
+                patched.setPrice(patch.getPrice());
+            }
+            if (patch.getQuantity() != null) {
+                patched.setQuantity(patch.getQuantity());
+            }
+            products.put(id, patched);
+            modCount.incrementAndGet();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteProduct(String id) {
+        writeLock.lock();
+        try {
+            boolean removed = id != null && products.remove(id) != null;
+            if (removed) {
+                modCount.incrementAndGet();
+            }
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<StockResult> reserveStock(List<StockRequest> items) {
+        return adjustStock(items, -1);
+    }
+
+    @Override
+    public List<StockResult> releaseStock(List<StockRequest> items) {
+        return adjustStock(items, 1);
+    }
+
+    /**
+     * Aplica los cambios de inventario en orden de ID, como {@link ProductDAOSQL}: se calculan
+     * todos antes de escribir nada y, si alguno falla, no se publica ninguno.
+     */
+    private List<StockResult> adjustStock(List<StockRequest> items, int sign) {
+        Integer[] order = new Integer[items.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> items.get(i).getId()));
+        StockResult[] results = new StockResult[items.size()];
+
+        writeLock.lock();
+        try {
+            // Inventario resultante por producto (un mismo ID puede repetirse en la solicitud)
+            Map<String, Integer> pending = new HashMap<>();
+            StockResult failure = null;
+            for (int index : order) {
+                StockRequest item = items.get(index);
+                Product product = products.get(item.getId());
+                if (product == null) {
+                    failure = new StockResult(item.getId(), StockResult.Status.NOT_FOUND, 0);
+                } else {
+                    int current = pending.getOrDefault(item.getId(), product.getQuantity());
+                    if (sign < 0 && current < item.getQuantity()) {
+                        failure = new StockResult(item.getId(), StockResult.Status.INSUFFICIENT_STOCK, current);
+                    } else if (sign > 0 && current > Integer.MAX_VALUE - item.getQuantity()) {
+                        failure = new StockResult(item.getId(), StockResult.Status.QUANTITY_OVERFLOW, current);
+                    } else {
+                        int updated = current + sign * item.getQuantity();
+                        pending.put(item.getId(), updated);
+                        results[index] = new StockResult(item.getId(), StockResult.Status.OK, updated);
+                    }
+                }
+                if (failure != null) {
+                    results[index] = failure;
+                    break;
+                }
+            }
+
+            if (failure == null) {
+                for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+                    Product updated = copy(products.get(entry.getKey()));
+                    updated.setQuantity(entry.getValue());
+                    products.put(entry.getKey(), updated);
+                }
+                modCount.incrementAndGet();
+            } else {
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i] != failure) {
+                        results[i] = new StockResult(items.get(i).getId(), StockResult.Status.NOT_APPLIED, 0);
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Añade un producto o reemplaza su versión anterior (para réplicas de otro almacén).
+     *
+     * @param product Producto a guardar (se guarda una copia).
+     */
+    void put(Product product) {
+        writeLock.lock();
+        try {
+            products.put(product.getId(), copy(product));
+            modCount.incrementAndGet();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Cambia la cantidad de un producto, si existe.
+     *
+     * @param id       ID del producto.
+     * @param quantity Nueva cantidad.
+     */
+    void setQuantity(String id, int quantity) {
+        writeLock.lock();
+        try {
+            Product current = products.get(id);
+            if (current != null && current.getQuantity() != quantity) {
+                Product updated = copy(current);
+                updated.setQuantity(quantity);
+                products.put(id, updated);
+                modCount.incrementAndGet();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido.
+     *
+     * @param replacement Productos del nuevo contenido (se guardan tal cual, sin copiar).
+     */
+    void replaceAll(Collection<Product> replacement) {
+        writeLock.lock();
+        try {
+            products.clear();
+            // Las instantáneas vienen ordenadas por ID: insertar en orden es lo más barato
+            for (Product product : replacement) {
+                products.put(product.getId(), product);
+            }
+            modCount.incrementAndGet();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return Vista de sólo lectura de los IDs guardados, en orden.
+     */
+    Set<String> ids() {
+        return Collections.unmodifiableSet(products.keySet());
+    }
+
+    /**
+     * @return Número de productos guardados.
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * @return Contador de escrituras desde el arranque.
+     */
+    public long getModCount() {
+        return modCount.get();
+    }
+
+    /**
+     * Escribe todos los productos. Se copian bajo el bloqueo de escritura, de modo que la
+     * instantánea nunca refleja la mitad de un lote o de una reserva de inventario.
+     *
+     * @param out Destino.
+     * @throws IOException Si falla la escritura.
+     */
+    void writeSnapshot(DataOutputStream out) throws IOException {
+        List<Product> copy;
+        writeLock.lock();
+        try {
+            copy = new ArrayList<>(products.values());
+        } finally {
+            writeLock.unlock();
+        }
+        out.writeInt(copy.size());
+        for (Product product : copy) {
+            writeString(out, product.getId());
+            writeString(out, product.getName());
+            writeString(out, product.getDescription());
+            out.writeDouble(product.getPrice());
+            out.writeInt(product.getQuantity());
+        }
+    }
+
+    /**
+     * Reemplaza el contenido por el de una instantánea.
+     *
+     * @param in Origen.
+     * @throws IOException Si falla la lectura o el formato no es válido.
+     */
+    void readSnapshot(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Product> loaded = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            loaded.add(new Product(readString(in), readString(in), readString(in),
+                    in.readDouble(), in.readInt()));
+        }
+        replaceAll(loaded);
+    }
+
+    // Productos que cumplen filtros y cursor, ordenados por (valor, id)
+    private List<Product> sortedByValue(ProductQuery query) {
+        boolean byPrice = query.getSort() == ProductQuery.Sort.PRICE;
+        Comparator<Product> order = Comparator.<Product>comparingDouble(p -> byPrice ? p.getPrice() : p.getQuantity())
+                .thenComparing(Product::getId);
+        if (query.isDescending()) {
+            order = order.reversed();
+        }
+        List<Product> matching = new ArrayList<>();
+        for (Product product : products.values()) {
+            if (afterCursor(query, product, byPrice)) {
+                matching.add(product);
+            }
+        }
+        matching.sort(order);
+        return matching;
+    }
+
+    private static boolean afterCursor(ProductQuery query, Product product, boolean byPrice) {
+        if (query.getAfterId() == null) {
+            return true;
+        }
+        int cmp;
+        if (query.getAfterValue() != null) {
+            double value = byPrice ? product.getPrice() : product.getQuantity();
+            cmp = Double.compare(value, query.getAfterValue());
+            if (cmp == 0) {
+                cmp = product.getId().compareTo(query.getAfterId());
+            }
+        } else {
+            cmp = product.getId().compareTo(query.getAfterId());
+        }
+        return query.isDescending() ? cmp < 0 : cmp > 0;
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getQuantity());
+    }
+
+    // Longitud en bytes UTF-8 seguida de los bytes (-1 si es null); writeUTF no admite
+    // cadenas de más de 64 KB. Lo comparten la instantánea, el diario y CatalogSnapshot
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        // readNBytes no reserva de golpe una longitud corrupta
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,190 @@
+package app.apiRESTful.dao;
+
+import app.config.AppConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Almacén en memoria completo (productos y usuarios) con instantáneas opcionales en disco.
+ *
+ * La instantánea es un único archivo binario con ambos repositorios. Se escribe en un archivo
+ * temporal junto al destino y después se mueve encima de forma atómica, de modo que un corte
+ * a mitad de escritura deja intacta la instantánea anterior. Al arrancar se carga si existe;
+ * después se guarda periódicamente sólo si hubo escrituras, y una vez más al apagar.
+ */
+public class InMemoryStore {
+
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 30;
+
+    private static final int MAGIC = 0x41504953; // "APIS"
+    private static final int VERSION = 1;
+
+    private final InMemoryProductRepository products = new InMemoryProductRepository();
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private final Path snapshotFile;
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    // Escrituras reflejadas en la última instantánea (suma de ambos contadores)
+    private long savedModCount = -1;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param snapshotFile Archivo de la instantánea, o null para no persistir nada.
+     */
+    public InMemoryStore(Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Crea el almacén leyendo las claves MEMORY_SNAPSHOT_* del entorno, carga la instantánea
+     * existente y programa las siguientes.
+     * - MEMORY_SNAPSHOT_FILE: archivo de la instantánea (vacío: sin persistencia).
+     * - MEMORY_SNAPSHOT_INTERVAL_SECONDS: periodo entre instantáneas (por defecto 30; 0 sólo al apagar).
+     *
+     * @param config Configuración de la aplicación.
+     * @return El almacén listo para usarse.
+     * @throws IOException Si la instantánea existe pero no se puede leer.
+     */
+    public static InMemoryStore fromEnv(AppConfig config) throws IOException {
+        String file = config.get("MEMORY_SNAPSHOT_FILE", "").trim();
+        InMemoryStore store = new InMemoryStore(file.isEmpty() ? null : Paths.get(file));
+        if (store.snapshotFile != null) {
+            store.load();
+            store.start(config.getLong("MEMORY_SNAPSHOT_INTERVAL_SECONDS", DEFAULT_SNAPSHOT_INTERVAL_SECONDS), TimeUnit.SECONDS);
+        }
+        return store;
+    }
+
+    public InMemoryProductRepository getProducts() {
+        return products;
+    }
+
+    public InMemoryUserRepository getUsers() {
+        return users;
+    }
+
+    /**
+     * Carga la instantánea si existe.
+     *
+     * @return true si se cargó.
+     * @throws IOException Si el archivo no es una instantánea válida.
+     */
+    public synchronized boolean load() throws IOException {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + snapshotFile);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + snapshotFile);
+            }
+            products.readSnapshot(in);
+            users.readSnapshot(in);
+        }
+        savedModCount = modCount();
+        return true;
+    }
+
+    /**
+     * Guarda una instantánea si hubo escrituras desde la anterior.
+     *
+     * @return true si se escribió el archivo.
+     * @throws IOException Si falla la escritura; la instantánea anterior queda intacta.
+     */
+    public synchronized boolean save() throws IOException {
+        long modCount = modCount();
+        if (snapshotFile == null || modCount == savedModCount) {
+            return false;
+        }
+        Path absolute = snapshotFile.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                products.writeSnapshot(out);
+                users.writeSnapshot(out);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        savedModCount = modCount;
+        saves.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Programa instantáneas periódicas en un hilo daemon y una última al apagar la JVM.
+     *
+     * @param interval Periodo entre instantáneas (0 o menos: sólo al apagar).
+     * @param unit     Unidad de interval.
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (snapshotFile == null || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::saveQuietly, interval, interval, unit);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdown();
+            saveQuietly();
+        }, "memory-snapshot-shutdown"));
+    }
+
+    /**
+     * @return Instantáneas escritas desde el arranque.
+     */
+    public long getSaves() {
+        return saves.get();
+    }
+
+    /**
+     * @return Instantáneas que fallaron desde el arranque.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    private long modCount() {
+        return products.getModCount() + users.getModCount();
+    }
+}
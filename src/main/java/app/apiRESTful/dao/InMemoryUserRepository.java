@@ -0,0 +1,183 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.User;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Motor de usuarios en memoria, sin base de datos.
+ *
+ * Dos {@link ConcurrentHashMap}, por ID y por nombre de usuario, guardan las mismas copias
+ * inmutables: las lecturas (incluida la contraseña del login) no toman ningún bloqueo. Las
+ * escrituras se serializan para mantener ambos mapas de acuerdo y el nombre de usuario
+ * único, como la restricción {@code uq_users_username} de la tabla.
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private final ConcurrentHashMap<Integer, User> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, User> byUsername = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final AtomicLong modCount = new AtomicLong();
+
+    @Override
+    public boolean addUser(User user) {
+        if (user.getUsername() == null) {
+            return false;
+        }
+        synchronized (this) {
+            if (byUsername.containsKey(user.getUsername())) {
+                return false;
+            }
+            User stored = new User(nextId.getAndIncrement(), user.getUsername(), user.getPassword());
+            byId.put(stored.getId(), stored);
+            byUsername.put(stored.getUsername(), stored);
+            modCount.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    public User getUserById(int id) {
+        User user = byId.get(id);
+        return user == null ? null : copy(user);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        List<User> users = new ArrayList<>(byId.size());
+        for (User user : byId.values()) {
+            users.add(copy(user));
+        }
+        return users;
+    }
+
+    /**
+     * Entrega los usuarios ordenados por ID y sin contraseña, como {@link UserDAOSQL#streamAllUsers}.
+     */
+    @Override
+    public void streamAllUsers(RowHandler<User> handler) throws IOException {
+        for (User user : new TreeMap<>(byId).values()) {
+            User row = new User();
+            row.setId(user.getId());
+            row.setUsername(user.getUsername());
+            handler.handle(row);
+        }
+    }
+
+    @Override
+    public boolean updateUser(int id, User user) {
+        if (user.getUsername() == null) {
+            return false;
+        }
+        synchronized (this) {
+            User current = byId.get(id);
+            if (current == null) {
+                return false;
+            }
+            User owner = byUsername.get(user.getUsername());
+            if (owner != null && owner.getId() != id) {
+                return false;
+            }
+            User stored = new User(id, user.getUsername(), user.getPassword());
+            byUsername.remove(current.getUsername());
+            byId.put(id, stored);
+            byUsername.put(stored.getUsername(), stored);
+            modCount.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean deleteUser(int id) {
+        User removed = byId.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        byUsername.remove(removed.getUsername());
+        modCount.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public String findPassword(String username) {
+        User user = username == null ? null : byUsername.get(username);
+        return user == null ? null : user.getPassword();
+    }
+
+    /**
+     * @return Número de usuarios guardados.
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return Contador de escrituras desde el arranque.
+     */
+    public long getModCount() {
+        return modCount.get();
+    }
+
+    /**
+     * Escribe el siguiente ID y todos los usuarios.
+     *
+     * @param out Destino.
+     * @throws IOException Si falla la escritura.
+     */
+    void writeSnapshot(DataOutputStream out) throws IOException {
+        List<User> copy;
+        int next;
+        synchronized (this) {
+            copy = new ArrayList<>(byId.values());
+            next = nextId.get();
+        }
+        out.writeInt(next);
+        out.writeInt(copy.size());
+        for (User user : copy) {
+            out.writeInt(user.getId());
+            InMemoryProductRepository.writeString(out, user.getUsername());
+            InMemoryProductRepository.writeString(out, user.getPassword());
+        }
+    }
+
+    /**
+     * Reemplaza el contenido por el de una instantánea.
+     *
+     * @param in Origen.
+     * @throws IOException Si falla la lectura o el formato no es válido.
+     */
+    void readSnapshot(DataInputStream in) throws IOException {
+        int next = in.readInt();
+        int count = in.readInt();
+        Map<Integer, User> loaded = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            User user = new User(in.readInt(), InMemoryProductRepository.readString(in),
+                    InMemoryProductRepository.readString(in));
+            loaded.put(user.getId(), user);
+        }
+        synchronized (this) {
+            byId.clear();
+            byUsername.clear();
+            for (User user : loaded.values()) {
+                byId.put(user.getId(), user);
+                byUsername.put(user.getUsername(), user);
+            }
+            nextId.set(next);
+            modCount.incrementAndGet();
+        }
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getUsername(), user.getPassword());
+    }
+}
@@ -0,0 +1,185 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.apiRESTful.search.IndexSource;
+import app.apiRESTful.search.LazyProductIndex;
+import app.apiRESTful.search.ProductIndex;
+import app.apiRESTful.search.ProductRangeIndex;
+import app.apiRESTful.search.ProductSearchIndex;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO de productos que mantiene al día los índices en memoria: el de búsqueda de texto
+ * ({@link ProductSearchIndex}) y el de rangos de precio y cantidad ({@link ProductRangeIndex}).
+ *
+ * Las páginas ordenadas por precio o cantidad se sirven desde el índice de rangos; el
+ * resto de lecturas se delegan sin cambios. Después de cada escritura los índices se
+ * actualizan con el resultado: las altas por lote y los cambios de inventario se aplican
+ * directamente; las altas y modificaciones individuales vuelven a leer la fila, porque
+ * esos métodos no informan si la escritura falló.
+ *
+ * Con índices perezosos ({@link LazyProductIndex}) el de rangos se construye con la primera
+ * página ordenada por precio o cantidad, y el de texto con la primera búsqueda. Mientras
+ * no se pueda construir, esas páginas fallan con {@link java.sql.SQLTransientException}.
+ */
+public class IndexedProductDAO implements ProductRepository {
+
+    private final ProductRepository delegate;
+    private final ProductIndex searchIndex;
+    private final IndexSource<ProductRangeIndex> rangeIndex;
+    private final List<ProductIndex> indexes = new ArrayList<>(2);
+
+    /**
+     * @param delegate    DAO que accede a los datos.
+     * @param searchIndex Índice de texto; debe haberse construido con el contenido actual.
+     * @param rangeIndex  Índice de precio y cantidad; debe haberse construido con el contenido actual.
+     */
+    public IndexedProductDAO(ProductRepository delegate, ProductSearchIndex searchIndex, ProductRangeIndex rangeIndex) {
+        this(delegate, searchIndex, rangeIndex, () -> rangeIndex);
+    }
+
+    /**
+     * @param delegate    DAO que accede a los datos.
+     * @param searchIndex Índice de texto, construido al usarse por primera vez.
+     * @param rangeIndex  Índice de precio y cantidad, construido al usarse por primera vez.
+     */
+    public IndexedProductDAO(ProductRepository delegate, LazyProductIndex<ProductSearchIndex> searchIndex,
+                             LazyProductIndex<ProductRangeIndex> rangeIndex) {
+        this(delegate, searchIndex, rangeIndex, rangeIndex::getIndex);
+    }
+
+    private IndexedProductDAO(ProductRepository delegate, ProductIndex searchIndex, ProductIndex rangeIndex,
+                              IndexSource<ProductRangeIndex> pages) {
+        this.delegate = delegate;
+        this.searchIndex = searchIndex;
+        this.rangeIndex = pages;
+        indexes.add(searchIndex);
+        indexes.add(rangeIndex);
+    }
+
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
+        return delegate.getAllProducts();
+    }
+
+    @Override
+    public ProductPage getProductsPage(ProductQuery query) throws SQLException {
+        if (!ProductRangeIndex.supports(query)) {
+            return delegate.getProductsPage(query);
+        }
+        List<Product> products = new ArrayList<>();
+        try {
+            String nextId = rangeIndex.get().streamPage(query, products::add);
+            return new ProductPage(products, nextId);
+        } catch (IOException e) {
+            // products::add no escribe nada
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String streamProductsPage(ProductQuery query, RowHandler<Product> handler) throws SQLException, IOException {
+        if (ProductRangeIndex.supports(query)) {
+            return rangeIndex.get().streamPage(query, handler);
+        }
+        return delegate.streamProductsPage(query, handler);
+    }
+
+    @Override
+    public Product getProductById(String id) {
+        return delegate.getProductById(id);
+    }
+
+    @Override
+    public boolean addProduct(Product product) {
+        boolean added = delegate.addProduct(product);
+        refresh(product.getId());
+        return added;
+    }
+
+    @Override
+    public void addProducts(List<Product> newProducts, int chunkSize) throws SQLException {
+        delegate.addProducts(newProducts, chunkSize);
+        for (ProductIndex index : indexes) {
+            index.indexAll(newProducts);
+        }
+    }
+
+    @Override
+    public boolean updateProduct(String id, Product updatedProduct) {
+        boolean updated = delegate.updateProduct(id, updatedProduct);
+        refresh(id);
+        return updated;
+    }
+
+    @Override
+    public boolean patchProduct(String id, ProductPatch patch) throws SQLException {
+        boolean updated = delegate.patchProduct(id, patch);
+        if (updated) {
+            Product indexed = searchIndex.get(id);
+            if (indexed == null) {
+                refresh(id);
+            } else {
+                if (patch.getName() != null) indexed.setName(patch.getName());
+                if (patch.getDescription() != null) indexed.setDescription(patch.getDescription());
+                if (patch.getPrice() != null) indexed.setPrice(patch.getPrice());
+                if (patch.getQuantity() != null) indexed.setQuantity(patch.getQuantity());
+                for (ProductIndex index : indexes) {
+                    index.index(indexed);
+                }
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean deleteProduct(String id) {
+        boolean deleted = delegate.deleteProduct(id);
+        if (deleted) {
+            for (ProductIndex index : indexes) {
+                index.remove(id);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<StockResult> reserveStock(List<StockRequest> items) throws SQLException {
+        return updateQuantities(delegate.reserveStock(items));
+    }
+
+    @Override
+    public List<StockResult> releaseStock(List<StockRequest> items) throws SQLException {
+        return updateQuantities(delegate.releaseStock(items));
+    }
+
+    private List<StockResult> updateQuantities(List<StockResult> results) {
+        for (StockResult result : results) {
+            if (result.isOk()) {
+                for (ProductIndex index : indexes) {
+                    index.updateQuantity(result.getId(), result.getQuantity());
+                }
+            }
+        }
+        return results;
+    }
+
+    private void refresh(String id) {
+        Product product = delegate.getProductById(id);
+        for (ProductIndex index : indexes) {
+            if (product == null) {
+                index.remove(id);
+            } else {
+                index.index(product);
+            }
+        }
+    }
+}
@@ -1,34 +1,69 @@
 package app.apiRESTful.dao;
 
 import app.apiRESTful.model.Product;
-import io.github.cdimascio.dotenv.Dotenv;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.database.ConnectionPool;
+import app.database.DatabaseHelper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Clase `ProductDAOSQL` para manejar la interacción con la base de datos relacionada con productos.
- * Utiliza JDBC para conectar y realizar operaciones CRUD en la base de datos.
+ * Utiliza JDBC, a través del pool de conexiones compartido, y realizar operaciones CRUD en la base de datos.
  */
-public class ProductDAOSQL {
+public class ProductDAOSQL implements ProductRepository {
 
-    // Carga las variables de entorno necesarias para la conexión a la base de datos.
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = dotenv.get("DB_URL"); // URL de la base de datos.
-    private static final String DB_USER = dotenv.get("DB_USER"); // Usuario de la base de datos.
-    private static final String DB_PASSWORD = dotenv.get("DB_PASSWORD"); // Contraseña de la base de datos.
+    private final int writeTimeoutSeconds;
+
+    /**
+     * Crea el DAO sin tiempo de espera en las escrituras.
+     */
+    public ProductDAOSQL() {
+        this(0);
+    }
+
+    /**
+     * @param writeTimeoutSeconds Tiempo de espera de las sentencias de {@code patchProduct} y
+     *                            del inventario (0 sin límite). Al agotarse, el driver cancela
+     *                            la sentencia y se lanza {@link SQLTimeoutException} sin que se
+     *                            aplique ningún cambio.
+     */
+    public ProductDAOSQL(int writeTimeoutSeconds) {
+        this.writeTimeoutSeconds = writeTimeoutSeconds;
+    }
+
+    /**
+     * Obtiene una conexión del pool compartido.
+     *
+     * @return Un objeto `Connection` prestado por el pool; al cerrarlo vuelve al pool.
+     * @throws SQLException Si no se puede obtener una conexión.
+     */
+    private Connection getConnection() throws SQLException {
+        return ConnectionPool.getInstance().getConnection();
+    }
 
     /**
      * Obtiene todos los productos de la base de datos.
      *
      * @return Una lista de objetos `Product` representando todos los productos en la base de datos.
+     * @throws SQLException Si falla la consulta; los índices en memoria no deben construirse
+     *                      con un catálogo vacío o parcial.
      */
-    public List<Product> getAllProducts() {
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
         List<Product> products = new ArrayList<>();
         String query = "SELECT * FROM products";
 
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection connection = getConnection();
              Statement statement = connection.createStatement();
              ResultSet resultSet = statement.executeQuery(query)) {
 
@@ -43,24 +78,211 @@ public class ProductDAOSQL {
                 );
                 products.add(product);
             }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
 
         return products;
     }
 
+    /**
+     * Obtiene una página de productos usando paginación por cursor sobre `id` (o sobre
+     * (precio, id) / (cantidad, id) si la consulta pide otro orden).
+     * Los filtros de precio y cantidad se aplican en el `WHERE` de la consulta y se lee
+     * una fila extra para saber si existe una página siguiente.
+     *
+     * @param query Criterios de filtrado y paginación.
+     * @return La página de productos y el id a partir del cual continúa la siguiente.
+     * @throws SQLException Si falla la consulta.
+     */
+    @Override
+    public ProductPage getProductsPage(ProductQuery query) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        try {
+            String nextId = streamProductsPage(query, products::add);
+            return new ProductPage(products, nextId);
+        } catch (IOException e) {
+            // products::add no escribe en ningún flujo
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Recorre una página de productos entregando cada fila al manejador a medida que se
+     * lee del `ResultSet`, sin acumularlas en memoria.
+     *
+     * @param query   Criterios de filtrado y paginación.
+     * @param handler Receptor de cada producto de la página.
+     * @return El id a partir del cual continúa la página siguiente, o null si es la última.
+     * @throws SQLException Si falla la consulta.
+     * @throws IOException  Si el manejador falla al escribir una fila.
+     */
+    @Override
+    public String streamProductsPage(ProductQuery query, RowHandler<Product> handler) throws SQLException, IOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id, name, description, price, quantity FROM products WHERE 1 = 1");
+
+        String column = query.getSort() == ProductQuery.Sort.PRICE ? "price"
+                : query.getSort() == ProductQuery.Sort.QUANTITY ? "quantity" : null;
+        String after = query.isDescending() ? "<" : ">";
+        if (query.getAfterId() != null) {
+            if (column != null && query.getAfterValue() != null) {
+                sql.append(" AND (").append(column).append(' ').append(after).append(" ? OR (")
+                        .append(column).append(" = ? AND id ").append(after).append(" ?))");
+                params.add(query.getAfterValue());
+                params.add(query.getAfterValue());
+            } else {
+                sql.append(" AND id ").append(after).append(" ?");
+            }
+            params.add(query.getAfterId());
+        }
+        if (query.getMinPrice() != null) {
+            sql.append(" AND price >= ?");
+            params.add(query.getMinPrice());
+        }
+        if (query.getMaxPrice() != null) {
+            sql.append(" AND price <= ?");
+            params.add(query.getMaxPrice());
+        }
+        if (query.getMinQuantity() != null) {
+            sql.append(" AND quantity >= ?");
+            params.add(query.getMinQuantity());
+        }
+        if (query.getMaxQuantity() != null) {
+            sql.append(" AND quantity <= ?");
+            params.add(query.getMaxQuantity());
+        }
+        String direction = query.isDescending() ? " DESC" : "";
+        sql.append(" ORDER BY ");
+        if (column != null) {
+            sql.append(column).append(direction).append(", ");
+        }
+        sql.append("id").append(direction).append(" LIMIT ?");
+        params.add(query.getLimit() + 1);
+
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = DatabaseHelper.prepareStreaming(connection, sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                preparedStatement.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                int count = 0;
+                String lastId = null;
+                while (resultSet.next()) {
+                    // La fila extra sólo indica que hay otra página; no se entrega
+                    if (++count > query.getLimit()) {
+                        return lastId;
+                    }
+                    Product product = mapProduct(resultSet);
+                    handler.handle(product);
+                    lastId = product.getId();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recorre los productos cuya columna `updated_at` es igual o posterior a {@code sinceMillis},
+     * sin acumularlos en memoria. Con {@code sinceMillis} = 0 recorre todo el catálogo.
+     *
+     * @param sinceMillis Instante desde el que buscar cambios (milisegundos desde la época).
+     * @param handler     Receptor de cada producto modificado.
+     * @return El mayor `updated_at` leído, o {@code sinceMillis} si no hubo cambios.
+     * @throws SQLException Si falla la consulta.
+     * @throws IOException  Si el manejador falla.
+     */
+    public long streamProductsChangedSince(long sinceMillis, RowHandler<Product> handler) throws SQLException, IOException {
+        String query = "SELECT id, name, description, price, quantity, updated_at FROM products WHERE updated_at >= ?";
+        long latest = sinceMillis;
+
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = DatabaseHelper.prepareStreaming(connection, query)) {
+
+            preparedStatement.setTimestamp(1, new Timestamp(sinceMillis));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    handler.handle(mapProduct(resultSet));
+                    latest = Math.max(latest, resultSet.getTimestamp("updated_at").getTime());
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Recorre los IDs borrados desde {@code sinceMillis} según la tabla `product_deletions`
+     * (migración V3, que la mantiene con un disparador).
+     *
+     * @param sinceMillis Instante desde el que buscar bajas (milisegundos desde la época).
+     * @param handler     Receptor de cada ID borrado.
+     * @return El mayor `deleted_at` leído, o {@code sinceMillis} si no hubo bajas.
+     * @throws SQLException Si falla la consulta (SQLSTATE 42S02 si la tabla no existe).
+     * @throws IOException  Si el manejador falla.
+     */
+    public long streamProductsDeletedSince(long sinceMillis, RowHandler<String> handler) throws SQLException, IOException {
+        String query = "SELECT id, deleted_at FROM product_deletions WHERE deleted_at >= ?";
+        long latest = sinceMillis;
+
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+
+            preparedStatement.setTimestamp(1, new Timestamp(sinceMillis));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    handler.handle(resultSet.getString(1));
+                    latest = Math.max(latest, resultSet.getTimestamp(2).getTime());
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Borra de `product_deletions` las bajas anteriores a {@code beforeMillis}.
+     *
+     * @param beforeMillis Instante límite (milisegundos desde la época).
+     * @return Bajas borradas.
+     * @throws SQLException Si falla la sentencia.
+     */
+    public int pruneProductDeletions(long beforeMillis) throws SQLException {
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM product_deletions WHERE deleted_at < ?")) {
+            preparedStatement.setTimestamp(1, new Timestamp(beforeMillis));
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Recorre los IDs de todos los productos (sólo lee el índice de la clave primaria).
+     *
+     * @param handler Receptor de cada ID.
+     * @throws SQLException Si falla la consulta.
+     * @throws IOException  Si el manejador falla.
+     */
+    public void streamProductIds(RowHandler<String> handler) throws SQLException, IOException {
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = DatabaseHelper.prepareStreaming(connection, "SELECT id FROM products");
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                handler.handle(resultSet.getString(1));
+            }
+        }
+    }
+
     /**
      * Obtiene un producto por su ID.
      *
      * @param id El ID del producto a buscar.
      * @return Un objeto `Product` si se encuentra, o `null` si no existe.
      */
+    @Override
     public Product getProductById(String id) {
         String query = "SELECT * FROM products WHERE id = ?";
 
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection connection = getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
 
             preparedStatement.setString(1, id);
@@ -88,11 +310,13 @@ public class ProductDAOSQL {
      * Agrega un nuevo producto a la base de datos.
      *
      * @param product El objeto `Product` que contiene los datos del producto a agregar.
+     * @return `true` si se insertó la fila, `false` si ocurrió un error (por ejemplo, un ID duplicado).
      */
-    public void addProduct(Product product) {
+    @Override
+    public boolean addProduct(Product product) {
         String query = "INSERT INTO products (id, name, description, price, quantity) VALUES (?, ?, ?, ?, ?)";
 
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection connection = getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
 
             preparedStatement.setString(1, product.getId());
@@ -101,10 +325,58 @@ public class ProductDAOSQL {
             preparedStatement.setDouble(4, product.getPrice());
             preparedStatement.setInt(5, product.getQuantity());
 
-            preparedStatement.executeUpdate();
+            return preparedStatement.executeUpdate() > 0;
 
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Agrega varios productos en una sola transacción usando lotes JDBC.
+     * Las filas se envían en bloques de {@code chunkSize} con {@code addBatch}/{@code executeBatch};
+     * con {@code rewriteBatchedStatements} el driver convierte cada bloque en un INSERT multi-fila.
+     * Si algún bloque falla se revierte toda la transacción.
+     *
+     * @param products  Productos a insertar (ya validados).
+     * @param chunkSize Número de filas por lote.
+     * @throws SQLException Si falla la inserción; en ese caso no se inserta ningún producto.
+     */
+    @Override
+    public void addProducts(List<Product> products, int chunkSize) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        String query = "INSERT INTO products (id, name, description, price, quantity) VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                int pending = 0;
+                for (Product product : products) {
+                    preparedStatement.setString(1, product.getId());
+                    preparedStatement.setString(2, product.getName());
+                    preparedStatement.setString(3, product.getDescription());
+                    preparedStatement.setDouble(4, product.getPrice());
+                    preparedStatement.setInt(5, product.getQuantity());
+                    preparedStatement.addBatch();
+
+                    if (++pending == chunkSize) {
+                        preparedStatement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    preparedStatement.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         }
     }
 
@@ -113,11 +385,13 @@ public class ProductDAOSQL {
      *
      * @param id             El ID del producto a actualizar.
      * @param updatedProduct El objeto `Product` con los nuevos datos del producto.
+     * @return `true` si la fila existe y se actualizó, `false` si no existe o si ocurrió un error.
      */
-    public void updateProduct(String id, Product updatedProduct) {
+    @Override
+    public boolean updateProduct(String id, Product updatedProduct) {
         String query = "UPDATE products SET name = ?, description = ?, price = ?, quantity = ? WHERE id = ?";
 
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection connection = getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
 
             preparedStatement.setString(1, updatedProduct.getName());
@@ -126,10 +400,119 @@ public class ProductDAOSQL {
             preparedStatement.setInt(4, updatedProduct.getQuantity());
             preparedStatement.setString(5, id);
 
-            preparedStatement.executeUpdate();
+            return preparedStatement.executeUpdate() > 0;
 
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Actualiza varios productos en una sola transacción usando lotes JDBC. Las filas se
+     * escriben en orden de ID, el mismo en que {@link #reserveStock} las bloquea, para que
+     * ambas transacciones no se bloqueen mutuamente.
+     *
+     * @param products  Productos con sus nuevos datos.
+     * @param chunkSize Número de filas por lote.
+     * @return Número de productos que existían y se actualizaron.
+     * @throws SQLException Si falla la actualización; en ese caso no se aplica ningún cambio.
+     */
+    public int updateProducts(List<Product> products, int chunkSize) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        List<Product> ordered = new ArrayList<>(products);
+        ordered.sort(Comparator.comparing(Product::getId));
+        String query = "UPDATE products SET name = ?, description = ?, price = ?, quantity = ? WHERE id = ?";
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                int updated = 0;
+                int pending = 0;
+                for (Product product : ordered) {
+                    preparedStatement.setString(1, product.getName());
+                    preparedStatement.setString(2, product.getDescription());
+                    preparedStatement.setDouble(3, product.getPrice());
+                    preparedStatement.setInt(4, product.getQuantity());
+                    preparedStatement.setString(5, product.getId());
+                    preparedStatement.addBatch();
+
+                    if (++pending == chunkSize) {
+                        updated += countUpdated(preparedStatement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    updated += countUpdated(preparedStatement.executeBatch());
+                }
+                connection.commit();
+                return updated;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Filas afectadas de un lote; el driver puede informar SUCCESS_NO_INFO en lugar del número
+    private static int countUpdated(int[] counts) {
+        int updated = 0;
+        for (int count : counts) {
+            if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Actualiza sólo los campos presentes en {@code patch} con un único UPDATE, sin leer
+     * antes la fila. El número de filas afectadas indica si el producto existe (con MySQL,
+     * Connector/J cuenta las filas encontradas aunque los valores no cambien).
+     *
+     * @param id    El ID del producto a actualizar.
+     * @param patch Campos a modificar (al menos uno).
+     * @return `true` si el producto existe, o `false` si no se encontró.
+     * @throws SQLException Si ocurre un error al actualizar.
+     */
+    @Override
+    public boolean patchProduct(String id, ProductPatch patch) throws SQLException {
+        StringBuilder query = new StringBuilder("UPDATE products SET ");
+        List<Object> values = new ArrayList<>(5);
+        if (patch.getName() != null) {
+            query.append("name = ?, ");
+            values.add(patch.getName());
+        }
+        if (patch.getDescription() != null) {
+            query.append("description = ?, ");
+            values.add(patch.getDescription());
+        }
+        if (patch.getPrice() != null) {
+            query.append("price = ?, ");
+            values.add(patch.getPrice());
+        }
+        if (patch.getQuantity() != null) {
+            query.append("quantity = ?, ");
+            values.add(patch.getQuantity());
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("At least one field is required.");
+        }
+        query.setLength(query.length() - 2);
+        query.append(" WHERE id = ?");
+        values.add(id);
+
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query.toString())) {
+            preparedStatement.setQueryTimeout(writeTimeoutSeconds);
+            for (int i = 0; i < values.size(); i++) {
+                preparedStatement.setObject(i + 1, values.get(i));
+            }
+            return preparedStatement.executeUpdate() > 0;
         }
     }
 
@@ -139,10 +522,11 @@ public class ProductDAOSQL {
      * @param id El ID del producto a eliminar.
      * @return `true` si se eliminó el producto con éxito, o `false` si no se encontró.
      */
+    @Override
     public boolean deleteProduct(String id) {
         String query = "DELETE FROM products WHERE id = ?";
 
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        try (Connection connection = getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
 
             preparedStatement.setString(1, id);
@@ -155,4 +539,120 @@ public class ProductDAOSQL {
 
         return false;
     }
+
+    /**
+     * Reserva (descuenta) inventario de varios productos en una sola transacción.
+     *
+     * Cada descuento es un único UPDATE condicional ({@code quantity >= ?}), de modo que
+     * las reservas concurrentes nunca dejan el inventario en negativo ni pierden
+     * actualizaciones. Si algún producto no existe o no tiene inventario suficiente, se
+     * revierte la transacción completa.
+     *
+     * @param items Productos y cantidades a reservar (ya validados).
+     * @return Un resultado por elemento, en el mismo orden que {@code items}.
+     * @throws SQLException Si falla la base de datos; en ese caso no se aplica ningún cambio.
+     */
+    @Override
+    public List<StockResult> reserveStock(List<StockRequest> items) throws SQLException {
+        return adjustStock(items, "UPDATE products SET quantity = quantity - ? WHERE id = ? AND quantity >= ?", false);
+    }
+
+    /**
+     * Libera (devuelve) inventario de varios productos en una sola transacción.
+     *
+     * El UPDATE es condicional ({@code quantity <= MAX - n}) para que la suma nunca
+     * desborde la columna; si desbordaría, se revierte la transacción completa.
+     *
+     * @param items Productos y cantidades a liberar (ya validados).
+     * @return Un resultado por elemento, en el mismo orden que {@code items}.
+     * @throws SQLException Si falla la base de datos; en ese caso no se aplica ningún cambio.
+     */
+    @Override
+    public List<StockResult> releaseStock(List<StockRequest> items) throws SQLException {
+        return adjustStock(items, "UPDATE products SET quantity = quantity + ? WHERE id = ? AND quantity <= ?", true);
+    }
+
+    /**
+     * Aplica los UPDATE de inventario dentro de una transacción. Las filas se bloquean en
+     * orden de ID para que dos transacciones con los mismos productos no se bloqueen
+     * mutuamente. Tras cada UPDATE la fila queda bloqueada hasta el commit, así que el
+     * SELECT posterior lee exactamente el inventario resultante.
+     *
+     * @param release {@code true} si el UPDATE suma inventario; su tercer parámetro es
+     *                entonces el máximo previo que no desborda.
+     */
+    private List<StockResult> adjustStock(List<StockRequest> items, String update, boolean release) throws SQLException {
+        Integer[] order = new Integer[items.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> items.get(i).getId()));
+        StockResult.Status rejected = release ? StockResult.Status.QUANTITY_OVERFLOW : StockResult.Status.INSUFFICIENT_STOCK;
+        StockResult[] results = new StockResult[items.size()];
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement updateStatement = connection.prepareStatement(update);
+                 PreparedStatement selectStatement = connection.prepareStatement("SELECT quantity FROM products WHERE id = ?")) {
+                updateStatement.setQueryTimeout(writeTimeoutSeconds);
+                selectStatement.setQueryTimeout(writeTimeoutSeconds);
+                StockResult failure = null;
+                for (int index : order) {
+                    StockRequest item = items.get(index);
+                    updateStatement.setInt(1, item.getQuantity());
+                    updateStatement.setString(2, item.getId());
+                    updateStatement.setInt(3, release ? Integer.MAX_VALUE - item.getQuantity() : item.getQuantity());
+                    boolean updated = updateStatement.executeUpdate() > 0;
+
+                    Integer current = currentQuantity(selectStatement, item.getId());
+                    if (updated) {
+                        results[index] = new StockResult(item.getId(), StockResult.Status.OK, current);
+                    } else {
+                        failure = current == null
+                                ? new StockResult(item.getId(), StockResult.Status.NOT_FOUND, 0)
+                                : new StockResult(item.getId(), rejected, current);
+                        results[index] = failure;
+                        break;
+                    }
+                }
+
+                if (failure == null) {
+                    connection.commit();
+                } else {
+                    connection.rollback();
+                    for (int i = 0; i < results.length; i++) {
+                        if (results[i] != failure) {
+                            results[i] = new StockResult(items.get(i).getId(), StockResult.Status.NOT_APPLIED, 0);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static Integer currentQuantity(PreparedStatement selectStatement, String id) throws SQLException {
+        selectStatement.setString(1, id);
+        try (ResultSet resultSet = selectStatement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : null;
+        }
+    }
+
+    /**
+     * Construye un `Product` a partir de la fila actual del `ResultSet`.
+     */
+    private static Product mapProduct(ResultSet resultSet) throws SQLException {
+        return new Product(
+                resultSet.getString("id"),
+                resultSet.getString("name"),
+                resultSet.getString("description"),
+                resultSet.getDouble("price"),
+                resultSet.getInt("quantity")
+        );
+    }
 }
@@ -0,0 +1,92 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+
+import java.util.Objects;
+
+/**
+ * Criterios de consulta paginada de productos.
+ *
+ * La paginación es por cursor (keyset): por defecto sobre la columna `id`, de modo que cada
+ * página devuelve los productos con `id` mayor que {@code afterId} y la base de datos nunca
+ * recorre ni devuelve la tabla completa. Con {@link Sort#PRICE} o {@link Sort#QUANTITY} el
+ * orden es (valor, id) y el cursor incluye además el valor del último producto
+ * ({@code afterValue}). Los filtros nulos no se aplican.
+ */
+public class ProductQuery {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * Campo por el que se ordenan los resultados.
+     */
+    public enum Sort { ID, PRICE, QUANTITY }
+
+    private int limit = DEFAULT_LIMIT;
+    private Sort sort = Sort.ID;
+    private boolean descending;
+    private String afterId;
+    private Double afterValue;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minQuantity;
+    private Integer maxQuantity;
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        this.limit = limit;
+    }
+    public Sort getSort() { return sort; }
+    public void setSort(Sort sort) { this.sort = sort == null ? Sort.ID : sort; }
+    public boolean isDescending() { return descending; }
+    public void setDescending(boolean descending) { this.descending = descending; }
+    public String getAfterId() { return afterId; }
+    public void setAfterId(String afterId) { this.afterId = afterId; }
+    public Double getAfterValue() { return afterValue; }
+    public void setAfterValue(Double afterValue) { this.afterValue = afterValue; }
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+    public Double getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+    public Integer getMinQuantity() { return minQuantity; }
+    public void setMinQuantity(Integer minQuantity) { this.minQuantity = minQuantity; }
+    public Integer getMaxQuantity() { return maxQuantity; }
+    public void setMaxQuantity(Integer maxQuantity) { this.maxQuantity = maxQuantity; }
+
+    /**
+     * @param product Producto a comprobar.
+     * @return true si el producto cumple los filtros de precio y cantidad (el cursor no se comprueba).
+     */
+    public boolean matchesFilters(Product product) {
+        return (minPrice == null || product.getPrice() >= minPrice)
+                && (maxPrice == null || product.getPrice() <= maxPrice)
+                && (minQuantity == null || product.getQuantity() >= minQuantity)
+                && (maxQuantity == null || product.getQuantity() <= maxQuantity);
+    }
+
+    // Igualdad por valor: las consultas se usan como clave de la caché de páginas
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductQuery that = (ProductQuery) o;
+        return limit == that.limit
+                && sort == that.sort
+                && descending == that.descending
+                && Objects.equals(afterId, that.afterId)
+                && Objects.equals(afterValue, that.afterValue)
+                && Objects.equals(minPrice, that.minPrice)
+                && Objects.equals(maxPrice, that.maxPrice)
+                && Objects.equals(minQuantity, that.minQuantity)
+                && Objects.equals(maxQuantity, that.maxQuantity);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(limit, sort, descending, afterId, afterValue, minPrice, maxPrice, minQuantity, maxQuantity);
+    }
+}
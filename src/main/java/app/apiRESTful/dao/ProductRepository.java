@@ -0,0 +1,112 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Almacenamiento de productos.
+ *
+ * Los controladores dependen de esta interfaz y no de un motor concreto: la implementación
+ * JDBC ({@link ProductDAOSQL}), la de memoria ({@link InMemoryProductRepository}) y los
+ * decoradores ({@link CachedProductDAO}, {@link IndexedProductDAO}) son intercambiables.
+ * Los métodos heredados de la versión JDBC conservan su contrato: los que no declaran
+ * {@link SQLException} informan los errores y devuelven un valor vacío.
+ */
+public interface ProductRepository {
+
+    /**
+     * @return Todos los productos.
+     * @throws SQLException Si falla la consulta (nunca se devuelve una lista vacía o parcial en su lugar).
+     */
+    List<Product> getAllProducts() throws SQLException;
+
+    /**
+     * Obtiene una página de productos con paginación por cursor.
+     *
+     * @param query Criterios de filtrado, orden y paginación.
+     * @return La página y el id a partir del cual continúa la siguiente.
+     * @throws SQLException Si falla la consulta (nunca se devuelve una página vacía en su lugar).
+     */
+    ProductPage getProductsPage(ProductQuery query) throws SQLException;
+
+    /**
+     * Recorre una página de productos entregando cada uno al manejador sin acumularlos.
+     *
+     * @param query   Criterios de filtrado, orden y paginación.
+     * @param handler Receptor de cada producto de la página.
+     * @return El id a partir del cual continúa la página siguiente, o null si es la última.
+     * @throws SQLException Si falla la consulta.
+     * @throws IOException  Si el manejador falla al escribir una fila.
+     */
+    String streamProductsPage(ProductQuery query, RowHandler<Product> handler) throws SQLException, IOException;
+
+    /**
+     * @param id ID del producto.
+     * @return El producto, o null si no existe.
+     */
+    Product getProductById(String id);
+
+    /**
+     * @param product Producto a agregar (con su ID ya asignado).
+     * @return true si se agregó; false si ya existía un producto con ese ID o falló la escritura.
+     */
+    boolean addProduct(Product product);
+
+    /**
+     * Agrega varios productos de forma atómica: o se agregan todos o ninguno.
+     *
+     * @param products  Productos a insertar (ya validados).
+     * @param chunkSize Número de filas por lote (sólo relevante para JDBC).
+     * @throws SQLException Si falla la inserción; en ese caso no se inserta ningún producto.
+     */
+    void addProducts(List<Product> products, int chunkSize) throws SQLException;
+
+    /**
+     * @param id             ID del producto.
+     * @param updatedProduct Nuevos datos del producto.
+     * @return true si se actualizó; false si el producto no existe o falló la escritura.
+     */
+    boolean updateProduct(String id, Product updatedProduct);
+
+    /**
+     * Modifica sólo los campos presentes en {@code patch}.
+     *
+     * @param id    ID del producto.
+     * @param patch Campos a modificar (al menos uno).
+     * @return true si el producto existe.
+     * @throws SQLException Si ocurre un error al actualizar.
+     */
+    boolean patchProduct(String id, ProductPatch patch) throws SQLException;
+
+    /**
+     * @param id ID del producto.
+     * @return true si se eliminó, false si no existía.
+     */
+    boolean deleteProduct(String id);
+
+    /**
+     * Reserva inventario de varios productos de forma atómica: si alguno no existe o no
+     * tiene inventario suficiente no se aplica ningún cambio.
+     *
+     * @param items Productos y cantidades (ya validados).
+     * @return Un resultado por elemento, en el mismo orden que {@code items}.
+     * @throws SQLException Si falla el almacenamiento; en ese caso no se aplica ningún cambio.
+     */
+    List<StockResult> reserveStock(List<StockRequest> items) throws SQLException;
+
+    /**
+     * Libera inventario de varios productos de forma atómica.
+     *
+     * @param items Productos y cantidades (ya validados).
+     * @return Un resultado por elemento, en el mismo orden que {@code items}.
+     * @throws SQLException Si falla el almacenamiento; en ese caso no se aplica ningún cambio.
+     */
+    List<StockResult> releaseStock(List<StockRequest> items) throws SQLException;
+}
@@ -0,0 +1,21 @@
+package app.apiRESTful.dao;
+
+import java.io.IOException;
+
+/**
+ * Recibe las filas de una consulta a medida que se leen del `ResultSet`, sin acumularlas
+ * en una lista. Permite escribir cada fila directamente en la respuesta HTTP.
+ *
+ * @param <T> Tipo de objeto construido por cada fila.
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+
+    /**
+     * Procesa una fila.
+     *
+     * @param row Objeto construido a partir de la fila actual.
+     * @throws IOException Si falla la escritura de la fila.
+     */
+    void handle(T row) throws IOException;
+}
@@ -0,0 +1,545 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.apiRESTful.search.ProductIndex;
+import app.config.AppConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vista del catálogo en memoria delante de MySQL que arranca desde una instantánea en disco.
+ *
+ * Al arrancar se lee la instantánea ({@link CatalogSnapshot}, proyectada con un
+ * {@code MappedByteBuffer}) en un {@link InMemoryProductRepository} y las lecturas se sirven
+ * desde ahí inmediatamente, sin esperar a la base de datos. En segundo plano se concilia la
+ * vista con MySQL: se leen sólo las filas con {@code updated_at} posterior a la marca de agua
+ * de la instantánea y las bajas registradas desde entonces en {@code product_deletions}. Cada
+ * {@code fullSweepEvery} conciliaciones, si las bajas registradas pueden estar incompletas
+ * (no se comprobaron en el último día, o la tabla no existe) se recorren además todos los IDs
+ * de la tabla y se podan las bajas antiguas. La conciliación se repite
+ * periódicamente (así llegan también los cambios hechos por otros nodos) y después de cada
+ * una se guarda la instantánea si la vista cambió; se guarda una vez más al apagar.
+ *
+ * Sin instantánea (el primer arranque, o si está dañada) las lecturas van a la base de datos
+ * hasta que la primera conciliación carga el catálogo completo.
+ *
+ * Las escrituras van al delegado y, si se aplicaron, se reflejan en la vista. Un producto
+ * escrito durante una conciliación no se sobrescribe con lo que ésta leyó, que puede ser
+ * anterior a la escritura. Los índices registrados con {@link #addIndex} reciben los cambios
+ * que trae la conciliación; los de las escrituras propias los aplica {@link IndexedProductDAO}.
+ * Los registrados con {@link #addChangeListener} reciben un aviso tras cada conciliación con
+ * cambios.
+ */
+public class SnapshotProductDAO implements ProductRepository {
+
+    public static final long DEFAULT_INTERVAL_SECONDS = 30;
+
+    // Una transacción que confirma tarde puede dejar un updated_at algo anterior a la marca
+    // de agua: cada conciliación vuelve a leer este margen
+    private static final long OVERLAP_MILLIS = 5000;
+    // product_deletions guarda las bajas de un día; se recorren los IDs antes de que una baja
+    // que aún no se leyó pueda haberse podado
+    private static final long DELETIONS_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+    public static final int DEFAULT_FULL_SWEEP_EVERY = 120;
+
+    private final ProductDAOSQL source;
+    private final ProductRepository delegate;
+    private final Path snapshotFile;
+    private final InMemoryProductRepository view = new InMemoryProductRepository();
+    private final List<ProductIndex> indexes = new CopyOnWriteArrayList<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean ready;
+
+    // Protege las escrituras en la vista y localWrites
+    private final Object applyLock = new Object();
+    // IDs escritos durante la conciliación en curso, o null si no hay ninguna
+    private Set<String> localWrites;
+
+    // Protegidos por this (conciliación e instantánea no se solapan)
+    private long watermark;
+    private long savedModCount = -1;
+    // Cuándo se comprobaron por última vez todas las bajas (o la marca de agua de la instantánea)
+    private long deletionsCheckedAt;
+    private int incrementalReconciles;
+    // false si product_deletions no existe: se recorren los IDs en cada conciliación
+    private boolean deletionsTable = true;
+
+    private final AtomicLong reconciles = new AtomicLong();
+    private final AtomicLong reconciledRows = new AtomicLong();
+    private final AtomicLong removedRows = new AtomicLong();
+    private final AtomicLong fullSweeps = new AtomicLong();
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long loadNanos;
+    private volatile long lastReconcileNanos;
+    private long intervalSeconds = DEFAULT_INTERVAL_SECONDS;
+    private int fullSweepEvery = DEFAULT_FULL_SWEEP_EVERY;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param source       DAO JDBC del que se leen los cambios al conciliar.
+     * @param delegate     DAO que recibe las escrituras y las lecturas mientras la vista no
+     *                     está lista ({@code source} o un decorador suyo).
+     * @param snapshotFile Archivo de la instantánea.
+     */
+    public SnapshotProductDAO(ProductDAOSQL source, ProductRepository delegate, Path snapshotFile) {
+        this.source = source;
+        this.delegate = delegate;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Crea la vista leyendo las claves CATALOG_SNAPSHOT_* del entorno y carga la instantánea.
+     * La conciliación arranca con {@link #start()}, después de registrar los índices.
+     * - CATALOG_SNAPSHOT_FILE: archivo de la instantánea (vacío: sin vista, por defecto).
+     * - CATALOG_SNAPSHOT_INTERVAL_SECONDS: periodo entre conciliaciones e instantáneas
+     *   (por defecto 30; 0 concilia sólo al arrancar y guarda sólo al apagar).
+     * - CATALOG_FULL_SWEEP_EVERY: cada cuántas conciliaciones se recorren todos los IDs
+     *   (por defecto 120; 1 en todas).
+     *
+     * @param config   Configuración de la aplicación.
+     * @param source   DAO JDBC.
+     * @param delegate DAO que recibe las escrituras.
+     * @return La vista, o null si no hay archivo de instantánea configurado.
+     */
+    public static SnapshotProductDAO fromEnv(AppConfig config, ProductDAOSQL source, ProductRepository delegate) {
+        String file = config.get("CATALOG_SNAPSHOT_FILE", "").trim();
+        if (file.isEmpty()) {
+            return null;
+        }
+        SnapshotProductDAO dao = new SnapshotProductDAO(source, delegate, Paths.get(file));
+        try {
+            if (dao.load()) {
+                System.out.println("Loaded " + dao.size() + " products from catalog snapshot " + file);
+            }
+        } catch (IOException e) {
+            // Una instantánea dañada no impide arrancar: se reconstruye desde la base de datos
+            dao.failures.incrementAndGet();
+            e.printStackTrace();
+        }
+        dao.intervalSeconds = config.getLong("CATALOG_SNAPSHOT_INTERVAL_SECONDS", DEFAULT_INTERVAL_SECONDS);
+        dao.setFullSweepEvery(config.getInt("CATALOG_FULL_SWEEP_EVERY", DEFAULT_FULL_SWEEP_EVERY));
+        return dao;
+    }
+
+    /**
+     * Carga la instantánea si existe; a partir de ahí las lecturas se sirven desde la vista.
+     *
+     * @return true si se cargó.
+     * @throws IOException Si el archivo no es una instantánea válida.
+     */
+    public synchronized boolean load() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        CatalogSnapshot snapshot = CatalogSnapshot.read(snapshotFile);
+        synchronized (applyLock) {
+            view.replaceAll(snapshot.getProducts());
+        }
+        watermark = snapshot.getWatermark();
+        deletionsCheckedAt = watermark;
+        savedModCount = view.getModCount();
+        loadNanos = System.nanoTime() - start;
+        ready = true;
+        return true;
+    }
+
+    /**
+     * Trae a la vista los cambios de la base de datos posteriores a la marca de agua (o el
+     * catálogo completo si aún no hay vista) y quita los productos borrados desde entonces.
+     *
+     * @return Productos añadidos, modificados o quitados de la vista.
+     * @throws SQLException Si falla la base de datos; la vista queda como estaba o más al día.
+     * @throws IOException  No se produce en la práctica (las filas se aplican en memoria).
+     */
+    public synchronized int reconcile() throws SQLException, IOException {
+        long start = System.nanoTime();
+        // Lo pendiente de la escritura diferida aún no está en la tabla
+        if (delegate instanceof WriteBehindProductDAO writeBehind) {
+            writeBehind.flush();
+        }
+        Set<String> skip = new HashSet<>();
+        synchronized (applyLock) {
+            localWrites = skip;
+        }
+        try {
+            boolean full = !ready;
+            long checkStarted = System.currentTimeMillis();
+            long since = full ? 0 : Math.max(0, watermark - OVERLAP_MILLIS);
+            Set<String> changedIds = new HashSet<>();
+            int[] applied = {0};
+            long latest = source.streamProductsChangedSince(since, product -> {
+                changedIds.add(product.getId());
+                if (applyReconciled(product, skip)) {
+                    applied[0]++;
+                }
+            });
+
+            int removed = 0;
+            boolean sweep = full || !deletionsTable || ++incrementalReconciles >= fullSweepEvery
+                    || checkStarted - deletionsCheckedAt > DELETIONS_RETENTION_MILLIS / 2;
+            if (!sweep) {
+                Set<String> deleted = new HashSet<>();
+                try {
+                    latest = Math.max(latest, source.streamProductsDeletedSince(since, deleted::add));
+                    // Un ID borrado y vuelto a crear aparece también entre los cambios
+                    for (String id : deleted) {
+                        if (!changedIds.contains(id) && removeReconciled(id, skip)) {
+                            removed++;
+                        }
+                    }
+                } catch (SQLException e) {
+                    if (!"42S02".equals(e.getSQLState())) {
+                        throw e;
+                    }
+                    System.err.println("Table product_deletions not found (migration V3): catalog reconcile will scan all product IDs");
+                    deletionsTable = false;
+                    sweep = true;
+                }
+            }
+            if (sweep) {
+                removed = sweepDeleted(full, changedIds, skip);
+            }
+
+            watermark = Math.max(watermark, latest);
+            deletionsCheckedAt = checkStarted;
+            ready = true;
+            reconciles.incrementAndGet();
+            reconciledRows.addAndGet(applied[0]);
+            removedRows.addAndGet(removed);
+            lastReconcileNanos = System.nanoTime() - start;
+            if (applied[0] + removed > 0) {
+                for (Runnable listener : changeListeners) {
+                    listener.run();
+                }
+            }
+            return applied[0] + removed;
+        } finally {
+            synchronized (applyLock) {
+                localWrites = null;
+            }
+        }
+    }
+
+    // Quita de la vista los IDs que ya no están en la tabla y poda las bajas antiguas
+    private int sweepDeleted(boolean full, Set<String> changedIds, Set<String> skip) throws SQLException, IOException {
+        // En una lectura completa las filas leídas son todo el catálogo
+        Set<String> existing = changedIds;
+        if (!full) {
+            existing = new HashSet<>(view.size() * 2);
+            source.streamProductIds(existing::add);
+            existing.addAll(changedIds);
+        }
+        int removed = 0;
+        for (String id : new ArrayList<>(view.ids())) {
+            if (!existing.contains(id) && removeReconciled(id, skip)) {
+                removed++;
+            }
+        }
+        if (deletionsTable) {
+            try {
+                source.pruneProductDeletions(System.currentTimeMillis() - DELETIONS_RETENTION_MILLIS);
+            } catch (SQLException e) {
+                if (!"42S02".equals(e.getSQLState())) {
+                    throw e;
+                }
+                deletionsTable = false;
+            }
+        }
+        incrementalReconciles = 0;
+        fullSweeps.incrementAndGet();
+        return removed;
+    }
+
+    /**
+     * Guarda una instantánea de la vista si cambió desde la anterior.
+     *
+     * @return true si se escribió el archivo.
+     * @throws IOException Si falla la escritura; la instantánea anterior queda intacta.
+     */
+    public synchronized boolean save() throws IOException {
+        long modCount = view.getModCount();
+        if (!ready || modCount == savedModCount) {
+            return false;
+        }
+        CatalogSnapshot.write(snapshotFile, watermark, view.getAllProducts());
+        savedModCount = modCount;
+        saves.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Concilia en un hilo daemon ahora y cada CATALOG_SNAPSHOT_INTERVAL_SECONDS, guardando
+     * la instantánea tras cada conciliación, y guarda una última al apagar la JVM.
+     */
+    public void start() {
+        start(intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Concilia en un hilo daemon ahora y cada {@code interval}, guardando la instantánea
+     * tras cada conciliación, y guarda una última al apagar la JVM.
+     *
+     * @param interval Periodo entre conciliaciones (0 o menos: sólo la inicial).
+     * @param unit     Unidad de interval.
+     */
+    public void start(long interval, TimeUnit unit) {
+        // No se sincroniza con this: la conciliación en curso no debe bloquear el arranque
+        synchronized (applyLock) {
+            if (scheduler != null) {
+                return;
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "catalog-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::reconcileAndSaveQuietly, 0, interval, unit);
+        } else {
+            scheduler.execute(this::reconcileAndSaveQuietly);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdown();
+            saveQuietly();
+        }, "catalog-snapshot-shutdown"));
+    }
+
+    /**
+     * @param every Cada cuántas conciliaciones se recorren todos los IDs de la tabla (1: en
+     *              todas); entre medias las bajas se leen de {@code product_deletions}.
+     */
+    public synchronized void setFullSweepEvery(int every) {
+        this.fullSweepEvery = Math.max(1, every);
+    }
+
+    /**
+     * Registra un índice que debe recibir los cambios traídos por la conciliación. Se llama
+     * antes de {@link #start()}.
+     *
+     * @param index Índice construido con el contenido actual de la vista.
+     */
+    public void addIndex(ProductIndex index) {
+        indexes.add(index);
+    }
+
+    /**
+     * Registra una acción que se ejecuta después de cada conciliación que trajo cambios (por
+     * ejemplo, de otros nodos), en el hilo de la conciliación.
+     *
+     * @param listener Acción a ejecutar.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
+        return reads().getAllProducts();
+    }
+
+    @Override
+    public ProductPage getProductsPage(ProductQuery query) throws SQLException {
+        return reads().getProductsPage(query);
+    }
+
+    @Override
+    public String streamProductsPage(ProductQuery query, RowHandler<Product> handler) throws SQLException, IOException {
+        return reads().streamProductsPage(query, handler);
+    }
+
+    @Override
+    public Product getProductById(String id) {
+        return reads().getProductById(id);
+    }
+
+    @Override
+    public boolean addProduct(Product product) {
+        boolean added = delegate.addProduct(product);
+        refresh(product.getId());
+        return added;
+    }
+
+    @Override
+    public void addProducts(List<Product> products, int chunkSize) throws SQLException {
+        delegate.addProducts(products, chunkSize);
+        synchronized (applyLock) {
+            for (Product product : products) {
+                markLocal(product.getId());
+                view.put(product);
+            }
+        }
+    }
+
+    @Override
+    public boolean updateProduct(String id, Product updatedProduct) {
+        boolean updated = delegate.updateProduct(id, updatedProduct);
+        refresh(id);
+        return updated;
+    }
+
+    @Override
+    public boolean patchProduct(String id, ProductPatch patch) throws SQLException {
+        boolean found = delegate.patchProduct(id, patch);
+        if (found) {
+            synchronized (applyLock) {
+                markLocal(id);
+                view.patchProduct(id, patch);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public boolean deleteProduct(String id) {
+        boolean deleted = delegate.deleteProduct(id);
+        if (deleted) {
+            synchronized (applyLock) {
+                markLocal(id);
+                view.deleteProduct(id);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<StockResult> reserveStock(List<StockRequest> items) throws SQLException {
+        return afterStockChange(delegate.reserveStock(items));
+    }
+
+    @Override
+    public List<StockResult> releaseStock(List<StockRequest> items) throws SQLException {
+        return afterStockChange(delegate.releaseStock(items));
+    }
+
+    /**
+     * @return true si las lecturas se sirven desde la vista.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return Productos en la vista.
+     */
+    public int size() {
+        return view.size();
+    }
+
+    public long getReconciles() { return reconciles.get(); }
+    public long getReconciledRows() { return reconciledRows.get(); }
+    public long getRemovedRows() { return removedRows.get(); }
+    public long getFullSweeps() { return fullSweeps.get(); }
+    public long getSaves() { return saves.get(); }
+    public long getFailures() { return failures.get(); }
+
+    /**
+     * @return Duración de la carga de la instantánea al arrancar, en segundos (0 si no se cargó).
+     */
+    public double getLoadSeconds() {
+        return loadNanos / 1e9;
+    }
+
+    /**
+     * @return Duración de la última conciliación, en segundos.
+     */
+    public double getLastReconcileSeconds() {
+        return lastReconcileNanos / 1e9;
+    }
+
+    private ProductRepository reads() {
+        return ready ? view : delegate;
+    }
+
+    // Los métodos heredados de JDBC no informan si la escritura falló: se vuelve a leer la fila
+    private void refresh(String id) {
+        Product current = delegate.getProductById(id);
+        if (current != null) {
+            synchronized (applyLock) {
+                markLocal(id);
+                view.put(current);
+            }
+        }
+    }
+
+    private List<StockResult> afterStockChange(List<StockResult> results) {
+        synchronized (applyLock) {
+            for (StockResult result : results) {
+                if (result.getStatus() == StockResult.Status.OK) {
+                    markLocal(result.getId());
+                    view.setQuantity(result.getId(), result.getQuantity());
+                }
+            }
+        }
+        return results;
+    }
+
+    private void markLocal(String id) {
+        if (localWrites != null) {
+            localWrites.add(id);
+        }
+    }
+
+    private boolean applyReconciled(Product product, Set<String> skip) {
+        synchronized (applyLock) {
+            if (skip.contains(product.getId()) || product.sameData(view.getProductById(product.getId()))) {
+                return false;
+            }
+            view.put(product);
+        }
+        for (ProductIndex index : indexes) {
+            index.index(product);
+        }
+        return true;
+    }
+
+    private boolean removeReconciled(String id, Set<String> skip) {
+        synchronized (applyLock) {
+            if (skip.contains(id) || !view.deleteProduct(id)) {
+                return false;
+            }
+        }
+        for (ProductIndex index : indexes) {
+            index.remove(id);
+        }
+        return true;
+    }
+
+    private void reconcileAndSaveQuietly() {
+        try {
+            reconcile();
+            save();
+        } catch (SQLException | IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+}
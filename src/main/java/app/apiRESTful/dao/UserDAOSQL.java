@@ -1,8 +1,10 @@
 package app.apiRESTful.dao;
 
 import app.apiRESTful.model.User;
-import io.github.cdimascio.dotenv.Dotenv;
+import app.database.ConnectionPool;
+import app.database.DatabaseHelper;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -10,24 +12,18 @@ import java.util.List;
 /**
  * Clase `UserDAOSQL` para manejar las operaciones CRUD relacionadas con usuarios
  * en la base de datos utilizando JDBC. 
- * Las credenciales y URL de la base de datos se cargan desde variables de entorno.
+ * Las conexiones se obtienen del pool compartido, configurado desde variables de entorno.
  */
-public class UserDAOSQL {
-
-    // Carga las variables de entorno para la conexión a la base de datos
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = dotenv.get("DB_URL"); // URL de la base de datos.
-    private static final String DB_USER = dotenv.get("DB_USER"); // Usuario de la base de datos.
-    private static final String DB_PASSWORD = dotenv.get("DB_PASSWORD"); // Contraseña de la base de datos.
+public class UserDAOSQL implements UserRepository {
 
     /**
-     * Establece una conexión con la base de datos.
+     * Obtiene una conexión del pool compartido.
      *
-     * @return Un objeto `Connection` activo.
+     * @return Un objeto `Connection` prestado por el pool; al cerrarlo vuelve al pool.
      * @throws SQLException Si ocurre un error durante la conexión.
      */
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        return ConnectionPool.getInstance().getConnection();
     }
 
     /**
@@ -36,13 +32,14 @@ public class UserDAOSQL {
      * @param user Objeto `User` que contiene los datos del usuario a crear.
      * @return `true` si el usuario fue creado exitosamente, `false` en caso contrario.
      */
+    @Override
     public boolean addUser(User user) {
         String sql = "INSERT INTO users (username, password) VALUES (?, ?)";
         try (Connection connection = getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, user.getUsername()); // Establece el nombre de usuario.
             statement.setString(2, user.getPassword()); // Establece la contraseña.
-            return statement.executeUpdate() > 0; // Retorna true si se afectó al menos una fila.
+            return statement.executeUpdate() > 0; // true si se afectó al menos una fila.
         } catch (SQLException e) {
             e.printStackTrace();
             return false; // Retorna false si ocurre algún error.
@@ -55,6 +52,7 @@ public class UserDAOSQL {
      * @param id ID del usuario a buscar.
      * @return Un objeto `User` si se encuentra el usuario, o `null` si no existe.
      */
+    @Override
     public User getUserById(int id) {
         String sql = "SELECT * FROM users WHERE id = ?";
         try (Connection connection = getConnection();
@@ -63,6 +61,7 @@ public class UserDAOSQL {
             ResultSet resultSet = statement.executeQuery(); // Ejecuta la consulta.
             if (resultSet.next()) {
                 User user = new User();
+                user.setId(resultSet.getInt("id"));
                 user.setUsername(resultSet.getString("username")); // Asigna el nombre de usuario.
                 user.setPassword(resultSet.getString("password")); // Asigna la contraseña.
                 return user; // Retorna el usuario encontrado.
@@ -78,6 +77,7 @@ public class UserDAOSQL {
      *
      * @return Una lista de objetos `User` que representa a todos los usuarios.
      */
+    @Override
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users";
@@ -98,6 +98,30 @@ public class UserDAOSQL {
         return users; // Retorna la lista de usuarios.
     }
 
+    /**
+     * Recorre todos los usuarios entregando cada fila al manejador a medida que se lee,
+     * sin acumularlas en memoria. Sólo se leen las columnas públicas (id y username).
+     *
+     * @param handler Receptor de cada usuario.
+     * @throws SQLException Si falla la consulta.
+     * @throws IOException  Si el manejador falla al escribir una fila.
+     */
+    @Override
+    public void streamAllUsers(RowHandler<User> handler) throws SQLException, IOException {
+        String sql = "SELECT id, username FROM users ORDER BY id";
+        try (Connection connection = getConnection();
+             PreparedStatement statement = DatabaseHelper.prepareStreaming(connection, sql);
+             ResultSet resultSet = statement.executeQuery()) {
+
+            while (resultSet.next()) {
+                User user = new User();
+                user.setId(resultSet.getInt("id")); // Asigna el ID.
+                user.setUsername(resultSet.getString("username")); // Asigna el nombre de usuario.
+                handler.handle(user);
+            }
+        }
+    }
+
     /**
      * Actualiza los datos de un usuario existente en la base de datos.
      *
@@ -105,6 +129,7 @@ public class UserDAOSQL {
      * @param user Objeto `User` que contiene los nuevos datos del usuario.
      * @return `true` si el usuario fue actualizado exitosamente, `false` en caso contrario.
      */
+    @Override
     public boolean updateUser(int id, User user) {
         String sql = "UPDATE users SET username = ?, password = ? WHERE id = ?";
         try (Connection connection = getConnection();
@@ -112,7 +137,7 @@ public class UserDAOSQL {
             statement.setString(1, user.getUsername()); // Establece el nuevo nombre de usuario.
             statement.setString(2, user.getPassword()); // Establece la nueva contraseña.
             statement.setInt(3, id); // Establece el ID del usuario a actualizar.
-            return statement.executeUpdate() > 0; // Retorna true si se afectó al menos una fila.
+            return statement.executeUpdate() > 0; // true si se afectó al menos una fila.
         } catch (SQLException e) {
             e.printStackTrace();
             return false; // Retorna false si ocurre algún error.
@@ -125,6 +150,7 @@ public class UserDAOSQL {
      * @param id ID del usuario a eliminar.
      * @return `true` si el usuario fue eliminado exitosamente, `false` en caso contrario.
      */
+    @Override
     public boolean deleteUser(int id) {
         String sql = "DELETE FROM users WHERE id = ?";
         try (Connection connection = getConnection();
@@ -136,4 +162,16 @@ public class UserDAOSQL {
             return false; // Retorna false si ocurre algún error.
         }
     }
+
+    /**
+     * Obtiene la contraseña guardada de un usuario (sólo esa columna, por el índice único de username).
+     *
+     * @param username Nombre de usuario.
+     * @return La contraseña, o null si el usuario no existe.
+     * @throws SQLException Si ocurre un error en la consulta.
+     */
+    @Override
+    public String findPassword(String username) throws SQLException {
+        return DatabaseHelper.findPassword(username);
+    }
 }
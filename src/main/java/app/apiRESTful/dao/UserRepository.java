@@ -0,0 +1,62 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.User;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Almacenamiento de usuarios. Implementaciones: {@link UserDAOSQL} (JDBC) e
+ * {@link InMemoryUserRepository} (memoria).
+ */
+public interface UserRepository {
+
+    /**
+     * @param user Usuario a crear; el nombre de usuario debe ser único.
+     * @return true si se creó.
+     */
+    boolean addUser(User user);
+
+    /**
+     * @param id ID del usuario.
+     * @return El usuario, o null si no existe.
+     */
+    User getUserById(int id);
+
+    /**
+     * @return Todos los usuarios.
+     */
+    List<User> getAllUsers();
+
+    /**
+     * Recorre todos los usuarios entregando cada uno al manejador sin acumularlos.
+     *
+     * @param handler Receptor de cada usuario.
+     * @throws SQLException Si falla la consulta.
+     * @throws IOException  Si el manejador falla al escribir una fila.
+     */
+    void streamAllUsers(RowHandler<User> handler) throws SQLException, IOException;
+
+    /**
+     * @param id   ID del usuario.
+     * @param user Nuevos datos.
+     * @return true si el usuario existía y se actualizó.
+     */
+    boolean updateUser(int id, User user);
+
+    /**
+     * @param id ID del usuario.
+     * @return true si se eliminó.
+     */
+    boolean deleteUser(int id);
+
+    /**
+     * Contraseña guardada de un usuario, para verificar el login.
+     *
+     * @param username Nombre de usuario.
+     * @return La contraseña, o null si el usuario no existe.
+     * @throws SQLException Si falla la consulta.
+     */
+    String findPassword(String username) throws SQLException;
+}
@@ -0,0 +1,245 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de sólo anexado de las actualizaciones pendientes de {@link WriteBehindProductDAO}.
+ *
+ * El diario se divide en segmentos {@code journal-<n>.log}. Cada registro es
+ * {@code [longitud][producto][crc32]}. Si una escritura falla a medias, el segmento se trunca
+ * hasta donde estaba (o, si tampoco se puede, se sigue en un segmento nuevo), así que los
+ * registros confirmados después nunca quedan detrás de bytes sueltos. Al reproducirlo, un
+ * registro incompleto o con el CRC incorrecto se avisa en el log y se busca el siguiente
+ * registro válido. Antes de cada volcado se rota el segmento y, cuando la transacción
+ * confirma, se borran los segmentos ya volcados. No es seguro para varios hilos: el DAO lo
+ * usa bajo su propio bloqueo.
+ */
+class WriteBehindJournal {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    // Cota de la longitud de un registro al buscar el siguiente tras uno corrupto
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long segment;
+    // Una escritura fallida dejó bytes sueltos que no se pudieron truncar
+    private boolean damaged;
+
+    /**
+     * Abre el diario; el segmento nuevo se numera después de los existentes, que quedan
+     * para {@link #replay()}.
+     *
+     * @param directory Directorio de los segmentos (se crea si no existe).
+     * @param fsync     Forzar cada registro a disco antes de confirmar la escritura.
+     * @throws IOException Si no se puede crear el segmento.
+     */
+    WriteBehindJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        List<Long> existing = segments();
+        this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        this.channel = open(segment);
+    }
+
+    /**
+     * Lee todos los segmentos anteriores al actual; si un producto aparece varias veces,
+     * gana el último registro.
+     *
+     * @return Productos pendientes por ID, en orden de primera aparición.
+     * @throws IOException Si no se puede leer un segmento.
+     */
+    Map<String, Product> replay() throws IOException {
+        Map<String, Product> products = new LinkedHashMap<>();
+        for (long existing : segments()) {
+            if (existing >= segment) {
+                continue;
+            }
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path(existing)));
+            while (data.hasRemaining()) {
+                int offset = data.position();
+                Product product = readRecord(data);
+                if (product != null) {
+                    products.put(product.getId(), product);
+                    continue;
+                }
+                // Registro roto: se salta hasta el siguiente registro válido, si lo hay
+                int next = offset + 1;
+                while (next < data.limit() && readRecord(data.position(next)) == null) {
+                    next++;
+                }
+                System.err.println("Write-behind journal " + path(existing).getFileName() + " is corrupt at byte "
+                        + offset + ": skipped " + (next - offset) + " bytes");
+                data.position(next);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Anexa la nueva versión de un producto.
+     *
+     * @param product Producto con sus datos completos.
+     * @throws IOException Si falla la escritura; en ese caso la actualización no se confirmó y
+     *                     no queda nada de ella en el diario.
+     */
+    void append(Product product) throws IOException {
+        if (damaged) {
+            rotate();
+            damaged = false;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(payload);
+        InMemoryProductRepository.writeString(out, product.getId());
+        InMemoryProductRepository.writeString(out, product.getName());
+        InMemoryProductRepository.writeString(out, product.getDescription());
+        out.writeDouble(product.getPrice());
+        out.writeInt(product.getQuantity());
+
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(4 + bytes.length + 8);
+        record.putInt(bytes.length).put(bytes).putLong(crc.getValue()).flip();
+        long start = channel.size();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            discardFrom(start, e);
+            throw e;
+        }
+    }
+
+    // Quita lo escrito por un registro que falló; si no se puede, el siguiente anexado empieza
+    // en un segmento nuevo y los bytes sueltos quedan al final de éste
+    private void discardFrom(long start, IOException failure) {
+        try {
+            channel.truncate(start);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+            damaged = true;
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y empieza otro.
+     *
+     * @return Número del segmento cerrado.
+     * @throws IOException Si no se puede crear el segmento nuevo.
+     */
+    long rotate() throws IOException {
+        FileChannel next = open(segment + 1);
+        long closed = segment;
+        channel.close();
+        channel = next;
+        segment++;
+        return closed;
+    }
+
+    /**
+     * Borra los segmentos ya volcados a la base de datos.
+     *
+     * @param last Último segmento a borrar (incluido).
+     * @throws IOException Si no se puede borrar un segmento.
+     */
+    void deleteThrough(long last) throws IOException {
+        for (long existing : segments()) {
+            if (existing <= last) {
+                Files.deleteIfExists(path(existing));
+            }
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(path(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path path(long number) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, number, SUFFIX));
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // No es un segmento del diario
+                }
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    // Lee el registro en la posición actual y avanza tras él; null (sin avanzar) si está
+    // incompleto o corrupto
+    private static Product readRecord(ByteBuffer data) {
+        int offset = data.position();
+        if (data.remaining() < 4) {
+            return null;
+        }
+        int length = data.getInt(offset);
+        if (length <= 0 || length > MAX_RECORD_BYTES || data.remaining() < 4 + length + 8) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), offset + 4, length);
+        if (crc.getValue() != data.getLong(offset + 4 + length)) {
+            return null;
+        }
+        Product product = readProduct(data.array(), offset + 4, length);
+        if (product != null) {
+            data.position(offset + 4 + length + 8);
+        }
+        return product;
+    }
+
+    // Un registro sólo se acepta si el producto ocupa exactamente su longitud
+    private static Product readProduct(byte[] bytes, int offset, int length) {
+        try {
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+            Product product = new Product(InMemoryProductRepository.readString(record),
+                    InMemoryProductRepository.readString(record), InMemoryProductRepository.readString(record),
+                    record.readDouble(), record.readInt());
+            return record.available() == 0 && product.getId() != null ? product : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
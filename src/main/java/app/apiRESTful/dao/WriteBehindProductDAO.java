@@ -0,0 +1,565 @@
+package app.apiRESTful.dao;
+
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.config.AppConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escritura diferida (write-behind) de {@code updateProduct} delante de {@link ProductDAOSQL}.
+ *
+ * Cada actualización se anexa al {@link WriteBehindJournal} y se confirma en cuanto está en
+ * disco, sin esperar a MySQL. En memoria sólo se guarda la última versión de cada producto,
+ * así que las actualizaciones sucesivas de un mismo producto se funden en una. Un hilo vuelca
+ * lo pendiente cada {@code maxLag} (o antes, si se acumulan {@code maxPending} productos) en
+ * una sola transacción por lotes. Si falla por un error transitorio (conexión, bloqueo), lo
+ * volcado vuelve a quedar pendiente y se reintenta en el siguiente ciclo. Si la base de datos
+ * rechaza los datos (un valor demasiado largo, una restricción), se reintenta fila a fila y las
+ * filas rechazadas pasan a una lista de descartes en lugar de bloquear los volcados siguientes.
+ * Al arrancar se reproduce el diario que no llegó a volcarse.
+ *
+ * Las lecturas ven las actualizaciones pendientes. Las demás escrituras ({@code patchProduct},
+ * {@code deleteProduct} y el inventario) van directas a la base de datos, pero antes vuelcan
+ * lo pendiente si afecta a sus productos; así nunca quedan por detrás de una actualización
+ * anterior, ni al volcar ni al reproducir el diario. En las páginas filtradas por precio o
+ * cantidad, un producto que pasa a cumplir el filtro por una actualización pendiente aparece
+ * tras el volcado.
+ */
+public class WriteBehindProductDAO implements ProductRepository {
+
+    public static final long DEFAULT_MAX_LAG_MS = 1000;
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    public static final int MAX_DEAD_LETTERS = 1000;
+
+    private final ProductDAOSQL delegate;
+    private final WriteBehindJournal journal;
+    private final int maxPending;
+    private final int chunkSize;
+
+    // Protege pending, inFlight y el diario; nunca se mantiene durante una consulta
+    private final Object lock = new Object();
+    private Map<String, Pending> pending = new LinkedHashMap<>();
+    // Versiones que se están volcando: las lecturas las siguen viendo hasta el commit
+    private Map<String, Pending> inFlight = Collections.emptyMap();
+    // Un solo volcado a la vez
+    private final Object flushLock = new Object();
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    // Últimas filas rechazadas por la base de datos, de la más antigua a la más reciente
+    private final Deque<Product> deadLetters = new ArrayDeque<>();
+    private volatile long lastFlushNanos;
+    // Último segmento ya volcado que no se pudo borrar (-1 si no hay)
+    private long undeletedSegment = -1;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    private static final class Pending {
+        final Product product;
+        // Momento de la primera actualización aún no volcada de este producto
+        final long sinceNanos;
+
+        Pending(Product product, long sinceNanos) {
+            this.product = product;
+            this.sinceNanos = sinceNanos;
+        }
+    }
+
+    /**
+     * Abre el diario. Lo que quedó sin volcar de una ejecución anterior se reproduce con
+     * {@link #recover()}.
+     *
+     * @param delegate   DAO que accede a la base de datos.
+     * @param journalDir Directorio del diario.
+     * @param fsync      Forzar cada registro del diario a disco antes de confirmar.
+     * @param maxPending Productos pendientes a partir de los cuales se vuelca sin esperar.
+     * @param chunkSize  Filas por lote JDBC al volcar.
+     * @throws IOException Si no se puede abrir el diario.
+     */
+    public WriteBehindProductDAO(ProductDAOSQL delegate, Path journalDir, boolean fsync,
+                                 int maxPending, int chunkSize) throws IOException {
+        this.delegate = delegate;
+        this.journal = new WriteBehindJournal(journalDir, fsync);
+        this.maxPending = maxPending;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reproduce los segmentos del diario que quedaron sin volcar y los vuelca. Si la base de
+     * datos no responde, lo reproducido queda pendiente hasta el siguiente volcado. Se llama
+     * una vez, antes de atender escrituras.
+     *
+     * @return Número de productos reproducidos.
+     * @throws IOException Si no se puede leer el diario.
+     */
+    public int recover() throws IOException {
+        Map<String, Product> replayed = journal.replay();
+        if (replayed.isEmpty()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        synchronized (lock) {
+            for (Product product : replayed.values()) {
+                // Una actualización ya anotada en el segmento actual es más reciente
+                pending.putIfAbsent(product.getId(), new Pending(product, now));
+            }
+        }
+        System.out.println("Replaying " + replayed.size() + " journaled product updates");
+        flushQuietly();
+        return replayed.size();
+    }
+
+    /**
+     * Crea el DAO leyendo las claves WRITE_BEHIND_* del entorno y arranca el volcado periódico.
+     * - WRITE_BEHIND_ENABLED: activa la escritura diferida (por defecto false).
+     * - WRITE_BEHIND_JOURNAL_DIR: directorio del diario (por defecto data/journal).
+     * - WRITE_BEHIND_FSYNC: forzar cada registro a disco (por defecto true).
+     * - WRITE_BEHIND_MAX_LAG_MS: retraso máximo entre confirmar y volcar (por defecto 1000).
+     * - WRITE_BEHIND_MAX_PENDING: productos pendientes que fuerzan un volcado (por defecto 10000).
+     *
+     * @param config   Configuración de la aplicación.
+     * @param delegate DAO que accede a la base de datos.
+     * @return El DAO, o null si la escritura diferida está desactivada.
+     * @throws IOException Si no se puede abrir o leer el diario.
+     */
+    public static WriteBehindProductDAO fromEnv(AppConfig config, ProductDAOSQL delegate) throws IOException {
+        if (!config.getBoolean("WRITE_BEHIND_ENABLED", false)) {
+            return null;
+        }
+        WriteBehindProductDAO dao = new WriteBehindProductDAO(delegate,
+                Paths.get(config.get("WRITE_BEHIND_JOURNAL_DIR", "data/journal").trim()),
+                config.getBoolean("WRITE_BEHIND_FSYNC", true),
+                config.getInt("WRITE_BEHIND_MAX_PENDING", DEFAULT_MAX_PENDING),
+                DEFAULT_CHUNK_SIZE);
+        dao.recover();
+        dao.start(config.getLong("WRITE_BEHIND_MAX_LAG_MS", DEFAULT_MAX_LAG_MS),
+                TimeUnit.MILLISECONDS);
+        return dao;
+    }
+
+    /**
+     * Programa el volcado periódico en un hilo daemon y un último volcado al apagar la JVM.
+     *
+     * @param maxLag Periodo entre volcados.
+     * @param unit   Unidad de maxLag.
+     */
+    public synchronized void start(long maxLag, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, maxLag, maxLag, unit);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdown();
+            flushQuietly();
+        }, "write-behind-shutdown"));
+    }
+
+    /**
+     * Confirma la actualización en cuanto queda en el diario; el volcado a MySQL es posterior,
+     * así que no comprueba que el producto exista (lo hace el controlador antes de llamar).
+     *
+     * @return true si quedó en el diario o, sin diario, si la escritura directa actualizó la fila.
+     */
+    @Override
+    public boolean updateProduct(String id, Product updatedProduct) {
+        Product product = new Product(id, updatedProduct.getName(), updatedProduct.getDescription(),
+                updatedProduct.getPrice(), updatedProduct.getQuantity());
+        boolean full;
+        synchronized (lock) {
+            try {
+                journal.append(product);
+            } catch (IOException e) {
+                // Sin diario no se puede confirmar de forma diferida: se escribe directamente
+                e.printStackTrace();
+                product = null;
+            }
+            if (product != null) {
+                Pending previous = pending.get(id);
+                if (previous != null) {
+                    coalesced.incrementAndGet();
+                }
+                pending.put(id, new Pending(product, previous != null ? previous.sinceNanos : System.nanoTime()));
+                updates.incrementAndGet();
+            }
+            full = pending.size() >= maxPending;
+        }
+        if (product == null) {
+            flushBefore(Collections.singleton(id));
+            return delegate.updateProduct(id, updatedProduct);
+        }
+        if (full && scheduler != null && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    /**
+     * Vuelca todas las actualizaciones pendientes en una transacción y borra del diario los
+     * segmentos volcados.
+     *
+     * @return Número de productos volcados (sin contar los descartados).
+     * @throws SQLException Si falla por un error transitorio; lo pendiente se conserva para
+     *                      reintentar.
+     */
+    public int flush() throws SQLException {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            if (undeletedSegment >= 0) {
+                deleteThrough(undeletedSegment);
+            }
+            Map<String, Pending> batch;
+            long segment;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                try {
+                    segment = journal.rotate();
+                } catch (IOException e) {
+                    throw new SQLException("Cannot rotate write-behind journal", e);
+                }
+                batch = pending;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+            }
+
+            long start = System.nanoTime();
+            List<Product> products = new ArrayList<>(batch.size());
+            for (Pending entry : batch.values()) {
+                products.add(entry.product);
+            }
+            int written;
+            try {
+                delegate.updateProducts(products, chunkSize);
+                written = products.size();
+            } catch (SQLException e) {
+                failures.incrementAndGet();
+                if (!isRejected(e)) {
+                    requeue(batch, products);
+                    throw e;
+                }
+                written = flushOneByOne(batch, products);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                requeue(batch, products);
+                throw e;
+            }
+            synchronized (lock) {
+                inFlight = Collections.emptyMap();
+            }
+            deleteThrough(segment);
+            flushes.incrementAndGet();
+            flushedRows.addAndGet(written);
+            lastFlushNanos = System.nanoTime() - start;
+            return written;
+        }
+    }
+
+    // El lote tenía alguna fila que la base de datos rechaza: se escriben una a una para
+    // descartar sólo esas. Un error transitorio a mitad devuelve el resto a pendientes
+    private int flushOneByOne(Map<String, Pending> batch, List<Product> products) throws SQLException {
+        int written = 0;
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            try {
+                delegate.updateProducts(Collections.singletonList(product), 1);
+                written++;
+            } catch (SQLException e) {
+                if (!isRejected(e)) {
+                    requeue(batch, products.subList(i, products.size()));
+                    throw e;
+                }
+                deadLetter(product, e);
+            }
+        }
+        return written;
+    }
+
+    private void deadLetter(Product product, SQLException e) {
+        deadLettered.incrementAndGet();
+        System.err.println("Write-behind update for product " + product.getId()
+                + " rejected by the database and discarded: " + e.getMessage());
+        synchronized (deadLetters) {
+            if (deadLetters.size() == MAX_DEAD_LETTERS) {
+                deadLetters.removeFirst();
+            }
+            deadLetters.addLast(product);
+        }
+    }
+
+    // Devuelve a pendientes los productos sin escribir; lo que llegó durante el volcado es más
+    // reciente y tiene prioridad
+    private void requeue(Map<String, Pending> batch, List<Product> unwritten) {
+        synchronized (lock) {
+            for (Product product : unwritten) {
+                pending.merge(product.getId(), batch.get(product.getId()),
+                        (newer, older) -> new Pending(newer.product, older.sinceNanos));
+            }
+            inFlight = Collections.emptyMap();
+        }
+    }
+
+    // Errores de los datos (clase SQLSTATE 22) o de restricciones (23): reintentar la misma
+    // fila no sirve de nada. Cualquier otro error se trata como transitorio
+    private static boolean isRejected(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLDataException || cause instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Product getProductById(String id) {
+        Product product = pendingVersion(id);
+        return product != null ? product : delegate.getProductById(id);
+    }
+
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
+        Map<String, Product> overlay = pendingSnapshot();
+        List<Product> products = delegate.getAllProducts();
+        if (!overlay.isEmpty()) {
+            products.replaceAll(product -> overlay.getOrDefault(product.getId(), product));
+        }
+        return products;
+    }
+
+    @Override
+    public ProductPage getProductsPage(ProductQuery query) throws SQLException {
+        List<Product> items = new ArrayList<>();
+        try {
+            return new ProductPage(items, streamProductsPage(query, items::add));
+        } catch (IOException e) {
+            // items::add no escribe en ningún flujo
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String streamProductsPage(ProductQuery query, RowHandler<Product> handler) throws SQLException, IOException {
+        Map<String, Product> overlay = pendingSnapshot();
+        if (overlay.isEmpty()) {
+            return delegate.streamProductsPage(query, handler);
+        }
+        return delegate.streamProductsPage(query, product -> {
+            Product current = overlay.get(product.getId());
+            if (current == null) {
+                handler.handle(product);
+            } else if (query.matchesFilters(current)) {
+                handler.handle(current);
+            }
+        });
+    }
+
+    @Override
+    public boolean addProduct(Product product) {
+        return delegate.addProduct(product);
+    }
+
+    @Override
+    public void addProducts(List<Product> products, int chunkSize) throws SQLException {
+        delegate.addProducts(products, chunkSize);
+    }
+
+    @Override
+    public boolean patchProduct(String id, ProductPatch patch) throws SQLException {
+        flushBeforeOrThrow(Collections.singleton(id));
+        return delegate.patchProduct(id, patch);
+    }
+
+    @Override
+    public boolean deleteProduct(String id) {
+        if (!flushBefore(Collections.singleton(id))) {
+            return false;
+        }
+        return delegate.deleteProduct(id);
+    }
+
+    @Override
+    public List<StockResult> reserveStock(List<StockRequest> items) throws SQLException {
+        flushBeforeOrThrow(stockIds(items));
+        return delegate.reserveStock(items);
+    }
+
+    @Override
+    public List<StockResult> releaseStock(List<StockRequest> items) throws SQLException {
+        flushBeforeOrThrow(stockIds(items));
+        return delegate.releaseStock(items);
+    }
+
+    /**
+     * @return Productos con actualizaciones aún no volcadas (incluidas las que se están volcando).
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size() + inFlight.size();
+        }
+    }
+
+    /**
+     * @return Segundos desde la actualización pendiente más antigua (0 si no hay ninguna).
+     */
+    public double getOldestPendingSeconds() {
+        long oldest = Long.MAX_VALUE;
+        synchronized (lock) {
+            for (Pending entry : inFlight.values()) {
+                oldest = Math.min(oldest, entry.sinceNanos);
+            }
+            for (Pending entry : pending.values()) {
+                oldest = Math.min(oldest, entry.sinceNanos);
+            }
+        }
+        return oldest == Long.MAX_VALUE ? 0 : (System.nanoTime() - oldest) / 1e9;
+    }
+
+    public long getUpdates() { return updates.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getFlushes() { return flushes.get(); }
+    public long getFlushedRows() { return flushedRows.get(); }
+    public long getFailures() { return failures.get(); }
+    public long getDeadLettered() { return deadLettered.get(); }
+
+    /**
+     * @return Las últimas filas rechazadas por la base de datos (hasta {@link #MAX_DEAD_LETTERS}),
+     *         de la más antigua a la más reciente.
+     */
+    public List<Product> getDeadLetters() {
+        synchronized (deadLetters) {
+            return new ArrayList<>(deadLetters);
+        }
+    }
+
+    /**
+     * @return Duración del último volcado en segundos.
+     */
+    public double getLastFlushSeconds() {
+        return lastFlushNanos / 1e9;
+    }
+
+    private Product pendingVersion(String id) {
+        synchronized (lock) {
+            Pending entry = pending.get(id);
+            if (entry == null) {
+                entry = inFlight.get(id);
+            }
+            return entry == null ? null : copy(entry.product);
+        }
+    }
+
+    private Map<String, Product> pendingSnapshot() {
+        synchronized (lock) {
+            if (pending.isEmpty() && inFlight.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, Product> snapshot = new HashMap<>();
+            for (Map.Entry<String, Pending> entry : inFlight.entrySet()) {
+                snapshot.put(entry.getKey(), copy(entry.getValue().product));
+            }
+            for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+                snapshot.put(entry.getKey(), copy(entry.getValue().product));
+            }
+            return snapshot;
+        }
+    }
+
+    // Vuelca lo pendiente si incluye alguno de los productos (o se está volcando)
+    private void flushBeforeOrThrow(Collection<String> ids) throws SQLException {
+        boolean needed;
+        synchronized (lock) {
+            needed = false;
+            for (String id : ids) {
+                if (pending.containsKey(id) || inFlight.containsKey(id)) {
+                    needed = true;
+                    break;
+                }
+            }
+        }
+        if (needed) {
+            // flush() espera a un volcado en curso antes de empezar el suyo
+            flush();
+        }
+    }
+
+    private boolean flushBefore(Collection<String> ids) {
+        try {
+            flushBeforeOrThrow(ids);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Se llama con flushLock. Si el borrado falla se reintenta en el siguiente volcado: hasta
+    // entonces, reproducir el diario sólo repetiría valores ya escritos
+    private void deleteThrough(long segment) {
+        try {
+            journal.deleteThrough(segment);
+            undeletedSegment = -1;
+        } catch (IOException e) {
+            undeletedSegment = segment;
+            e.printStackTrace();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static List<String> stockIds(List<StockRequest> items) {
+        List<String> ids = new ArrayList<>(items.size());
+        for (StockRequest item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getQuantity());
+    }
+}
@@ -0,0 +1,23 @@
+package app.apiRESTful.events;
+
+import java.io.IOException;
+
+/**
+ * Destino de los eventos de un suscriptor (normalmente el cuerpo de una respuesta
+ * {@code text/event-stream}). Nunca se llama desde dos hilos a la vez.
+ */
+public interface EventSink {
+
+    /**
+     * Escribe y envía uno o varios eventos ya codificados.
+     *
+     * @param frames Bytes a enviar.
+     * @throws IOException Si el cliente se desconectó o la escritura falla.
+     */
+    void send(byte[] frames) throws IOException;
+
+    /**
+     * Cierra la conexión del suscriptor.
+     */
+    void close();
+}
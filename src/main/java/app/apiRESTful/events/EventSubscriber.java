@@ -0,0 +1,146 @@
+package app.apiRESTful.events;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Un suscriptor del flujo de eventos: una cola acotada de eventos codificados delante de su
+ * {@link EventSink}.
+ *
+ * El suscriptor no tiene hilo propio. Cuando su cola pasa de vacía a no vacía se programa
+ * una tarea de escritura en el ejecutor compartido, que envía todo lo acumulado de una vez y
+ * termina al vaciar la cola; un suscriptor inactivo sólo ocupa su cola. Si el cliente no
+ * lee y la cola se llena, se aplica la {@link ProductEvents.SlowConsumerPolicy}.
+ */
+final class EventSubscriber implements Runnable {
+
+    private final ProductEvents events;
+    private final EventSink sink;
+    private final int capacity;
+    private final Executor writers;
+    private final ArrayDeque<byte[]> queue;
+    private boolean scheduled;
+    private boolean closed;
+
+    EventSubscriber(ProductEvents events, EventSink sink, int capacity, Executor writers) {
+        this.events = events;
+        this.sink = sink;
+        this.capacity = capacity;
+        this.writers = writers;
+        this.queue = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    /**
+     * Encola un evento sin bloquear.
+     *
+     * @param frame      Evento codificado.
+     * @param dropOldest Con la cola llena, descartar el más antiguo (true) o desconectar (false).
+     * @return false si el suscriptor quedó desconectado.
+     */
+    boolean offer(byte[] frame, boolean dropOldest) {
+        boolean overflow = false;
+        boolean schedule = false;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() >= capacity && !dropOldest) {
+                closed = true;
+                queue.clear();
+                overflow = true;
+            } else {
+                if (queue.size() >= capacity) {
+                    queue.poll();
+                    events.recordDropped();
+                }
+                queue.add(frame);
+                schedule = !scheduled;
+                scheduled = true;
+            }
+        }
+        if (overflow) {
+            events.recordSlowDisconnect();
+            disconnect();
+            return false;
+        }
+        if (schedule) {
+            try {
+                writers.execute(this);
+            } catch (RejectedExecutionException e) {
+                close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encola un evento sólo si no hay nada pendiente (para el latido, que nunca debe
+     * desplazar un evento real).
+     *
+     * @param frame Evento codificado.
+     */
+    void offerIfIdle(byte[] frame) {
+        synchronized (this) {
+            if (closed || scheduled || !queue.isEmpty()) {
+                return;
+            }
+        }
+        offer(frame, true);
+    }
+
+    /**
+     * Envía lo acumulado en la cola; termina cuando la cola queda vacía.
+     */
+    @Override
+    public void run() {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        while (true) {
+            synchronized (this) {
+                if (closed || queue.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+                byte[] frame;
+                while ((frame = queue.poll()) != null) {
+                    batch.writeBytes(frame);
+                }
+            }
+            try {
+                sink.send(batch.toByteArray());
+            } catch (IOException | RuntimeException e) {
+                close();
+                return;
+            }
+            batch.reset();
+        }
+    }
+
+    /**
+     * Desconecta al suscriptor y lo retira del flujo.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+        }
+        disconnect();
+    }
+
+    // El cierre puede bloquearse vaciando el búfer de un cliente que no lee: nunca se hace
+    // en el hilo que publica
+    private void disconnect() {
+        events.unsubscribe(this);
+        try {
+            writers.execute(sink::close);
+        } catch (RejectedExecutionException e) {
+            sink.close();
+        }
+    }
+}
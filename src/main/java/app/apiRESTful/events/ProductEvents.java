@@ -0,0 +1,273 @@
+package app.apiRESTful.events;
+
+import app.config.AppConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flujo de cambios del catálogo para {@code GET /products/stream} (Server-Sent Events).
+ *
+ * Cada evento se codifica una sola vez en formato {@code text/event-stream} y los mismos
+ * bytes se encolan en todos los suscriptores. Los últimos {@code historySize} eventos se
+ * guardan en un búfer circular para que un cliente que se reconecta con
+ * {@code Last-Event-ID} reciba lo que se perdió; si ese id ya salió del búfer (o es de un
+ * arranque anterior) recibe un evento {@code reset} y debe volver a leer el catálogo.
+ *
+ * Los suscriptores no tienen hilo propio (ver {@link EventSubscriber}): las escrituras se
+ * hacen en hilos virtuales que sólo existen mientras hay eventos por enviar, de modo que
+ * miles de suscriptores inactivos no ocupan ningún hilo. Un latido periódico (un comentario
+ * SSE) mantiene abiertas las conexiones inactivas y detecta los clientes desaparecidos.
+ */
+public class ProductEvents {
+
+    public static final int DEFAULT_HISTORY_SIZE = 1024;
+    public static final int DEFAULT_SUBSCRIBER_BUFFER = 256;
+    public static final int DEFAULT_MAX_SUBSCRIBERS = 10_000;
+    public static final long DEFAULT_HEARTBEAT_SECONDS = 15;
+
+    public static final String ADD = "add";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private static final byte[] RETRY = "retry: 3000\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Qué hacer cuando la cola de un suscriptor se llena porque el cliente no lee.
+     */
+    public enum SlowConsumerPolicy {
+        /** Descartar el evento más antiguo de la cola; el cliente sigue conectado. */
+        DROP_OLDEST,
+        /** Cerrar la conexión; el cliente se reconecta con Last-Event-ID y recupera lo perdido. */
+        DISCONNECT;
+
+        /**
+         * @param value drop-oldest | disconnect (no distingue mayúsculas).
+         * @return La política correspondiente.
+         */
+        public static SlowConsumerPolicy parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown SSE_SLOW_CONSUMER policy: " + value);
+            }
+        }
+    }
+
+    // Los ids incluyen el arranque: un Last-Event-ID de un proceso anterior no se confunde
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final byte[][] history;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final boolean dropOldest;
+    private final Executor writers;
+    private final Set<EventSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private long lastId; // protegido por this
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong slowDisconnects = new AtomicLong();
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * @param historySize      Eventos guardados para reanudar con Last-Event-ID.
+     * @param subscriberBuffer Eventos pendientes por suscriptor como máximo.
+     * @param maxSubscribers   Suscriptores simultáneos como máximo.
+     * @param policy           Política con los suscriptores lentos.
+     * @param writers          Ejecutor de las tareas de escritura.
+     */
+    public ProductEvents(int historySize, int subscriberBuffer, int maxSubscribers,
+                         SlowConsumerPolicy policy, Executor writers) {
+        if (historySize <= 0 || subscriberBuffer <= 0) {
+            throw new IllegalArgumentException("historySize and subscriberBuffer must be positive");
+        }
+        this.history = new byte[historySize][];
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+        this.dropOldest = policy == SlowConsumerPolicy.DROP_OLDEST;
+        this.writers = writers;
+    }
+
+    /**
+     * Crea el flujo leyendo las claves SSE_* del entorno y arranca el latido.
+     * - SSE_HISTORY_SIZE: eventos guardados para reanudar (por defecto 1024).
+     * - SSE_SUBSCRIBER_BUFFER: eventos pendientes por suscriptor (por defecto 256).
+     * - SSE_SLOW_CONSUMER: disconnect | drop-oldest (por defecto disconnect).
+     * - SSE_MAX_SUBSCRIBERS: suscriptores simultáneos (por defecto 10000).
+     * - SSE_HEARTBEAT_SECONDS: periodo del latido; 0 lo desactiva (por defecto 15).
+     *
+     * @param config Configuración de la aplicación.
+     * @return El flujo de eventos.
+     */
+    public static ProductEvents fromEnv(AppConfig config) {
+        ProductEvents events = new ProductEvents(
+                config.getInt("SSE_HISTORY_SIZE", DEFAULT_HISTORY_SIZE),
+                config.getInt("SSE_SUBSCRIBER_BUFFER", DEFAULT_SUBSCRIBER_BUFFER),
+                config.getInt("SSE_MAX_SUBSCRIBERS", DEFAULT_MAX_SUBSCRIBERS),
+                SlowConsumerPolicy.parse(config.get("SSE_SLOW_CONSUMER", "disconnect")),
+                Executors.newVirtualThreadPerTaskExecutor());
+        events.startHeartbeat(config.getLong("SSE_HEARTBEAT_SECONDS", DEFAULT_HEARTBEAT_SECONDS), TimeUnit.SECONDS);
+        return events;
+    }
+
+    /**
+     * Publica un evento.
+     *
+     * @param type Tipo ({@link #ADD}, {@link #UPDATE} o {@link #DELETE}).
+     * @param data Objeto JSON del evento, en una sola línea.
+     */
+    public void publish(String type, String data) {
+        publish(type, Collections.singletonList(data));
+    }
+
+    /**
+     * Publica varios eventos del mismo tipo de forma consecutiva (por ejemplo, un lote).
+     *
+     * @param type Tipo de los eventos.
+     * @param data Objeto JSON de cada evento.
+     */
+    public synchronized void publish(String type, List<String> data) {
+        if (data.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (String item : data) {
+            long id = ++lastId;
+            byte[] frame = encode(id, type, item);
+            history[(int) (id % history.length)] = frame;
+            frames.writeBytes(frame);
+        }
+        published.addAndGet(data.size());
+        // Un lote ocupa una sola entrada en la cola de cada suscriptor
+        byte[] batch = frames.toByteArray();
+        for (EventSubscriber subscriber : subscribers) {
+            subscriber.offer(batch, dropOldest);
+        }
+    }
+
+    /**
+     * Registra un suscriptor. Recibe primero el intervalo de reconexión y, si envía
+     * {@code Last-Event-ID}, los eventos posteriores que sigan en el búfer (o un
+     * {@code reset} si ya no están); después, los eventos nuevos.
+     *
+     * @param sink        Destino de los eventos.
+     * @param lastEventId Último id recibido por el cliente, o null en la primera conexión.
+     * @return false si se alcanzó el máximo de suscriptores.
+     */
+    public synchronized boolean subscribe(EventSink sink, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return false;
+        }
+        ByteArrayOutputStream initial = new ByteArrayOutputStream();
+        initial.writeBytes(RETRY);
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            long from = resumeFrom(lastEventId.trim());
+            if (from < 0) {
+                initial.writeBytes(encode(lastId, "reset", "{}"));
+            } else {
+                for (long id = from; id <= lastId; id++) {
+                    initial.writeBytes(history[(int) (id % history.length)]);
+                }
+            }
+        }
+        EventSubscriber subscriber = new EventSubscriber(this, sink, subscriberBuffer, writers);
+        subscribers.add(subscriber);
+        // La reanudación va en una sola entrada para no desbordar la cola del suscriptor
+        subscriber.offer(initial.toByteArray(), dropOldest);
+        return true;
+    }
+
+    /**
+     * Envía un latido a los suscriptores sin eventos pendientes; la escritura falla (y el
+     * suscriptor se retira) si el cliente ya no está.
+     */
+    public void heartbeat() {
+        for (EventSubscriber subscriber : subscribers) {
+            subscriber.offerIfIdle(HEARTBEAT);
+        }
+    }
+
+    /**
+     * Programa el latido en un hilo daemon.
+     *
+     * @param period Periodo entre latidos (0 o menos: sin latido).
+     * @param unit   Unidad de period.
+     */
+    public synchronized void startHeartbeat(long period, TimeUnit unit) {
+        if (period <= 0 || heartbeat != null) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, period, period, unit);
+    }
+
+    /**
+     * @return true si se admite otro suscriptor.
+     */
+    public boolean hasCapacity() {
+        return subscribers.size() < maxSubscribers;
+    }
+
+    public int getSubscriberCount() { return subscribers.size(); }
+    public long getPublished() { return published.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getSlowDisconnects() { return slowDisconnects.get(); }
+
+    void unsubscribe(EventSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    void recordSlowDisconnect() {
+        slowDisconnects.incrementAndGet();
+    }
+
+    // Primer id a reenviar, o -1 si hay que pedir al cliente que vuelva a leer el catálogo
+    private long resumeFrom(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !bootId.equals(lastEventId.substring(0, dash))) {
+            return -1;
+        }
+        long seen;
+        try {
+            seen = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        long oldest = Math.max(1, lastId - history.length + 1);
+        if (seen > lastId || seen + 1 < oldest) {
+            return -1;
+        }
+        return seen + 1;
+    }
+
+    private byte[] encode(long id, String type, String data) {
+        StringBuilder frame = new StringBuilder(data.length() + 48);
+        frame.append("id: ").append(bootId).append('-').append(id).append('\n');
+        frame.append("event: ").append(type).append('\n');
+        // Cada línea del dato va en su propio campo data (el JSON normalmente ocupa una)
+        for (String line : data.split("\n", -1)) {
+            frame.append("data: ").append(line).append('\n');
+        }
+        frame.append('\n');
+        return frame.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
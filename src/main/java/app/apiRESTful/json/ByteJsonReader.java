@@ -0,0 +1,567 @@
+package app.apiRESTful.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lector JSON de un solo paso que trabaja directamente sobre los bytes UTF-8 del cuerpo.
+ *
+ * No convierte el cuerpo a String: recorre el arreglo una vez, reconoce las claves
+ * comparando bytes con un {@link JsonFields} y sólo crea objetos para los valores que el
+ * llamador pide (las cadenas sin escapes se decodifican de una vez desde su rango de bytes).
+ * Los campos desconocidos se saltan sin asignar memoria. Admite espacios, escapes y
+ * cualquier orden de claves.
+ *
+ * Los errores lanzan {@link JsonBodyException} con el campo y la posición en bytes.
+ *
+ * Uso típico:
+ * <pre>
+ * ByteJsonReader reader = new ByteJsonReader(body);
+ * reader.beginObject();
+ * while (reader.hasNextField()) {
+ *     switch (reader.nextField(FIELDS)) {
+ *         case 0: name = reader.nextString(); break;
+ *         default: reader.skipValue(); break;
+ *     }
+ * }
+ * reader.endDocument();
+ * </pre>
+ */
+public final class ByteJsonReader {
+
+    private static final int MAX_DEPTH = 32;
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+    // Por cada objeto o arreglo abierto: si ya se leyó algún campo o elemento (el siguiente
+    // va tras una coma)
+    private final boolean[] hasFields = new boolean[MAX_DEPTH];
+    // Por cada arreglo abierto: el campo que lo contiene, para los errores de sus elementos
+    private final String[] arrayFields = new String[MAX_DEPTH];
+    private int depth;
+    private String currentField;
+
+    /**
+     * @param body Cuerpo completo de la solicitud.
+     */
+    public ByteJsonReader(byte[] body) {
+        this(body, 0, body.length);
+    }
+
+    /**
+     * @param body   Arreglo con el cuerpo.
+     * @param offset Inicio del cuerpo en el arreglo.
+     * @param length Longitud del cuerpo en bytes.
+     */
+    public ByteJsonReader(byte[] body, int offset, int length) {
+        this.buf = body;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Consume el inicio de un objeto.
+     */
+    public void beginObject() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error(depth == 0 && currentField == null ? "Request body is empty" : "Unexpected end of input, expected '{'");
+        }
+        if (buf[pos] != '{') {
+            throw currentField == null ? error("Expected a JSON object") : typeError("an object");
+        }
+        if (depth == MAX_DEPTH) {
+            throw error("JSON nested too deeply");
+        }
+        pos++;
+        hasFields[depth++] = false;
+    }
+
+    /**
+     * Avanza al siguiente campo del objeto actual, consumiendo la coma o el cierre.
+     *
+     * @return true si hay otro campo (leer su nombre con {@link #nextField(JsonFields)});
+     *         false si el objeto terminó.
+     */
+    public boolean hasNextField() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("Unexpected end of input, expected '}'");
+        }
+        if (buf[pos] == '}') {
+            pos++;
+            depth--;
+            return false;
+        }
+        if (hasFields[depth - 1]) {
+            if (buf[pos] != ',') {
+                throw error("Expected ',' or '}'");
+            }
+            pos++;
+            skipWhitespace();
+            if (pos < end && buf[pos] == '}') {
+                throw error("Trailing comma before '}'");
+            }
+        }
+        hasFields[depth - 1] = true;
+        return true;
+    }
+
+    /**
+     * Consume el inicio de un arreglo.
+     */
+    public void beginArray() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("Unexpected end of input, expected '['");
+        }
+        if (buf[pos] != '[') {
+            throw currentField == null ? error("Expected a JSON array") : typeError("an array");
+        }
+        if (depth == MAX_DEPTH) {
+            throw error("JSON nested too deeply");
+        }
+        pos++;
+        arrayFields[depth] = currentField;
+        hasFields[depth++] = false;
+    }
+
+    /**
+     * Avanza al siguiente elemento del arreglo actual, consumiendo la coma o el cierre.
+     *
+     * @return true si hay otro elemento; false si el arreglo terminó.
+     */
+    public boolean hasNextElement() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("Unexpected end of input, expected ']'");
+        }
+        if (buf[pos] == ']') {
+            pos++;
+            depth--;
+            return false;
+        }
+        if (hasFields[depth - 1]) {
+            if (buf[pos] != ',') {
+                throw error("Expected ',' or ']'");
+            }
+            pos++;
+            skipWhitespace();
+            if (pos < end && buf[pos] == ']') {
+                throw error("Trailing comma before ']'");
+            }
+        }
+        hasFields[depth - 1] = true;
+        currentField = arrayFields[depth - 1];
+        return true;
+    }
+
+    /**
+     * Lee el nombre del siguiente campo y los dos puntos que lo siguen.
+     *
+     * @param fields Campos conocidos.
+     * @return Índice del campo en {@code fields}, o -1 si es desconocido.
+     */
+    public int nextField(JsonFields fields) {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != '"') {
+            throw error("Expected a field name");
+        }
+        int start = pos + 1;
+        int close = scanString(start);
+        boolean escaped = close < 0;
+        close = Math.abs(close);
+        int index = -1;
+        if (!escaped) {
+            int length = close - start;
+            for (int i = 0; i < fields.size() && index < 0; i++) {
+                byte[] candidate = fields.encoded(i);
+                if (candidate.length == length && regionEquals(candidate, start)) {
+                    index = i;
+                }
+            }
+        }
+        if (index >= 0) {
+            currentField = fields.name(index);
+            pos = close + 1;
+        } else {
+            currentField = decodeString(start);
+            for (int i = 0; i < fields.size() && index < 0; i++) {
+                if (fields.name(i).equals(currentField)) {
+                    index = i;
+                }
+            }
+        }
+        skipWhitespace();
+        if (pos >= end || buf[pos] != ':') {
+            throw error("Expected ':' after field '" + currentField + "'");
+        }
+        pos++;
+        return index;
+    }
+
+    /**
+     * Consume un {@code null} si es el siguiente valor.
+     *
+     * @return true si el valor era null.
+     */
+    public boolean nextNull() {
+        skipWhitespace();
+        if (matchLiteral("null")) {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return El siguiente valor como cadena.
+     */
+    public String nextString() {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != '"') {
+            throw typeError("a string");
+        }
+        return decodeString(pos + 1);
+    }
+
+    /**
+     * @return El siguiente valor como número.
+     */
+    public double nextDouble() {
+        int start = pos = skipWhitespaceAndGet();
+        int numberEnd = scanNumber(start);
+        if (numberEnd < 0) {
+            throw typeError("a number");
+        }
+        double value = Double.parseDouble(new String(buf, start, numberEnd - start, StandardCharsets.ISO_8859_1));
+        if (Double.isInfinite(value)) {
+            throw typeError("a finite number");
+        }
+        pos = numberEnd;
+        return value;
+    }
+
+    /**
+     * @return El siguiente valor como entero de 32 bits.
+     */
+    public int nextInt() {
+        int start = pos = skipWhitespaceAndGet();
+        int numberEnd = scanNumber(start);
+        if (numberEnd < 0) {
+            throw typeError("a number");
+        }
+        boolean negative = buf[start] == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < numberEnd; i++) {
+            byte b = buf[i];
+            if (b < '0' || b > '9') {
+                throw typeError("an integer");
+            }
+            value = value * 10 + (b - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw typeError("an integer within range");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw typeError("an integer within range");
+        }
+        pos = numberEnd;
+        return (int) value;
+    }
+
+    /**
+     * Salta el siguiente valor completo (incluidos objetos y arreglos anidados).
+     */
+    public void skipValue() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("Unexpected end of input, expected a value");
+        }
+        switch (buf[pos]) {
+            case '"':
+                pos = Math.abs(scanString(pos + 1)) + 1;
+                break;
+            case '{':
+                String field = currentField;
+                beginObject();
+                while (hasNextField()) {
+                    skipFieldName();
+                    skipValue();
+                }
+                currentField = field;
+                break;
+            case '[':
+                skipArray();
+                break;
+            case 't':
+                skipLiteral("true");
+                break;
+            case 'f':
+                skipLiteral("false");
+                break;
+            case 'n':
+                skipLiteral("null");
+                break;
+            default:
+                int numberEnd = scanNumber(pos);
+                if (numberEnd < 0) {
+                    throw error("Unexpected character '" + (char) (buf[pos] & 0xFF) + "'");
+                }
+                pos = numberEnd;
+                break;
+        }
+    }
+
+    /**
+     * Comprueba que después del valor raíz sólo quedan espacios.
+     */
+    public void endDocument() {
+        skipWhitespace();
+        if (pos < end) {
+            throw error("Unexpected data after JSON value");
+        }
+    }
+
+    /**
+     * @return Nombre del último campo leído (para mensajes de error), o null.
+     */
+    public String currentField() {
+        return currentField;
+    }
+
+    /**
+     * @return Posición actual en bytes.
+     */
+    public int position() {
+        return pos;
+    }
+
+    private JsonBodyException error(String message) {
+        return new JsonBodyException("Invalid JSON: " + message, pos);
+    }
+
+    private JsonBodyException typeError(String expected) {
+        return new JsonBodyException("Field '" + currentField + "' must be " + expected, pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private int skipWhitespaceAndGet() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("Unexpected end of input, expected a value");
+        }
+        return pos;
+    }
+
+    private boolean regionEquals(byte[] candidate, int start) {
+        for (int i = 0; i < candidate.length; i++) {
+            if (buf[start + i] != candidate[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchLiteral(String literal) {
+        if (end - pos < literal.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buf[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipLiteral(String literal) {
+        if (!matchLiteral(literal)) {
+            throw error("Unexpected character '" + (char) (buf[pos] & 0xFF) + "'");
+        }
+        pos += literal.length();
+    }
+
+    private void skipFieldName() {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != '"') {
+            throw error("Expected a field name");
+        }
+        pos = Math.abs(scanString(pos + 1)) + 1;
+        skipWhitespace();
+        if (pos >= end || buf[pos] != ':') {
+            throw error("Expected ':' after field name");
+        }
+        pos++;
+    }
+
+    private void skipArray() {
+        if (depth == MAX_DEPTH) {
+            throw error("JSON nested too deeply");
+        }
+        depth++;
+        pos++;
+        skipWhitespace();
+        if (pos < end && buf[pos] == ']') {
+            pos++;
+            depth--;
+            return;
+        }
+        while (true) {
+            skipValue();
+            skipWhitespace();
+            if (pos >= end) {
+                throw error("Unexpected end of input, expected ']'");
+            }
+            if (buf[pos] == ']') {
+                pos++;
+                depth--;
+                return;
+            }
+            if (buf[pos] != ',') {
+                throw error("Expected ',' or ']'");
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Busca las comillas de cierre de una cadena que empieza en {@code start}.
+     *
+     * @return La posición de las comillas de cierre, negativa si la cadena contiene escapes.
+     */
+    private int scanString(int start) {
+        boolean escaped = false;
+        for (int i = start; i < end; i++) {
+            byte b = buf[i];
+            if (b == '"') {
+                return escaped ? -i : i;
+            }
+            if (b == '\\') {
+                escaped = true;
+                i++;
+            } else if (b >= 0 && b < 0x20) {
+                pos = i;
+                throw error("Control character in string");
+            }
+        }
+        pos = end;
+        throw error("Unterminated string");
+    }
+
+    // Decodifica la cadena que empieza en start (tras las comillas) y deja pos tras el cierre
+    private String decodeString(int start) {
+        int close = scanString(start);
+        if (close >= 0) {
+            pos = close + 1;
+            return new String(buf, start, close - start, StandardCharsets.UTF_8);
+        }
+        close = -close;
+        StringBuilder builder = new StringBuilder(close - start);
+        int runStart = start;
+        int i = start;
+        while (i < close) {
+            if (buf[i] != '\\') {
+                i++;
+                continue;
+            }
+            builder.append(new String(buf, runStart, i - runStart, StandardCharsets.UTF_8));
+            byte escape = buf[i + 1];
+            switch (escape) {
+                case '"': builder.append('"'); break;
+                case '\\': builder.append('\\'); break;
+                case '/': builder.append('/'); break;
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    if (i + 6 > close) {
+                        pos = i;
+                        throw error("Invalid unicode escape");
+                    }
+                    builder.append((char) parseHex(i + 2));
+                    i += 4;
+                    break;
+                default:
+                    pos = i;
+                    throw error("Invalid escape '\\" + (char) (escape & 0xFF) + "'");
+            }
+            i += 2;
+            runStart = i;
+        }
+        builder.append(new String(buf, runStart, close - runStart, StandardCharsets.UTF_8));
+        pos = close + 1;
+        return builder.toString();
+    }
+
+    private int parseHex(int start) {
+        int value = 0;
+        for (int i = start; i < start + 4; i++) {
+            int digit = Character.digit(buf[i], 16);
+            if (digit < 0) {
+                pos = i;
+                throw error("Invalid unicode escape");
+            }
+            value = value * 16 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Comprueba la gramática de un número JSON que empieza en {@code start}.
+     *
+     * @return La posición siguiente al número, o -1 si no hay un número válido.
+     */
+    private int scanNumber(int start) {
+        int i = start;
+        if (i < end && buf[i] == '-') {
+            i++;
+        }
+        if (i >= end || buf[i] < '0' || buf[i] > '9') {
+            return -1;
+        }
+        if (buf[i] == '0') {
+            i++;
+        } else {
+            while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+                i++;
+            }
+        }
+        if (i < end && buf[i] == '.') {
+            i++;
+            int digits = i;
+            while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+                i++;
+            }
+            if (i == digits) {
+                return -1;
+            }
+        }
+        if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            if (i < end && (buf[i] == '+' || buf[i] == '-')) {
+                i++;
+            }
+            int digits = i;
+            while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+                i++;
+            }
+            if (i == digits) {
+                return -1;
+            }
+        }
+        return i;
+    }
+}
@@ -0,0 +1,29 @@
+package app.apiRESTful.json;
+
+/**
+ * Error en el cuerpo JSON de una solicitud: sintaxis inválida, un campo con un tipo
+ * incorrecto o un campo obligatorio ausente. El mensaje indica el campo y la posición
+ * (en bytes) y está pensado para devolverse tal cual en la respuesta 400.
+ */
+public class JsonBodyException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int offset;
+
+    /**
+     * @param message Descripción del error.
+     * @param offset  Posición en bytes dentro del cuerpo, o -1 si no aplica.
+     */
+    public JsonBodyException(String message, int offset) {
+        super(offset >= 0 ? message + " at offset " + offset : message);
+        this.offset = offset;
+    }
+
+    /**
+     * @return Posición en bytes del error dentro del cuerpo, o -1.
+     */
+    public int getOffset() {
+        return offset;
+    }
+}
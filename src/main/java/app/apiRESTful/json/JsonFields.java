@@ -0,0 +1,42 @@
+package app.apiRESTful.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conjunto de nombres de campo conocidos, codificados en UTF-8 una sola vez, para que
+ * {@link ByteJsonReader#nextField(JsonFields)} reconozca cada clave comparando bytes sin
+ * crear un String por clave.
+ */
+public final class JsonFields {
+
+    private final String[] names;
+    private final byte[][] encoded;
+
+    private JsonFields(String[] names) {
+        this.names = names.clone();
+        this.encoded = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @param names Nombres de los campos; su posición es el índice que devuelve el lector.
+     * @return El conjunto de campos.
+     */
+    public static JsonFields of(String... names) {
+        return new JsonFields(names);
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    byte[] encoded(int index) {
+        return encoded[index];
+    }
+
+    int size() {
+        return names.length;
+    }
+}
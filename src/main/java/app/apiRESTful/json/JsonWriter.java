@@ -0,0 +1,272 @@
+package app.apiRESTful.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Escritor JSON en flujo que codifica directamente a UTF-8 sobre un {@link OutputStream}.
+ *
+ * Usa un único búfer de tamaño fijo, de modo que la memoria utilizada no depende del
+ * número de elementos escritos. Las comas entre elementos se insertan automáticamente.
+ *
+ * Uso típico:
+ * <pre>
+ * writer.beginArray();
+ * for (...) { writer.beginObject().name("id").value(id).endObject(); }
+ * writer.endArray().close();
+ * </pre>
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int MAX_DEPTH = 32;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    // Por cada nivel de anidamiento: si ya se escribió algún elemento (para poner comas)
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * @param out Flujo de destino (por ejemplo, el cuerpo de la respuesta HTTP).
+     */
+    public JsonWriter(OutputStream out) {
+        this(out, 8192);
+    }
+
+    /**
+     * @param out        Flujo de destino.
+     * @param bufferSize Tamaño del búfer interno en bytes.
+     */
+    public JsonWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[Math.max(64, bufferSize)];
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    /**
+     * Escribe el nombre de un campo dentro de un objeto.
+     *
+     * @param name Nombre del campo.
+     * @return Este escritor.
+     * @throws IOException Si falla la escritura.
+     */
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON does not allow " + value);
+        }
+        separator();
+        writeAscii(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        writeAscii("null");
+        return this;
+    }
+
+    /**
+     * Envía al flujo de destino lo acumulado en el búfer.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Vacía el búfer y cierra el flujo de destino.
+     */
+    @Override
+    public void close() throws IOException {
+        drain();
+        out.close();
+    }
+
+    /**
+     * Devuelve la representación JSON entre comillas y con escapes de una cadena.
+     * Útil para construir fragmentos JSON pequeños sin crear un escritor.
+     *
+     * @param value Cadena a escapar (null produce {@code null}).
+     * @return Literal JSON.
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\b': sb.append("\\b"); break;
+                case '\f': sb.append("\\f"); break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separator();
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting too deep");
+        }
+        hasElements[depth++] = false;
+        writeByte(bracket);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Unbalanced " + bracket);
+        }
+        depth--;
+        writeByte(bracket);
+        return this;
+    }
+
+    // Escribe la coma si el valor no es el primero de su contenedor
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                writeByte(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20 || c == '"' || c == '\\') {
+                    writeEscaped(c);
+                } else {
+                    writeByte(c);
+                }
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                writeByte(0xF0 | (codePoint >> 18));
+                writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c) || c == '\u2028' || c == '\u2029') {
+                // Sustitutos aislados y separadores de línea Unicode se escriben como \\uXXXX
+                writeEscaped(c);
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        writeByte('\\');
+        switch (c) {
+            case '"': writeByte('"'); return;
+            case '\\': writeByte('\\'); return;
+            case '\n': writeByte('n'); return;
+            case '\r': writeByte('r'); return;
+            case '\t': writeByte('t'); return;
+            case '\b': writeByte('b'); return;
+            case '\f': writeByte('f'); return;
+            default:
+                writeByte('u');
+                writeByte(HEX[(c >> 12) & 0xF]);
+                writeByte(HEX[(c >> 8) & 0xF]);
+                writeByte(HEX[(c >> 4) & 0xF]);
+                writeByte(HEX[c & 0xF]);
+        }
+    }
+
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package app.apiRESTful.json;
+
+import java.io.IOException;
+
+/**
+ * El cuerpo de la solicitud supera el tamaño máximo admitido (respuesta 413).
+ */
+public class PayloadTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxBytes;
+
+    /**
+     * @param maxBytes Tamaño máximo admitido en bytes.
+     */
+    public PayloadTooLargeException(int maxBytes) {
+        super("Request body exceeds " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+}
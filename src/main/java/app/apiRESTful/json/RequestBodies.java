@@ -0,0 +1,236 @@
+package app.apiRESTful.json;
+
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.User;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura de los cuerpos de las solicitudes y enlace directo a los modelos con
+ * {@link ByteJsonReader}.
+ *
+ * El cuerpo se lee una sola vez como bytes, con un límite de tamaño, y cada modelo se
+ * rellena en la misma pasada que recorre el JSON. Los errores de sintaxis, de tipo o de
+ * campos obligatorios lanzan {@link JsonBodyException}; un cuerpo mayor que el límite lanza
+ * {@link PayloadTooLargeException}.
+ */
+public final class RequestBodies {
+
+    /** Límite por defecto para cuerpos de un solo objeto. */
+    public static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+    private static final JsonFields PRODUCT_FIELDS = JsonFields.of("name", "description", "price", "quantity");
+    private static final JsonFields USER_FIELDS = JsonFields.of("username", "password");
+    private static final JsonFields STOCK_FIELDS = JsonFields.of("quantity", "items");
+    private static final JsonFields STOCK_ITEM_FIELDS = JsonFields.of("id", "quantity");
+
+    private RequestBodies() {
+    }
+
+    /**
+     * Lee el cuerpo de la solicitud. Si Content-Length ya supera el límite, no lee nada.
+     *
+     * @param exchange Intercambio HTTP.
+     * @param maxBytes Tamaño máximo del cuerpo.
+     * @return Los bytes del cuerpo.
+     * @throws PayloadTooLargeException Si el cuerpo supera maxBytes.
+     * @throws IOException              Si falla la lectura.
+     */
+    public static byte[] read(HttpExchange exchange, int maxBytes) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > maxBytes) {
+                    throw new PayloadTooLargeException(maxBytes);
+                }
+            } catch (NumberFormatException e) {
+                // El servidor valida Content-Length; si no se entiende, se cuenta al leer
+            }
+        }
+        return read(exchange.getRequestBody(), maxBytes);
+    }
+
+    /**
+     * Lee un flujo completo con un límite de tamaño.
+     *
+     * @param in       Flujo del cuerpo.
+     * @param maxBytes Tamaño máximo.
+     * @return Los bytes leídos.
+     * @throws PayloadTooLargeException Si el flujo supera maxBytes.
+     * @throws IOException              Si falla la lectura.
+     */
+    public static byte[] read(InputStream in, int maxBytes) throws IOException {
+        byte[] body = in.readNBytes(maxBytes + 1);
+        if (body.length > maxBytes) {
+            throw new PayloadTooLargeException(maxBytes);
+        }
+        return body;
+    }
+
+    /**
+     * Enlaza un producto completo: name, description, price y quantity son obligatorios.
+     *
+     * @param body Cuerpo JSON.
+     * @return El producto (con un ID nuevo), sin validar sus reglas de negocio.
+     */
+    public static Product readProduct(byte[] body) {
+        ProductPatch fields = readProductPatch(body);
+        require(fields.getName(), "name");
+        require(fields.getDescription(), "description");
+        require(fields.getPrice(), "price");
+        require(fields.getQuantity(), "quantity");
+        Product product = new Product();
+        product.setName(fields.getName());
+        product.setDescription(fields.getDescription());
+        product.setPrice(fields.getPrice());
+        product.setQuantity(fields.getQuantity());
+        return product;
+    }
+
+    /**
+     * Enlaza los campos presentes de un producto; los ausentes o null quedan en null.
+     *
+     * @param body Cuerpo JSON.
+     * @return Los cambios, sin validar.
+     */
+    public static ProductPatch readProductPatch(byte[] body) {
+        ByteJsonReader reader = new ByteJsonReader(body);
+        ProductPatch patch = new ProductPatch();
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            int field = reader.nextField(PRODUCT_FIELDS);
+            if (field < 0) {
+                reader.skipValue();
+                continue;
+            }
+            if (reader.nextNull()) {
+                continue;
+            }
+            switch (field) {
+                case 0: patch.setName(reader.nextString()); break;
+                case 1: patch.setDescription(reader.nextString()); break;
+                case 2: patch.setPrice(reader.nextDouble()); break;
+                default: patch.setQuantity(reader.nextInt()); break;
+            }
+        }
+        reader.endDocument();
+        return patch;
+    }
+
+    /**
+     * Enlaza un usuario; username y password son obligatorios.
+     *
+     * @param body Cuerpo JSON.
+     * @return El usuario.
+     */
+    public static User readUser(byte[] body) {
+        ByteJsonReader reader = new ByteJsonReader(body);
+        User user = new User();
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            int field = reader.nextField(USER_FIELDS);
+            if (field < 0) {
+                reader.skipValue();
+            } else if (!reader.nextNull()) {
+                if (field == 0) {
+                    user.setUsername(reader.nextString());
+                } else {
+                    user.setPassword(reader.nextString());
+                }
+            }
+        }
+        reader.endDocument();
+        require(user.getUsername(), "username");
+        require(user.getPassword(), "password");
+        return user;
+    }
+
+    /**
+     * Enlaza la cantidad de una reserva o liberación de un producto: {"quantity":n}.
+     *
+     * @param body Cuerpo JSON.
+     * @return La cantidad, sin validar.
+     */
+    public static int readStockQuantity(byte[] body) {
+        ByteJsonReader reader = new ByteJsonReader(body);
+        Integer quantity = null;
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            if (reader.nextField(STOCK_FIELDS) != 0) {
+                reader.skipValue();
+            } else if (!reader.nextNull()) {
+                quantity = reader.nextInt();
+            }
+        }
+        reader.endDocument();
+        require(quantity, "quantity");
+        return quantity;
+    }
+
+    /**
+     * Enlaza los elementos de una reserva o liberación de varios productos:
+     * {"items":[{"id":"...","quantity":n}, ...]}.
+     *
+     * @param body     Cuerpo JSON.
+     * @param maxItems Número máximo de elementos.
+     * @return Los elementos sin validar (un elemento null se conserva para informarlo), o
+     *         null si el arreglo tiene más de maxItems; en ese caso no se enlaza ninguno más
+     *         allá del límite.
+     */
+    public static List<StockRequest> readStockItems(byte[] body, int maxItems) {
+        ByteJsonReader reader = new ByteJsonReader(body);
+        List<StockRequest> items = null;
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            if (reader.nextField(STOCK_FIELDS) != 1) {
+                reader.skipValue();
+                continue;
+            }
+            if (reader.nextNull()) {
+                items = null;
+                continue;
+            }
+            items = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNextElement()) {
+                if (items.size() == maxItems) {
+                    return null;
+                }
+                items.add(reader.nextNull() ? null : readStockItem(reader));
+            }
+        }
+        reader.endDocument();
+        require(items, "items");
+        return items;
+    }
+
+    private static StockRequest readStockItem(ByteJsonReader reader) {
+        StockRequest item = new StockRequest();
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            int field = reader.nextField(STOCK_ITEM_FIELDS);
+            if (field < 0) {
+                reader.skipValue();
+            } else if (!reader.nextNull()) {
+                if (field == 0) {
+                    item.setId(reader.nextString());
+                } else {
+                    item.setQuantity(reader.nextInt());
+                }
+            }
+        }
+        return item;
+    }
+
+    private static void require(Object value, String field) {
+        if (value == null) {
+            throw new JsonBodyException("Field '" + field + "' is required", -1);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package app.apiRESTful.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin bloqueos, con cubetas log-lineales.
+ *
+ * Cada potencia de dos se divide en {@value #SUB_BUCKETS} cubetas iguales, de modo que el
+ * error relativo de cualquier percentil es como mucho 1/{@value #SUB_BUCKETS} (~6 %) en
+ * todo el rango: de nanosegundos hasta ~18 minutos (2^40 ns); los valores mayores se
+ * acumulan en la última cubeta. Las cubetas se reservan al construir el histograma:
+ * {@link #record(long)} sólo incrementa contadores atómicos y no crea objetos.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Registra una duración.
+     *
+     * @param nanos Duración en nanosegundos (los negativos cuentan como 0).
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * @return Número de valores registrados.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return Suma de los valores registrados, en nanosegundos.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Estima un percentil. Devuelve el límite superior de la cubeta que lo contiene, así que
+     * nunca subestima la latencia real.
+     *
+     * @param quantile Percentil entre 0 y 1 (por ejemplo, 0.99).
+     * @return Valor en nanosegundos, o 0 si no hay datos.
+     */
+    public long getQuantile(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    // Los valores menores que SUB_BUCKETS tienen cubeta propia; el resto se agrupa por
+    // exponente (bit más significativo) y por los SUB_BUCKET_BITS bits siguientes
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
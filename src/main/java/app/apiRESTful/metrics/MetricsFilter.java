@@ -0,0 +1,46 @@
+package app.apiRESTful.metrics;
+
+import app.database.DbTimeTracker;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * Filtro que mide cada solicitud de un contexto y la registra en su {@link RouteMetrics}.
+ *
+ * Se instala con {@code context.getFilters().add(...)}, así que envuelve al handler sin
+ * cambiarlo. Si el handler lanza una excepción sin haber respondido, se cuenta como 500.
+ */
+public class MetricsFilter extends Filter {
+
+    private final RouteMetrics route;
+
+    /**
+     * @param route Métricas de la ruta a la que pertenece el contexto.
+     */
+    public MetricsFilter(RouteMetrics route) {
+        this.route = route;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        int method = RouteMetrics.methodIndex(exchange.getRequestMethod());
+        route.begin();
+        DbTimeTracker.begin();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            long duration = System.nanoTime() - start;
+            long dbTime = DbTimeTracker.end();
+            int status = exchange.getResponseCode();
+            route.end(method, status > 0 ? status : 500, duration, dbTime);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Request metrics for " + route.getRoute();
+    }
+}
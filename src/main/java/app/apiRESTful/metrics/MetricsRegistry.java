@@ -0,0 +1,205 @@
+package app.apiRESTful.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registro de métricas de la aplicación y su exposición en formato de texto de Prometheus.
+ *
+ * Las rutas se registran al arrancar ({@link #route(String)}) y cada una obtiene su
+ * filtro con {@link #filter(String)}. Otros componentes (pool de conexiones, cachés)
+ * publican sus valores con {@link #gauge} y {@link #counter}; esos valores se leen sólo
+ * cuando se consulta {@code /metrics}.
+ */
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final List<RouteMetrics> routes = new CopyOnWriteArrayList<>();
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Devuelve las métricas de una ruta, creándolas si no existen.
+     *
+     * @param path Ruta del contexto.
+     * @return Métricas de la ruta.
+     */
+    public synchronized RouteMetrics route(String path) {
+        for (RouteMetrics route : routes) {
+            if (route.getRoute().equals(path)) {
+                return route;
+            }
+        }
+        RouteMetrics route = new RouteMetrics(path);
+        routes.add(route);
+        return route;
+    }
+
+    /**
+     * Crea el filtro que mide las solicitudes de una ruta.
+     *
+     * @param path Ruta del contexto.
+     * @return Filtro a añadir al contexto.
+     */
+    public MetricsFilter filter(String path) {
+        return new MetricsFilter(route(path));
+    }
+
+    /**
+     * Publica un valor que puede subir o bajar.
+     *
+     * @param name   Nombre de la métrica.
+     * @param help   Descripción.
+     * @param labels Etiquetas en formato Prometheus sin llaves (por ejemplo {@code cache="products"}), o "".
+     * @param value  Proveedor del valor.
+     */
+    public void gauge(String name, String help, String labels, DoubleSupplier value) {
+        register(name, "gauge", help, labels, value);
+    }
+
+    /**
+     * Publica un contador que sólo crece.
+     *
+     * @param name   Nombre de la métrica (por convención terminado en "_total").
+     * @param help   Descripción.
+     * @param labels Etiquetas en formato Prometheus sin llaves, o "".
+     * @param value  Proveedor del valor.
+     */
+    public void counter(String name, String help, String labels, DoubleSupplier value) {
+        register(name, "counter", help, labels, value);
+    }
+
+    /**
+     * Escribe todas las métricas en formato de texto de Prometheus (versión 0.0.4).
+     *
+     * @return El texto de la exposición.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        writeRoutes(out);
+        synchronized (this) {
+            for (Family family : families.values()) {
+                header(out, family.name, family.type, family.help);
+                for (Sample sample : family.samples) {
+                    sample(out, family.name, sample.labels, sample.value.getAsDouble());
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private synchronized void register(String name, String type, String help, String labels, DoubleSupplier value) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, type, help));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " already registered as " + family.type);
+        }
+        family.samples.add(new Sample(labels, value));
+    }
+
+    private void writeRoutes(StringBuilder out) {
+        header(out, "http_requests_total", "counter", "Solicitudes atendidas por ruta y método.");
+        for (RouteMetrics route : routes) {
+            for (int m = 0; m < RouteMetrics.METHODS.length; m++) {
+                long requests = route.getRequests(m);
+                if (requests > 0) {
+                    sample(out, "http_requests_total", routeMethod(route, m), requests);
+                }
+            }
+        }
+
+        header(out, "http_responses_total", "counter", "Respuestas por ruta y código de estado.");
+        for (RouteMetrics route : routes) {
+            for (int status = 0; status < RouteMetrics.statusSlots(); status++) {
+                long responses = route.getStatusCount(status);
+                if (responses > 0) {
+                    sample(out, "http_responses_total",
+                            "route=\"" + escape(route.getRoute()) + "\",code=\"" + status + "\"", responses);
+                }
+            }
+        }
+
+        header(out, "http_requests_in_flight", "gauge", "Solicitudes en curso por ruta.");
+        for (RouteMetrics route : routes) {
+            sample(out, "http_requests_in_flight", "route=\"" + escape(route.getRoute()) + "\"", route.getInFlight());
+        }
+
+        header(out, "http_request_duration_seconds", "summary", "Latencia de las solicitudes por ruta y método.");
+        for (RouteMetrics route : routes) {
+            for (int m = 0; m < RouteMetrics.METHODS.length; m++) {
+                LatencyHistogram histogram = route.getLatency(m);
+                if (histogram.getCount() > 0) {
+                    summary(out, "http_request_duration_seconds", routeMethod(route, m), histogram);
+                }
+            }
+        }
+
+        header(out, "http_request_db_seconds", "summary", "Tiempo de base de datos por solicitud y ruta.");
+        for (RouteMetrics route : routes) {
+            if (route.getDbTime().getCount() > 0) {
+                summary(out, "http_request_db_seconds", "route=\"" + escape(route.getRoute()) + "\"", route.getDbTime());
+            }
+        }
+    }
+
+    private static String routeMethod(RouteMetrics route, int method) {
+        return "route=\"" + escape(route.getRoute()) + "\",method=\"" + RouteMetrics.METHODS[method] + "\"";
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        for (double quantile : QUANTILES) {
+            sample(out, name, labels + ",quantile=\"" + quantile + "\"", histogram.getQuantile(quantile) / 1e9);
+        }
+        sample(out, name + "_sum", labels, histogram.getSum() / 1e9);
+        sample(out, name + "_count", labels, histogram.getCount());
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String type;
+        private final String help;
+        private final List<Sample> samples = new ArrayList<>();
+
+        private Family(String name, String type, String help) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    private static final class Sample {
+        private final String labels;
+        private final DoubleSupplier value;
+
+        private Sample(String labels, DoubleSupplier value) {
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package app.apiRESTful.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de una ruta (un contexto del servidor HTTP).
+ *
+ * Todos los contadores e histogramas se reservan al crear la ruta, indexados por método
+ * y por código de estado, para que registrar una solicitud no cree objetos ni tome
+ * candados.
+ */
+public class RouteMetrics {
+
+    /** Métodos con contador propio; el resto se agrupa como "OTHER". */
+    static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD", "OTHER"};
+    private static final int OTHER = METHODS.length - 1;
+
+    // Códigos 100-599; los códigos fuera de rango se cuentan como 0
+    private static final int STATUS_SLOTS = 600;
+
+    private final String route;
+    private final AtomicLongArray requests = new AtomicLongArray(METHODS.length);
+    private final AtomicLongArray statuses = new AtomicLongArray(STATUS_SLOTS);
+    private final LongAdder inFlight = new LongAdder();
+    private final LatencyHistogram[] latency = new LatencyHistogram[METHODS.length];
+    private final LatencyHistogram dbTime = new LatencyHistogram();
+
+    /**
+     * @param route Ruta del contexto (por ejemplo, "/products").
+     */
+    public RouteMetrics(String route) {
+        this.route = route;
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Convierte el método HTTP en el índice usado por {@link #end(int, int, long, long)}.
+     *
+     * @param method Método de la solicitud.
+     * @return Índice del método.
+     */
+    public static int methodIndex(String method) {
+        switch (method) {
+            case "GET": return 0;
+            case "POST": return 1;
+            case "PUT": return 2;
+            case "PATCH": return 3;
+            case "DELETE": return 4;
+            case "OPTIONS": return 5;
+            case "HEAD": return 6;
+            default: return OTHER;
+        }
+    }
+
+    /**
+     * Marca el inicio de una solicitud.
+     */
+    public void begin() {
+        inFlight.increment();
+    }
+
+    /**
+     * Registra una solicitud terminada.
+     *
+     * @param method        Índice del método ({@link #methodIndex(String)}).
+     * @param status        Código de estado enviado.
+     * @param durationNanos Duración total de la solicitud.
+     * @param dbNanos       Tiempo pasado en la base de datos.
+     */
+    public void end(int method, int status, long durationNanos, long dbNanos) {
+        inFlight.decrement();
+        requests.incrementAndGet(method);
+        statuses.incrementAndGet(status >= 100 && status < STATUS_SLOTS ? status : 0);
+        latency[method].record(durationNanos);
+        dbTime.record(dbNanos);
+    }
+
+    public String getRoute() { return route; }
+
+    public long getRequests(int method) { return requests.get(method); }
+
+    public long getStatusCount(int status) { return statuses.get(status); }
+
+    public long getInFlight() { return inFlight.sum(); }
+
+    public LatencyHistogram getLatency(int method) { return latency[method]; }
+
+    public LatencyHistogram getDbTime() { return dbTime; }
+
+    static int statusSlots() {
+        return STATUS_SLOTS;
+    }
+}
@@ -1,5 +1,7 @@
 package app.apiRESTful.model;
 
+import app.apiRESTful.json.JsonWriter;
+
 import java.util.Objects;
 import java.util.UUID;
 
@@ -57,9 +59,9 @@ public class Product {
     @Override
     public String toString() {
         return "{" +
-                "\"id\":\"" + id + "\"," +
-                "\"name\":\"" + name + "\"," +
-                "\"description\":\"" + description + "\"," +
+                "\"id\":" + JsonWriter.quote(id) + "," +
+                "\"name\":" + JsonWriter.quote(name) + "," +
+                "\"description\":" + JsonWriter.quote(description) + "," +
                 "\"price\":" + price + "," +
                 "\"quantity\":" + quantity +
                 "}";
@@ -81,6 +83,13 @@ public class Product {
         return Objects.hash(id);
     }
 
+    // Compara todos los campos salvo el ID (equals sólo compara el ID)
+    public boolean sameData(Product other) {
+        return other != null && Objects.equals(name, other.name)
+                && Objects.equals(description, other.description)
+                && price == other.price && quantity == other.quantity;
+    }
+
     // Método para validar los datos del producto
     public void validate() {
         if (name == null || name.trim().isEmpty()) {
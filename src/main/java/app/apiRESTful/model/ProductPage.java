@@ -0,0 +1,21 @@
+package app.apiRESTful.model;
+
+import java.util.List;
+
+/**
+ * Página de productos obtenida con paginación por cursor.
+ */
+public class ProductPage {
+    private final List<Product> items;
+    private final String nextId;
+
+    // nextId es el id del último producto de la página, o null si no hay más páginas
+    public ProductPage(List<Product> items, String nextId) {
+        this.items = items;
+        this.nextId = nextId;
+    }
+
+    public List<Product> getItems() { return items; }
+    public String getNextId() { return nextId; }
+    public boolean hasNext() { return nextId != null; }
+}
@@ -0,0 +1,60 @@
+package app.apiRESTful.model;
+
+/**
+ * Cambios parciales de un producto (PATCH). Los campos null no se modifican.
+ */
+public class ProductPatch {
+    private String name;
+    private String description;
+    private Double price;
+    private Integer quantity;
+
+    public ProductPatch(String name, String description, Double price, Integer quantity) {
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    // Constructor vacío para Gson
+    public ProductPatch() {
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Double getPrice() { return price; }
+    public void setPrice(Double price) { this.price = price; }
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    /**
+     * @return true si no hay ningún campo que modificar.
+     */
+    public boolean isEmpty() {
+        return name == null && description == null && price == null && quantity == null;
+    }
+
+    /**
+     * Valida los campos presentes con las mismas reglas que {@link Product#validate()}.
+     * @throws IllegalArgumentException Si algún campo presente no es válido o no hay cambios.
+     */
+    public void validate() {
+        if (isEmpty()) {
+            throw new IllegalArgumentException("At least one field is required.");
+        }
+        if (name != null && name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be empty.");
+        }
+        if (description != null && description.trim().isEmpty()) {
+            throw new IllegalArgumentException("Description cannot be empty.");
+        }
+        if (price != null && price < 0) {
+            throw new IllegalArgumentException("Price cannot be negative.");
+        }
+        if (quantity != null && quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative.");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package app.apiRESTful.model;
+
+/**
+ * Cantidad a reservar o liberar de un producto.
+ */
+public class StockRequest {
+    private String id;
+    private int quantity;
+
+    public StockRequest(String id, int quantity) {
+        this.id = id;
+        this.quantity = quantity;
+    }
+
+    // Constructor vacío para Gson
+    public StockRequest() {
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    /**
+     * Valida la solicitud.
+     * @throws IllegalArgumentException Si falta el ID o la cantidad no es positiva.
+     */
+    public void validate() {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("Product ID is required.");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero.");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package app.apiRESTful.model;
+
+/**
+ * Resultado de reservar o liberar inventario de un producto.
+ */
+public class StockResult {
+
+    public enum Status {
+        /** Cambio aplicado; quantity es el inventario resultante. */
+        OK,
+        /** El producto no existe. */
+        NOT_FOUND,
+        /** No hay inventario suficiente; quantity es el inventario disponible. */
+        INSUFFICIENT_STOCK,
+        /** Liberar superaría el inventario máximo ({@code Integer.MAX_VALUE}); quantity es el inventario actual. */
+        QUANTITY_OVERFLOW,
+        /** No se aplicó porque otro elemento de la misma transacción falló. */
+        NOT_APPLIED
+    }
+
+    private final String id;
+    private final Status status;
+    private final int quantity;
+
+    public StockResult(String id, Status status, int quantity) {
+        this.id = id;
+        this.status = status;
+        this.quantity = quantity;
+    }
+
+    public String getId() { return id; }
+    public Status getStatus() { return status; }
+    public int getQuantity() { return quantity; }
+    public boolean isOk() { return status == Status.OK; }
+}
@@ -0,0 +1,141 @@
+package app.apiRESTful.ratelimit;
+
+import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.auth.VerifiedToken;
+import app.config.AppConfig;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro que limita las solicitudes de cada cliente a un contexto.
+ *
+ * La clave del cliente es el sujeto del JWT cuando la solicitud trae un token Bearer válido
+ * (un usuario no reparte su cuota entre direcciones ni la comparte con otros usuarios
+ * detrás de la misma IP) y la dirección remota en otro caso. Al agotarse la cuota responde
+ * 429 con {@code Retry-After} sin llegar al handler. Las solicitudes OPTIONS (preflight
+ * CORS) no consumen cuota.
+ *
+ * Configuración (.env), con límites en formato "solicitudes/segundos" o "off":
+ * - RATE_LIMIT_ENABLED: true | false (por defecto true).
+ * - RATE_LIMIT_DEFAULT: límite de los contextos sin clave propia (por defecto 600/60).
+ * - RATE_LIMIT_&lt;RUTA&gt;: límite de un contexto, por ejemplo RATE_LIMIT_PRODUCTS=300/60 para /products.
+ * - RATE_LIMIT_LOGIN: límite de /login, más estricto porque cada intento consulta la base de
+ *   datos (por defecto 10/60).
+ * - RATE_LIMIT_IDLE_SECONDS: tiempo sin uso tras el cual se descarta la cubeta de un cliente (por defecto 300).
+ */
+public class RateLimitFilter extends Filter {
+
+    public static final String DEFAULT_LIMIT = "600/60";
+    public static final String DEFAULT_LOGIN_LIMIT = "10/60";
+    public static final long DEFAULT_IDLE_SECONDS = 300;
+
+    private static final byte[] TOO_MANY_REQUESTS = "{\"message\":\"Too Many Requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final String route;
+    private final RateLimiter limiter;
+    private final AuthManager authManager;
+
+    /**
+     * @param route       Ruta del contexto (para métricas y descripción).
+     * @param limiter     Limitador del contexto.
+     * @param authManager Para extraer el sujeto de los tokens Bearer, o null para limitar sólo por dirección.
+     */
+    public RateLimitFilter(String route, RateLimiter limiter, AuthManager authManager) {
+        this.route = route;
+        this.limiter = limiter;
+        this.authManager = authManager;
+    }
+
+    /**
+     * Crea el filtro de un contexto a partir de las claves RATE_LIMIT_* del entorno.
+     * La clave del contexto se forma con su ruta en mayúsculas ("/products" -> RATE_LIMIT_PRODUCTS).
+     *
+     * @param config       Configuración de la aplicación.
+     * @param route        Ruta del contexto.
+     * @param defaultLimit Límite si el contexto no tiene clave propia, o null para usar RATE_LIMIT_DEFAULT.
+     * @param authManager  Para extraer el sujeto de los tokens Bearer.
+     * @return El filtro, o {@code null} si la limitación está desactivada para el contexto.
+     */
+    public static RateLimitFilter fromEnv(AppConfig config, String route, String defaultLimit, AuthManager authManager) {
+        if (!config.getBoolean("RATE_LIMIT_ENABLED", true)) {
+            return null;
+        }
+        String key = "RATE_LIMIT_" + route.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "").toUpperCase(Locale.ROOT);
+        String fallback = defaultLimit != null ? defaultLimit : config.get("RATE_LIMIT_DEFAULT", DEFAULT_LIMIT);
+        String limit = config.get(key, fallback).trim();
+        if ("off".equalsIgnoreCase(limit)) {
+            return null;
+        }
+        long idleSeconds = config.getLong("RATE_LIMIT_IDLE_SECONDS", DEFAULT_IDLE_SECONDS);
+        return new RateLimitFilter(route, parse(key, limit, idleSeconds), authManager);
+    }
+
+    /**
+     * Crea un limitador a partir de un límite "solicitudes/segundos".
+     *
+     * @param key         Nombre de la clave de configuración (para el mensaje de error).
+     * @param limit       Límite, por ejemplo "10/60".
+     * @param idleSeconds Tiempo sin uso tras el cual se descarta la cubeta de un cliente.
+     * @return El limitador.
+     */
+    static RateLimiter parse(String key, String limit, long idleSeconds) {
+        int slash = limit.indexOf('/');
+        try {
+            int requests = Integer.parseInt(limit.substring(0, slash).trim());
+            long seconds = Long.parseLong(limit.substring(slash + 1).trim());
+            return new RateLimiter(requests, seconds, TimeUnit.SECONDS, idleSeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(key + " must be <requests>/<seconds> or off, got: " + limit, e);
+        }
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if ("OPTIONS".equalsIgnoreCase(exchange.getRequestMethod())) {
+            chain.doFilter(exchange);
+            return;
+        }
+        long wait = limiter.tryAcquire(clientKey(exchange));
+        if (wait == 0) {
+            chain.doFilter(exchange);
+            return;
+        }
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(429, TOO_MANY_REQUESTS.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(TOO_MANY_REQUESTS);
+        }
+    }
+
+    // "sub:<usuario>" con un token válido; "ip:<dirección>" en otro caso
+    private String clientKey(HttpExchange exchange) {
+        if (authManager != null) {
+            String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                VerifiedToken verified = authManager.getVerifiedToken(authHeader.substring(7));
+                if (verified != null && verified.getSubject() != null) {
+                    return "sub:" + verified.getSubject();
+                }
+            }
+        }
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        return "ip:" + (remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString());
+    }
+
+    public String getRoute() { return route; }
+    public RateLimiter getLimiter() { return limiter; }
+
+    @Override
+    public String description() {
+        return "Token-bucket rate limiting for " + route;
+    }
+}
@@ -0,0 +1,102 @@
+package app.apiRESTful.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitador de solicitudes por clave (dirección IP, usuario...) con una cubeta de tokens
+ * por clave.
+ *
+ * Las cubetas se guardan en un {@link ConcurrentHashMap}: buscar la cubeta de una clave no
+ * bloquea y el consumo sólo sincroniza sobre la cubeta de esa clave. Las cubetas que no se
+ * usan durante {@code idleNanos} se eliminan en un barrido que hace, como mucho una vez por
+ * ese intervalo, el hilo que llega cuando toca; una cubeta eliminada estaría llena de nuevo
+ * al volver, así que quitarla no cambia el resultado.
+ *
+ * Uso:
+ * <pre>
+ * RateLimiter limiter = new RateLimiter(10, 60, TimeUnit.SECONDS, 300, TimeUnit.SECONDS);
+ * long wait = limiter.tryAcquire("203.0.113.7");
+ * if (wait > 0) { ... 429 con Retry-After ... }
+ * </pre>
+ */
+public class RateLimiter {
+
+    private final int capacity;
+    private final double refillPerNano;
+    private final long idleNanos;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepNanos;
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param requests  Solicitudes permitidas por periodo (también la ráfaga máxima).
+     * @param period    Duración del periodo.
+     * @param unit      Unidad del periodo.
+     * @param idleTime  Tiempo sin uso tras el cual se descarta la cubeta de una clave.
+     * @param idleUnit  Unidad de idleTime.
+     */
+    public RateLimiter(int requests, long period, TimeUnit unit, long idleTime, TimeUnit idleUnit) {
+        if (requests <= 0 || period <= 0) {
+            throw new IllegalArgumentException("requests and period must be positive");
+        }
+        this.capacity = requests;
+        this.refillPerNano = (double) requests / unit.toNanos(period);
+        // Nunca antes de que una cubeta vacía haya vuelto a llenarse
+        this.idleNanos = Math.max(idleUnit.toNanos(idleTime), unit.toNanos(period));
+        this.lastSweepNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Consume un token de la clave indicada.
+     *
+     * @param key Clave del cliente.
+     * @return 0 si la solicitud se permite; si no, los nanosegundos hasta que haya un token.
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    /**
+     * Igual que {@link #tryAcquire(String)} con un instante explícito (para pruebas).
+     *
+     * @param key      Clave del cliente.
+     * @param nowNanos Instante actual en la escala de {@link System#nanoTime()}.
+     * @return 0 si la solicitud se permite; si no, los nanosegundos hasta que haya un token.
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        evictIdle(nowNanos);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerNano, nowNanos));
+        }
+        long wait = bucket.tryAcquire(nowNanos);
+        if (wait == 0) {
+            allowed.incrementAndGet();
+        } else {
+            rejected.incrementAndGet();
+        }
+        return wait;
+    }
+
+    /**
+     * Elimina las cubetas sin uso desde hace más de idleNanos. Sólo un hilo barre por intervalo.
+     *
+     * @param nowNanos Instante actual.
+     */
+    public void evictIdle(long nowNanos) {
+        long last = lastSweepNanos.get();
+        if (nowNanos - last < idleNanos || !lastSweepNanos.compareAndSet(last, nowNanos)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> nowNanos - bucket.getLastAccessNanos() >= idleNanos);
+    }
+
+    public int getCapacity() { return capacity; }
+    public int getBucketCount() { return buckets.size(); }
+    public long getAllowed() { return allowed.get(); }
+    public long getRejected() { return rejected.get(); }
+}
@@ -0,0 +1,53 @@
+package app.apiRESTful.ratelimit;
+
+/**
+ * Cubeta de tokens de un cliente.
+ *
+ * Empieza llena ({@code capacity} tokens) y se rellena de forma continua a razón de
+ * {@code refillPerNano} tokens por nanosegundo; cada solicitud consume un token. El relleno
+ * se calcula al consumir, así que una cubeta inactiva no cuesta nada.
+ *
+ * Cada cubeta tiene su propio monitor: los clientes distintos nunca compiten por el mismo
+ * cerrojo.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private volatile long lastAccessNanos;
+
+    TokenBucket(double capacity, double refillPerNano, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerNano;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+        this.lastAccessNanos = nowNanos;
+    }
+
+    /**
+     * Intenta consumir un token.
+     *
+     * @param nowNanos Instante actual ({@link System#nanoTime()}).
+     * @return 0 si se concedió el token; si no, los nanosegundos que faltan para el siguiente.
+     */
+    synchronized long tryAcquire(long nowNanos) {
+        lastAccessNanos = nowNanos;
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+}
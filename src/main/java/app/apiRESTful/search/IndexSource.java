@@ -0,0 +1,20 @@
+package app.apiRESTful.search;
+
+import java.sql.SQLException;
+
+/**
+ * Acceso a un índice que puede no estar disponible todavía (por ejemplo, uno perezoso cuya
+ * construcción falló porque la base de datos no respondía).
+ *
+ * @param <T> Tipo del índice.
+ */
+@FunctionalInterface
+public interface IndexSource<T> {
+
+    /**
+     * @return El índice construido.
+     * @throws SQLException Si el índice no está disponible; es un {@link java.sql.SQLTransientException}
+     *                      cuando basta con reintentar más tarde.
+     */
+    T get() throws SQLException;
+}
@@ -0,0 +1,141 @@
+package app.apiRESTful.search;
+
+import app.apiRESTful.model.Product;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Collection;
+
+/**
+ * Índice que se construye con el catálogo completo la primera vez que se consulta, en lugar
+ * de al arrancar.
+ *
+ * Hasta entonces las escrituras se ignoran: la construcción lee el catálogo después y ya
+ * las incluye. Las que llegan mientras se construye esperan a que termine y se aplican
+ * encima, así que no se pierde ninguna que haya ocurrido después de la lectura.
+ * {@link #get(String)} y {@link #size()} no fuerzan la construcción.
+ *
+ * Si la lectura del catálogo falla, el índice sigue sin construir y la siguiente llamada a
+ * {@link #getIndex()} lo vuelve a intentar; nunca se construye con un catálogo vacío o
+ * parcial.
+ *
+ * @param <T> Tipo del índice.
+ */
+public class LazyProductIndex<T extends ProductIndex> implements ProductIndex {
+
+    /**
+     * Lectura del catálogo completo.
+     */
+    @FunctionalInterface
+    public interface CatalogLoader {
+        /**
+         * @return Todos los productos.
+         * @throws SQLException Si falla la lectura.
+         */
+        Collection<Product> load() throws SQLException;
+    }
+
+    private final T index;
+    private final CatalogLoader catalog;
+    private final Object buildLock = new Object();
+    private volatile boolean built;
+
+    /**
+     * @param index   Índice vacío que se construirá.
+     * @param catalog Lectura del catálogo completo.
+     */
+    public LazyProductIndex(T index, CatalogLoader catalog) {
+        this.index = index;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Devuelve el índice, construyéndolo si es la primera vez. Si otro hilo lo está
+     * construyendo, espera a que termine.
+     *
+     * @return El índice construido.
+     * @throws SQLTransientException Si no se pudo leer el catálogo; el índice sigue sin
+     *                               construir y se reintenta en la siguiente llamada.
+     */
+    public T getIndex() throws SQLTransientException {
+        if (!built) {
+            synchronized (buildLock) {
+                if (!built) {
+                    Collection<Product> products;
+                    try {
+                        products = catalog.load();
+                    } catch (SQLException e) {
+                        throw new SQLTransientException("Product index not available: " + e.getMessage(), e);
+                    }
+                    index.rebuild(products);
+                    built = true;
+                }
+            }
+        }
+        return index;
+    }
+
+
+    /**
+     * @return true si el índice ya se construyó.
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    @Override
+    public void rebuild(Collection<Product> products) {
+        synchronized (buildLock) {
+            index.rebuild(products);
+            built = true;
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        if (ready()) {
+            index.index(product);
+        }
+    }
+
+    @Override
+    public void indexAll(Collection<Product> products) {
+        if (ready()) {
+            index.indexAll(products);
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        if (ready()) {
+            index.remove(id);
+        }
+    }
+
+    @Override
+    public void updateQuantity(String id, int quantity) {
+        if (ready()) {
+            index.updateQuantity(id, quantity);
+        }
+    }
+
+    @Override
+    public Product get(String id) {
+        return built ? index.get(id) : null;
+    }
+
+    @Override
+    public int size() {
+        return built ? index.size() : 0;
+    }
+
+    // false si nadie ha pedido aún el índice; si se está construyendo, espera a que termine
+    private boolean ready() {
+        if (built) {
+            return true;
+        }
+        synchronized (buildLock) {
+            return built;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package app.apiRESTful.search;
+
+import app.apiRESTful.model.Product;
+
+import java.util.Collection;
+
+/**
+ * Índice de productos en memoria que se mantiene al día con cada escritura.
+ */
+public interface ProductIndex {
+
+    /**
+     * Reemplaza el contenido del índice.
+     *
+     * @param products Todos los productos del catálogo.
+     */
+    void rebuild(Collection<Product> products);
+
+    /**
+     * Añade un producto o reemplaza su versión anterior.
+     *
+     * @param product Producto a indexar (se guarda una copia).
+     */
+    void index(Product product);
+
+    /**
+     * Añade o reemplaza varios productos.
+     *
+     * @param products Productos a indexar.
+     */
+    void indexAll(Collection<Product> products);
+
+    /**
+     * Quita un producto del índice.
+     *
+     * @param id ID del producto.
+     */
+    void remove(String id);
+
+    /**
+     * Actualiza la cantidad de un producto indexado.
+     *
+     * @param id       ID del producto.
+     * @param quantity Nueva cantidad.
+     */
+    void updateQuantity(String id, int quantity);
+
+    /**
+     * @param id ID del producto.
+     * @return Una copia del producto indexado, o null si no está en el índice.
+     */
+    Product get(String id);
+
+    /**
+     * @return Número de productos indexados.
+     */
+    int size();
+}
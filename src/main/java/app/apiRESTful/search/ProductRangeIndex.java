@@ -0,0 +1,318 @@
+package app.apiRESTful.search;
+
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.dao.RowHandler;
+import app.apiRESTful.model.Product;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índices secundarios en memoria sobre el precio y la cantidad de los productos, para
+ * consultas por rango y "los K primeros" sin recorrer la tabla.
+ *
+ * Cada índice es un par de arreglos paralelos ordenados por (valor, id): un {@code long[]}
+ * con el valor codificado y un {@code String[]} con el id, sin objetos {@code Double} ni
+ * {@code Integer}. Una consulta localiza el rango con búsqueda binaria y recorre sólo las
+ * posiciones necesarias para llenar la página; una escritura inserta o quita una posición
+ * con {@code System.arraycopy}.
+ *
+ * El índice guarda una copia de cada producto para aplicar los demás filtros y devolver
+ * los resultados. Las lecturas y escrituras se coordinan con un {@link ReadWriteLock}.
+ */
+public class ProductRangeIndex implements ProductIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Product> products = new HashMap<>();
+    private final SortedKeys byPrice = new SortedKeys();
+    private final SortedKeys byQuantity = new SortedKeys();
+
+    /**
+     * @param query Consulta de productos.
+     * @return true si la consulta está ordenada por un campo de este índice.
+     */
+    public static boolean supports(ProductQuery query) {
+        return query.getSort() == ProductQuery.Sort.PRICE || query.getSort() == ProductQuery.Sort.QUANTITY;
+    }
+
+    @Override
+    public void rebuild(Collection<Product> all) {
+        List<Product> copies = new ArrayList<>(all.size());
+        for (Product product : all) {
+            copies.add(copy(product));
+        }
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            for (Product product : copies) {
+                products.put(product.getId(), product);
+            }
+            List<Product> distinct = new ArrayList<>(products.values());
+            distinct.sort(Comparator.comparingLong((Product p) -> priceKey(p.getPrice())).thenComparing(Product::getId));
+            byPrice.fill(distinct, true);
+            distinct.sort(Comparator.comparingInt(Product::getQuantity).thenComparing(Product::getId));
+            byQuantity.fill(distinct, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexAll(Collection<Product> all) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : all) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateQuantity(String id, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Product product = products.get(id);
+            if (product != null && product.getQuantity() != quantity) {
+                byQuantity.remove(product.getQuantity(), id);
+                product.setQuantity(quantity);
+                byQuantity.insert(quantity, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Product get(String id) {
+        lock.readLock().lock();
+        try {
+            Product product = products.get(id);
+            return product == null ? null : copy(product);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre una página de una consulta ordenada por precio o cantidad, con la misma
+     * semántica que {@code ProductDAOSQL.streamProductsPage}.
+     *
+     * Los productos se copian mientras se tiene el bloqueo de lectura y se entregan al
+     * manejador después de liberarlo, para no bloquear las escrituras durante la E/S.
+     *
+     * @param query   Criterios de filtrado, orden y paginación ({@link #supports} debe ser true).
+     * @param handler Receptor de cada producto de la página.
+     * @return El id a partir del cual continúa la página siguiente, o null si es la última.
+     * @throws IOException Si el manejador falla al escribir un producto.
+     */
+    public String streamPage(ProductQuery query, RowHandler<Product> handler) throws IOException {
+        if (!supports(query)) {
+            throw new IllegalArgumentException("Unsupported sort: " + query.getSort());
+        }
+        boolean byPriceSort = query.getSort() == ProductQuery.Sort.PRICE;
+        List<Product> page = new ArrayList<>(Math.min(query.getLimit(), 64) + 1);
+
+        lock.readLock().lock();
+        try {
+            SortedKeys keys = byPriceSort ? byPrice : byQuantity;
+            Double min = byPriceSort ? query.getMinPrice() : toDouble(query.getMinQuantity());
+            Double max = byPriceSort ? query.getMaxPrice() : toDouble(query.getMaxQuantity());
+            int from = min == null ? 0 : keys.lowerBound(key(byPriceSort, min), null);
+            int to = max == null ? keys.size : keys.upperBound(key(byPriceSort, max), null);
+
+            boolean hasCursor = query.getAfterId() != null && query.getAfterValue() != null;
+            long afterKey = hasCursor ? key(byPriceSort, query.getAfterValue()) : 0;
+            if (!query.isDescending()) {
+                int start = hasCursor ? Math.max(from, keys.upperBound(afterKey, query.getAfterId())) : from;
+                for (int i = start; i < to && page.size() <= query.getLimit(); i++) {
+                    collect(page, products.get(keys.ids[i]), query);
+                }
+            } else {
+                int start = hasCursor ? Math.min(to, keys.lowerBound(afterKey, query.getAfterId())) : to;
+                for (int i = start - 1; i >= from && page.size() <= query.getLimit(); i--) {
+                    collect(page, products.get(keys.ids[i]), query);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int count = Math.min(page.size(), query.getLimit());
+        for (int i = 0; i < count; i++) {
+            handler.handle(page.get(i));
+        }
+        return page.size() > query.getLimit() ? page.get(count - 1).getId() : null;
+    }
+
+    // Aplica los filtros que no resuelve el índice recorrido
+    private static void collect(List<Product> page, Product product, ProductQuery query) {
+        if (query.getMinPrice() != null && product.getPrice() < query.getMinPrice()) return;
+        if (query.getMaxPrice() != null && product.getPrice() > query.getMaxPrice()) return;
+        if (query.getMinQuantity() != null && product.getQuantity() < query.getMinQuantity()) return;
+        if (query.getMaxQuantity() != null && product.getQuantity() > query.getMaxQuantity()) return;
+        page.add(copy(product));
+    }
+
+    private void put(Product product) {
+        delete(product.getId());
+        Product stored = copy(product);
+        products.put(stored.getId(), stored);
+        byPrice.insert(priceKey(stored.getPrice()), stored.getId());
+        byQuantity.insert(stored.getQuantity(), stored.getId());
+    }
+
+    private void delete(String id) {
+        Product previous = products.remove(id);
+        if (previous != null) {
+            byPrice.remove(priceKey(previous.getPrice()), id);
+            byQuantity.remove(previous.getQuantity(), id);
+        }
+    }
+
+    private static long key(boolean price, double value) {
+        return price ? priceKey(value) : (long) value;
+    }
+
+    /**
+     * Codifica un double en un long con el mismo orden (los negativos invierten sus bits).
+     */
+    static long priceKey(double price) {
+        long bits = Double.doubleToLongBits(price + 0.0);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static Double toDouble(Integer value) {
+        return value == null ? null : value.doubleValue();
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(), product.getQuantity());
+    }
+
+    /**
+     * Arreglos paralelos (clave, id) ordenados por clave y luego por id.
+     */
+    private static final class SortedKeys {
+        private long[] keys = new long[16];
+        private String[] ids = new String[16];
+        private int size;
+
+        // Carga productos ya ordenados por precio o por cantidad
+        void fill(List<Product> sorted, boolean price) {
+            int capacity = Math.max(16, sorted.size() + sorted.size() / 4);
+            keys = new long[capacity];
+            ids = new String[capacity];
+            size = sorted.size();
+            for (int i = 0; i < size; i++) {
+                Product product = sorted.get(i);
+                keys[i] = price ? priceKey(product.getPrice()) : product.getQuantity();
+                ids[i] = product.getId();
+            }
+        }
+
+        void insert(long key, String id) {
+            int position = lowerBound(key, id);
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            keys[position] = key;
+            ids[position] = id;
+            size++;
+        }
+
+        void remove(long key, String id) {
+            int position = lowerBound(key, id);
+            if (position < size && keys[position] == key && ids[position].equals(id)) {
+                System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+                ids[size] = null;
+            }
+        }
+
+        /**
+         * Primera posición con (clave, id) >= (key, id); un id null es menor que cualquier id.
+         */
+        int lowerBound(long key, String id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int c = Long.compare(keys[mid], key);
+                if (c == 0) {
+                    c = id == null ? 1 : ids[mid].compareTo(id);
+                }
+                if (c < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Primera posición con (clave, id) > (key, id); un id null es mayor que cualquier id.
+         */
+        int upperBound(long key, String id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int c = Long.compare(keys[mid], key);
+                if (c == 0) {
+                    c = id == null ? -1 : ids[mid].compareTo(id);
+                }
+                if (c <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
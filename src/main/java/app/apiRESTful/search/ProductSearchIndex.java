@@ -0,0 +1,255 @@
+package app.apiRESTful.search;
+
+import app.apiRESTful.model.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria para la búsqueda de texto en nombre y descripción.
+ *
+ * Los textos se dividen en términos en minúsculas y sin acentos ("Pantalla Táctil" produce
+ * "pantalla" y "tactil"). Cada término apunta a los productos que lo contienen con un peso:
+ * las apariciones en el nombre cuentan {@value #NAME_WEIGHT} veces más que en la descripción.
+ *
+ * Una búsqueda devuelve los productos que contienen todos los términos de la consulta,
+ * ordenados por TF-IDF, sin consultar la base de datos. El índice guarda una copia de cada
+ * producto para poder devolverlo completo; las lecturas y las escrituras se coordinan con
+ * un {@link ReadWriteLock}, de modo que las búsquedas concurrentes no se bloquean entre sí.
+ */
+public class ProductSearchIndex implements ProductIndex {
+
+    static final int NAME_WEIGHT = 3;
+
+    private static final Comparator<SearchResult.Hit> RANKING = Comparator
+            .comparingDouble(SearchResult.Hit::getScore).reversed()
+            .thenComparing(hit -> hit.getProduct().getName(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(hit -> hit.getProduct().getId());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // término -> (id del producto -> peso)
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Document> documents = new HashMap<>();
+
+    /**
+     * Producto indexado y los términos con los que aparece en {@code postings}.
+     */
+    private static final class Document {
+        final Product product;
+        final Map<String, Integer> terms;
+
+        Document(Product product, Map<String, Integer> terms) {
+            this.product = product;
+            this.terms = terms;
+        }
+    }
+
+    @Override
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            for (Product product : products) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateQuantity(String id, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Document document = documents.get(id);
+            if (document != null) {
+                document.product.setQuantity(quantity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Product get(String id) {
+        lock.readLock().lock();
+        try {
+            Document document = documents.get(id);
+            return document == null ? null : copy(document.product);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos que contienen todos los términos de la consulta.
+     *
+     * @param query  Texto de la búsqueda.
+     * @param offset Número de resultados a omitir.
+     * @param limit  Número máximo de resultados a devolver.
+     * @return Los resultados de la página, ordenados por relevancia, y el total de coincidencias.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query).keySet());
+        if (terms.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+
+        List<SearchResult.Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Map<String, Integer>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<String, Integer> list = postings.get(term);
+                if (list == null) {
+                    return new SearchResult(0, List.of());
+                }
+                lists.add(list);
+            }
+            // Se recorre la lista más corta y se comprueba el resto
+            lists.sort(Comparator.comparingInt(Map::size));
+            double documentCount = documents.size();
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < idf.length; i++) {
+                idf[i] = Math.log(1 + documentCount / lists.get(i).size());
+            }
+
+            candidates:
+            for (Map.Entry<String, Integer> entry : lists.get(0).entrySet()) {
+                double score = (1 + Math.log(entry.getValue())) * idf[0];
+                for (int i = 1; i < lists.size(); i++) {
+                    Integer weight = lists.get(i).get(entry.getKey());
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += (1 + Math.log(weight)) * idf[i];
+                }
+                hits.add(new SearchResult.Hit(documents.get(entry.getKey()).product, score));
+            }
+
+            hits.sort(RANKING);
+            int from = Math.min(Math.max(offset, 0), hits.size());
+            int to = Math.min(from + Math.max(limit, 0), hits.size());
+            List<SearchResult.Hit> page = new ArrayList<>(to - from);
+            for (SearchResult.Hit hit : hits.subList(from, to)) {
+                page.add(new SearchResult.Hit(copy(hit.getProduct()), hit.getScore()));
+            }
+            return new SearchResult(hits.size(), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Divide un texto en términos en minúsculas y sin acentos.
+     *
+     * @param text Texto a dividir (puede ser null).
+     * @return Cada término distinto con su número de apariciones, en orden de aparición.
+     */
+    public static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (term.length() > 0) {
+                terms.merge(term.toString(), 1, Integer::sum);
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.merge(term.toString(), 1, Integer::sum);
+        }
+        return terms;
+    }
+
+    private void put(Product product) {
+        delete(product.getId());
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(product.getName()).forEach((term, count) -> terms.merge(term, count * NAME_WEIGHT, Integer::sum));
+        tokenize(product.getDescription()).forEach((term, count) -> terms.merge(term, count, Integer::sum));
+        for (Map.Entry<String, Integer> entry : terms.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(product.getId(), entry.getValue());
+        }
+        documents.put(product.getId(), new Document(copy(product), terms));
+    }
+
+    private void delete(String id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms.keySet()) {
+            Map<String, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(), product.getQuantity());
+    }
+}
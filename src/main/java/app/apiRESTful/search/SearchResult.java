@@ -0,0 +1,42 @@
+package app.apiRESTful.search;
+
+import app.apiRESTful.model.Product;
+
+import java.util.List;
+
+/**
+ * Página de resultados de una búsqueda, ordenados por relevancia.
+ */
+public class SearchResult {
+
+    /**
+     * Producto encontrado y su puntuación.
+     */
+    public static class Hit {
+        private final Product product;
+        private final double score;
+
+        public Hit(Product product, double score) {
+            this.product = product;
+            this.score = score;
+        }
+
+        public Product getProduct() { return product; }
+        public double getScore() { return score; }
+    }
+
+    private final int total;
+    private final List<Hit> hits;
+
+    /**
+     * @param total Número total de productos que coinciden con la búsqueda.
+     * @param hits  Resultados de la página solicitada.
+     */
+    public SearchResult(int total, List<Hit> hits) {
+        this.total = total;
+        this.hits = hits;
+    }
+
+    public int getTotal() { return total; }
+    public List<Hit> getHits() { return hits; }
+}
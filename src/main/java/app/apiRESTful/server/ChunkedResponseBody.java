@@ -0,0 +1,72 @@
+package app.apiRESTful.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Cuerpo de respuesta con codificación chunked que envía las cabeceras de forma diferida.
+ *
+ * Las cabeceras ({@code sendResponseHeaders(code, 0)}) se envían con la primera escritura
+ * real. Mientras no se haya escrito nada, {@link #isCommitted()} devuelve false y el
+ * llamador todavía puede responder con otro código de estado (por ejemplo, un 500 si la
+ * consulta falla antes de producir la primera fila).
+ */
+public class ChunkedResponseBody extends OutputStream {
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private OutputStream body;
+
+    /**
+     * @param exchange   Intercambio HTTP.
+     * @param statusCode Código de estado a enviar con la primera escritura.
+     */
+    public ChunkedResponseBody(HttpExchange exchange, int statusCode) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * @return true si las cabeceras ya se enviaron.
+     */
+    public boolean isCommitted() {
+        return body != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        commit().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > 0) {
+            commit().write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (body != null) {
+            body.flush();
+        }
+    }
+
+    /**
+     * Cierra el cuerpo. Si no se escribió nada, envía igualmente las cabeceras y un cuerpo vacío.
+     */
+    @Override
+    public void close() throws IOException {
+        commit().close();
+    }
+
+    private OutputStream commit() throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(statusCode, 0);
+            body = exchange.getResponseBody();
+        }
+        return body;
+    }
+}
@@ -0,0 +1,336 @@
+package app.apiRESTful.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link HttpExchange} que comprime el cuerpo de la respuesta. Lo crea {@link CompressionFilter}.
+ *
+ * La decisión de comprimir se toma con la información disponible en cada caso:
+ * - Longitud conocida ({@code sendResponseHeaders(code, n)}): se comprime si n alcanza el
+ *   mínimo; si no, la respuesta pasa sin cambios.
+ * - Longitud desconocida ({@code sendResponseHeaders(code, 0)}): se acumulan hasta
+ *   {@code minBytes} bytes. Si el cuerpo termina antes, se envía sin comprimir y con su
+ *   longitud exacta; si no, se envía comprimido y chunked.
+ * Un {@code flush()} explícito fuerza la decisión y vacía el compresor (sync flush), para
+ * que las respuestas en flujo sigan llegando al cliente a medida que se escriben.
+ *
+ * Toda respuesta que se habría comprimido para otro cliente lleva {@code Vary: Accept-Encoding},
+ * también cuando esta solicitud la recibe sin comprimir.
+ */
+final class CompressingExchange extends HttpExchange {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final HttpExchange delegate;
+    private final Headers requestHeaders;
+    private final CompressionFilter.Encoding encoding;
+    private final int minBytes;
+    private final int level;
+    private final Body body = new Body();
+
+    private int status = -1;
+
+    /**
+     * @param delegate       Intercambio original.
+     * @param requestHeaders Encabezados de la solicitud que verá el handler.
+     * @param encoding       Codificación negociada, o null para no comprimir.
+     * @param minBytes       Tamaño mínimo del cuerpo para comprimir.
+     * @param level          Nivel de compresión.
+     */
+    CompressingExchange(HttpExchange delegate, Headers requestHeaders, CompressionFilter.Encoding encoding,
+                        int minBytes, int level) {
+        this.delegate = delegate;
+        this.requestHeaders = requestHeaders;
+        this.encoding = encoding;
+        this.minBytes = minBytes;
+        this.level = level;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (status != -1) {
+            throw new IOException("headers already sent");
+        }
+        status = rCode;
+        boolean compressible = rCode >= 200 && rCode != 204 && isCompressibleType();
+        // La representación depende de Accept-Encoding aunque esta vez no se comprima
+        // (cliente sin gzip, cuerpo pequeño, HEAD o 304): las cachés deben distinguirla
+        if (compressible && (responseLength >= 0 || rCode == 304 || "HEAD".equals(delegate.getRequestMethod()))) {
+            addVary();
+        }
+        if (responseLength < 0 || rCode == 304 || encoding == null || !compressible) {
+            body.passThrough(rCode, responseLength);
+        } else if (responseLength > 0) {
+            if (responseLength < minBytes) {
+                body.passThrough(rCode, responseLength);
+            } else {
+                body.startCompression();
+            }
+        } else {
+            body.startBuffering();
+        }
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return body;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return status;
+    }
+
+    @Override
+    public void close() {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // La conexión se cierra igualmente a continuación
+        }
+        delegate.close();
+    }
+
+    /**
+     * Envía lo que haya quedado acumulado si el handler terminó sin cerrar el cuerpo.
+     */
+    void finish() throws IOException {
+        body.commitPending();
+    }
+
+    // Las respuestas ya comprimidas o con codificación propia no se tocan
+    private boolean isCompressibleType() {
+        Headers headers = delegate.getResponseHeaders();
+        if (headers.containsKey("Content-Encoding")) {
+            return false;
+        }
+        String contentType = headers.getFirst("Content-Type");
+        if (contentType == null) {
+            return true;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("image/")) {
+            return type.startsWith("image/svg");
+        }
+        return !(type.startsWith("audio/") || type.startsWith("video/") || type.startsWith("text/event-stream")
+                || type.startsWith("application/zip") || type.startsWith("application/gzip")
+                || type.startsWith("application/octet-stream"));
+    }
+
+    private void addVary() {
+        Headers headers = delegate.getResponseHeaders();
+        List<String> vary = headers.get("Vary");
+        if (vary != null) {
+            for (String value : vary) {
+                for (String field : value.split(",")) {
+                    String name = field.trim();
+                    if (name.equals("*") || name.equalsIgnoreCase("Accept-Encoding")) {
+                        return;
+                    }
+                }
+            }
+        }
+        headers.add("Vary", "Accept-Encoding");
+    }
+
+    private void addCompressionHeaders() {
+        Headers headers = delegate.getResponseHeaders();
+        headers.set("Content-Encoding", encoding.token());
+        String etag = headers.getFirst("ETag");
+        if (etag != null && etag.endsWith("\"")) {
+            headers.set("ETag", etag.substring(0, etag.length() - 1) + "-" + encoding.token() + "\"");
+        }
+    }
+
+    /**
+     * Cuerpo de la respuesta: pasa directo, acumula o comprime según el estado.
+     */
+    private final class Body extends OutputStream {
+        private OutputStream target;
+        private byte[] pending;
+        private int pendingCount;
+        private Deflater deflater;
+        private boolean closed;
+
+        private void passThrough(int rCode, long responseLength) throws IOException {
+            delegate.sendResponseHeaders(rCode, responseLength);
+            target = delegate.getResponseBody();
+        }
+
+        private void startBuffering() {
+            pending = new byte[Math.max(1, minBytes)];
+        }
+
+        private void startCompression() throws IOException {
+            addCompressionHeaders();
+            delegate.sendResponseHeaders(status, 0);
+            OutputStream raw = delegate.getResponseBody();
+            if (encoding == CompressionFilter.Encoding.GZIP) {
+                target = new GZIPOutputStream(raw, BUFFER_SIZE, true) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            } else {
+                deflater = new Deflater(level);
+                target = new DeflaterOutputStream(raw, deflater, BUFFER_SIZE, true);
+            }
+            if (pending != null) {
+                byte[] buffered = pending;
+                int count = pendingCount;
+                pending = null;
+                pendingCount = 0;
+                target.write(buffered, 0, count);
+            }
+        }
+
+        // Acumulando y sin cerrar: se envía lo pendiente sin comprimir y en chunked
+        private void commitPending() throws IOException {
+            if (pending != null && !closed) {
+                delegate.sendResponseHeaders(status, 0);
+                target = delegate.getResponseBody();
+                target.write(pending, 0, pendingCount);
+                pending = null;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("stream is closed");
+            }
+            if (pending != null) {
+                if (pendingCount + len <= pending.length) {
+                    System.arraycopy(b, off, pending, pendingCount, len);
+                    pendingCount += len;
+                    return;
+                }
+                startCompression();
+            }
+            if (target == null) {
+                throw new IOException("response headers not sent");
+            }
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (pending != null && pendingCount > 0) {
+                startCompression();
+            }
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            if (pending != null) {
+                // El cuerpo completo cabe por debajo del mínimo: se envía tal cual
+                delegate.sendResponseHeaders(status, pendingCount == 0 ? -1 : pendingCount);
+                target = delegate.getResponseBody();
+                target.write(pending, 0, pendingCount);
+                pending = null;
+            }
+            closed = true;
+            try {
+                if (target != null) {
+                    target.close();
+                }
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+    }
+
+    // El resto de operaciones se delega sin cambios
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return delegate.getResponseHeaders();
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return delegate.getRequestURI();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return delegate.getRequestMethod();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return delegate.getHttpContext();
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return delegate.getRequestBody();
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return delegate.getRemoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return delegate.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return delegate.getProtocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return delegate.getAttribute(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        delegate.setAttribute(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        delegate.setStreams(i, o);
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return delegate.getPrincipal();
+    }
+}
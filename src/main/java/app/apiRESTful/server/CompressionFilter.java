@@ -0,0 +1,175 @@
+package app.apiRESTful.server;
+
+import app.config.AppConfig;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Filtro que comprime las respuestas con gzip o deflate según el encabezado
+ * {@code Accept-Encoding} de la solicitud.
+ *
+ * Los handlers no cambian: el filtro les pasa un {@link CompressingExchange} que decide,
+ * al enviar las cabeceras o al acumular los primeros bytes, si el cuerpo se comprime.
+ * Los cuerpos menores que el tamaño mínimo se envían sin comprimir; las respuestas en
+ * flujo (chunked) se comprimen también en flujo.
+ *
+ * Como el ETag identifica una representación concreta, a las respuestas comprimidas se
+ * les añade el sufijo "-gzip" o "-deflate" y el filtro lo quita de If-None-Match antes
+ * de llegar al handler, de modo que los handlers siempre comparan su ETag sin sufijo.
+ *
+ * Configuración (.env):
+ * - SERVER_COMPRESSION_ENABLED: true | false (por defecto true).
+ * - SERVER_COMPRESSION_MIN_BYTES: tamaño mínimo del cuerpo para comprimir (por defecto 1024).
+ * - SERVER_COMPRESSION_LEVEL: nivel de compresión de 1 (rápido) a 9 (máximo) (por defecto 6).
+ */
+public class CompressionFilter extends Filter {
+
+    public static final int DEFAULT_MIN_BYTES = 1024;
+    public static final int DEFAULT_LEVEL = 6;
+
+    /**
+     * Codificaciones soportadas, en orden de preferencia.
+     */
+    public enum Encoding {
+        GZIP("gzip"), DEFLATE("deflate");
+
+        private final String token;
+
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        public String token() {
+            return token;
+        }
+    }
+
+    private final int minBytes;
+    private final int level;
+
+    /**
+     * @param minBytes Tamaño mínimo del cuerpo (en bytes) para comprimirlo.
+     * @param level    Nivel de compresión entre 1 y 9.
+     */
+    public CompressionFilter(int minBytes, int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("SERVER_COMPRESSION_LEVEL must be between 1 and 9");
+        }
+        this.minBytes = Math.max(0, minBytes);
+        this.level = level;
+    }
+
+    /**
+     * Crea el filtro a partir de las claves SERVER_COMPRESSION_* del entorno.
+     *
+     * @param config Configuración de la aplicación.
+     * @return El filtro, o {@code null} si la compresión está desactivada.
+     */
+    public static CompressionFilter fromEnv(AppConfig config) {
+        if (!config.getBoolean("SERVER_COMPRESSION_ENABLED", true)) {
+            return null;
+        }
+        return new CompressionFilter(
+                config.getInt("SERVER_COMPRESSION_MIN_BYTES", DEFAULT_MIN_BYTES),
+                config.getInt("SERVER_COMPRESSION_LEVEL", DEFAULT_LEVEL));
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        // Los encabezados de la solicitud no se pueden modificar: si hay que quitar sufijos
+        // de If-None-Match, el handler recibe una copia corregida
+        Headers requestHeaders = exchange.getRequestHeaders();
+        String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        String stripped = ifNoneMatch == null ? null : stripEncodingSuffixes(ifNoneMatch);
+        if (stripped != null && !stripped.equals(ifNoneMatch)) {
+            requestHeaders = new Headers(requestHeaders);
+            requestHeaders.set("If-None-Match", stripped);
+        }
+
+        // Aunque no se comprima, el intercambio se envuelve para añadir Vary: Accept-Encoding
+        Encoding encoding = "HEAD".equals(exchange.getRequestMethod())
+                ? null
+                : negotiate(requestHeaders.getFirst("Accept-Encoding"));
+        CompressingExchange compressing = new CompressingExchange(exchange, requestHeaders, encoding, minBytes, level);
+        try {
+            chain.doFilter(compressing);
+        } finally {
+            compressing.finish();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "gzip/deflate response compression";
+    }
+
+    /**
+     * Elige la codificación a partir de {@code Accept-Encoding}, respetando los valores q.
+     * Con pesos iguales se prefiere gzip.
+     *
+     * @param acceptEncoding Valor del encabezado (puede ser null).
+     * @return La codificación elegida, o null si el cliente no acepta ninguna soportada.
+     */
+    public static Encoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip":
+                case "x-gzip":
+                    gzip = Math.max(gzip, q);
+                    break;
+                case "deflate":
+                    deflate = Math.max(deflate, q);
+                    break;
+                case "*":
+                    wildcard = q;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (gzip < 0) gzip = wildcard;
+        if (deflate < 0) deflate = wildcard;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? Encoding.GZIP : Encoding.DEFLATE;
+    }
+
+    /**
+     * Quita de cada ETag de If-None-Match el sufijo de codificación que añade este filtro.
+     *
+     * @param ifNoneMatch Valor del encabezado.
+     * @return El valor con los ETags originales.
+     */
+    static String stripEncodingSuffixes(String ifNoneMatch) {
+        String result = ifNoneMatch;
+        for (Encoding encoding : Encoding.values()) {
+            result = result.replace("-" + encoding.token() + "\"", "\"");
+        }
+        return result;
+    }
+}
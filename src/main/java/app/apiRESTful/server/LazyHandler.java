@@ -0,0 +1,57 @@
+package app.apiRESTful.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+
+/**
+ * Handler que crea el handler real con la primera solicitud que recibe, en lugar de al
+ * arrancar. Sirve para lo que es caro de preparar y no hace falta para atender la API
+ * (por ejemplo, leer y comprimir los recursos estáticos).
+ *
+ * Si la creación falla, la solicitud recibe el error y la siguiente lo vuelve a intentar.
+ */
+public class LazyHandler implements HttpHandler {
+
+    /**
+     * Crea el handler real.
+     */
+    @FunctionalInterface
+    public interface Factory {
+        HttpHandler create() throws IOException;
+    }
+
+    private final Factory factory;
+    private volatile HttpHandler handler;
+
+    /**
+     * @param factory Crea el handler real; se llama una sola vez si no falla.
+     */
+    public LazyHandler(Factory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        get().handle(exchange);
+    }
+
+    /**
+     * @return El handler real, creándolo si es la primera vez.
+     * @throws IOException Si la creación falla.
+     */
+    public HttpHandler get() throws IOException {
+        HttpHandler current = handler;
+        if (current == null) {
+            synchronized (this) {
+                current = handler;
+                if (current == null) {
+                    current = factory.create();
+                    handler = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,201 @@
+package app.apiRESTful.server;
+
+import app.config.AppConfig;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fábrica de ejecutores para el {@code HttpServer}.
+ *
+ * Con {@code setExecutor(null)} todas las solicitudes se atienden en el único hilo
+ * despachador del servidor, por lo que una llamada JDBC lenta bloquea a todos los clientes.
+ * Esta clase ofrece modos de ejecución configurables:
+ * - {@link Mode#VIRTUAL}: un hilo virtual por solicitud.
+ * - {@link Mode#PLATFORM}: un pool acotado de hilos de plataforma.
+ * - {@link Mode#DISPATCHER}: el comportamiento original (hilo despachador).
+ *
+ * Los modos VIRTUAL y PLATFORM limitan la concurrencia y la cola de espera. Cuando la
+ * cola está llena, el hilo despachador se bloquea hasta que haya espacio (contrapresión),
+ * de modo que las conexiones nuevas esperan en el backlog TCP en lugar de acumularse en memoria.
+ *
+ * Configuración (.env):
+ * - SERVER_EXECUTOR: virtual | platform | dispatcher (por defecto virtual).
+ * - SERVER_MAX_CONCURRENCY: solicitudes atendidas en paralelo (por defecto 64).
+ * - SERVER_QUEUE_LIMIT: solicitudes en espera como máximo (por defecto 1000).
+ */
+public final class RequestExecutors {
+
+    /**
+     * Modos de ejecución disponibles.
+     */
+    public enum Mode {
+        VIRTUAL, PLATFORM, DISPATCHER;
+
+        /**
+         * Convierte el valor de configuración en un modo.
+         *
+         * @param value Texto de configuración (no distingue mayúsculas).
+         * @return El modo correspondiente.
+         */
+        public static Mode parse(String value) {
+            try {
+                return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown SERVER_EXECUTOR mode: " + value);
+            }
+        }
+    }
+
+    private RequestExecutors() {
+    }
+
+    /**
+     * Crea el ejecutor a partir de las claves SERVER_* del entorno.
+     *
+     * @param config Configuración de la aplicación.
+     * @return El ejecutor configurado, o {@code null} en modo DISPATCHER.
+     */
+    public static ExecutorService fromEnv(AppConfig config) {
+        return create(
+                Mode.parse(config.get("SERVER_EXECUTOR", "virtual")),
+                config.getInt("SERVER_MAX_CONCURRENCY", 64),
+                config.getInt("SERVER_QUEUE_LIMIT", 1000));
+    }
+
+    /**
+     * Crea un ejecutor para el modo indicado.
+     *
+     * @param mode           Modo de ejecución.
+     * @param maxConcurrency Máximo de solicitudes atendidas en paralelo.
+     * @param queueLimit     Máximo de solicitudes en espera.
+     * @return El ejecutor, o {@code null} en modo DISPATCHER (lo que {@code HttpServer.setExecutor} interpreta como el hilo despachador).
+     */
+    public static ExecutorService create(Mode mode, int maxConcurrency, int queueLimit) {
+        if (maxConcurrency <= 0 || queueLimit < 0) {
+            throw new IllegalArgumentException("Invalid executor limits: concurrency=" + maxConcurrency + ", queue=" + queueLimit);
+        }
+        switch (mode) {
+            case VIRTUAL:
+                return new BoundedVirtualThreadExecutor(maxConcurrency, queueLimit);
+            case PLATFORM:
+                return newBoundedPlatformPool(maxConcurrency, queueLimit);
+            default:
+                return null;
+        }
+    }
+
+    // Pool de hilos de plataforma con cola acotada; al llenarse bloquea al hilo que envía la tarea
+    private static ExecutorService newBoundedPlatformPool(int maxConcurrency, int queueLimit) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxConcurrency, maxConcurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueLimit)),
+                namedThreads("http-worker-"),
+                blockWhenFull());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static RejectedExecutionHandler blockWhenFull() {
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for a free worker", e);
+            }
+        };
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Ejecutor de un hilo virtual por tarea, con límite de concurrencia y de cola.
+     *
+     * Los hilos virtuales permiten que las llamadas JDBC bloqueantes se solapen sin
+     * reservar un hilo de sistema por solicitud; el semáforo de concurrencia evita que
+     * una ráfaga de solicitudes agote el pool de conexiones.
+     */
+    static final class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        // Tareas admitidas (en ejecución + en espera)
+        private final Semaphore admission;
+        // Tareas en ejecución
+        private final Semaphore running;
+
+        BoundedVirtualThreadExecutor(int maxConcurrency, int queueLimit) {
+            this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vthread-", 0).factory());
+            this.admission = new Semaphore(maxConcurrency + queueLimit);
+            this.running = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (delegate.isShutdown()) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            admission.acquireUninterruptibly();
+            try {
+                delegate.execute(() -> {
+                    running.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                        admission.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                admission.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package app.apiRESTful.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Recurso estático ya preparado para servirse: el contenido original, su variante gzip
+ * (si compensa) y los metadatos de caché HTTP calculados una sola vez.
+ */
+public final class StaticAsset {
+
+    private final String contentType;
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final String etag;
+    private final long lastModified;
+
+    private StaticAsset(String contentType, byte[] identity, byte[] gzip, String etag, long lastModified) {
+        this.contentType = contentType;
+        this.identity = identity;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Prepara un recurso: calcula su ETag (SHA-256 del contenido) y, si el tipo es de texto
+     * y la compresión reduce el tamaño, su variante gzip con el nivel máximo.
+     *
+     * @param content      Contenido del recurso (no se copia; no debe modificarse después).
+     * @param contentType  Tipo MIME.
+     * @param lastModified Fecha de modificación en milisegundos (se trunca a segundos, como en HTTP).
+     * @return El recurso preparado.
+     */
+    public static StaticAsset of(byte[] content, String contentType, long lastModified) {
+        byte[] compressed = isCompressible(contentType) ? gzip(content) : null;
+        if (compressed != null && compressed.length >= content.length) {
+            compressed = null;
+        }
+        return new StaticAsset(contentType, content, compressed, "\"" + hash(content) + "\"", lastModified / 1000 * 1000);
+    }
+
+    /**
+     * Tipo MIME según la extensión del archivo.
+     *
+     * @param fileName Nombre del archivo.
+     * @return El tipo MIME, o application/octet-stream si no se reconoce.
+     */
+    public static String contentTypeFor(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1) : "";
+        switch (extension) {
+            case "html":
+            case "htm": return "text/html; charset=utf-8";
+            case "css": return "text/css; charset=utf-8";
+            case "js": return "application/javascript; charset=utf-8";
+            case "json": return "application/json; charset=utf-8";
+            case "txt": return "text/plain; charset=utf-8";
+            case "svg": return "image/svg+xml";
+            case "png": return "image/png";
+            case "jpg":
+            case "jpeg": return "image/jpeg";
+            case "gif": return "image/gif";
+            case "ico": return "image/x-icon";
+            default: return "application/octet-stream";
+        }
+    }
+
+    public String getContentType() { return contentType; }
+    public byte[] getIdentity() { return identity; }
+    public byte[] getGzip() { return gzip; }
+    public String getEtag() { return etag; }
+    public long getLastModified() { return lastModified; }
+
+    /**
+     * @return ETag de la variante gzip (el de la original con el sufijo "-gzip").
+     */
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.startsWith("application/json")
+                || contentType.startsWith("application/javascript") || contentType.startsWith("image/svg");
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
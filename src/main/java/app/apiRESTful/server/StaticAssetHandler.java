@@ -0,0 +1,325 @@
+package app.apiRESTful.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Handler de recursos estáticos servidos desde memoria.
+ *
+ * Cada recurso se lee y se prepara una sola vez ({@link StaticAsset}): la variante gzip, el
+ * ETag y la fecha de modificación ya están calculados, así que atender una solicitud sólo
+ * consiste en elegir la variante y escribir un arreglo de bytes. Soporta GET y HEAD,
+ * If-None-Match / If-Modified-Since (304) y envía Cache-Control.
+ *
+ * Con {@link #watch()} los archivos registrados se recargan cuando cambian en disco, y los
+ * archivos y subdirectorios nuevos de un directorio registrado se publican al crearse.
+ *
+ * Uso:
+ * <pre>
+ * StaticAssetHandler assets = new StaticAssetHandler("public, max-age=300");
+ * assets.addFile("/index.html", Paths.get("index.html"));
+ * assets.addDirectory("/images/", Paths.get("images"));
+ * server.createContext("/images/", assets);
+ * </pre>
+ */
+public class StaticAssetHandler implements HttpHandler {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    private final String cacheControl;
+    private final Map<String, StaticAsset> assets = new ConcurrentHashMap<>();
+    // Archivo en disco -> rutas URL que lo sirven
+    private final Map<Path, List<String>> files = new ConcurrentHashMap<>();
+    // Directorio registrado con addDirectory -> prefijo de la URL
+    private final Map<Path, String> directories = new ConcurrentHashMap<>();
+    private volatile WatchService watchService;
+
+    /**
+     * @param cacheControl Valor del encabezado Cache-Control de las respuestas.
+     */
+    public StaticAssetHandler(String cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Registra un contenido generado en memoria.
+     *
+     * @param urlPath     Ruta de la URL (por ejemplo "/swagger-ui").
+     * @param contentType Tipo MIME.
+     * @param content     Contenido.
+     */
+    public void addContent(String urlPath, String contentType, String content) {
+        assets.put(urlPath, StaticAsset.of(content.getBytes(StandardCharsets.UTF_8), contentType, System.currentTimeMillis()));
+    }
+
+    /**
+     * Registra un archivo. Si no se puede leer se informa y la ruta responde 404.
+     *
+     * @param urlPath Ruta de la URL.
+     * @param file    Archivo en disco.
+     */
+    public void addFile(String urlPath, Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        files.computeIfAbsent(absolute, key -> new CopyOnWriteArrayList<>()).add(urlPath);
+        load(absolute);
+    }
+
+    /**
+     * Registra todos los archivos de un directorio (y sus subdirectorios) bajo un prefijo.
+     *
+     * @param urlPrefix Prefijo de la URL terminado en "/" (por ejemplo "/images/").
+     * @param directory Directorio en disco.
+     */
+    public void addDirectory(String urlPrefix, Path directory) {
+        Path root = directory.toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            System.err.println("Static asset directory not found: " + root);
+            return;
+        }
+        directories.put(root, urlPrefix);
+        addFiles(root, urlPrefix, root);
+    }
+
+    // Registra los archivos de start (un directorio o archivo dentro de root) que aún no lo estén
+    private void addFiles(Path root, String urlPrefix, Path start) {
+        try (Stream<Path> paths = Files.walk(start)) {
+            paths.filter(file -> Files.isRegularFile(file) && !files.containsKey(file)).forEach(file ->
+                    addFile(urlPrefix + root.relativize(file).toString().replace('\\', '/'), file));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param urlPath Ruta de la URL.
+     * @return El recurso registrado en esa ruta, o null.
+     */
+    public StaticAsset get(String urlPath) {
+        return assets.get(urlPath);
+    }
+
+    /**
+     * Empieza a vigilar los directorios de los archivos registrados y recarga cada archivo
+     * cuando se modifica. En los directorios registrados con {@link #addDirectory} también
+     * se publican los archivos nuevos y se vigilan los subdirectorios nuevos. El hilo de
+     * vigilancia es un daemon.
+     *
+     * @throws IOException Si no se puede crear el WatchService.
+     */
+    public synchronized void watch() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path directory : files.keySet().stream().map(Path::getParent).distinct().toList()) {
+            register(watchService, directory);
+        }
+        for (Path root : directories.keySet()) {
+            registerTree(watchService, root);
+        }
+        Thread watcher = new Thread(this::watchLoop, "static-assets-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Detiene la vigilancia de archivos.
+     */
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Nada que liberar
+            }
+            watchService = null;
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            sendText(exchange, 405, "Method Not Allowed");
+            return;
+        }
+        StaticAsset asset = assets.get(exchange.getRequestURI().getPath());
+        if (asset == null) {
+            sendText(exchange, 404, "Not Found");
+            return;
+        }
+
+        boolean gzip = asset.getGzip() != null
+                && CompressionFilter.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding")) == CompressionFilter.Encoding.GZIP;
+        String etag = gzip ? asset.getGzipEtag() : asset.getEtag();
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", etag);
+        headers.set("Last-Modified", HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(asset.getLastModified()), ZoneOffset.UTC)));
+        headers.set("Cache-Control", cacheControl);
+        if (asset.getGzip() != null) {
+            headers.set("Vary", "Accept-Encoding");
+        }
+
+        if (isNotModified(exchange.getRequestHeaders(), asset)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = gzip ? asset.getGzip() : asset.getIdentity();
+        headers.set("Content-Type", asset.getContentType());
+        if (gzip) {
+            headers.set("Content-Encoding", "gzip");
+        }
+        if (head) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    // If-None-Match tiene prioridad sobre If-Modified-Since (RFC 9110)
+    private static boolean isNotModified(Headers request, StaticAsset asset) {
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(asset.getEtag()) || tag.equals(asset.getGzipEtag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = request.getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, HTTP_DATE).toInstant().toEpochMilli();
+                return asset.getLastModified() <= since;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void load(Path file) {
+        List<String> urlPaths = files.get(file);
+        if (urlPaths == null) {
+            return;
+        }
+        try {
+            StaticAsset asset = StaticAsset.of(Files.readAllBytes(file),
+                    StaticAsset.contentTypeFor(file.getFileName().toString()),
+                    Files.getLastModifiedTime(file).toMillis());
+            for (String urlPath : urlPaths) {
+                assets.put(urlPath, asset);
+            }
+        } catch (IOException e) {
+            System.err.println("Static asset not available: " + file + " (" + e.getMessage() + ")");
+            for (String urlPath : urlPaths) {
+                assets.remove(urlPath);
+            }
+        }
+    }
+
+    private static void register(WatchService service, Path directory) throws IOException {
+        directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private static void registerTree(WatchService service, Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : paths.filter(Files::isDirectory).toList()) {
+                register(service, directory);
+            }
+        }
+    }
+
+    /**
+     * Publica un archivo o directorio creado dentro de un directorio registrado. Los
+     * subdirectorios se vigilan antes de recorrerlos, así que un archivo creado entre
+     * medias llega por el recorrido o por su propio evento.
+     */
+    private void created(WatchService service, Path path) throws IOException {
+        Path root = null;
+        for (Path candidate : directories.keySet()) {
+            if (path.startsWith(candidate) && (root == null || candidate.startsWith(root))) {
+                root = candidate;
+            }
+        }
+        if (root == null) {
+            return;
+        }
+        if (Files.isDirectory(path)) {
+            registerTree(service, path);
+        }
+        addFiles(root, directories.get(root), path);
+    }
+
+    private void watchLoop() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path name) {
+                        Path path = directory.resolve(name);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && !files.containsKey(path)) {
+                            try {
+                                created(service, path);
+                            } catch (IOException e) {
+                                System.err.println("Static asset directory not watched: " + path + " (" + e.getMessage() + ")");
+                            }
+                        } else {
+                            load(path);
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Vigilancia detenida
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int statusCode, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package app.config;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.github.cdimascio.dotenv.DotenvEntry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración inmutable de la aplicación, leída una sola vez al arrancar.
+ *
+ * Reúne las claves del archivo .env de la raíz del proyecto y las variables de entorno
+ * del proceso; si una clave aparece en ambos sitios, gana la variable de entorno. Si no
+ * hay archivo .env se usan sólo las variables de entorno (útil en contenedores).
+ *
+ * Los {@code fromEnv} de cada componente reciben esta configuración en lugar de volver a
+ * leer y analizar el archivo. Los valores numéricos y booleanos se leen sin espacios
+ * alrededor; un número mal escrito se rechaza con el nombre de la clave.
+ */
+public final class AppConfig {
+
+    private static volatile AppConfig instance;
+
+    private final Map<String, String> values;
+
+    /**
+     * @param values Claves y valores; se guarda una copia.
+     */
+    public AppConfig(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+    }
+
+    /**
+     * Lee el archivo .env (si existe) y las variables de entorno del proceso.
+     *
+     * @return Una configuración nueva.
+     */
+    public static AppConfig load() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        Map<String, String> values = new HashMap<>();
+        for (DotenvEntry entry : dotenv.entries()) {
+            values.put(entry.getKey(), entry.getValue());
+        }
+        values.putAll(System.getenv());
+        return new AppConfig(values);
+    }
+
+    /**
+     * Devuelve la configuración compartida, leyéndola con {@link #load()} en el primer uso.
+     *
+     * @return La configuración compartida.
+     */
+    public static AppConfig getInstance() {
+        AppConfig config = instance;
+        if (config == null) {
+            synchronized (AppConfig.class) {
+                config = instance;
+                if (config == null) {
+                    config = load();
+                    instance = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * @param key Nombre de la clave.
+     * @return Su valor, o null si no está definida.
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @param key          Nombre de la clave.
+     * @param defaultValue Valor si la clave no está definida.
+     * @return Su valor, o defaultValue.
+     */
+    public String get(String key, String defaultValue) {
+        String value = values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * @param key          Nombre de la clave.
+     * @param defaultValue Valor si la clave no está definida.
+     * @return El valor como entero.
+     * @throws IllegalArgumentException Si el valor no es un entero.
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for " + key + ": " + value);
+        }
+    }
+
+    /**
+     * @param key          Nombre de la clave.
+     * @param defaultValue Valor si la clave no está definida.
+     * @return El valor como entero largo.
+     * @throws IllegalArgumentException Si el valor no es un entero.
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for " + key + ": " + value);
+        }
+    }
+
+    /**
+     * @param key          Nombre de la clave.
+     * @param defaultValue Valor si la clave no está definida.
+     * @return true si el valor es "true" (sin distinguir mayúsculas).
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key);
+        return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+    }
+}
@@ -0,0 +1,472 @@
+package app.database;
+
+import app.config.AppConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool acotado de conexiones JDBC compartido por los DAO y los helpers de base de datos.
+ *
+ * Evita abrir una conexión física (handshake TCP + autenticación de MySQL) por cada
+ * operación. Las conexiones prestadas son proxies: al llamar a {@code close()} la
+ * conexión física vuelve al pool en lugar de cerrarse.
+ *
+ * Configuración (mismas claves del archivo .env):
+ * - DB_URL, DB_USER, DB_PASSWORD: datos de conexión.
+ * - DB_POOL_MIN_SIZE: conexiones que se mantienen abiertas como mínimo (por defecto 2).
+ * - DB_POOL_MAX_SIZE: máximo de conexiones simultáneas (por defecto 10).
+ * - DB_POOL_MAX_WAIT_MS: tiempo máximo de espera para obtener una conexión (por defecto 5000).
+ * - DB_POOL_VALIDATION_IDLE_MS: inactividad tras la cual se valida la conexión antes de prestarla (por defecto 30000).
+ * - DB_POOL_MAX_LIFETIME_MS: vida máxima de una conexión física (por defecto 1800000).
+ */
+public class ConnectionPool {
+
+    private static volatile ConnectionPool instance;
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long validationIdleMillis;
+    private final long maxLifetimeMillis;
+
+    // Permisos = conexiones que todavía se pueden prestar
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeNanos = new AtomicLong();
+    private final AtomicLong maxBorrowTimeNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Crea un pool con la configuración indicada y precarga las conexiones mínimas.
+     *
+     * @param url                  URL JDBC de la base de datos.
+     * @param user                 Usuario de la base de datos.
+     * @param password             Contraseña de la base de datos.
+     * @param minSize              Número mínimo de conexiones abiertas.
+     * @param maxSize              Número máximo de conexiones.
+     * @param maxWaitMillis        Espera máxima para obtener una conexión.
+     * @param validationIdleMillis Inactividad tras la cual se valida una conexión antes de prestarla.
+     * @param maxLifetimeMillis    Vida máxima de una conexión física.
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long maxWaitMillis, long validationIdleMillis, long maxLifetimeMillis) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.connectionProperties = new Properties();
+        if (user != null) connectionProperties.setProperty("user", user);
+        if (password != null) connectionProperties.setProperty("password", password);
+        // Connector/J: reescribe los lotes de INSERT como un único INSERT multi-fila
+        connectionProperties.setProperty("rewriteBatchedStatements", "true");
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.validationIdleMillis = validationIdleMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(validationIdleMillis, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+        maintain();
+    }
+
+    /**
+     * Devuelve el pool global, creándolo en el primer uso a partir de {@link AppConfig#getInstance()}.
+     *
+     * @return La instancia compartida del pool.
+     */
+    public static ConnectionPool getInstance() {
+        ConnectionPool pool = instance;
+        if (pool == null) {
+            synchronized (ConnectionPool.class) {
+                pool = instance;
+                if (pool == null) {
+                    pool = fromEnv(AppConfig.getInstance());
+                    instance = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Crea un pool leyendo las claves DB_* del entorno indicado.
+     *
+     * @param config Configuración de la aplicación.
+     * @return Un pool configurado.
+     */
+    public static ConnectionPool fromEnv(AppConfig config) {
+        return new ConnectionPool(
+                config.get("DB_URL"),
+                config.get("DB_USER"),
+                config.get("DB_PASSWORD"),
+                config.getInt("DB_POOL_MIN_SIZE", 2),
+                config.getInt("DB_POOL_MAX_SIZE", 10),
+                config.getLong("DB_POOL_MAX_WAIT_MS", 5000),
+                config.getLong("DB_POOL_VALIDATION_IDLE_MS", 30000),
+                config.getLong("DB_POOL_MAX_LIFETIME_MS", 1800000));
+    }
+
+    /**
+     * Presta una conexión del pool. Debe cerrarse (idealmente con try-with-resources)
+     * para devolverla.
+     *
+     * @return Una conexión lista para usarse.
+     * @throws SQLException Si el pool está cerrado, se agota el tiempo de espera
+     *                      ({@link SQLTransientConnectionException}) o falla la conexión.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            DbTimeTracker.record(System.nanoTime() - start);
+            throw new SQLTransientConnectionException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+        }
+
+        try {
+            PooledConnection pooled = takeHealthyIdle();
+            if (pooled == null) {
+                pooled = openPhysical();
+            }
+            active.incrementAndGet();
+            recordBorrow(System.nanoTime() - start);
+            return pooled.newProxy(start);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una instantánea de las estadísticas del pool.
+     *
+     * @return Estadísticas actuales.
+     */
+    public Stats getStats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Stats(active.get(), idleCount, waiting.get(), total.get(), maxSize,
+                borrowCount.get(), borrowTimeNanos.get(), maxBorrowTimeNanos.get(), timeouts.get());
+    }
+
+    /**
+     * Cierra el pool y todas las conexiones inactivas. Las conexiones prestadas se
+     * cierran físicamente cuando se devuelven.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            for (PooledConnection pooled : idle) {
+                closePhysical(pooled);
+            }
+            idle.clear();
+        }
+    }
+
+    // Obtiene una conexión inactiva válida, descartando las caducadas o rotas
+    private PooledConnection takeHealthyIdle() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            long now = System.nanoTime();
+            if (isExpired(pooled, now)) {
+                closePhysical(pooled);
+                continue;
+            }
+            if (now - pooled.lastReturnedAt >= TimeUnit.MILLISECONDS.toNanos(validationIdleMillis) && !isValid(pooled)) {
+                closePhysical(pooled);
+                continue;
+            }
+            return pooled;
+        }
+    }
+
+    // Llamado por el proxy cuando la aplicación cierra la conexión
+    private void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            boolean reusable = !closed && !pooled.broken && !isExpired(pooled, System.nanoTime()) && resetState(pooled);
+            if (reusable) {
+                pooled.lastReturnedAt = System.nanoTime();
+                synchronized (idle) {
+                    // LIFO: la conexión más reciente es la que tiene más probabilidad de seguir viva
+                    idle.offerFirst(pooled);
+                }
+            } else {
+                closePhysical(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Deshace transacciones pendientes y restaura el modo autocommit antes de reutilizar
+    private boolean resetState(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Tarea periódica: retira conexiones caducadas y repone el mínimo
+    private void maintain() {
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (idle) {
+            idle.removeIf(pooled -> {
+                if (isExpired(pooled, now)) {
+                    closePhysical(pooled);
+                    return true;
+                }
+                return false;
+            });
+        }
+        while (!closed && total.get() < minSize) {
+            try {
+                PooledConnection pooled = openPhysical();
+                pooled.lastReturnedAt = System.nanoTime();
+                synchronized (idle) {
+                    idle.offerLast(pooled);
+                }
+            } catch (SQLException e) {
+                System.err.println("No se pudo precargar una conexión del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, connectionProperties);
+        total.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void closePhysical(PooledConnection pooled) {
+        total.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // La conexión ya no es utilizable; no hay nada más que hacer
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        return now - pooled.createdAt >= TimeUnit.MILLISECONDS.toNanos(maxLifetimeMillis);
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordBorrow(long nanos) {
+        borrowCount.incrementAndGet();
+        borrowTimeNanos.addAndGet(nanos);
+        long max;
+        do {
+            max = maxBorrowTimeNanos.get();
+        } while (nanos > max && !maxBorrowTimeNanos.compareAndSet(max, nanos));
+    }
+
+    /**
+     * Conexión física administrada por el pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final long createdAt = System.nanoTime();
+        private volatile long lastReturnedAt;
+        private volatile boolean broken;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newProxy(long requestedAt) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this, requestedAt));
+        }
+    }
+
+    /**
+     * Manejador del proxy entregado a la aplicación. Cada préstamo tiene su propio
+     * manejador, de modo que un {@code close()} repetido no devuelve la conexión dos veces.
+     */
+    private final class Handle implements InvocationHandler {
+        private PooledConnection pooled;
+        private final long requestedAt;
+
+        private Handle(PooledConnection pooled, long requestedAt) {
+            this.pooled = pooled;
+            this.requestedAt = requestedAt;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            synchronized (this) {
+                if ("close".equals(name)) {
+                    if (pooled != null) {
+                        PooledConnection returned = pooled;
+                        pooled = null;
+                        release(returned);
+                        DbTimeTracker.record(System.nanoTime() - requestedAt);
+                    }
+                    return null;
+                }
+                if ("isClosed".equals(name)) {
+                    return pooled == null || pooled.physical.isClosed();
+                }
+                if (pooled == null) {
+                    if ("toString".equals(name)) return "PooledConnection[closed]";
+                    if ("hashCode".equals(name)) return System.identityHashCode(proxy);
+                    if ("equals".equals(name)) return proxy == args[0];
+                    throw new SQLException("Connection has been returned to the pool");
+                }
+            }
+            if ("unwrap".equals(name) || "isWrapperFor".equals(name)) {
+                Class<?> type = (Class<?>) args[0];
+                if (type.isInstance(proxy)) {
+                    return "unwrap".equals(name) ? proxy : Boolean.TRUE;
+                }
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlException && isFatal(sqlException)) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        // Estados SQL de la clase 08 indican que la conexión ya no es utilizable
+        private boolean isFatal(SQLException e) {
+            String state = e.getSQLState();
+            return state != null && state.startsWith("08");
+        }
+    }
+
+    /**
+     * Estadísticas del pool en un instante dado.
+     */
+    public static final class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final int total;
+        private final int maxSize;
+        private final long borrowCount;
+        private final long borrowTimeNanos;
+        private final long maxBorrowTimeNanos;
+        private final long timeouts;
+
+        Stats(int active, int idle, int waiting, int total, int maxSize, long borrowCount,
+              long borrowTimeNanos, long maxBorrowTimeNanos, long timeouts) {
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.total = total;
+            this.maxSize = maxSize;
+            this.borrowCount = borrowCount;
+            this.borrowTimeNanos = borrowTimeNanos;
+            this.maxBorrowTimeNanos = maxBorrowTimeNanos;
+            this.timeouts = timeouts;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public int getTotal() { return total; }
+        public int getMaxSize() { return maxSize; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getBorrowTimeNanos() { return borrowTimeNanos; }
+        public long getMaxBorrowTimeNanos() { return maxBorrowTimeNanos; }
+        public long getTimeouts() { return timeouts; }
+
+        public double getAverageBorrowMillis() {
+            return borrowCount == 0 ? 0 : borrowTimeNanos / (double) borrowCount / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return "{" +
+                    "\"active\":" + active + "," +
+                    "\"idle\":" + idle + "," +
+                    "\"waiting\":" + waiting + "," +
+                    "\"total\":" + total + "," +
+                    "\"maxSize\":" + maxSize + "," +
+                    "\"borrowCount\":" + borrowCount + "," +
+                    "\"avgBorrowMillis\":" + getAverageBorrowMillis() + "," +
+                    "\"maxBorrowMillis\":" + maxBorrowTimeNanos / 1_000_000.0 + "," +
+                    "\"timeouts\":" + timeouts +
+                    "}";
+        }
+    }
+}
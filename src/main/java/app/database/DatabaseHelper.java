@@ -1,30 +1,34 @@
 package app.database;
 
 import java.sql.*;
-import io.github.cdimascio.dotenv.Dotenv;
 
 public class DatabaseHelper {
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String DB_URL = dotenv.get("DB_URL");
-    private static final String DB_USER = dotenv.get("DB_USER");
-    private static final String DB_PASSWORD = dotenv.get("DB_PASSWORD");
 
-    // Conectar a la base de datos
+    // Obtener una conexión del pool compartido
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        return ConnectionPool.getInstance().getConnection();
     }
 
-    // Verificar si un usuario existe
-    public static boolean isValidUser(String username, String password) throws SQLException {
-        String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
-        
+    // Preparar una consulta de solo lectura que se lee fila a fila desde el servidor
+    // (Connector/J sólo transmite en flujo con fetch size Integer.MIN_VALUE; si no, carga todo el resultado en memoria)
+    public static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        return stmt;
+    }
+
+    // Contraseña guardada de un usuario, o null si no existe
+    // (sólo la columna necesaria, buscada por el índice único de username)
+    public static String findPassword(String username) throws SQLException {
+        String sql = "SELECT password FROM users WHERE username = ?";
+
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, username);
-            stmt.setString(2, password);
-            
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package app.database;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Acumula, por hilo, el tiempo que una solicitud pasa en la base de datos.
+ *
+ * El {@link ConnectionPool} suma aquí el tiempo transcurrido desde que se pide una
+ * conexión hasta que se devuelve (espera en el pool incluida). Quien quiera medir una
+ * solicitud llama a {@link #begin()} al empezar y a {@link #end()} al terminar (en un
+ * finally), en el mismo hilo; fuera de ese intervalo el tiempo registrado se descarta.
+ *
+ * Cada hilo tiene un único acumulador que {@link #begin()} pone a cero, así que medir no
+ * crea objetos por solicitud en los hilos que se reutilizan. Las tareas que la solicitud
+ * delega en otro hilo (las del bulkhead) se envuelven con {@link #propagate(Callable)} para
+ * que su tiempo se sume al de la solicitud que las lanzó.
+ */
+public final class DbTimeTracker {
+
+    private static final ThreadLocal<Accumulator> CURRENT = ThreadLocal.withInitial(Accumulator::new);
+
+    private DbTimeTracker() {
+    }
+
+    /**
+     * Empieza a acumular el tiempo de base de datos del hilo actual desde cero.
+     */
+    public static void begin() {
+        CURRENT.get().start();
+    }
+
+    /**
+     * Deja de acumular y devuelve el tiempo registrado desde {@link #begin()}.
+     *
+     * @return Tiempo de base de datos en nanosegundos (0 si no había una medición en curso).
+     */
+    public static long end() {
+        return CURRENT.get().stop();
+    }
+
+    /**
+     * Envuelve una tarea que se ejecutará en otro hilo para que el tiempo de base de datos
+     * que consuma se sume a la medición en curso del hilo actual. Si la medición ya terminó
+     * cuando la tarea acaba (por ejemplo, porque expiró), su tiempo se descarta.
+     *
+     * @param task Tarea.
+     * @param <T>  Tipo del resultado.
+     * @return La tarea envuelta, o la misma si el hilo actual no está midiendo.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Accumulator caller = CURRENT.get();
+        long generation = caller.activeGeneration();
+        if (generation < 0) {
+            return task;
+        }
+        return () -> {
+            begin();
+            try {
+                return task.call();
+            } finally {
+                caller.add(generation, end());
+            }
+        };
+    }
+
+    /**
+     * Suma tiempo de base de datos al hilo actual si hay una medición en curso.
+     *
+     * @param nanos Tiempo en nanosegundos.
+     */
+    static void record(long nanos) {
+        Accumulator accumulator = CURRENT.get();
+        accumulator.add(accumulator.activeGeneration(), nanos);
+    }
+
+    // Las tareas propagadas suman desde otros hilos: la generación evita que una que termina
+    // tarde sume a la medición siguiente del mismo hilo
+    private static final class Accumulator {
+        private long generation;
+        private boolean active;
+        private long nanos;
+
+        synchronized void start() {
+            generation++;
+            active = true;
+            nanos = 0;
+        }
+
+        synchronized long stop() {
+            if (!active) {
+                return 0;
+            }
+            active = false;
+            return nanos;
+        }
+
+        synchronized long activeGeneration() {
+            return active ? generation : -1;
+        }
+
+        synchronized void add(long measured, long elapsed) {
+            if (active && generation == measured) {
+                nanos += elapsed;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package app.database;
+
+import app.config.AppConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Aplica al arrancar las migraciones de esquema pendientes.
+ *
+ * Las migraciones son archivos {@code V<n>__<descripción>.sql} de un directorio, que se
+ * aplican en orden de n. Las ya aplicadas se registran en la tabla {@code schema_migrations},
+ * así que cada una se ejecuta una sola vez por base de datos. Cada archivo puede tener
+ * varias sentencias terminadas en ";" al final de la línea; las líneas que empiezan por
+ * "--" son comentarios.
+ *
+ * Configuración (.env):
+ * - DB_MIGRATE: true | false (por defecto true).
+ * - DB_MIGRATIONS_DIR: directorio de las migraciones (por defecto db/migrations).
+ */
+public class SchemaMigrator {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__.+\\.sql");
+
+    private final Path directory;
+
+    /**
+     * @param directory Directorio de las migraciones.
+     */
+    public SchemaMigrator(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Crea el migrador a partir de las claves DB_MIGRATE y DB_MIGRATIONS_DIR del entorno.
+     *
+     * @param config Configuración de la aplicación.
+     * @return El migrador, o null si las migraciones están desactivadas.
+     */
+    public static SchemaMigrator fromEnv(AppConfig config) {
+        if (!config.getBoolean("DB_MIGRATE", true)) {
+            return null;
+        }
+        return new SchemaMigrator(Paths.get(config.get("DB_MIGRATIONS_DIR", "db/migrations").trim()));
+    }
+
+    /**
+     * Aplica las migraciones pendientes en orden. Se detiene en la primera que falla.
+     *
+     * @return Los nombres de las migraciones aplicadas en esta llamada.
+     * @throws SQLException Si falla una migración o el registro.
+     * @throws IOException  Si no se puede leer un archivo.
+     */
+    public List<String> migrate() throws SQLException, IOException {
+        List<Path> files = pendingCandidates();
+        List<String> applied = new ArrayList<>();
+        if (files.isEmpty()) {
+            return applied;
+        }
+        try (Connection conn = DatabaseHelper.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                        + "version VARCHAR(200) PRIMARY KEY, "
+                        + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            }
+            Set<String> done = appliedVersions(conn);
+            for (Path file : files) {
+                String version = file.getFileName().toString();
+                if (done.contains(version)) {
+                    continue;
+                }
+                // El DDL de MySQL confirma implícitamente: cada sentencia se aplica por separado
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : statements(Files.readString(file, StandardCharsets.UTF_8))) {
+                        stmt.execute(sql);
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO schema_migrations (version) VALUES (?)")) {
+                    stmt.setString(1, version);
+                    stmt.executeUpdate();
+                }
+                applied.add(version);
+            }
+        }
+        return applied;
+    }
+
+    // Archivos de migración del directorio ordenados por número de versión
+    private List<Path> pendingCandidates() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> FILE_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(SchemaMigrator::versionOf))
+                    .toList();
+        }
+    }
+
+    private static Set<String> appliedVersions(Connection conn) throws SQLException {
+        Set<String> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_migrations")) {
+            while (rs.next()) {
+                versions.add(rs.getString(1));
+            }
+        }
+        return versions;
+    }
+
+    private static long versionOf(Path file) {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Divide un script en sentencias: sin comentarios "--" de línea completa y separadas
+     * por ";" al final de la línea.
+     *
+     * @param script Contenido del archivo.
+     * @return Las sentencias, sin el ";" final.
+     */
+    static List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(trimmed);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+}
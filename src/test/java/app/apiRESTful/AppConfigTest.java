@@ -0,0 +1,49 @@
+package app.apiRESTful;
+
+import app.apiRESTful.server.CompressionFilter;
+import app.config.AppConfig;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class AppConfigTest extends TestCase {
+
+    public void testTypedValuesAreTrimmed() {
+        AppConfig config = new AppConfig(Map.of("POOL", " 12 ", "TTL", "60\t", "ENABLED", "TRUE ", "NAME", " api "));
+
+        assertEquals(12, config.getInt("POOL", 1));
+        assertEquals(60L, config.getLong("TTL", 1));
+        assertTrue(config.getBoolean("ENABLED", false));
+        assertEquals(" api ", config.get("NAME"));
+    }
+
+    public void testMissingKeysUseDefaults() {
+        AppConfig config = new AppConfig(Map.of());
+
+        assertNull(config.get("NAME"));
+        assertEquals("x", config.get("NAME", "x"));
+        assertEquals(7, config.getInt("POOL", 7));
+        assertEquals(9L, config.getLong("TTL", 9));
+        assertTrue(config.getBoolean("ENABLED", true));
+    }
+
+    public void testInvalidNumberNamesTheKey() {
+        AppConfig config = new AppConfig(Map.of("DB_POOL_MAX_SIZE", "diez"));
+        try {
+            config.getInt("DB_POOL_MAX_SIZE", 10);
+            fail("An invalid integer should be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("DB_POOL_MAX_SIZE"));
+        }
+    }
+
+    public void testValuesCannotChangeAfterLoading() {
+        Map<String, String> values = new HashMap<>();
+        values.put("SERVER_COMPRESSION_ENABLED", "false");
+        AppConfig config = new AppConfig(values);
+        values.put("SERVER_COMPRESSION_ENABLED", "true");
+
+        assertNull(CompressionFilter.fromEnv(config));
+    }
+}
@@ -1,6 +1,8 @@
 package app.apiRESTful;
 
 import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.auth.TokenCache;
+import app.apiRESTful.auth.VerifiedToken;
 import junit.framework.TestCase;
 
 public class AuthManagerTest extends TestCase {
@@ -56,4 +58,32 @@ public class AuthManagerTest extends TestCase {
         String username = authManager.getUsernameFromToken(shortLivedToken);
         assertNull("El nombre de usuario debería ser nulo para un token expirado", username);
     }
+
+    public void testValidateToken_RepeatedTokenUsesCachedClaims() {
+        assertTrue("El token debería ser válido", authManager.validateToken(validToken));
+        assertSame("Los claims deberían extraerse una sola vez por token",
+                authManager.getVerifiedToken(validToken), authManager.getVerifiedToken(validToken));
+        assertEquals("testUser", authManager.getUsernameFromToken(validToken));
+    }
+
+    public void testTokenCacheEvictsLeastRecentlyUsed() {
+        TokenCache cache = new TokenCache(2);
+        long exp = System.currentTimeMillis() + 60_000;
+        cache.put("a", new VerifiedToken("ana", exp));
+        cache.put("b", new VerifiedToken("beto", exp));
+        assertNotNull(cache.get("a")); // "b" pasa a ser el menos usado
+        cache.put("c", new VerifiedToken("carla", exp));
+
+        assertEquals(2, cache.size());
+        assertNull("Se expulsa el token usado hace más tiempo", cache.get("b"));
+        assertEquals("ana", cache.get("a").getSubject());
+        assertEquals("carla", cache.get("c").getSubject());
+    }
+
+    public void testValidateToken_CachedTokenExpires() throws InterruptedException {
+        String shortLivedToken = authManager.generateTokenUnSegundo("shortLivedUser");
+        assertTrue("El token debería ser válido antes de expirar", authManager.validateToken(shortLivedToken));
+        Thread.sleep(2000); // Esperar a que el token expire
+        assertFalse("El token en caché no debería ser válido después de expirar", authManager.validateToken(shortLivedToken));
+    }
 }
@@ -0,0 +1,157 @@
+package app.apiRESTful;
+
+import app.apiRESTful.concurrent.Bulkhead;
+import app.apiRESTful.dao.AsyncProductDAO;
+import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.model.Product;
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class BulkheadTest extends TestCase {
+
+    private Bulkhead products;
+    private Bulkhead users;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        products = new Bulkhead("products", 4, 10);
+        users = new Bulkhead("users", 1, 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        products.shutdown();
+        users.shutdown();
+        super.tearDown();
+    }
+
+    public void testTimeoutFailsFutureAndInterruptsTask() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<String> future = products.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        }, 50, TimeUnit.MILLISECONDS);
+
+        try {
+            future.get();
+            fail("Se esperaba TimeoutException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue("La tarea debería interrumpirse", interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, products.getTimeouts());
+    }
+
+    public void testFullBulkheadRejectsImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        users.submit(() -> release.await(5, TimeUnit.SECONDS), 0, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<Boolean> rejected = users.submit(() -> true, 0, TimeUnit.MILLISECONDS);
+        release.countDown();
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail("Se esperaba RejectedExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, users.getRejected());
+    }
+
+    public void testSlowUserQueriesDoNotDelayProducts() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        users.submit(() -> release.await(5, TimeUnit.SECONDS), 0, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        String product = products.submit(() -> "ok", 1, TimeUnit.SECONDS).get();
+        release.countDown();
+
+        assertEquals("ok", product);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    public void testCancelInterruptsRunningTask() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Void> future = products.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }, 0, TimeUnit.MILLISECONDS);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        assertTrue("Cancelar debería interrumpir la consulta", interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testWritesAreNotInterruptedOnceStarted() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        CompletableFuture<Void> write = products.submitWrite(() -> {
+            started.countDown();
+            // Si se interrumpiera, await lanzaría InterruptedException y no llegaría al commit
+            release.await(5, TimeUnit.SECONDS);
+            committed.countDown();
+            return null;
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        write.cancel(true);
+        release.countDown();
+
+        assertTrue("La escritura debería terminar", committed.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testProductsByIdsRunInParallel() throws Exception {
+        AsyncProductDAO dao = new AsyncProductDAO(new SlowDAO(200), products, 5_000);
+
+        long start = System.nanoTime();
+        Map<String, Product> found = dao.getProductsByIds(List.of("1", "2", "missing", "4")).get();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of("1", "2", "4"), List.copyOf(found.keySet()));
+        assertTrue("Las cuatro consultas deberían solaparse (" + elapsedMillis + " ms)", elapsedMillis < 700);
+    }
+
+    /**
+     * DAO falso que tarda un tiempo fijo en cada consulta.
+     */
+    private static class SlowDAO extends ProductDAOSQL {
+        private final long delayMillis;
+
+        SlowDAO(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public Product getProductById(String id) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return "missing".equals(id) ? null : new Product(id, "Producto " + id, "Descripción", 1.0, 1);
+        }
+    }
+}
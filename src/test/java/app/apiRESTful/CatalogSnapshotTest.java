@@ -0,0 +1,296 @@
+package app.apiRESTful;
+
+import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.dao.RowHandler;
+import app.apiRESTful.dao.SnapshotProductDAO;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.apiRESTful.search.ProductSearchIndex;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CatalogSnapshotTest extends TestCase {
+
+    private Path dir;
+    private Path file;
+    private FakeDAO db;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = Files.createTempDirectory("catalog");
+        file = dir.resolve("catalog.snap");
+        db = new FakeDAO();
+        db.put(new Product("a", "Lápiz", "Grafito", 1.5, 10));
+        db.put(new Product("b", "Regla", null, 2.0, 5));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+        super.tearDown();
+    }
+
+    public void testWarmStartServesFromSnapshotWithoutDatabase() throws Exception {
+        SnapshotProductDAO cold = new SnapshotProductDAO(db, db, file);
+        assertFalse(cold.load());
+        assertFalse(cold.isReady());
+        assertEquals(2, cold.getAllProducts().size());
+        assertEquals("Sin vista las lecturas van a la base de datos", 1, db.readCalls);
+
+        assertEquals(2, cold.reconcile());
+        assertEquals(0L, db.lastSince);
+        assertTrue(cold.save());
+        assertFalse("Sin cambios no se vuelve a escribir", cold.save());
+
+        db.readCalls = 0;
+        SnapshotProductDAO warm = new SnapshotProductDAO(db, db, file);
+        assertTrue(warm.load());
+        assertTrue(warm.isReady());
+        assertEquals("Grafito", warm.getProductById("a").getDescription());
+        assertNull(warm.getProductById("b").getDescription());
+        assertEquals(2, warm.getProductsPage(new ProductQuery()).getItems().size());
+        assertEquals(0, db.readCalls);
+    }
+
+    public void testReconcileReadsOnlyChangesAndRemovesDeletedProducts() throws Exception {
+        SnapshotProductDAO view = new SnapshotProductDAO(db, db, file);
+        view.reconcile();
+        long watermark = db.clock;
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(view.getAllProducts());
+        view.addIndex(index);
+
+        // Cambios hechos por otro nodo
+        db.put(new Product("a", "Lápiz", "Grafito", 1.5, 3));
+        db.put(new Product("c", "Compás", "Metal", 4.0, 1));
+        db.deleteProduct("b");
+
+        assertEquals(3, view.reconcile());
+        assertTrue("Sólo se leen las filas recientes", db.lastSince > 0 && db.lastSince <= watermark);
+        assertEquals("Las bajas salen de product_deletions, sin recorrer los IDs", 0, db.idScans);
+        assertEquals(3, view.getProductById("a").getQuantity());
+        assertNotNull(view.getProductById("c"));
+        assertNull(view.getProductById("b"));
+        assertNotNull(index.get("c"));
+        assertNull(index.get("b"));
+        assertEquals("Lo ya reflejado no cuenta como cambio", 0, view.reconcile());
+    }
+
+    public void testDeletionOutsideTheTriggerIsFoundByThePeriodicSweep() throws Exception {
+        SnapshotProductDAO view = new SnapshotProductDAO(db, db, file);
+        view.setFullSweepEvery(3);
+        view.reconcile();
+        // Una baja que no pasó por el disparador (sin registro en product_deletions)
+        db.rows.remove("b");
+
+        assertEquals(0, view.reconcile());
+        assertEquals(0, view.reconcile());
+        assertNotNull(view.getProductById("b"));
+        assertEquals(1, view.reconcile());
+        assertNull(view.getProductById("b"));
+        assertEquals(1, db.idScans);
+        assertEquals(2, view.getFullSweeps());
+        assertTrue("El recorrido completo poda las bajas antiguas", db.pruneCalls > 0);
+    }
+
+    public void testMissingDeletionsTableFallsBackToIdScans() throws Exception {
+        SnapshotProductDAO view = new SnapshotProductDAO(db, db, file);
+        view.reconcile();
+        db.deletionsTableMissing = true;
+        db.rows.remove("b");
+
+        assertEquals(1, view.reconcile());
+        assertNull(view.getProductById("b"));
+        view.reconcile();
+        assertEquals(2, db.idScans);
+    }
+
+    public void testLocalWriteDuringReconcileIsNotOverwritten() throws Exception {
+        SnapshotProductDAO view = new SnapshotProductDAO(db, db, file);
+        view.reconcile();
+        db.put(new Product("a", "Lápiz", "Grafito", 1.5, 7));
+        // La conciliación ya leyó la fila cuando llega una escritura local más reciente
+        db.beforeEmit = () -> view.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 8));
+
+        view.reconcile();
+        assertEquals(8, view.getProductById("a").getQuantity());
+    }
+
+    public void testWritesAreReflectedInTheView() throws Exception {
+        SnapshotProductDAO view = new SnapshotProductDAO(db, db, file);
+        view.reconcile();
+        view.reserveStock(Collections.singletonList(new StockRequest("a", 4)));
+        assertEquals(6, view.getProductById("a").getQuantity());
+        assertTrue(view.deleteProduct("b"));
+        assertNull(view.getProductById("b"));
+        view.addProduct(new Product("d", "Goma", "Blanca", 0.5, 9));
+        assertEquals(9, view.getProductById("d").getQuantity());
+    }
+
+    public void testCorruptSnapshotIsRejected() throws Exception {
+        SnapshotProductDAO view = new SnapshotProductDAO(db, db, file);
+        view.reconcile();
+        view.save();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x7f;
+        Files.write(file, bytes);
+        try {
+            new SnapshotProductDAO(db, db, file).load();
+            fail("A corrupt snapshot should be rejected");
+        } catch (IOException expected) {
+            // esperado
+        }
+    }
+
+    /**
+     * Tabla de productos falsa con su columna updated_at.
+     */
+    private static class FakeDAO extends ProductDAOSQL {
+        private final Map<String, Product> rows = new TreeMap<>();
+        private final Map<String, Long> updatedAt = new HashMap<>();
+        private final Map<String, Long> deletedAt = new HashMap<>();
+        private long clock = 100_000;
+        private long lastSince = -1;
+        private int readCalls;
+        private int idScans;
+        private int pruneCalls;
+        private boolean deletionsTableMissing;
+        private Runnable beforeEmit;
+
+        void put(Product product) {
+            rows.put(product.getId(), product);
+            updatedAt.put(product.getId(), ++clock);
+        }
+
+        @Override
+        public long streamProductsChangedSince(long sinceMillis, RowHandler<Product> handler) throws IOException {
+            lastSince = sinceMillis;
+            long latest = sinceMillis;
+            List<Product> changed = new ArrayList<>();
+            for (Product product : rows.values()) {
+                if (updatedAt.get(product.getId()) >= sinceMillis) {
+                    changed.add(copy(product));
+                    latest = Math.max(latest, updatedAt.get(product.getId()));
+                }
+            }
+            if (beforeEmit != null) {
+                beforeEmit.run();
+                beforeEmit = null;
+            }
+            for (Product product : changed) {
+                handler.handle(product);
+            }
+            return latest;
+        }
+
+        @Override
+        public long streamProductsDeletedSince(long sinceMillis, RowHandler<String> handler) throws SQLException, IOException {
+            if (deletionsTableMissing) {
+                throw new SQLException("Table 'product_deletions' doesn't exist", "42S02", 1146);
+            }
+            long latest = sinceMillis;
+            for (Map.Entry<String, Long> deletion : deletedAt.entrySet()) {
+                if (deletion.getValue() >= sinceMillis) {
+                    handler.handle(deletion.getKey());
+                    latest = Math.max(latest, deletion.getValue());
+                }
+            }
+            return latest;
+        }
+
+        @Override
+        public int pruneProductDeletions(long beforeMillis) throws SQLException {
+            if (deletionsTableMissing) {
+                throw new SQLException("Table 'product_deletions' doesn't exist", "42S02", 1146);
+            }
+            pruneCalls++;
+            return 0;
+        }
+
+        @Override
+        public void streamProductIds(RowHandler<String> handler) throws IOException {
+            idScans++;
+            for (String id : new ArrayList<>(rows.keySet())) {
+                handler.handle(id);
+            }
+        }
+
+        @Override
+        public List<Product> getAllProducts() {
+            readCalls++;
+            List<Product> all = new ArrayList<>();
+            for (Product product : rows.values()) {
+                all.add(copy(product));
+            }
+            return all;
+        }
+
+        @Override
+        public Product getProductById(String id) {
+            readCalls++;
+            Product product = rows.get(id);
+            return product == null ? null : copy(product);
+        }
+
+        @Override
+        public boolean addProduct(Product product) {
+            if (rows.containsKey(product.getId())) {
+                return false;
+            }
+            put(copy(product));
+            return true;
+        }
+
+        @Override
+        public boolean updateProduct(String id, Product updatedProduct) {
+            if (!rows.containsKey(id)) {
+                return false;
+            }
+            put(new Product(id, updatedProduct.getName(), updatedProduct.getDescription(),
+                    updatedProduct.getPrice(), updatedProduct.getQuantity()));
+            return true;
+        }
+
+        @Override
+        public boolean deleteProduct(String id) {
+            // Como el disparador de product_deletions
+            if (rows.remove(id) == null) {
+                return false;
+            }
+            deletedAt.put(id, ++clock);
+            return true;
+        }
+
+        @Override
+        public List<StockResult> reserveStock(List<StockRequest> items) {
+            List<StockResult> results = new ArrayList<>();
+            for (StockRequest item : items) {
+                Product product = rows.get(item.getId());
+                product.setQuantity(product.getQuantity() - item.getQuantity());
+                put(product);
+                results.add(new StockResult(item.getId(),
+                        StockResult.Status.OK, product.getQuantity()));
+            }
+            return results;
+        }
+
+        private static Product copy(Product product) {
+            return new Product(product.getId(), product.getName(), product.getDescription(),
+                    product.getPrice(), product.getQuantity());
+        }
+    }
+}
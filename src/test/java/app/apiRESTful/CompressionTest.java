@@ -0,0 +1,157 @@
+package app.apiRESTful;
+
+import app.apiRESTful.server.CompressionFilter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class CompressionTest extends TestCase {
+
+    private static final String LARGE_BODY = "{\"description\":\"" + "Monitor Samsung 24 pulgadas ".repeat(200) + "\"}";
+
+    private HttpServer server;
+    private int port;
+    private volatile String lastIfNoneMatch;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        CompressionFilter compression = new CompressionFilter(1024, 6);
+        addContext("/fixed", compression, exchange -> {
+            byte[] bytes = LARGE_BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            lastIfNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            exchange.sendResponseHeaders(200, bytes.length);
+            OutputStream os = exchange.getResponseBody();
+            os.write(bytes);
+            os.close();
+        });
+        addContext("/small", compression, exchange -> {
+            byte[] bytes = "Product deleted.".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream os = exchange.getResponseBody();
+            os.write(bytes);
+            os.close();
+        });
+        addContext("/chunked", compression, exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream os = exchange.getResponseBody();
+            byte[] bytes = LARGE_BODY.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i += 100) {
+                os.write(bytes, i, Math.min(100, bytes.length - i));
+            }
+            os.close();
+        });
+        server.start();
+        port = server.getAddress().getPort();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+        super.tearDown();
+    }
+
+    public void testFixedLengthBodyIsGzippedWhenAccepted() throws Exception {
+        HttpURLConnection connection = open("/fixed", "gzip, deflate");
+
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertEquals("\"v1-gzip\"", connection.getHeaderField("ETag"));
+        String body = read(new GZIPInputStream(connection.getInputStream()));
+        assertEquals(LARGE_BODY, body);
+    }
+
+    public void testDeflateIsUsedWhenPreferred() throws Exception {
+        HttpURLConnection connection = open("/fixed", "gzip;q=0.5, deflate");
+
+        assertEquals("deflate", connection.getHeaderField("Content-Encoding"));
+        assertEquals(LARGE_BODY, read(new InflaterInputStream(connection.getInputStream())));
+    }
+
+    public void testIdentityWithoutAcceptEncoding() throws Exception {
+        HttpURLConnection connection = open("/fixed", null);
+
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertEquals(LARGE_BODY, read(connection.getInputStream()));
+    }
+
+    public void testVaryIsSentWhenNotCompressed() throws Exception {
+        HttpURLConnection gzip = open("/fixed", "gzip");
+        read(gzip.getInputStream());
+        assertEquals("Accept-Encoding", gzip.getHeaderField("Vary"));
+
+        HttpURLConnection identity = open("/fixed", null);
+        read(identity.getInputStream());
+        assertEquals("Accept-Encoding", identity.getHeaderField("Vary"));
+
+        HttpURLConnection small = open("/small", "gzip");
+        read(small.getInputStream());
+        assertEquals("Accept-Encoding", small.getHeaderField("Vary"));
+    }
+
+    public void testSmallStreamedBodyIsNotCompressed() throws Exception {
+        HttpURLConnection connection = open("/small", "gzip");
+
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertEquals("16", connection.getHeaderField("Content-Length"));
+        assertEquals("Product deleted.", read(connection.getInputStream()));
+    }
+
+    public void testChunkedBodyIsCompressedInStream() throws Exception {
+        HttpURLConnection connection = open("/chunked", "gzip");
+
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertEquals(LARGE_BODY, read(new GZIPInputStream(connection.getInputStream())));
+    }
+
+    public void testEncodingSuffixIsRemovedFromIfNoneMatch() throws Exception {
+        HttpURLConnection connection = open("/fixed", "gzip");
+        read(connection.getInputStream());
+
+        connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/fixed").openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setRequestProperty("If-None-Match", "\"v1-gzip\"");
+        connection.getResponseCode();
+
+        assertEquals("\"v1\"", lastIfNoneMatch);
+    }
+
+    public void testNegotiateHonoursQualityValues() {
+        assertEquals(CompressionFilter.Encoding.GZIP, CompressionFilter.negotiate("deflate, gzip"));
+        assertEquals(CompressionFilter.Encoding.DEFLATE, CompressionFilter.negotiate("gzip;q=0, deflate"));
+        assertEquals(CompressionFilter.Encoding.GZIP, CompressionFilter.negotiate("*"));
+        assertNull(CompressionFilter.negotiate("identity"));
+        assertNull(CompressionFilter.negotiate("gzip;q=0"));
+    }
+
+    private void addContext(String path, CompressionFilter compression, com.sun.net.httpserver.HttpHandler handler) {
+        HttpContext context = server.createContext(path, handler);
+        context.getFilters().add(compression);
+    }
+
+    private HttpURLConnection open(String path, String acceptEncoding) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        if (acceptEncoding != null) {
+            connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        }
+        assertEquals(200, connection.getResponseCode());
+        return connection;
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try (InputStream input = in) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package app.apiRESTful;
 import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.auth.CredentialStore;
 import app.apiRESTful.controller.ProductController;
+import app.apiRESTful.controller.ProductStreamController;
 import app.apiRESTful.controller.ProtectedController;
 import app.apiRESTful.controller.UserController;
+import app.apiRESTful.dao.AsyncProductDAO;
+import app.apiRESTful.dao.AsyncUserDAO;
 import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.dao.RowHandler;
 import app.apiRESTful.dao.UserDAOSQL;
+import app.apiRESTful.events.ProductEvents;
 import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockResult;
 import app.apiRESTful.model.User;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import junit.framework.TestCase;
 import org.mockito.Mockito;
@@ -14,11 +24,15 @@ import org.mockito.Mockito;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URI;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -29,7 +43,7 @@ public class ControllerTests extends TestCase {
         super.setUp();
         
     }
-    public void testProductControllerGetProducts() throws IOException {
+    public void testProductControllerGetProducts() throws Exception {
         // Arrange
         ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
         ProductController controller = new ProductController(mockDAO);
@@ -40,8 +54,17 @@ public class ControllerTests extends TestCase {
             new Product("Product2", "Description2", 20.0, 3)
         );
 
-        when(mockDAO.getAllProducts()).thenReturn(mockProducts);
+        when(mockDAO.streamProductsPage(any(ProductQuery.class), any())).thenAnswer(invocation -> {
+            RowHandler<Product> handler = invocation.getArgument(1);
+            for (Product product : mockProducts) {
+                handler.handle(product);
+            }
+            return null;
+        });
         when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products"));
         OutputStream os = new ByteArrayOutputStream();
         when(exchange.getResponseBody()).thenReturn(os);
 
@@ -49,8 +72,264 @@ public class ControllerTests extends TestCase {
         controller.handleGetProducts(exchange);
 
         // Assert
-        verify(exchange).sendResponseHeaders(eq(200), anyInt());
+        verify(exchange).sendResponseHeaders(eq(200), eq(0L));
         assertTrue(os.toString().contains("Product1"));
+        assertTrue(os.toString().contains("\"next\":null"));
+    }
+
+    public void testProductControllerGetProductsPageWithCursorAndFilters() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        Product last = new Product("p-2", "Product2", "Description2", 20.0, 3);
+        when(mockDAO.streamProductsPage(any(ProductQuery.class), any())).thenAnswer(invocation -> {
+            ProductQuery query = invocation.getArgument(0);
+            assertEquals(2, query.getLimit());
+            assertEquals("p-0", query.getAfterId());
+            assertEquals(15.0, query.getMinPrice(), 0.0);
+            assertEquals(Integer.valueOf(1), query.getMinQuantity());
+            RowHandler<Product> handler = invocation.getArgument(1);
+            handler.handle(new Product("p-1", "Product1", "Description1", 16.0, 5));
+            handler.handle(last);
+            return last.getId();
+        });
+        String after = Base64.getUrlEncoder().withoutPadding().encodeToString("p-0".getBytes());
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products?limit=2&minPrice=15&minQuantity=1&after=" + after));
+        OutputStream os = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(os);
+
+        // Act
+        controller.handleGetProducts(exchange);
+
+        // Assert
+        verify(exchange).sendResponseHeaders(eq(200), eq(0L));
+        String nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString("p-2".getBytes());
+        assertTrue(os.toString().contains("\"next\":\"" + nextCursor + "\""));
+    }
+
+    public void testProductControllerGetProductsSortedByPriceUsesValueCursor() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        Product last = new Product("p-2", "Product2", "Description2", 20.0, 3);
+        when(mockDAO.streamProductsPage(any(ProductQuery.class), any())).thenAnswer(invocation -> {
+            ProductQuery query = invocation.getArgument(0);
+            assertEquals(ProductQuery.Sort.PRICE, query.getSort());
+            assertTrue(query.isDescending());
+            assertEquals("p-0", query.getAfterId());
+            assertEquals(25.5, query.getAfterValue(), 0.0);
+            RowHandler<Product> handler = invocation.getArgument(1);
+            handler.handle(last);
+            return last.getId();
+        });
+        String after = Base64.getUrlEncoder().withoutPadding().encodeToString("25.5:p-0".getBytes());
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products?sort=price&order=desc&limit=1&after=" + after));
+        OutputStream os = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(os);
+
+        // Act
+        controller.handleGetProducts(exchange);
+
+        // Assert
+        String nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString("20.0:p-2".getBytes());
+        assertTrue(os.toString().contains("\"next\":\"" + nextCursor + "\""));
+    }
+
+    public void testProductControllerGetProductsRejectsInvalidLimit() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products?limit=100000"));
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+        controller.handleGetProducts(exchange);
+
+        verify(exchange).sendResponseHeaders(eq(400), anyLong());
+        verify(mockDAO, never()).streamProductsPage(any(ProductQuery.class), any());
+    }
+
+    public void testProductControllerGetProductsReturns304WhenEtagMatches() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+
+        HttpExchange first = getExchange("/products?limit=10", new Headers());
+        controller.handleGetProducts(first);
+        String etag = first.getResponseHeaders().getFirst("ETag");
+        assertNotNull("La respuesta debería llevar ETag", etag);
+
+        Headers conditional = new Headers();
+        conditional.set("If-None-Match", etag);
+        HttpExchange second = getExchange("/products?limit=10", conditional);
+        controller.handleGetProducts(second);
+
+        verify(second).sendResponseHeaders(304, -1);
+        verify(mockDAO, times(1)).streamProductsPage(any(ProductQuery.class), any());
+    }
+
+    public void testProductControllerEtagChangesAfterWrite() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        when(mockDAO.deleteProduct("p-1")).thenReturn(true);
+
+        HttpExchange first = getExchange("/products", new Headers());
+        controller.handleGetProducts(first);
+        String etag = first.getResponseHeaders().getFirst("ETag");
+
+        HttpExchange delete = getExchange("/products/p-1", new Headers());
+        when(delete.getRequestMethod()).thenReturn("DELETE");
+        controller.handleDeleteProduct(delete);
+        assertEquals(1, controller.getCatalogVersion());
+
+        Headers conditional = new Headers();
+        conditional.set("If-None-Match", etag);
+        HttpExchange second = getExchange("/products", conditional);
+        controller.handleGetProducts(second);
+
+        verify(second).sendResponseHeaders(eq(200), eq(0L));
+        assertFalse(etag.equals(second.getResponseHeaders().getFirst("ETag")));
+    }
+
+    public void testProductControllerGetProductByIdSupportsConditionalGet() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        when(mockDAO.getProductById("p-1")).thenReturn(new Product("p-1", "Monitor", "Monitor Samsung", 700.0, 20));
+
+        HttpExchange first = getExchange("/products/p-1", new Headers());
+        controller.handleGetProducts(first);
+        verify(first).sendResponseHeaders(eq(200), anyLong());
+        assertTrue(first.getResponseBody().toString().contains("\"id\":\"p-1\""));
+
+        Headers conditional = new Headers();
+        conditional.set("If-None-Match", first.getResponseHeaders().getFirst("ETag"));
+        HttpExchange second = getExchange("/products/p-1", conditional);
+        controller.handleGetProducts(second);
+
+        verify(second).sendResponseHeaders(304, -1);
+        // El ETag sale del contenido, así que el producto se vuelve a leer
+        verify(mockDAO, times(2)).getProductById("p-1");
+
+        when(mockDAO.getProductById("p-1")).thenReturn(new Product("p-1", "Monitor", "Monitor Samsung", 650.0, 20));
+        HttpExchange changed = getExchange("/products/p-1", conditional);
+        controller.handleGetProducts(changed);
+        verify(changed).sendResponseHeaders(eq(200), anyLong());
+    }
+
+    public void testProductControllerWildcardIfNoneMatchReturns404ForMissingProduct() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+
+        Headers conditional = new Headers();
+        conditional.set("If-None-Match", "*");
+        HttpExchange exchange = getExchange("/products/missing", conditional);
+        controller.handleGetProducts(exchange);
+
+        verify(exchange).sendResponseHeaders(eq(404), anyLong());
+        assertNull(exchange.getResponseHeaders().getFirst("ETag"));
+    }
+
+    public void testProductControllerUnconfirmedUpdateKeepsEtag() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        // updateProduct informa que no escribió la fila
+        when(mockDAO.getProductById("p-1")).thenReturn(new Product("p-1", "Monitor", "Monitor Samsung", 700.0, 20));
+        when(mockDAO.updateProduct(eq("p-1"), any(Product.class))).thenReturn(false);
+
+        HttpExchange update = getExchange("/products/p-1", new Headers());
+        when(update.getRequestMethod()).thenReturn("PUT");
+        when(update.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream("{\"price\":650.0}".getBytes()));
+        controller.handleUpdateProduct(update);
+
+        verify(update).sendResponseHeaders(eq(500), anyLong());
+        assertEquals(0, controller.getCatalogVersion());
+    }
+
+    public void testProductControllerPublishesOnlyConfirmedUpdates() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductEvents events = new ProductEvents(16, 8, 10, ProductEvents.SlowConsumerPolicy.DISCONNECT, Runnable::run);
+        ProductController controller = new ProductController(mockDAO, AsyncProductDAO.inline(mockDAO), 100, 1000, events);
+        // updateProduct informa que no escribió la fila
+        when(mockDAO.getProductById("p-1")).thenReturn(new Product("p-1", "Monitor", "Monitor Samsung", 700.0, 20));
+        when(mockDAO.updateProduct(eq("p-1"), any(Product.class))).thenReturn(false);
+
+        HttpExchange update = getExchange("/products/p-1", new Headers());
+        when(update.getRequestMethod()).thenReturn("PUT");
+        when(update.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream("{\"price\":650.0}".getBytes()));
+        controller.handleUpdateProduct(update);
+
+        verify(update).sendResponseHeaders(eq(500), anyLong());
+        assertEquals(0, events.getPublished());
+    }
+
+    public void testProductStreamControllerFullAnswers503BeforeAnyHeaders() throws Exception {
+        ProductEvents events = new ProductEvents(16, 8, 0, ProductEvents.SlowConsumerPolicy.DISCONNECT, Runnable::run);
+        ProductStreamController controller = new ProductStreamController(events);
+
+        HttpExchange exchange = getExchange("/products/stream", new Headers());
+        controller.handleStream(exchange);
+
+        verify(exchange).sendResponseHeaders(eq(503), anyLong());
+        verify(exchange, never()).sendResponseHeaders(eq(200), anyLong());
+        assertEquals("5", exchange.getResponseHeaders().getFirst("Retry-After"));
+        assertNull(exchange.getResponseHeaders().getFirst("Content-Type"));
+    }
+
+    public void testProductStreamControllerSendsHeadersBeforeReturning() throws Exception {
+        // El hilo escritor aún no ha corrido cuando el manejador termina
+        List<Runnable> writes = new java.util.ArrayList<>();
+        ProductEvents events = new ProductEvents(16, 8, 10, ProductEvents.SlowConsumerPolicy.DISCONNECT, writes::add);
+        ProductStreamController controller = new ProductStreamController(events);
+
+        HttpExchange exchange = getExchange("/products/stream", new Headers());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(body);
+        controller.handleStream(exchange);
+
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertEquals("text/event-stream; charset=utf-8", exchange.getResponseHeaders().getFirst("Content-Type"));
+        assertEquals(1, events.getSubscriberCount());
+
+        for (Runnable write : new java.util.ArrayList<>(writes)) {
+            write.run();
+        }
+        verify(exchange, times(1)).sendResponseHeaders(anyInt(), anyLong());
+        assertTrue(body.toString().startsWith("retry: "));
+    }
+
+    public void testProductControllerPageAnswers503WhenThePoolIsExhausted() throws Exception {
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        when(mockDAO.streamProductsPage(any(ProductQuery.class), any()))
+                .thenThrow(new java.sql.SQLTransientConnectionException("Timed out"));
+
+        HttpExchange exchange = getExchange("/products", new Headers());
+        controller.handleGetProducts(exchange);
+
+        verify(exchange).sendResponseHeaders(eq(503), anyLong());
+        assertEquals("1", exchange.getResponseHeaders().getFirst("Retry-After"));
+    }
+
+    private static HttpExchange getExchange(String uri, Headers requestHeaders) {
+        HttpExchange exchange = mock(HttpExchange.class);
+        Headers responseHeaders = new Headers();
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestURI()).thenReturn(URI.create(uri));
+        when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+        when(exchange.getResponseHeaders()).thenReturn(responseHeaders);
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+        return exchange;
     }
 
     public void testProductControllerAddProduct() throws IOException {
@@ -62,18 +341,193 @@ public class ControllerTests extends TestCase {
         String mockBody = "{\"name\":\"Product1\",\"description\":\"Description1\",\"price\":10.0,\"quantity\":5}";
         when(exchange.getRequestMethod()).thenReturn("POST");
         when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
         OutputStream os = new ByteArrayOutputStream();
         when(exchange.getResponseBody()).thenReturn(os);
+        when(mockDAO.addProduct(any(Product.class))).thenReturn(true);
 
         // Act
         controller.handleAddProduct(exchange);
 
         // Assert
         verify(mockDAO).addProduct(any(Product.class));
-        verify(exchange).sendResponseHeaders(eq(201), anyInt());
+        verify(exchange).sendResponseHeaders(eq(201), anyLong());
         assertTrue(os.toString().contains("Product added"));
     }
 
+    public void testProductControllerAddProductsBatchReportsPerItemResults() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO, 100, 1000);
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        String mockBody = "[{\"name\":\"Product1\",\"description\":\"Description1\",\"price\":10.0,\"quantity\":5},"
+                + "{\"name\":\"\",\"description\":\"Description2\",\"price\":20.0,\"quantity\":3}]";
+        when(exchange.getRequestMethod()).thenReturn("POST");
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        OutputStream os = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(os);
+
+        // Act
+        controller.handleAddProductsBatch(exchange);
+
+        // Assert
+        verify(mockDAO).addProducts(argThat(products -> products.size() == 1), eq(100));
+        verify(exchange).sendResponseHeaders(eq(207), eq(0L));
+        String response = os.toString();
+        assertTrue(response.contains("\"inserted\":1"));
+        assertTrue(response.contains("\"status\":\"invalid\""));
+    }
+
+    public void testProductControllerAddProductsBatchRejectsOversizedBatches() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO, 100, 2);
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        String item = "{\"name\":\"P\",\"description\":\"D\",\"price\":1.0,\"quantity\":1}";
+        String mockBody = "[" + item + "," + item + "," + item + "]";
+        when(exchange.getRequestMethod()).thenReturn("POST");
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+        // Act
+        controller.handleAddProductsBatch(exchange);
+
+        // Assert
+        verify(mockDAO, never()).addProducts(any(), anyInt());
+        verify(exchange).sendResponseHeaders(eq(413), anyLong());
+    }
+
+    public void testProductControllerPatchProductUpdatesOnlyPresentFields() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(mockDAO.patchProduct(eq("1"), any(ProductPatch.class))).thenReturn(true);
+
+        when(exchange.getRequestMethod()).thenReturn("PATCH");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products/1"));
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream("{\"price\":12.5}".getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        OutputStream os = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(os);
+
+        // Act
+        controller.handlePatchProduct(exchange);
+
+        // Assert
+        verify(mockDAO).patchProduct(eq("1"), argThat(patch -> patch.getPrice() == 12.5
+                && patch.getName() == null && patch.getDescription() == null && patch.getQuantity() == null));
+        verify(mockDAO, never()).getProductById(any());
+        verify(exchange).sendResponseHeaders(eq(200), anyLong());
+    }
+
+    public void testProductControllerPatchProductReturns404WhenMissing() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(mockDAO.patchProduct(eq("9"), any(ProductPatch.class))).thenReturn(false);
+
+        when(exchange.getRequestMethod()).thenReturn("PATCH");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products/9"));
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream("{\"quantity\":3}".getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        OutputStream os = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(os);
+        long version = controller.getCatalogVersion();
+
+        // Act
+        controller.handlePatchProduct(exchange);
+
+        // Assert
+        verify(exchange).sendResponseHeaders(eq(404), anyLong());
+        assertEquals(version, controller.getCatalogVersion());
+    }
+
+    public void testProductControllerReserveStock() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(mockDAO.reserveStock(any())).thenReturn(List.of(new StockResult("1", StockResult.Status.OK, 7)));
+
+        when(exchange.getRequestMethod()).thenReturn("POST");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products/1/reserve"));
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream("{\"quantity\":3}".getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        OutputStream os = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(os);
+        long version = controller.getCatalogVersion();
+
+        // Act
+        controller.handleStock(exchange);
+
+        // Assert
+        verify(mockDAO).reserveStock(argThat(items -> items.size() == 1
+                && "1".equals(items.get(0).getId()) && items.get(0).getQuantity() == 3));
+        verify(exchange).sendResponseHeaders(eq(200), eq(0L));
+        assertTrue(os.toString().contains("\"quantity\":7"));
+        assertEquals(version + 1, controller.getCatalogVersion());
+    }
+
+    public void testProductControllerReserveStockReportsConflict() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO);
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(mockDAO.reserveStock(any())).thenReturn(Arrays.asList(
+                new StockResult("1", StockResult.Status.NOT_APPLIED, 0),
+                new StockResult("2", StockResult.Status.INSUFFICIENT_STOCK, 1)));
+
+        String mockBody = "{\"items\":[{\"id\":\"1\",\"quantity\":2},{\"id\":\"2\",\"quantity\":5}]}";
+        when(exchange.getRequestMethod()).thenReturn("POST");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products/reserve"));
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        OutputStream os = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(os);
+
+        // Act
+        controller.handleStock(exchange);
+
+        // Assert
+        verify(exchange).sendResponseHeaders(eq(409), eq(0L));
+        assertTrue(os.toString().contains("\"status\":\"INSUFFICIENT_STOCK\""));
+    }
+
+    public void testProductControllerReserveStockRejectsOversizedBody() throws Exception {
+        // Arrange
+        ProductDAOSQL mockDAO = mock(ProductDAOSQL.class);
+        ProductController controller = new ProductController(mockDAO, AsyncProductDAO.inline(mockDAO), 100, 2, 64, null);
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        String mockBody = "{\"items\":[{\"id\":\"1\",\"quantity\":2}],\"note\":\"" + "x".repeat(64) + "\"}";
+        when(exchange.getRequestMethod()).thenReturn("POST");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products/reserve"));
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+        // Act
+        controller.handleStock(exchange);
+
+        // Assert
+        verify(mockDAO, never()).reserveStock(any());
+        verify(exchange).sendResponseHeaders(eq(413), anyLong());
+    }
+
     public void testProtectedControllerHandleRequest() throws IOException {
         // Arrange
         ProtectedController controller = new ProtectedController();
@@ -91,7 +545,7 @@ public class ControllerTests extends TestCase {
         assertTrue(os.toString().contains("Protected resource"));
     }
 
-    public void testUserControllerGetUsers() throws IOException {
+    public void testUserControllerGetUsers() throws Exception {
         // Arrange
         UserDAOSQL mockDAO = mock(UserDAOSQL.class);
         UserController controller = new UserController(mockDAO);
@@ -104,8 +558,16 @@ public class ControllerTests extends TestCase {
         );
 
         // Configurar mocks
-        when(mockDAO.getAllUsers()).thenReturn(mockUsers);
+        doAnswer(invocation -> {
+            RowHandler<User> handler = invocation.getArgument(0);
+            for (User user : mockUsers) {
+                handler.handle(user);
+            }
+            return null;
+        }).when(mockDAO).streamAllUsers(any());
         when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/users"));
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
 
         ByteArrayOutputStream os = new ByteArrayOutputStream();
         when(exchange.getResponseBody()).thenReturn(os);
@@ -114,10 +576,11 @@ public class ControllerTests extends TestCase {
         controller.handleGetUsers(exchange);
 
         // Assert
-        verify(exchange).sendResponseHeaders(eq(200), anyInt());
+        verify(exchange).sendResponseHeaders(eq(200), eq(0L));
         String response = os.toString();
         assertTrue(response.contains("user1"));
         assertTrue(response.contains("user2"));
+        assertFalse("Las contraseñas no deberían incluirse", response.contains("password1"));
     }
 
     public void testUserControllerAddUser() throws IOException {
@@ -129,6 +592,7 @@ public class ControllerTests extends TestCase {
         String mockBody = "{\"username\":\"user1\",\"password\":\"password1\"}";
         when(exchange.getRequestMethod()).thenReturn("POST");
         when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
         OutputStream os = new ByteArrayOutputStream();
         when(exchange.getResponseBody()).thenReturn(os);
 
@@ -140,4 +604,28 @@ public class ControllerTests extends TestCase {
         verify(exchange).sendResponseHeaders(eq(201), anyInt());
         assertTrue(os.toString().contains("User added"));
     }
+
+    public void testAddUserForgetsUnknownUsername() throws IOException {
+        // Arrange
+        UserDAOSQL mockDAO = mock(UserDAOSQL.class);
+        CredentialStore credentials = mock(CredentialStore.class);
+        UserController controller = new UserController(mockDAO, AsyncUserDAO.inline(mockDAO), credentials);
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        String mockBody = "{\"username\":\"user1\",\"password\":\"password1\"}";
+        when(mockDAO.addUser(any(User.class))).thenReturn(true).thenReturn(false);
+        when(exchange.getRequestMethod()).thenReturn("POST");
+        when(exchange.getRequestBody()).thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()))
+                .thenReturn(new java.io.ByteArrayInputStream(mockBody.getBytes()));
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+        // Act
+        controller.handleAddUser(exchange);
+        controller.handleAddUser(exchange);
+
+        // Assert: sólo el alta confirmada invalida la caché de usuarios inexistentes
+        verify(credentials, times(1)).forgetUnknown("user1");
+    }
 }
@@ -0,0 +1,61 @@
+package app.apiRESTful;
+
+import app.apiRESTful.auth.CredentialStore;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CredentialStoreTest extends TestCase {
+
+    private final Map<String, String> users = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private CredentialStore store;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        users.put("sergio", "123");
+        store = new CredentialStore(username -> {
+            lookups.incrementAndGet();
+            return users.get(username);
+        }, 100, 30, TimeUnit.SECONDS);
+    }
+
+    public void testValidAndInvalidPassword() throws Exception {
+        assertTrue(store.verify("sergio", "123"));
+        assertFalse(store.verify("sergio", "1234"));
+        assertFalse(store.verify("sergio", null));
+        assertEquals(2, lookups.get());
+    }
+
+    public void testUnknownUserIsCached() throws Exception {
+        assertFalse(store.verify("intruder", "x"));
+        assertFalse(store.verify("intruder", "y"));
+        assertFalse(store.verify("intruder", "z"));
+        assertEquals(1, lookups.get());
+        assertEquals(2, store.getUnknownUserStats().getHits());
+    }
+
+    public void testForgetUnknownAfterUserIsCreated() throws Exception {
+        assertFalse(store.verify("nuevo", "abc"));
+        users.put("nuevo", "abc");
+        assertFalse(store.verify("nuevo", "abc"));
+
+        store.forgetUnknown("nuevo");
+        assertTrue(store.verify("nuevo", "abc"));
+    }
+
+    public void testUnknownUserExpires() throws Exception {
+        CredentialStore shortLived = new CredentialStore(username -> {
+            lookups.incrementAndGet();
+            return users.get(username);
+        }, 100, 50, TimeUnit.MILLISECONDS);
+        assertFalse(shortLived.verify("intruder", "x"));
+        Thread.sleep(80);
+        assertFalse(shortLived.verify("intruder", "x"));
+        assertEquals(2, lookups.get());
+    }
+}
@@ -0,0 +1,246 @@
+package app.apiRESTful;
+
+import app.apiRESTful.dao.InMemoryProductRepository;
+import app.apiRESTful.dao.InMemoryStore;
+import app.apiRESTful.dao.InMemoryUserRepository;
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.apiRESTful.model.User;
+import junit.framework.TestCase;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InMemoryRepositoryTest extends TestCase {
+
+    private InMemoryProductRepository products;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        products = new InMemoryProductRepository();
+        products.addProduct(new Product("a", "Lápiz", "Grafito", 1.5, 10));
+        products.addProduct(new Product("b", "Cuaderno", "Rayado", 3.0, 5));
+        products.addProduct(new Product("c", "Borrador", "Blanco", 1.5, 0));
+        products.addProduct(new Product("d", "Regla", "30 cm", 2.0, 7));
+    }
+
+    public void testReadsReturnCopies() {
+        Product product = products.getProductById("a");
+        product.setName("Cambiado");
+        assertEquals("Lápiz", products.getProductById("a").getName());
+    }
+
+    public void testCursorPaginationById() {
+        ProductQuery query = new ProductQuery();
+        query.setLimit(3);
+        ProductPage first = products.getProductsPage(query);
+        assertEquals(Arrays.asList("a", "b", "c"), ids(first.getItems()));
+        assertEquals("c", first.getNextId());
+
+        query.setAfterId(first.getNextId());
+        ProductPage second = products.getProductsPage(query);
+        assertEquals(Arrays.asList("d"), ids(second.getItems()));
+        assertFalse(second.hasNext());
+    }
+
+    public void testSortByPriceDescendingWithCursorAndFilter() {
+        ProductQuery query = new ProductQuery();
+        query.setSort(ProductQuery.Sort.PRICE);
+        query.setDescending(true);
+        query.setMinQuantity(1);
+        query.setLimit(2);
+        ProductPage first = products.getProductsPage(query);
+        assertEquals(Arrays.asList("b", "d"), ids(first.getItems()));
+
+        query.setAfterId("d");
+        query.setAfterValue(2.0);
+        assertEquals(Arrays.asList("a"), ids(products.getProductsPage(query).getItems()));
+    }
+
+    public void testPatchAndDelete() throws Exception {
+        ProductPatch patch = new ProductPatch();
+        patch.setPrice(9.0);
+        assertTrue(products.patchProduct("a", patch));
+        assertEquals(9.0, products.getProductById("a").getPrice());
+        assertEquals("Lápiz", products.getProductById("a").getName());
+        assertFalse(products.patchProduct("z", patch));
+
+        assertTrue(products.deleteProduct("a"));
+        assertFalse(products.deleteProduct("a"));
+        assertNull(products.getProductById("a"));
+    }
+
+    public void testBatchIsAllOrNothing() {
+        try {
+            products.addProducts(Arrays.asList(new Product("e", "Tijeras", "Acero", 4.0, 3),
+                    new Product("a", "Duplicado", "x", 1.0, 1)), 100);
+            fail("Duplicate id must be rejected");
+        } catch (SQLException expected) {
+            // esperado
+        }
+        assertNull(products.getProductById("e"));
+        assertEquals(4, products.size());
+    }
+
+    public void testReserveStockIsAtomic() {
+        List<StockResult> results = products.reserveStock(Arrays.asList(
+                new StockRequest("a", 4), new StockRequest("b", 6)));
+        assertEquals(StockResult.Status.NOT_APPLIED, results.get(0).getStatus());
+        assertEquals(StockResult.Status.INSUFFICIENT_STOCK, results.get(1).getStatus());
+        assertEquals(5, results.get(1).getQuantity());
+        assertEquals(10, products.getProductById("a").getQuantity());
+
+        results = products.reserveStock(Arrays.asList(new StockRequest("a", 4), new StockRequest("a", 6)));
+        assertTrue(results.get(0).isOk());
+        assertEquals(0, results.get(1).getQuantity());
+        assertEquals(0, products.getProductById("a").getQuantity());
+
+        results = products.releaseStock(Arrays.asList(new StockRequest("zz", 1)));
+        assertEquals(StockResult.Status.NOT_FOUND, results.get(0).getStatus());
+    }
+
+    public void testReleaseRejectsQuantityOverflow() {
+        products.addProduct(new Product("full", "Lleno", "Casi al máximo", 1.0, Integer.MAX_VALUE - 1));
+
+        List<StockResult> results = products.releaseStock(Arrays.asList(
+                new StockRequest("a", 1), new StockRequest("full", 2)));
+        assertEquals(StockResult.Status.NOT_APPLIED, results.get(0).getStatus());
+        assertEquals(StockResult.Status.QUANTITY_OVERFLOW, results.get(1).getStatus());
+        assertEquals(Integer.MAX_VALUE - 1, results.get(1).getQuantity());
+        assertEquals(10, products.getProductById("a").getQuantity());
+
+        results = products.releaseStock(Arrays.asList(new StockRequest("full", 1)));
+        assertTrue(results.get(0).isOk());
+        assertEquals(Integer.MAX_VALUE, results.get(0).getQuantity());
+    }
+
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        products.addProduct(new Product("hot", "Oferta", "Limitada", 1.0, 100));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        for (int i = 0; i < 400; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (products.reserveStock(Arrays.asList(new StockRequest("hot", 1))).get(0).isOk()) {
+                    reserved.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, reserved.get());
+        assertEquals(0, products.getProductById("hot").getQuantity());
+    }
+
+    public void testUsernamesAreUnique() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        assertTrue(users.addUser(new User(0, "sergio", "123")));
+        assertFalse(users.addUser(new User(0, "sergio", "456")));
+        assertTrue(users.addUser(new User(0, "ana", "abc")));
+        assertEquals("123", users.findPassword("sergio"));
+
+        int anaId = users.getAllUsers().stream().filter(u -> u.getUsername().equals("ana")).findFirst().get().getId();
+        assertFalse(users.updateUser(anaId, new User(0, "sergio", "x")));
+        assertTrue(users.updateUser(anaId, new User(0, "ana2", "x")));
+        assertNull(users.findPassword("ana"));
+        assertEquals("x", users.findPassword("ana2"));
+    }
+
+    public void testSnapshotRoundTrip() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path file = dir.resolve("store.bin");
+        try {
+            InMemoryStore store = new InMemoryStore(file);
+            store.getProducts().addProduct(new Product("p1", "Lápiz", null, 1.5, 10));
+            store.getUsers().addUser(new User(0, "sergio", "123"));
+            assertTrue(store.save());
+            assertFalse("Nothing changed since the last snapshot", store.save());
+
+            InMemoryStore restored = new InMemoryStore(file);
+            assertTrue(restored.load());
+            Product product = restored.getProducts().getProductById("p1");
+            assertEquals("Lápiz", product.getName());
+            assertNull(product.getDescription());
+            assertEquals(10, product.getQuantity());
+            assertEquals("123", restored.getUsers().findPassword("sergio"));
+
+            // Los IDs continúan después de los restaurados
+            assertTrue(restored.getUsers().addUser(new User(0, "ana", "abc")));
+            assertEquals(2, restored.getUsers().size());
+            assertNotNull(restored.getUsers().getUserById(2));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    public void testSnapshotKeepsStringsOver64KB() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path file = dir.resolve("store.bin");
+        try {
+            String description = "ñ".repeat(40_000); // 80 000 bytes en UTF-8
+            InMemoryStore store = new InMemoryStore(file);
+            store.getProducts().addProduct(new Product("p1", "Lápiz", description, 1.5, 10));
+            assertTrue(store.save());
+
+            InMemoryStore restored = new InMemoryStore(file);
+            assertTrue(restored.load());
+            assertEquals(description, restored.getProducts().getProductById("p1").getDescription());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    public void testSnapshotWithUnknownVersionIsRejected() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path file = dir.resolve("store.bin");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                out.writeInt(0x41504953);
+                out.writeInt(2);
+                out.writeInt(0);
+            }
+
+            try {
+                new InMemoryStore(file).load();
+                fail("Se esperaba IOException");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("version 2"));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static List<String> ids(List<Product> items) {
+        List<String> ids = new ArrayList<>();
+        for (Product product : items) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+}
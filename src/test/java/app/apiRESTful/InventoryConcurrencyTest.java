@@ -0,0 +1,154 @@
+package app.apiRESTful;
+
+import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.ProductRepository;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.database.ConnectionPool;
+import junit.framework.TestCase;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pruebas de los UPDATE condicionales de inventario de {@link ProductDAOSQL} contra la base
+ * de datos configurada en .env. Si no hay base de datos, cada prueba se omite e informa el
+ * motivo por la salida de error; las mismas reglas en memoria se prueban en
+ * InMemoryRepositoryTest.
+ */
+public class InventoryConcurrencyTest extends TestCase {
+
+    private static final int INITIAL_STOCK = 100;
+    private static final int RESERVERS = 500;
+
+    // Motivo por el que no hay base de datos ("" si la hay); se comprueba una sola vez
+    private static String unavailable;
+
+    private ProductRepository dao;
+    private final List<String> created = new ArrayList<>();
+
+    @Override
+    public void runBare() throws Throwable {
+        String reason = databaseUnavailable();
+        if (!reason.isEmpty()) {
+            System.err.println("SKIPPED " + getClass().getSimpleName() + "." + getName()
+                    + ": database not available (" + reason + ")");
+            return;
+        }
+        super.runBare();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dao = new ProductDAOSQL();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (String id : created) {
+            dao.deleteProduct(id);
+        }
+        super.tearDown();
+    }
+
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        String id = createProduct(INITIAL_STOCK);
+
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<StockResult>> futures = new ArrayList<>();
+        for (int i = 0; i < RESERVERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return dao.reserveStock(List.of(new StockRequest(id, 1))).get(0);
+            }));
+        }
+        start.countDown();
+
+        int reserved = 0;
+        int rejected = 0;
+        for (Future<StockResult> future : futures) {
+            StockResult result = future.get();
+            if (result.isOk()) {
+                reserved++;
+            } else {
+                assertEquals(StockResult.Status.INSUFFICIENT_STOCK, result.getStatus());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(INITIAL_STOCK, reserved);
+        assertEquals(RESERVERS - INITIAL_STOCK, rejected);
+        assertEquals(0, dao.getProductById(id).getQuantity());
+    }
+
+    public void testMultiItemReservationIsAllOrNothing() throws Exception {
+        String first = createProduct(5);
+        String second = createProduct(1);
+
+        List<StockResult> results = dao.reserveStock(Arrays.asList(new StockRequest(first, 3), new StockRequest(second, 2)));
+
+        assertEquals(StockResult.Status.NOT_APPLIED, results.get(0).getStatus());
+        assertEquals(StockResult.Status.INSUFFICIENT_STOCK, results.get(1).getStatus());
+        assertEquals(1, results.get(1).getQuantity());
+        assertEquals("La reserva parcial debe revertirse", 5, dao.getProductById(first).getQuantity());
+        assertEquals(1, dao.getProductById(second).getQuantity());
+    }
+
+    public void testReleaseReturnsStock() throws Exception {
+        String id = createProduct(2);
+
+        assertEquals(0, dao.reserveStock(List.of(new StockRequest(id, 2))).get(0).getQuantity());
+        StockResult released = dao.releaseStock(List.of(new StockRequest(id, 2))).get(0);
+
+        assertTrue(released.isOk());
+        assertEquals(2, released.getQuantity());
+        assertEquals(StockResult.Status.NOT_FOUND,
+                dao.releaseStock(List.of(new StockRequest(UUID.randomUUID().toString(), 1))).get(0).getStatus());
+    }
+
+    public void testReleaseRejectsQuantityOverflow() throws Exception {
+        String id = createProduct(Integer.MAX_VALUE - 1);
+        String other = createProduct(1);
+
+        List<StockResult> results = dao.releaseStock(Arrays.asList(new StockRequest(other, 1), new StockRequest(id, 2)));
+
+        assertEquals(StockResult.Status.NOT_APPLIED, results.get(0).getStatus());
+        assertEquals(StockResult.Status.QUANTITY_OVERFLOW, results.get(1).getStatus());
+        assertEquals(Integer.MAX_VALUE - 1, results.get(1).getQuantity());
+        assertEquals(Integer.MAX_VALUE - 1, dao.getProductById(id).getQuantity());
+        assertEquals("La liberación parcial debe revertirse", 1, dao.getProductById(other).getQuantity());
+
+        StockResult released = dao.releaseStock(List.of(new StockRequest(id, 1))).get(0);
+        assertTrue(released.isOk());
+        assertEquals(Integer.MAX_VALUE, released.getQuantity());
+    }
+
+    private static synchronized String databaseUnavailable() {
+        if (unavailable == null) {
+            try (Connection connection = ConnectionPool.getInstance().getConnection()) {
+                unavailable = "";
+            } catch (Exception e) {
+                unavailable = String.valueOf(e.getMessage());
+            }
+        }
+        return unavailable;
+    }
+
+    private String createProduct(int quantity) {
+        String id = UUID.randomUUID().toString();
+        dao.addProduct(new Product(id, "Stock test", "Producto de prueba de inventario", 1.0, quantity));
+        created.add(id);
+        return id;
+    }
+}
@@ -0,0 +1,119 @@
+package app.apiRESTful;
+
+import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.controller.MetricsController;
+import app.apiRESTful.metrics.LatencyHistogram;
+import app.apiRESTful.metrics.MetricsRegistry;
+import app.apiRESTful.metrics.RouteMetrics;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsTest extends TestCase {
+
+    public void testHistogramQuantilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(500), histogram.getQuantile(0.5));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(990), histogram.getQuantile(0.99));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getQuantile(0.999));
+    }
+
+    public void testEmptyHistogramReportsZero() {
+        assertEquals(0, new LatencyHistogram().getQuantile(0.99));
+    }
+
+    public void testRouteMetricsCountsByMethodAndStatus() {
+        RouteMetrics route = new RouteMetrics("/products");
+        int get = RouteMetrics.methodIndex("GET");
+        route.begin();
+        assertEquals(1, route.getInFlight());
+        route.end(get, 200, 1_000_000, 250_000);
+
+        assertEquals(0, route.getInFlight());
+        assertEquals(1, route.getRequests(get));
+        assertEquals(1, route.getStatusCount(200));
+        assertEquals(1, route.getLatency(get).getCount());
+        assertEquals(250_000, route.getDbTime().getSum());
+    }
+
+    public void testFilterRecordsRequestsAndScrapeUsesPrometheusFormat() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.gauge("db_pool_active_connections", "Conexiones prestadas.", "", () -> 3);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        HttpContext context = server.createContext("/products", exchange -> {
+            int status = "GET".equals(exchange.getRequestMethod()) ? 200 : 405;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        context.getFilters().add(metrics.filter(context.getPath()));
+        server.start();
+        try {
+            int port = server.getAddress().getPort();
+            assertEquals(200, request(port, "GET"));
+            assertEquals(200, request(port, "GET"));
+            assertEquals(405, request(port, "DELETE"));
+        } finally {
+            server.stop(0);
+        }
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape, scrape.contains("# TYPE http_requests_total counter\n"));
+        assertTrue(scrape, scrape.contains("http_requests_total{route=\"/products\",method=\"GET\"} 2\n"));
+        assertTrue(scrape, scrape.contains("http_requests_total{route=\"/products\",method=\"DELETE\"} 1\n"));
+        assertTrue(scrape, scrape.contains("http_responses_total{route=\"/products\",code=\"405\"} 1\n"));
+        assertTrue(scrape, scrape.contains("http_requests_in_flight{route=\"/products\"} 0\n"));
+        assertTrue(scrape, scrape.contains("http_request_duration_seconds{route=\"/products\",method=\"GET\",quantile=\"0.99\"}"));
+        assertTrue(scrape, scrape.contains("http_request_duration_seconds_count{route=\"/products\",method=\"GET\"} 2\n"));
+        assertTrue(scrape, scrape.contains("db_pool_active_connections 3\n"));
+    }
+
+    public void testMetricsRequireToken() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        AuthManager authManager = new AuthManager();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/metrics", new MetricsController(metrics, authManager, "scrape-secret"));
+        server.start();
+        try {
+            int port = server.getAddress().getPort();
+            assertEquals(401, scrape(port, null));
+            assertEquals(401, scrape(port, "wrong"));
+            assertEquals(200, scrape(port, "scrape-secret"));
+            assertEquals(200, scrape(port, authManager.generateToken("sergio", 1)));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    // El percentil estimado no es menor que el real y lo supera como mucho en 1/16
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 16);
+    }
+
+    private static int scrape(int port, String token) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/metrics").openConnection();
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        int status = connection.getResponseCode();
+        connection.disconnect();
+        return status;
+    }
+
+    private static int request(int port, String method) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/products").openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        connection.disconnect();
+        return status;
+    }
+}
@@ -0,0 +1,128 @@
+package app.apiRESTful;
+
+import app.apiRESTful.cache.CacheStats;
+import app.apiRESTful.cache.LruCache;
+import app.apiRESTful.dao.CachedProductDAO;
+import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPage;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ProductCacheTest extends TestCase {
+
+    private CountingDAO database;
+    private CachedProductDAO cachedDAO;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        database = new CountingDAO();
+        database.product = new Product("1", "Monitor", "Monitor Samsung 24 pulgadas", 700.0, 20);
+        cachedDAO = new CachedProductDAO(database, 100, 60);
+    }
+
+    public void testLruCacheEvictsLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(2, 1, TimeUnit.MINUTES);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a"); // "a" pasa a ser la más reciente
+        cache.put("c", "C");
+
+        assertNull("La entrada menos usada debería ser expulsada", cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getEvictions());
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    public void testLruCacheExpiresEntriesAfterTtl() throws InterruptedException {
+        LruCache<String, String> cache = new LruCache<>(10, 50, TimeUnit.MILLISECONDS);
+        cache.put("a", "A");
+        Thread.sleep(100);
+
+        assertNull("La entrada debería expirar tras el TTL", cache.get("a"));
+        assertEquals(1, cache.getStats().getExpirations());
+    }
+
+    public void testGetProductByIdIsServedFromCache() {
+        cachedDAO.getProductById("1");
+        Product second = cachedDAO.getProductById("1");
+
+        assertEquals("La segunda lectura no debería llegar a la base de datos", 1, database.byIdCalls);
+        assertEquals("Monitor", second.getName());
+        assertEquals(1, cachedDAO.getProductStats().getHits());
+    }
+
+    public void testCachedProductIsACopy() {
+        cachedDAO.getProductById("1").setQuantity(0);
+
+        assertEquals("Modificar el objeto devuelto no debería alterar la caché", 20, cachedDAO.getProductById("1").getQuantity());
+    }
+
+    public void testUpdateInvalidatesProductAndPages() throws Exception {
+        ProductQuery query = new ProductQuery();
+        cachedDAO.getProductById("1");
+        cachedDAO.getProductsPage(query);
+
+        Product updated = new Product("1", "Monitor", "Monitor Samsung 27 pulgadas", 900.0, 5);
+        cachedDAO.updateProduct("1", updated);
+        database.product = updated;
+
+        assertEquals(900.0, cachedDAO.getProductById("1").getPrice(), 0.0);
+        assertEquals(900.0, cachedDAO.getProductsPage(query).getItems().get(0).getPrice(), 0.0);
+        assertEquals(2, database.byIdCalls);
+        assertEquals(2, database.pageCalls);
+    }
+
+    public void testDeleteInvalidatesProduct() {
+        cachedDAO.getProductById("1");
+        cachedDAO.deleteProduct("1");
+        database.product = null;
+
+        assertNull("Un producto eliminado no debería servirse desde la caché", cachedDAO.getProductById("1"));
+    }
+
+    /**
+     * DAO falso que cuenta las consultas que llegarían a la base de datos.
+     */
+    private static class CountingDAO extends ProductDAOSQL {
+        private Product product;
+        private int byIdCalls;
+        private int pageCalls;
+
+        @Override
+        public Product getProductById(String id) {
+            byIdCalls++;
+            return product == null ? null : new Product(product.getId(), product.getName(),
+                    product.getDescription(), product.getPrice(), product.getQuantity());
+        }
+
+        @Override
+        public ProductPage getProductsPage(ProductQuery query) {
+            pageCalls++;
+            List<Product> items = new ArrayList<>();
+            if (product != null) {
+                items.add(product);
+            }
+            return new ProductPage(items, null);
+        }
+
+        @Override
+        public boolean updateProduct(String id, Product updatedProduct) {
+            return true;
+        }
+
+        @Override
+        public boolean deleteProduct(String id) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package app.apiRESTful;
+
+import app.apiRESTful.events.EventSink;
+import app.apiRESTful.events.ProductEvents;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class ProductEventsTest extends TestCase {
+
+    // Ejecuta las escrituras sólo cuando el test lo pide, como un cliente que no lee
+    private final List<Runnable> deferred = new ArrayList<>();
+    private final Executor deferredWriters = deferred::add;
+
+    public void testSubscriberReceivesPublishedEvents() {
+        ProductEvents events = new ProductEvents(16, 8, 10, ProductEvents.SlowConsumerPolicy.DISCONNECT, Runnable::run);
+        RecordingSink sink = new RecordingSink();
+        assertTrue(events.subscribe(sink, null));
+        events.publish(ProductEvents.ADD, "{\"id\":\"a\"}");
+        events.publish(ProductEvents.DELETE, "{\"id\":\"a\"}");
+
+        String body = sink.text();
+        assertTrue(body.startsWith("retry: 3000\n\n"));
+        assertTrue(body.contains("event: add\ndata: {\"id\":\"a\"}\n\n"));
+        assertTrue(body.indexOf("event: add") < body.indexOf("event: delete"));
+        assertEquals(2, events.getPublished());
+    }
+
+    public void testResumeWithLastEventId() {
+        ProductEvents events = new ProductEvents(16, 8, 10, ProductEvents.SlowConsumerPolicy.DISCONNECT, Runnable::run);
+        RecordingSink first = new RecordingSink();
+        events.subscribe(first, null);
+        events.publish(ProductEvents.UPDATE, "{\"n\":1}");
+        String lastSeen = lastId(first.text());
+        first.close();
+
+        events.publish(ProductEvents.UPDATE, "{\"n\":2}");
+        events.publish(ProductEvents.UPDATE, "{\"n\":3}");
+
+        RecordingSink resumed = new RecordingSink();
+        events.subscribe(resumed, lastSeen);
+        String body = resumed.text();
+        assertFalse(body.contains("{\"n\":1}"));
+        assertTrue(body.contains("{\"n\":2}"));
+        assertTrue(body.contains("{\"n\":3}"));
+        assertFalse(body.contains("event: reset"));
+    }
+
+    public void testResetWhenHistoryNoLongerHasTheEvent() {
+        ProductEvents events = new ProductEvents(2, 8, 10, ProductEvents.SlowConsumerPolicy.DISCONNECT, Runnable::run);
+        RecordingSink first = new RecordingSink();
+        events.subscribe(first, null);
+        events.publish(ProductEvents.UPDATE, "{\"n\":1}");
+        String lastSeen = lastId(first.text());
+        for (int i = 2; i <= 5; i++) {
+            events.publish(ProductEvents.UPDATE, "{\"n\":" + i + "}");
+        }
+
+        RecordingSink late = new RecordingSink();
+        events.subscribe(late, lastSeen);
+        assertTrue(late.text().contains("event: reset"));
+        assertFalse(late.text().contains("{\"n\":5}"));
+
+        RecordingSink otherBoot = new RecordingSink();
+        events.subscribe(otherBoot, "previous-boot-3");
+        assertTrue(otherBoot.text().contains("event: reset"));
+    }
+
+    public void testSlowConsumerIsDisconnected() {
+        ProductEvents events = new ProductEvents(16, 3, 10, ProductEvents.SlowConsumerPolicy.DISCONNECT, deferredWriters);
+        RecordingSink slow = new RecordingSink();
+        events.subscribe(slow, null);
+        // El saludo inicial ocupa una entrada; dos eventos más llenan la cola
+        events.publish(ProductEvents.UPDATE, "{\"n\":1}");
+        events.publish(ProductEvents.UPDATE, "{\"n\":2}");
+        assertEquals(1, events.getSubscriberCount());
+
+        events.publish(ProductEvents.UPDATE, "{\"n\":3}");
+        runDeferred();
+        assertTrue(slow.closed);
+        assertEquals(0, events.getSubscriberCount());
+        assertEquals(1, events.getSlowDisconnects());
+    }
+
+    public void testSlowConsumerDropsOldest() {
+        ProductEvents events = new ProductEvents(16, 2, 10, ProductEvents.SlowConsumerPolicy.DROP_OLDEST, deferredWriters);
+        RecordingSink slow = new RecordingSink();
+        events.subscribe(slow, null);
+        for (int i = 1; i <= 4; i++) {
+            events.publish(ProductEvents.UPDATE, "{\"n\":" + i + "}");
+        }
+        assertEquals(3, events.getDropped());
+
+        runDeferred();
+        String body = slow.text();
+        assertFalse(slow.closed);
+        assertFalse(body.contains("{\"n\":2}"));
+        assertTrue(body.contains("{\"n\":3}"));
+        assertTrue(body.contains("{\"n\":4}"));
+    }
+
+    public void testIdleSubscribersDoNotHoldWriters() {
+        ProductEvents events = new ProductEvents(16, 8, 5000, ProductEvents.SlowConsumerPolicy.DISCONNECT, deferredWriters);
+        for (int i = 0; i < 5000; i++) {
+            events.subscribe(new RecordingSink(), null);
+        }
+        runDeferred();
+        assertTrue("Un suscriptor sin eventos pendientes no tiene tarea de escritura", deferred.isEmpty());
+        assertFalse(events.hasCapacity());
+        assertFalse(events.subscribe(new RecordingSink(), null));
+
+        events.heartbeat();
+        assertEquals("Un latido por suscriptor inactivo", 5000, deferred.size());
+        events.heartbeat();
+        assertEquals("Un latido no se encola detrás de otro", 5000, deferred.size());
+        runDeferred();
+    }
+
+    private void runDeferred() {
+        while (!deferred.isEmpty()) {
+            deferred.remove(0).run();
+        }
+    }
+
+    private static String lastId(String body) {
+        int start = body.lastIndexOf("id: ") + 4;
+        return body.substring(start, body.indexOf('\n', start));
+    }
+
+    /**
+     * Suscriptor que guarda en memoria lo recibido.
+     */
+    private static class RecordingSink implements EventSink {
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private boolean closed;
+
+        @Override
+        public void send(byte[] frames) {
+            received.writeBytes(frames);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        String text() {
+            return received.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package app.apiRESTful;
+
+import app.apiRESTful.dao.ProductQuery;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.search.ProductRangeIndex;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class ProductRangeIndexTest extends TestCase {
+
+    private ProductRangeIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        index = new ProductRangeIndex();
+        index.rebuild(List.of(
+                new Product("a", "Monitor", "Monitor 24", 700.0, 20),
+                new Product("b", "Soporte", "Soporte monitor", 80.0, 50),
+                new Product("c", "Teclado", "Teclado mecánico", 120.0, 3),
+                new Product("d", "Ratón", "Ratón óptico", 25.0, 3),
+                new Product("e", "Cable", "Cable HDMI", 0.0, 0)));
+    }
+
+    public void testPriceRangeSortedAscending() throws Exception {
+        ProductQuery query = query(ProductQuery.Sort.PRICE, false, 10);
+        query.setMinPrice(25.0);
+        query.setMaxPrice(120.0);
+
+        assertEquals(List.of("d", "b", "c"), ids(query));
+    }
+
+    public void testTopKLowestStockBreaksTiesById() throws Exception {
+        assertEquals(List.of("e", "c", "d"), ids(query(ProductQuery.Sort.QUANTITY, false, 3)));
+        assertEquals(List.of("b", "a"), ids(query(ProductQuery.Sort.QUANTITY, true, 2)));
+    }
+
+    public void testCursorPaginationInBothDirections() throws Exception {
+        for (boolean descending : new boolean[]{false, true}) {
+            ProductQuery query = query(ProductQuery.Sort.QUANTITY, descending, 2);
+            List<String> all = new ArrayList<>();
+            while (true) {
+                List<Product> page = new ArrayList<>();
+                String next = index.streamPage(query, page::add);
+                page.forEach(product -> all.add(product.getId()));
+                if (next == null) {
+                    break;
+                }
+                Product last = page.get(page.size() - 1);
+                assertEquals(last.getId(), next);
+                query.setAfterId(next);
+                query.setAfterValue((double) last.getQuantity());
+            }
+            List<String> expected = descending ? List.of("b", "a", "d", "c", "e") : List.of("e", "c", "d", "a", "b");
+            assertEquals(expected, all);
+        }
+    }
+
+    public void testWritesUpdateIndexesIncrementally() throws Exception {
+        index.updateQuantity("b", 1);
+        index.index(new Product("a", "Monitor", "Monitor 24", 5.0, 20));
+        index.remove("e");
+
+        assertEquals(List.of("b", "c", "d"), ids(query(ProductQuery.Sort.QUANTITY, false, 3)));
+        assertEquals(List.of("a", "d"), ids(query(ProductQuery.Sort.PRICE, false, 2)));
+        assertEquals(4, index.size());
+    }
+
+    public void testNegativeAndZeroPricesKeepNumericOrder() throws Exception {
+        index.index(new Product("f", "Descuento", "Ajuste", -10.5, 1));
+        index.index(new Product("g", "Descuento", "Ajuste", -0.5, 1));
+
+        assertEquals(List.of("f", "g", "e", "d"), ids(query(ProductQuery.Sort.PRICE, false, 4)));
+    }
+
+    public void testMatchesBruteForceAfterRandomWrites() throws Exception {
+        Random random = new Random(7);
+        Map<String, Product> reference = new HashMap<>();
+        index.rebuild(List.of());
+        for (int i = 0; i < 2000; i++) {
+            String id = "p" + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                reference.remove(id);
+            } else {
+                Product product = new Product(id, "n", "d", random.nextInt(50) / 2.0, random.nextInt(20));
+                index.index(product);
+                reference.put(id, product);
+            }
+        }
+
+        ProductQuery query = query(ProductQuery.Sort.PRICE, true, ProductQuery.MAX_LIMIT);
+        query.setMinPrice(5.0);
+        query.setMaxQuantity(10);
+        List<String> expected = reference.values().stream()
+                .filter(p -> p.getPrice() >= 5.0 && p.getQuantity() <= 10)
+                .sorted(Comparator.comparingDouble(Product::getPrice).thenComparing(Product::getId).reversed())
+                .map(Product::getId)
+                .collect(Collectors.toList());
+        assertEquals(expected, ids(query));
+    }
+
+    private static ProductQuery query(ProductQuery.Sort sort, boolean descending, int limit) {
+        ProductQuery query = new ProductQuery();
+        query.setSort(sort);
+        query.setDescending(descending);
+        query.setLimit(limit);
+        return query;
+    }
+
+    private List<String> ids(ProductQuery query) throws Exception {
+        List<String> ids = new ArrayList<>();
+        index.streamPage(query, product -> ids.add(product.getId()));
+        return ids;
+    }
+}
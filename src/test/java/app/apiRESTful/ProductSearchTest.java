@@ -0,0 +1,215 @@
+package app.apiRESTful;
+
+import app.apiRESTful.controller.ProductSearchController;
+import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.IndexedProductDAO;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import app.apiRESTful.search.LazyProductIndex;
+import app.apiRESTful.search.ProductRangeIndex;
+import app.apiRESTful.search.ProductSearchIndex;
+import app.apiRESTful.search.SearchResult;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProductSearchTest extends TestCase {
+
+    private ProductSearchIndex index;
+    private FakeDAO database;
+    private IndexedProductDAO dao;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        index = new ProductSearchIndex();
+        index.rebuild(Arrays.asList(
+                new Product("1", "Monitor Samsung", "Pantalla de 24 pulgadas", 700.0, 20),
+                new Product("2", "Soporte", "Soporte articulado para monitor", 80.0, 50),
+                new Product("3", "Teclado Mecánico", "Teclado con iluminación", 120.0, 10)));
+        database = new FakeDAO();
+        dao = new IndexedProductDAO(database, index, new ProductRangeIndex());
+    }
+
+    public void testTokenizeFoldsAccentsAndCase() {
+        assertEquals(Arrays.asList("teclado", "mecanico", "iluminacion"),
+                List.copyOf(ProductSearchIndex.tokenize("Teclado MECÁNICO, iluminación!").keySet()));
+    }
+
+    public void testNameMatchesRankAboveDescriptionMatches() {
+        SearchResult result = index.search("monitor", 0, 10);
+
+        assertEquals(2, result.getTotal());
+        assertEquals("1", result.getHits().get(0).getProduct().getId());
+        assertEquals("2", result.getHits().get(1).getProduct().getId());
+    }
+
+    public void testAllTermsMustMatch() {
+        assertEquals(1, index.search("teclado iluminacion", 0, 10).getTotal());
+        assertEquals(0, index.search("teclado monitor", 0, 10).getTotal());
+        assertEquals(0, index.search("  ,, ", 0, 10).getTotal());
+    }
+
+    public void testPagination() {
+        SearchResult second = index.search("monitor", 1, 1);
+
+        assertEquals(2, second.getTotal());
+        assertEquals(1, second.getHits().size());
+        assertEquals("2", second.getHits().get(0).getProduct().getId());
+        assertTrue(index.search("monitor", 5, 10).getHits().isEmpty());
+    }
+
+    public void testWritesKeepIndexUpToDate() throws Exception {
+        Product added = new Product("4", "Ratón inalámbrico", "Ratón óptico", 25.0, 30);
+        database.stored = added;
+        dao.addProduct(added);
+        assertEquals(1, index.search("raton", 0, 10).getTotal());
+
+        dao.patchProduct("4", new ProductPatch("Mouse inalámbrico", null, null, null));
+        assertEquals("Mouse inalámbrico", index.get("4").getName());
+        assertEquals(1, index.search("mouse optico", 0, 10).getTotal());
+
+        dao.reserveStock(List.of(new StockRequest("4", 5)));
+        assertEquals(25, index.get("4").getQuantity());
+
+        dao.deleteProduct("4");
+        assertEquals(0, index.search("mouse", 0, 10).getTotal());
+        assertEquals(3, index.size());
+    }
+
+    public void testResultsAreCopies() {
+        index.search("monitor", 0, 1).getHits().get(0).getProduct().setName("Cambiado");
+
+        assertEquals("Monitor Samsung", index.get("1").getName());
+    }
+
+    public void testLazyIndexIsBuiltOnFirstUse() throws Exception {
+        List<Product> catalog = new ArrayList<>();
+        catalog.add(new Product("1", "Monitor Samsung", "Pantalla de 24 pulgadas", 700.0, 20));
+        AtomicInteger reads = new AtomicInteger();
+        LazyProductIndex<ProductSearchIndex> lazy = new LazyProductIndex<>(new ProductSearchIndex(), () -> {
+            reads.incrementAndGet();
+            return catalog;
+        });
+
+        // Antes de construirlo las escrituras no leen nada: el catálogo ya las incluirá
+        catalog.add(new Product("2", "Soporte", "Soporte articulado para monitor", 80.0, 50));
+        lazy.index(catalog.get(1));
+        assertFalse(lazy.isBuilt());
+        assertNull(lazy.get("1"));
+        assertEquals(0, lazy.size());
+        assertEquals(0, reads.get());
+
+        assertEquals(2, lazy.getIndex().search("monitor", 0, 10).getTotal());
+        lazy.index(new Product("3", "Teclado Mecánico", "Teclado con iluminación", 120.0, 10));
+        lazy.getIndex();
+        assertEquals(1, reads.get());
+        assertEquals(3, lazy.size());
+        assertNotNull(lazy.get("3"));
+    }
+
+    public void testFailedLazyBuildIsRetried() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        LazyProductIndex<ProductSearchIndex> lazy = new LazyProductIndex<>(new ProductSearchIndex(), () -> {
+            if (reads.incrementAndGet() == 1) {
+                throw new SQLException("Communications link failure");
+            }
+            return List.of(new Product("1", "Monitor Samsung", "Pantalla de 24 pulgadas", 700.0, 20));
+        });
+
+        try {
+            lazy.getIndex();
+            fail("Sin catálogo el índice no debe quedar construido");
+        } catch (SQLTransientException expected) {
+            // 503 en las rutas que lo usan
+        }
+        assertFalse(lazy.isBuilt());
+
+        assertEquals(1, lazy.getIndex().search("monitor", 0, 10).getTotal());
+        assertTrue(lazy.isBuilt());
+        assertEquals(2, reads.get());
+    }
+
+    public void testSearchAnswers503WhileIndexIsUnavailable() throws Exception {
+        ProductSearchController controller = new ProductSearchController(() -> {
+            throw new SQLTransientException("Product index not available");
+        });
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/products/search?q=monitor"));
+        Headers responseHeaders = new Headers();
+        when(exchange.getResponseHeaders()).thenReturn(responseHeaders);
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+        controller.handleSearch(exchange);
+
+        verify(exchange).sendResponseHeaders(eq(503), anyLong());
+        assertEquals("1", responseHeaders.getFirst("Retry-After"));
+    }
+
+    public void testWriteDuringLazyBuildIsNotLost() throws Exception {
+        AtomicReference<LazyProductIndex<ProductSearchIndex>> lazy = new AtomicReference<>();
+        Thread writer = new Thread(() ->
+                lazy.get().index(new Product("9", "Altavoz", "Altavoz bluetooth", 45.0, 5)));
+        lazy.set(new LazyProductIndex<>(new ProductSearchIndex(), () -> {
+            // Escritura que termina después de leer el catálogo, mientras se construye el índice
+            writer.start();
+            return List.of(new Product("1", "Monitor Samsung", "Pantalla de 24 pulgadas", 700.0, 20));
+        }));
+
+        lazy.get().getIndex();
+        writer.join();
+        assertEquals(2, lazy.get().size());
+        assertEquals(1, lazy.get().getIndex().search("altavoz", 0, 10).getTotal());
+    }
+
+    /**
+     * DAO falso: las escrituras siempre tienen éxito.
+     */
+    private static class FakeDAO extends ProductDAOSQL {
+        private Product stored;
+
+        @Override
+        public Product getProductById(String id) {
+            return stored != null && stored.getId().equals(id) ? stored : null;
+        }
+
+        @Override
+        public boolean addProduct(Product product) {
+            return true;
+        }
+
+        @Override
+        public boolean patchProduct(String id, ProductPatch patch) {
+            return true;
+        }
+
+        @Override
+        public boolean deleteProduct(String id) {
+            return true;
+        }
+
+        @Override
+        public List<StockResult> reserveStock(List<StockRequest> items) {
+            return List.of(new StockResult(items.get(0).getId(), StockResult.Status.OK, 25));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package app.apiRESTful;
+
+import app.apiRESTful.auth.AuthManager;
+import app.apiRESTful.ratelimit.RateLimitFilter;
+import app.apiRESTful.ratelimit.RateLimiter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RateLimiterTest extends TestCase {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    public void testBurstThenRetryAfter() {
+        RateLimiter limiter = new RateLimiter(3, 3, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+        long wait = limiter.tryAcquire("a", now);
+        assertTrue(wait > 0 && wait <= SECOND);
+
+        // Otra clave tiene su propia cubeta
+        assertEquals(0, limiter.tryAcquire("b", now));
+        assertEquals(1, limiter.getRejected());
+    }
+
+    public void testRefillsOverTime() {
+        RateLimiter limiter = new RateLimiter(2, 2, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("a", now);
+        limiter.tryAcquire("a", now);
+        assertTrue(limiter.tryAcquire("a", now) > 0);
+
+        assertEquals(0, limiter.tryAcquire("a", now + SECOND));
+        assertTrue(limiter.tryAcquire("a", now + SECOND) > 0);
+        // Tras mucho tiempo la cubeta no supera su capacidad
+        assertEquals(0, limiter.tryAcquire("a", now + 100 * SECOND));
+        assertEquals(0, limiter.tryAcquire("a", now + 100 * SECOND));
+        assertTrue(limiter.tryAcquire("a", now + 100 * SECOND) > 0);
+    }
+
+    public void testIdleBucketsAreEvicted() {
+        RateLimiter limiter = new RateLimiter(5, 1, TimeUnit.SECONDS, 10, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        limiter.tryAcquire("a", start);
+        limiter.tryAcquire("b", start + 5 * SECOND);
+        assertEquals(2, limiter.getBucketCount());
+
+        limiter.tryAcquire("c", start + 12 * SECOND);
+        assertEquals(2, limiter.getBucketCount());
+        limiter.evictIdle(start + 30 * SECOND);
+        assertEquals(0, limiter.getBucketCount());
+    }
+
+    public void testConcurrentAcquiresNeverOvergrant() throws Exception {
+        RateLimiter limiter = new RateLimiter(100, 1, TimeUnit.HOURS, 1, TimeUnit.HOURS);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 50; j++) {
+                    if (limiter.tryAcquire("shared") == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, granted.get());
+        assertEquals(300, limiter.getRejected());
+    }
+
+    public void testFilterReturns429WithRetryAfter() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        HttpContext context = server.createContext("/login", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        context.getFilters().add(new RateLimitFilter("/login",
+                new RateLimiter(2, 60, TimeUnit.SECONDS, 300, TimeUnit.SECONDS), new AuthManager()));
+        server.start();
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/login";
+            assertEquals(200, open(url, null).getResponseCode());
+            assertEquals(200, open(url, null).getResponseCode());
+
+            HttpURLConnection limited = open(url, null);
+            assertEquals(429, limited.getResponseCode());
+            assertEquals("30", limited.getHeaderField("Retry-After"));
+
+            // Con un token válido la cuota es la del usuario, no la de la dirección
+            String token = new AuthManager().generateToken("alice", 5);
+            assertEquals(200, open(url, token).getResponseCode());
+
+            HttpURLConnection preflight = (HttpURLConnection) new URL(url).openConnection();
+            preflight.setRequestMethod("OPTIONS");
+            assertEquals(200, preflight.getResponseCode());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static HttpURLConnection open(String url, String token) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        return connection;
+    }
+}
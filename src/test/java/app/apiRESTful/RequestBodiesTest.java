@@ -0,0 +1,111 @@
+package app.apiRESTful;
+
+import app.apiRESTful.json.JsonBodyException;
+import app.apiRESTful.json.PayloadTooLargeException;
+import app.apiRESTful.json.RequestBodies;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.ProductPatch;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.User;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class RequestBodiesTest extends TestCase {
+
+    public void testProductWithWhitespaceAnyOrderAndUnknownFields() {
+        Product product = RequestBodies.readProduct(bytes("{\n  \"quantity\" : 5,\n  \"tags\": [\"a\", {\"x\": [1, 2.5e3, null]}],\n"
+                + "  \"price\": 10.5, \"description\": \"Ratón \\\"pro\\\"\\n\\u00e1\", \"name\": \"Mouse\", \"extra\": true }"));
+
+        assertEquals("Mouse", product.getName());
+        assertEquals("Ratón \"pro\"\ná", product.getDescription());
+        assertEquals(10.5, product.getPrice());
+        assertEquals(5, product.getQuantity());
+        assertNotNull(product.getId());
+    }
+
+    public void testPatchKeepsAbsentAndNullFieldsNull() {
+        ProductPatch patch = RequestBodies.readProductPatch(bytes("{\"price\":12.5,\"name\":null}"));
+
+        assertEquals(12.5, patch.getPrice());
+        assertNull(patch.getName());
+        assertNull(patch.getDescription());
+        assertNull(patch.getQuantity());
+    }
+
+    public void testUser() {
+        User user = RequestBodies.readUser(bytes("{\"password\":\"contraseña1\",\"username\":\"usuario1\",\"id\":7}"));
+
+        assertEquals("usuario1", user.getUsername());
+        assertEquals("contraseña1", user.getPassword());
+    }
+
+    public void testPreciseErrors() {
+        assertError("{\"name\":\"a\",\"description\":\"b\",\"price\":\"10\",\"quantity\":1}",
+                "Field 'price' must be a number at offset 38");
+        assertError("{\"name\":\"a\",\"description\":\"b\",\"price\":1,\"quantity\":1.5}",
+                "Field 'quantity' must be an integer at offset 51");
+        assertError("{\"name\":\"a\",\"description\":\"b\",\"price\":1}", "Field 'quantity' is required");
+        assertError("{\"name\" \"a\"}", "Invalid JSON: Expected ':' after field 'name' at offset 8");
+        assertError("{\"name\":\"a\",}", "Invalid JSON: Trailing comma before '}' at offset 12");
+        assertError("{\"name\":\"a\"} x", "Invalid JSON: Unexpected data after JSON value at offset 13");
+        assertError("{\"name\":\"a", "Invalid JSON: Unterminated string at offset 10");
+        assertError("", "Invalid JSON: Request body is empty at offset 0");
+        assertError("[]", "Invalid JSON: Expected a JSON object at offset 0");
+    }
+
+    public void testQuantityOutOfRange() {
+        assertError("{\"name\":\"a\",\"description\":\"b\",\"price\":1,\"quantity\":3000000000}",
+                "Field 'quantity' must be an integer within range at offset 51");
+    }
+
+    public void testStockBodies() {
+        assertEquals(3, RequestBodies.readStockQuantity(bytes("{ \"extra\": [1], \"quantity\": 3 }")));
+
+        List<StockRequest> items = RequestBodies.readStockItems(
+                bytes("{\"items\": [ {\"quantity\":2, \"id\":\"a\", \"x\":{}}, null ]}"), 2);
+        assertEquals(2, items.size());
+        assertEquals("a", items.get(0).getId());
+        assertEquals(2, items.get(0).getQuantity());
+        assertNull(items.get(1));
+
+        assertNull(RequestBodies.readStockItems(bytes("{\"items\":[{},{},{}]}"), 2));
+        try {
+            RequestBodies.readStockItems(bytes("{\"items\":[{\"id\":\"a\"},1]}"), 2);
+            fail("Se esperaba JsonBodyException");
+        } catch (JsonBodyException e) {
+            assertEquals("Field 'items' must be an object at offset 21", e.getMessage());
+        }
+        try {
+            RequestBodies.readStockQuantity(bytes("{\"quantity\":null}"));
+            fail("Se esperaba JsonBodyException");
+        } catch (JsonBodyException e) {
+            assertEquals("Field 'quantity' is required", e.getMessage());
+        }
+    }
+
+    public void testBodyLimit() throws Exception {
+        assertEquals(4, RequestBodies.read(new ByteArrayInputStream(new byte[4]), 4).length);
+        try {
+            RequestBodies.read(new ByteArrayInputStream(new byte[5]), 4);
+            fail("Se esperaba PayloadTooLargeException");
+        } catch (PayloadTooLargeException e) {
+            assertEquals(4, e.getMaxBytes());
+        }
+    }
+
+    private static void assertError(String body, String message) {
+        try {
+            RequestBodies.readProduct(bytes(body));
+            fail("Se esperaba JsonBodyException para " + body);
+        } catch (JsonBodyException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,155 @@
+package app.apiRESTful;
+
+import app.apiRESTful.server.StaticAsset;
+import app.apiRESTful.server.StaticAssetHandler;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+public class StaticAssetTest extends TestCase {
+
+    private static final String SPEC = "{\"openapi\":\"3.0.0\",\"info\":{\"title\":\"API RESTful\"},\"paths\":{"
+            + "\"/products\":{\"get\":{\"summary\":\"Obtener los productos paginados por cursor\"}},".repeat(40)
+            + "\"/users\":{}}";
+
+    private Path directory;
+    private StaticAssetHandler assets;
+    private HttpServer server;
+    private int port;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        directory = Files.createTempDirectory("assets");
+        Files.writeString(directory.resolve("swagger.json"), SPEC);
+        Files.createDirectories(directory.resolve("images"));
+        Files.write(directory.resolve("images/logo.png"), new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+
+        assets = new StaticAssetHandler("public, max-age=300");
+        assets.addFile("/swagger.json", directory.resolve("swagger.json"));
+        assets.addDirectory("/images/", directory.resolve("images"));
+        assets.addContent("/swagger-ui", "text/html; charset=utf-8", "<html></html>");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", assets);
+        server.start();
+        port = server.getAddress().getPort();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+        assets.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        super.tearDown();
+    }
+
+    public void testServesIdentityWithCacheHeaders() throws Exception {
+        HttpURLConnection connection = open("/swagger.json", null, null);
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("application/json; charset=utf-8", connection.getHeaderField("Content-Type"));
+        assertEquals("public, max-age=300", connection.getHeaderField("Cache-Control"));
+        assertNotNull(connection.getHeaderField("ETag"));
+        assertNotNull(connection.getHeaderField("Last-Modified"));
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertEquals(SPEC, read(connection.getInputStream()));
+    }
+
+    public void testServesPrecompressedGzipVariant() throws Exception {
+        HttpURLConnection connection = open("/swagger.json", "gzip", null);
+
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertTrue(connection.getHeaderField("ETag").endsWith("-gzip\""));
+        assertTrue(connection.getContentLength() < SPEC.length());
+        assertEquals(SPEC, read(new GZIPInputStream(connection.getInputStream())));
+    }
+
+    public void testBinaryAssetsAreNotCompressed() throws Exception {
+        HttpURLConnection connection = open("/images/logo.png", "gzip", null);
+
+        assertEquals("image/png", connection.getHeaderField("Content-Type"));
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertNull(assets.get("/images/logo.png").getGzip());
+    }
+
+    public void testConditionalRequestsReturn304() throws Exception {
+        StaticAsset asset = assets.get("/swagger.json");
+
+        HttpURLConnection byEtag = open("/swagger.json", "gzip", asset.getGzipEtag());
+        assertEquals(304, byEtag.getResponseCode());
+
+        HttpURLConnection byDate = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/swagger.json").openConnection();
+        byDate.setIfModifiedSince(asset.getLastModified());
+        assertEquals(304, byDate.getResponseCode());
+    }
+
+    public void testUnknownPathAndMethod() throws Exception {
+        assertEquals(404, open("/missing.json", null, null).getResponseCode());
+
+        HttpURLConnection post = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/swagger.json").openConnection();
+        post.setRequestMethod("DELETE");
+        assertEquals(405, post.getResponseCode());
+    }
+
+    public void testWatchReloadsModifiedFile() throws Exception {
+        assets.watch();
+        Files.writeString(directory.resolve("swagger.json"), "{\"openapi\":\"3.1.0\"}");
+
+        // La escritura puede llegar en dos eventos (truncar y escribir): se espera al contenido final
+        awaitAsset("/swagger.json", "{\"openapi\":\"3.1.0\"}");
+        assertEquals("{\"openapi\":\"3.1.0\"}", read(open("/swagger.json", null, null).getInputStream()));
+    }
+
+    public void testWatchPublishesNewFilesAndDirectories() throws Exception {
+        assets.watch();
+        Files.write(directory.resolve("images/new.png"), new byte[]{'N', 'E', 'W'});
+        Files.createDirectories(directory.resolve("images/icons"));
+        awaitAsset("/images/new.png", "NEW");
+        Files.write(directory.resolve("images/icons/add.png"), new byte[]{'A', 'D', 'D'});
+        awaitAsset("/images/icons/add.png", "ADD");
+
+        assertEquals("NEW", read(open("/images/new.png", null, null).getInputStream()));
+        assertEquals("ADD", read(open("/images/icons/add.png", null, null).getInputStream()));
+    }
+
+    private void awaitAsset(String urlPath, String content) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            StaticAsset asset = assets.get(urlPath);
+            if (asset != null && content.equals(new String(asset.getIdentity(), StandardCharsets.UTF_8))) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private HttpURLConnection open(String path, String acceptEncoding, String ifNoneMatch) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        if (acceptEncoding != null) {
+            connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        return connection;
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try (InputStream input = in) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package app.apiRESTful;
+
+import app.apiRESTful.dao.ProductDAOSQL;
+import app.apiRESTful.dao.WriteBehindProductDAO;
+import app.apiRESTful.model.Product;
+import app.apiRESTful.model.StockRequest;
+import app.apiRESTful.model.StockResult;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.BatchUpdateException;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class WriteBehindTest extends TestCase {
+
+    private Path dir;
+    private FakeDAO db;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = Files.createTempDirectory("journal");
+        db = new FakeDAO();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+        super.tearDown();
+    }
+
+    public void testUpdatesAreCoalescedIntoOneBatch() throws Exception {
+        WriteBehindProductDAO dao = open();
+        for (int quantity = 1; quantity <= 5; quantity++) {
+            dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, quantity));
+        }
+        dao.updateProduct("b", new Product("b", "Regla", "30 cm", 2.0, 7));
+        assertTrue("Nada debería llegar a la base de datos antes del volcado", db.batches.isEmpty());
+        assertEquals(4, dao.getCoalesced());
+        assertEquals(2, dao.getPendingCount());
+
+        assertEquals(2, dao.flush());
+        assertEquals(1, db.batches.size());
+        assertEquals(5, find(db.batches.get(0), "a").getQuantity());
+        assertEquals(0, dao.getPendingCount());
+        assertEquals(0.0, dao.getOldestPendingSeconds());
+        assertEquals(0, dao.flush());
+    }
+
+    public void testReadsSeePendingUpdates() {
+        WriteBehindProductDAO dao = open();
+        dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 42));
+        assertEquals(42, dao.getProductById("a").getQuantity());
+        assertEquals(0, db.byIdCalls);
+        assertNull(dao.getProductById("zz"));
+        assertEquals(1, db.byIdCalls);
+    }
+
+    public void testJournalIsReplayedOnRestart() throws Exception {
+        WriteBehindProductDAO crashed = open();
+        crashed.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 3));
+        crashed.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 9));
+
+        // Un registro a medio escribir al final del diario se ignora
+        Path segment;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            segment = files.iterator().next();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        WriteBehindProductDAO restarted = open();
+        assertEquals(1, db.batches.size());
+        assertEquals(9, find(db.batches.get(0), "a").getQuantity());
+        assertEquals(0, restarted.getPendingCount());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            int segments = 0;
+            for (Path ignored : files) {
+                segments++;
+            }
+            assertEquals("Sólo debería quedar el segmento activo", 1, segments);
+        }
+    }
+
+    public void testJournalKeepsStringsOver64KB() throws Exception {
+        String description = "ñ".repeat(40_000); // 80 000 bytes en UTF-8
+        WriteBehindProductDAO crashed = open();
+        crashed.updateProduct("a", new Product("a", "Lápiz", description, 1.5, 3));
+
+        open();
+        assertEquals(1, db.batches.size());
+        assertEquals(description, find(db.batches.get(0), "a").getDescription());
+    }
+
+    public void testReplaySkipsCorruptRecordAndKeepsLaterOnes() throws Exception {
+        WriteBehindProductDAO crashed = open();
+        crashed.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 3));
+        Path segment;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            segment = files.iterator().next();
+        }
+        // Bytes sueltos en medio del segmento, seguidos de una actualización confirmada
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        crashed.updateProduct("b", new Product("b", "Regla", "30 cm", 2.0, 7));
+
+        open();
+        assertEquals(1, db.batches.size());
+        assertEquals(3, find(db.batches.get(0), "a").getQuantity());
+        assertEquals(7, find(db.batches.get(0), "b").getQuantity());
+    }
+
+    public void testFailedFlushKeepsUpdatesAndNewerOnesWin() throws Exception {
+        WriteBehindProductDAO dao = open();
+        dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 1));
+        db.fail = true;
+        try {
+            dao.flush();
+            fail("The flush should fail");
+        } catch (SQLException expected) {
+            // esperado
+        }
+        assertEquals(1, dao.getFailures());
+        assertEquals(1, dao.getPendingCount());
+        dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 2));
+
+        db.fail = false;
+        assertEquals(1, dao.flush());
+        assertEquals(2, find(db.batches.get(0), "a").getQuantity());
+    }
+
+    public void testRejectedRowIsDeadLetteredWithoutBlockingLaterFlushes() throws Exception {
+        WriteBehindProductDAO dao = open();
+        dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 1));
+        dao.updateProduct("bad", new Product("bad", "Regla", "Demasiado larga", 2.0, 1));
+        db.rejected = "bad";
+
+        assertEquals(1, dao.flush());
+        assertEquals(1, dao.getDeadLettered());
+        assertEquals("bad", dao.getDeadLetters().get(0).getId());
+        assertEquals(0, dao.getPendingCount());
+        assertEquals(1, find(db.batches.get(db.batches.size() - 1), "a").getQuantity());
+
+        dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 2));
+        assertEquals(1, dao.flush());
+        assertEquals(1, dao.getDeadLettered());
+    }
+
+    public void testTransientErrorDuringRowRetryKeepsTheRest() throws Exception {
+        WriteBehindProductDAO dao = open();
+        dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 1));
+        dao.updateProduct("bad", new Product("bad", "Regla", "Demasiado larga", 2.0, 1));
+        dao.updateProduct("c", new Product("c", "Goma", "Blanca", 0.5, 1));
+        db.rejected = "bad";
+        db.failAfterBatches = 1;
+        try {
+            dao.flush();
+            fail("The flush should fail");
+        } catch (SQLException expected) {
+            // esperado
+        }
+        assertEquals(0, dao.getDeadLettered());
+        assertEquals("bad y c siguen pendientes", 2, dao.getPendingCount());
+    }
+
+    public void testStockChangesFlushPendingUpdatesFirst() throws Exception {
+        WriteBehindProductDAO dao = open();
+        dao.updateProduct("a", new Product("a", "Lápiz", "Grafito", 1.5, 10));
+        dao.reserveStock(Collections.singletonList(new StockRequest("b", 1)));
+        assertTrue("Otro producto no obliga a volcar", db.batches.isEmpty());
+
+        dao.reserveStock(Collections.singletonList(new StockRequest("a", 1)));
+        assertEquals(1, db.batches.size());
+        assertEquals(Arrays.asList("reserve", "flush", "reserve"), db.calls);
+    }
+
+    private WriteBehindProductDAO open() {
+        try {
+            WriteBehindProductDAO dao = new WriteBehindProductDAO(db, dir, false, 1000, 100);
+            dao.recover();
+            return dao;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Product find(List<Product> products, String id) {
+        for (Product product : products) {
+            if (product.getId().equals(id)) {
+                return product;
+            }
+        }
+        throw new AssertionError("Missing product " + id);
+    }
+
+    /**
+     * DAO falso que registra los volcados en lugar de escribir en la base de datos.
+     */
+    private static class FakeDAO extends ProductDAOSQL {
+        private final List<List<Product>> batches = new ArrayList<>();
+        private final List<String> calls = new ArrayList<>();
+        private int byIdCalls;
+        private boolean fail;
+        // Fila que la base de datos rechaza siempre
+        private String rejected;
+        // Lotes que se aceptan antes de perder la conexión (-1: sin límite)
+        private int failAfterBatches = -1;
+
+        @Override
+        public int updateProducts(List<Product> products, int chunkSize) throws SQLException {
+            if (fail || failAfterBatches == 0) {
+                throw new SQLException("Database unavailable");
+            }
+            for (Product product : products) {
+                if (product.getId().equals(rejected)) {
+                    throw new BatchUpdateException("Data too long for column 'description'", "22001", 1406,
+                            new int[0], new SQLDataException("Data too long", "22001"));
+                }
+            }
+            if (failAfterBatches > 0) {
+                failAfterBatches--;
+            }
+            batches.add(new ArrayList<>(products));
+            calls.add("flush");
+            return products.size();
+        }
+
+        @Override
+        public Product getProductById(String id) {
+            byIdCalls++;
+            return null;
+        }
+
+        @Override
+        public List<StockResult> reserveStock(List<StockRequest> items) {
+            calls.add("reserve");
+            return Collections.singletonList(new StockResult(items.get(0).getId(), StockResult.Status.OK, 0));
+        }
+    }
+}